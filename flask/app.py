@@ -4,7 +4,7 @@ from gevent import monkey
 monkey.patch_all()  # <-- must come first, before any other imports
 
 from flask import Flask, request, jsonify, send_from_directory, render_template_string
-import os, time, threading, tempfile, subprocess, sys
+import os, time, threading, tempfile, subprocess, sys, struct, json
 from flask_socketio import SocketIO, emit
 
 # === timestamped printing ===
@@ -68,15 +68,27 @@ def upload_file():
     if file.filename == "":
         return jsonify({"error": "No selected file"}), 400
 
-    base_name = os.path.splitext(file.filename)[0]
-    filepath = os.path.join(UPLOAD_FOLDER, base_name + ".png")
-    file.save(filepath)
-
-    tprint(f"[IMAGE UPLOADED] {filepath}")
+    fmt = request.form.get("format", "JPEG")
+    width = int(request.form.get("width", 0))
+    height = int(request.form.get("height", 0))
+    data = file.read()
+    if fmt == "LUMA" and (width <= 0 or height <= 0 or len(data) != width * height):
+        return jsonify({"error": "bad luma frame size"}), 400
+
+    header = {"format": fmt, "seq": int(request.form.get("seq", 0)), "ts": int(request.form.get("ts", 0)),
+              "width": width, "height": height, "scale": int(request.form.get("scale", 1)),
+              "roi_x": int(request.form.get("roi_x", 0)), "roi_y": int(request.form.get("roi_y", 0)),
+              "src_width": int(request.form.get("src_width", width)),
+              "src_height": int(request.form.get("src_height", height))}
+    # frames stay in memory; instructions come back to the session's socket when the batch completes
+    session = _session(request.form.get("session") or request.remote_addr)
+    if not _enqueue_frame(session, header, data):
+        return jsonify({"error": "session busy"}), 429
     return "2"
 
 @app.route('/Server', methods=["GET"])
 def list_images():
+    # only the frames sampled by the debug sink (DEBUG_SINK_EVERY) are on disk
     files = os.listdir(UPLOAD_FOLDER)
     html = "<h1>Uploaded Images</h1>"
     for f in files:
@@ -112,51 +124,139 @@ def stt_audio_status():
         "backend": "faster-whisper",
         "model": WHISPER_MODEL,
         "device": WHISPER_DEVICE,
-        "compute_type": WHISPER_COMPUTE
+        "compute_type": WHISPER_COMPUTE,
+        "voice_streams": len(_voice_sessions),
+        "pool": _stt_pool.status() if _stt_pool else None
     })
 
 import multiprocessing as mp
+import queue
+from gevent.threadpool import ThreadPool
+
+STT_WORKERS = int(os.environ.get("STT_WORKERS", "2"))        # warm Whisper processes
+STT_QUEUE_SIZE = int(os.environ.get("STT_QUEUE_SIZE", "8"))  # clips waiting beyond this get 503
 
 def _worker_tprint(*args, **kwargs):
     ts = datetime.now().strftime("%Y-%m-%d %H:%M:%S")
     print(f"[{ts}]", *args, **kwargs)
 
-def _transcribe_process_entry(audio_path: str):
+def _transcribe_file(model, audio_path: str, vad_filter: bool = True) -> str:
     try:
-        local_model = WhisperModel(
-            WHISPER_MODEL,
-            device=WHISPER_DEVICE,
-            compute_type=WHISPER_COMPUTE
+        segments, info = model.transcribe(
+            audio_path,
+            language=None,
+            vad_filter=vad_filter,
+            beam_size=1
         )
-
-        try:
-            segments, info = local_model.transcribe(
-                audio_path,
+        return " ".join(seg.text.strip() for seg in segments if seg.text).strip()
+    except Exception:
+        with tempfile.TemporaryDirectory() as td:
+            wav_path = os.path.join(td, "audio_16k.wav")
+            _to_wav_16k_mono(audio_path, wav_path)
+            segments, info = model.transcribe(
+                wav_path,
                 language=None,
-                vad_filter=True,
+                vad_filter=vad_filter,
                 beam_size=1
             )
-            text = " ".join(seg.text.strip() for seg in segments if seg.text).strip()
-        except Exception:
-            with tempfile.TemporaryDirectory() as td:
-                wav_path = os.path.join(td, "audio_16k.wav")
-                _to_wav_16k_mono(audio_path, wav_path)
-                segments, info = local_model.transcribe(
-                    wav_path,
-                    language=None,
-                    vad_filter=True,
-                    beam_size=1
-                )
-                text = " ".join(seg.text.strip() for seg in segments if seg.text).strip()
-
-        # ✅ ONLY transcribed text is printed
-        _worker_tprint(f"[STT_AUDIO] {text}", flush=True)
-
-    finally:
+            return " ".join(seg.text.strip() for seg in segments if seg.text).strip()
+
+def _stt_worker_entry(worker_id, jobs, results):
+    """Long-lived transcription process. Spawn re-imports this module, which already loaded whisper_model."""
+    results.put(("ready", worker_id, None))
+    while True:
+        job = jobs.get()
+        if job is None:
+            break
+        job_id, audio_path, room, enqueued_at, vad_filter = job
+        started = time.time()
+        text, error = "", None
+        try:
+            text = _transcribe_file(whisper_model, audio_path, vad_filter)
+            # ✅ ONLY transcribed text is printed
+            _worker_tprint(f"[STT_AUDIO] {text}", flush=True)
+        except Exception as e:
+            error = str(e)
+        finally:
+            try:
+                os.remove(audio_path)
+            except Exception:
+                pass
+        results.put(("done", worker_id, {
+            "id": job_id, "room": room, "text": text, "error": error,
+            "wait_s": started - enqueued_at, "decode_s": time.time() - started,
+        }))
+
+class SttPool:
+    """Fixed set of warm worker processes behind a bounded job queue; results go back over Socket.IO."""
+
+    def __init__(self, workers, queue_size):
+        self.workers = workers
+        self.queue_size = queue_size
+        self.jobs = mp.Queue(queue_size)
+        self.results = mp.Queue()
+        self.procs = []
+        self.ready = 0
+        self.next_id = 0
+        self.stats = {"submitted": 0, "completed": 0, "failed": 0, "rejected": 0,
+                      "wait_s_sum": 0.0, "wait_s_max": 0.0, "decode_s_sum": 0.0, "decode_s_max": 0.0}
+        self._reader = ThreadPool(1)   # blocks on the result pipe off the event loop
+
+    def start(self):
+        for i in range(self.workers):
+            p = mp.Process(target=_stt_worker_entry, args=(i, self.jobs, self.results), daemon=True)
+            p.start()
+            self.procs.append(p)
+        socketio.start_background_task(self._collect)
+
+    def submit(self, audio_path, room, vad_filter=True):
+        self.next_id += 1
         try:
-            os.remove(audio_path)
-        except Exception:
-            pass
+            self.jobs.put_nowait((self.next_id, audio_path, room, time.time(), vad_filter))
+        except queue.Full:
+            self.stats["rejected"] += 1
+            return None
+        self.stats["submitted"] += 1
+        return self.next_id
+
+    def _collect(self):
+        while True:
+            kind, worker_id, result = self._reader.apply(self.results.get)
+            if kind == "ready":
+                self.ready += 1
+                tprint(f"[STT] worker {worker_id} ready ({self.ready}/{self.workers})")
+                continue
+            st = self.stats
+            st["failed" if result["error"] else "completed"] += 1
+            st["wait_s_sum"] += result["wait_s"]
+            st["wait_s_max"] = max(st["wait_s_max"], result["wait_s"])
+            st["decode_s_sum"] += result["decode_s"]
+            st["decode_s_max"] = max(st["decode_s_max"], result["decode_s"])
+            if result["room"]:
+                socketio.emit("transcript", {"id": result["id"], "text": result["text"], "final": True,
+                                             "source": "clip", "error": result["error"]}, to=result["room"])
+
+    def status(self):
+        st = self.stats
+        done = st["completed"] + st["failed"]
+        mean = lambda key: round(1000 * st[key] / done, 1) if done else 0.0
+        return {
+            "workers": self.workers, "ready": self.ready, "queue_size": self.queue_size,
+            "in_progress_or_queued": st["submitted"] - done,
+            "submitted": st["submitted"], "completed": st["completed"],
+            "failed": st["failed"], "rejected": st["rejected"],
+            "mean_wait_ms": mean("wait_s_sum"), "max_wait_ms": round(1000 * st["wait_s_max"], 1),
+            "mean_decode_ms": mean("decode_s_sum"), "max_decode_ms": round(1000 * st["decode_s_max"], 1),
+        }
+
+_stt_pool = None
+
+def _get_stt_pool():
+    global _stt_pool
+    if _stt_pool is None:
+        _stt_pool = SttPool(STT_WORKERS, STT_QUEUE_SIZE)
+        _stt_pool.start()
+    return _stt_pool
 
 @app.route("/stt_audio", methods=["POST"])
 def stt_audio():
@@ -176,39 +276,510 @@ def stt_audio():
     # ✅ SINGLE print when audio is received
     tprint("[AUDIO RECEIVED]")
 
-    p = mp.Process(
-        target=_transcribe_process_entry,
-        args=(src_path,),
-        daemon=True
-    )
-    p.start()
+    # the transcript is pushed back to the session's socket, if the upload names one
+    session_id = request.form.get("session")
+    # vad=device: the glasses already cut the clip to the speech, so skip Whisper's VAD pass
+    vad_filter = request.form.get("vad") != "device"
+    job_id = _get_stt_pool().submit(src_path, _session(session_id).room if session_id else None, vad_filter)
+    if job_id is None:
+        os.remove(src_path)
+        return jsonify({"queued": False, "error": "transcription queue full"}), 503
+
+    return jsonify({"queued": True, "id": job_id})
+
+# ---------------------------
+# Streaming voice (Socket.IO)
+# ---------------------------
+
+import numpy as np
+from gevent.queue import Queue as GeventQueue
+
+VOICE_SAMPLE_RATE = 16000                 # PCM s16le mono, matches VoiceStreamer on the glasses
+VOICE_BYTES_PER_S = VOICE_SAMPLE_RATE * 2
+VOICE_PARTIAL_EVERY_S = float(os.environ.get("VOICE_PARTIAL_EVERY_S", "1.0"))
+VOICE_COMMIT_MARGIN_S = 1.0               # segments ending this long before the buffer end won't change
+
+class VoiceSession:
+    """One utterance from one client. Only committed text is dropped from the PCM buffer."""
+
+    def __init__(self, sid, stream_id):
+        self.sid = sid
+        self.stream_id = stream_id
+        self.pcm = bytearray()        # audio after the last committed segment
+        self.committed = []           # texts of segments that will not change any more
+        self.new_bytes = 0            # received since the last queued pass
+        self.next_seq = 0
+        self.queued = False
+        self.ended = False
+        self.started = time.time()
+
+_voice_sessions = {}                      # (sid, stream id) -> VoiceSession
+_voice_jobs = GeventQueue()
+_voice_decoder = ThreadPool(1)            # native thread: decoding releases the GIL, the loop keeps serving
+_voice_worker = None
+
+def _decode_pcm(pcm: bytes):
+    audio = np.frombuffer(pcm, dtype=np.int16).astype(np.float32) / 32768.0
+    segments, info = whisper_model.transcribe(audio, language=None, vad_filter=True, beam_size=1)
+    return [(seg.end, seg.text.strip()) for seg in segments if seg.text.strip()]
+
+def _queue_voice(session):
+    if not session.queued:
+        session.queued = True
+        session.new_bytes = 0
+        _voice_jobs.put(session)
+
+def _voice_worker_loop():
+    """Long-lived worker: re-decodes each session's uncommitted tail as chunks arrive."""
+    while True:
+        session = _voice_jobs.get()
+        session.queued = False
+        final = session.ended
+        n = len(session.pcm)
+        try:
+            segments = _voice_decoder.apply(_decode_pcm, (bytes(session.pcm[:n]),)) if n else []
+        except Exception as e:
+            tprint(f"[VOICE] decode failed for stream {session.stream_id}: {e}")
+            segments = []
+
+        if final and n == len(session.pcm):
+            text = " ".join(session.committed + [t for _, t in segments]).strip()
+            _voice_sessions.pop((session.sid, session.stream_id), None)
+            tprint(f"[STT_STREAM] {text} ({time.time() - session.started:.1f}s)")
+            socketio.emit("transcript", {"id": session.stream_id, "text": text, "final": True}, to=session.sid)
+            continue
+
+        # commit segments that ended well before the audio we have, then trim them away
+        horizon = n / VOICE_BYTES_PER_S - VOICE_COMMIT_MARGIN_S
+        commit_end = 0.0
+        pending = []
+        for end, text in segments:
+            if end <= horizon and not pending:
+                session.committed.append(text)
+                commit_end = end
+            else:
+                pending.append(text)
+        if commit_end > 0:
+            del session.pcm[:int(commit_end * VOICE_SAMPLE_RATE) * 2]
+
+        partial = " ".join(session.committed + pending).strip()
+        socketio.emit("transcript", {"id": session.stream_id, "text": partial, "final": False}, to=session.sid)
+        if session.ended:
+            _queue_voice(session)     # voice_end arrived while decoding
+
+def _ensure_voice_worker():
+    global _voice_worker
+    if _voice_worker is None:
+        _voice_worker = socketio.start_background_task(_voice_worker_loop)
+
+@socketio.on("voice_start")
+def on_voice_start(data):
+    if int(data.get("sample_rate", 0)) != VOICE_SAMPLE_RATE or data.get("encoding") != "pcm_s16le":
+        return {"ok": False, "error": "expected 16 kHz pcm_s16le"}
+    stream_id = int(data.get("id", 0))
+    _voice_sessions[(request.sid, stream_id)] = VoiceSession(request.sid, stream_id)
+    _ensure_voice_worker()
+    return {"ok": True}
+
+@socketio.on("voice_chunk")
+def on_voice_chunk(stream_id, seq, data):
+    session = _voice_sessions.get((request.sid, int(stream_id)))
+    if session is None or session.ended:
+        return
+    if seq != session.next_seq:
+        tprint(f"[VOICE] stream {stream_id}: chunk {seq}, expected {session.next_seq}")
+    session.next_seq = seq + 1
+    session.pcm += data
+    session.new_bytes += len(data)
+    if session.new_bytes >= VOICE_PARTIAL_EVERY_S * VOICE_BYTES_PER_S:
+        _queue_voice(session)
+
+@socketio.on("voice_end")
+def on_voice_end(data):
+    session = _voice_sessions.get((request.sid, int(data.get("id", 0))))
+    if session is None:
+        return
+    session.ended = True
+    _queue_voice(session)
+
+# ---------------------------
+# Binary frame stream (Socket.IO)
+# ---------------------------
+
+# Must match FrameHeader.java: magic, version, format, seq, capture ts (ns), width, height (of the payload)
+FRAME_HEADER = struct.Struct(">2sBBIqHH")
+# Version 2 adds where the payload came from: scale, pad, region left/top, source width/height
+FRAME_REGION = struct.Struct(">BxHHHH")
+FRAME_FORMATS = {1: "JPEG", 2: "LUMA"}
+
+def _parse_frame(data: bytes):
+    if len(data) < FRAME_HEADER.size:
+        raise ValueError("short frame")
+    magic, version, fmt, seq, ts, width, height = FRAME_HEADER.unpack_from(data)
+    if magic != b"BF" or version not in (1, 2):
+        raise ValueError("bad frame header")
+    if fmt not in FRAME_FORMATS:
+        raise ValueError(f"unknown format {fmt}")
+    header = {"format": FRAME_FORMATS[fmt], "seq": seq, "ts": ts, "width": width, "height": height,
+              "scale": 1, "roi_x": 0, "roi_y": 0, "src_width": width, "src_height": height}
+    offset = FRAME_HEADER.size
+    if version == 2:
+        if len(data) < offset + FRAME_REGION.size:
+            raise ValueError("short frame")
+        scale, roi_x, roi_y, src_w, src_h = FRAME_REGION.unpack_from(data, offset)
+        header.update(scale=scale, roi_x=roi_x, roi_y=roi_y, src_width=src_w, src_height=src_h)
+        offset += FRAME_REGION.size
+    payload = memoryview(data)[offset:]
+    if FRAME_FORMATS[fmt] == "LUMA" and len(payload) != width * height:
+        raise ValueError("bad luma frame size")
+    return header, payload
+
+@socketio.on("frame")
+def on_frame(data):
+    try:
+        header, payload = _parse_frame(bytes(data))
+    except ValueError as e:
+        return {"ok": False, "error": str(e)}
+    if not _enqueue_frame(_socket_session(request.sid), header, payload):
+        return {"ok": False, "seq": header["seq"], "error": "session busy"}  # client backs off
+    return {"ok": True, "seq": header["seq"]}  # ack; the client waits for it before the next frame
+
+# Must match FrameBatch.java: magic "BB", version, frame count; then per frame a 4-byte length and
+# a binary frame as above (header + payload)
+FRAME_BATCH_HEADER = struct.Struct(">2sBB")
+FRAME_BATCH_ENTRY = struct.Struct(">I")
+
+def _parse_batch(data: bytes):
+    """Container -> [(header, payload)], oldest first; payloads are views of data, not copies."""
+    if len(data) < FRAME_BATCH_HEADER.size:
+        raise ValueError("short batch")
+    magic, version, count = FRAME_BATCH_HEADER.unpack_from(data)
+    if magic != b"BB" or version != 1:
+        raise ValueError("bad batch header")
+    view = memoryview(data)
+    offset = FRAME_BATCH_HEADER.size
+    frames = []
+    for _ in range(count):
+        if len(data) < offset + FRAME_BATCH_ENTRY.size:
+            raise ValueError("short batch")
+        (length,) = FRAME_BATCH_ENTRY.unpack_from(data, offset)
+        offset += FRAME_BATCH_ENTRY.size
+        if offset + length > len(data):
+            raise ValueError(f"bad entry length {length}")
+        frames.append(_parse_frame(view[offset:offset + length]))
+        offset += length
+    return frames
+
+@app.route('/Server/batch', methods=["POST"])
+def upload_batch():
+    # the body is the bare container: read into memory and sliced, no multipart parsing or temp files
+    try:
+        frames = _parse_batch(request.get_data(cache=False))
+    except ValueError as e:
+        return jsonify({"error": str(e)}), 400
+    if not frames:
+        return jsonify({"error": "empty batch"}), 400
+    session = _session(request.args.get("session") or request.remote_addr)
+    if not _enqueue_frames(session, frames):
+        return jsonify({"error": "session busy"}), 429
+    return jsonify({"ok": True, "frames": len(frames), "seq": frames[-1][0]["seq"]})
+
+# ---------------------------
+# Frame rings + batched inference
+# ---------------------------
 
-    return jsonify({"queued": True})
+import gevent
+from collections import OrderedDict, deque
+from gevent.event import Event
+
+FRAME_RING_SIZE = int(os.environ.get("FRAME_RING_SIZE", "8"))        # un-inferred frames kept per session
+BATCH_MAX = int(os.environ.get("BATCH_MAX", "8"))                    # sessions per inference call
+BATCH_MAX_WAIT_MS = float(os.environ.get("BATCH_MAX_WAIT_MS", "20")) # wait for other sessions' frames
+DEBUG_SINK_EVERY = int(os.environ.get("DEBUG_SINK_EVERY", "0"))      # write every Nth frame to uploads/; 0 = off
+
+# Fair scheduling: a session is queued once however many frames it sends, each batch takes the
+# ring of the sessions that have waited longest, and a served session goes to the back.
+_pending_sessions = OrderedDict() # session id -> True, oldest waiting first
+_frame_ready = Event()
+_infer_pool = ThreadPool(1)      # decode + model run off the event loop
+_batch_worker = None
+_frames_in = 0
+_batch_stats = {"batches": 0, "frames": 0, "answered": 0, "superseded": 0, "rejected": 0, "sampled_to_disk": 0,
+                "wait_s_sum": 0.0, "infer_s_sum": 0.0, "infer_s_max": 0.0}
+
+def _enqueue_frame(session, header, payload):
+    """Queues a frame for inference; returns False when the session is over its backlog."""
+    return _enqueue_frames(session, [(header, payload)])
+
+def _enqueue_frames(session, frames):
+    """Queues the frames of one request on the session's ring, oldest first: a batch from
+    /Server/batch reaches the model as (part of) one clip and is answered with one instruction,
+    for its newest frame. Counts once against the session's backlog. Returns False when the
+    session is over it."""
+    global _frames_in, _batch_worker
+    if session.backlog >= SESSION_MAX_BACKLOG:
+        session.stats["rejected"] += 1
+        _batch_stats["rejected"] += 1
+        return False
+    session.stats["frames_in"] += len(frames)
+    session.backlog += 1
+    arrived = time.monotonic()
+    superseded = 0
+    for header, payload in frames:
+        if len(session.ring) == session.ring.maxlen:
+            superseded += 1   # the oldest un-inferred frame falls out of the ring
+        session.ring.append({"header": header, "payload": payload, "arrived": arrived})
+    if session.id not in _pending_sessions:
+        _pending_sessions[session.id] = True
+    session.stats["superseded"] += superseded
+    _batch_stats["superseded"] += superseded
+    _frame_ready.set()
+
+    for header, payload in frames:
+        _frames_in += 1
+        if DEBUG_SINK_EVERY and _frames_in % DEBUG_SINK_EVERY == 0:
+            _batch_stats["sampled_to_disk"] += 1
+            gevent.get_hub().threadpool.spawn(_write_debug_frame, header, bytes(payload))
+    if _batch_worker is None:
+        _batch_worker = socketio.start_background_task(_batch_loop)
+    return True
+
+def _write_debug_frame(header, payload):
+    name = f"frame_{header['seq']}_{int(time.time() * 1000)}"
+    if header["format"] == "LUMA":
+        # raw Y plane from the glasses -> binary PGM (P5) so it opens in any viewer
+        with open(os.path.join(UPLOAD_FOLDER, name + ".pgm"), "wb") as out:
+            out.write(f"P5\n{header['width']} {header['height']}\n255\n".encode("ascii"))
+            out.write(payload)
+    else:
+        with open(os.path.join(UPLOAD_FOLDER, name + ".jpg"), "wb") as out:
+            out.write(payload)
+
+def _decode(header, payload):
+    """Payload -> HxW uint8 gray array at the size it was sent (region, downscaled)."""
+    if header["format"] == "LUMA":
+        return np.frombuffer(payload, dtype=np.uint8).reshape(header["height"], header["width"])
+    try:
+        from PIL import Image
+        import io
+        return np.asarray(Image.open(io.BytesIO(payload)).convert("L"))
+    except ImportError:
+        return None   # no decoder installed; the model stub does not need pixels
+
+def _model_input(header, image):
+    """Puts a decoded payload back into source geometry, so the model always sees the same shape:
+    a src_height x src_width gray frame, upsampled (nearest) from downscaled modes and black
+    outside the region that was sent."""
+    if image is None:
+        return None
+    scale = header.get("scale", 1)
+    if scale > 1:
+        image = image.repeat(scale, axis=0).repeat(scale, axis=1)
+    src_h, src_w = header.get("src_height", image.shape[0]), header.get("src_width", image.shape[1])
+    if image.shape == (src_h, src_w):
+        return image
+    x, y = header.get("roi_x", 0), header.get("roi_y", 0)
+    h, w = min(image.shape[0], src_h - y), min(image.shape[1], src_w - x)
+    canvas = np.zeros((src_h, src_w), dtype=np.uint8)
+    canvas[y:y + h, x:x + w] = image[:h, :w]
+    return canvas
+
+def _infer_batch(clips):
+    """Runs the model once for the whole batch: one clip per session, its frames oldest first.
+    Returns one instruction code per clip, for its newest frame."""
+    images = [[_model_input(f["header"], _decode(f["header"], f["payload"])) for f in clip] for clip in clips]
+    # model hook: replace with the navigation model; keeps the previous fixed "2" until then
+    return ["2" for _ in images]
+
+def _batch_loop():
+    while True:
+        _frame_ready.wait()
+        # give other sessions up to BATCH_MAX_WAIT_MS to join a batch that is not full yet
+        deadline = time.monotonic() + BATCH_MAX_WAIT_MS / 1000
+        while len(_pending_sessions) < BATCH_MAX:
+            remaining = deadline - time.monotonic()
+            if remaining <= 0:
+                break
+            _frame_ready.clear()
+            _frame_ready.wait(remaining)
+
+        batch = []
+        while _pending_sessions and len(batch) < BATCH_MAX:
+            session = _sessions.get(_pending_sessions.popitem(last=False)[0])
+            if session is not None and session.ring:
+                batch.append((session, list(session.ring)))   # the frames since its last inference
+                session.ring.clear()
+                session.backlog = 0
+        if not _pending_sessions:
+            _frame_ready.clear()
+        if not batch:
+            continue
+
+        # at most BATCH_MAX clips of at most FRAME_RING_SIZE frames each
+        clips = [clip for _, clip in batch]
+        started = time.monotonic()
+        try:
+            codes = _infer_pool.apply(_infer_batch, (clips,))
+        except Exception as e:
+            tprint(f"[BATCH] inference failed: {e}")
+            continue
+        infer_s = time.monotonic() - started
+
+        st = _batch_stats
+        st["batches"] += 1
+        st["frames"] += sum(len(clip) for clip in clips)
+        st["infer_s_sum"] += infer_s
+        st["infer_s_max"] = max(st["infer_s_max"], infer_s)
+
+        for (session, clip), code in zip(batch, codes):
+            entry = clip[-1]
+            wait_s = started - entry["arrived"]
+            st["answered"] += 1
+            st["wait_s_sum"] += wait_s
+            session.stats["inferred"] += 1
+            session.stats["wait_s_sum"] += wait_s
+            session.stats["wait_s_max"] = max(session.stats["wait_s_max"], wait_s)
+            payload = {"code": code, "frame_id": entry["header"]["seq"], "frame_ts": entry["header"]["ts"]}
+            socketio.emit("instruction", payload, to=session.room)  # only this session's sockets
+
+@app.route("/batch_stats", methods=["GET"])
+def batch_stats():
+    st = _batch_stats
+    n, b = st["frames"], st["batches"]
+    return jsonify({
+        "sessions": len(_sessions), "frames_in": _frames_in, "pending_sessions": len(_pending_sessions),
+        "batches": b, "frames_inferred": n, "superseded": st["superseded"], "rejected": st["rejected"],
+        "sampled_to_disk": st["sampled_to_disk"],
+        "mean_batch_size": round(n / b, 2) if b else 0.0, "mean_batch_sessions": round(st["answered"] / b, 2) if b else 0.0,
+        "mean_wait_ms": round(1000 * st["wait_s_sum"] / st["answered"], 1) if st["answered"] else 0.0,
+        "mean_infer_ms": round(1000 * st["infer_s_sum"] / b, 1) if b else 0.0,
+        "max_infer_ms": round(1000 * st["infer_s_max"], 1),
+        "ring_size": FRAME_RING_SIZE, "batch_max": BATCH_MAX, "batch_max_wait_ms": BATCH_MAX_WAIT_MS,
+        "session_max_backlog": SESSION_MAX_BACKLOG,
+    })
 
 # ---------------------------
-# Socket.IO (unchanged)
+# Sessions
 # ---------------------------
 
-_broadcast_thread = None
-_stop_flag = False
+# A session is one pair of glasses. It outlives reconnects: the client registers the same id on
+# every connect, and its socket joins the session's room, so results follow it to the new socket.
+
+from flask_socketio import join_room
+
+SESSION_MAX_BACKLOG = int(os.environ.get("SESSION_MAX_BACKLOG", "3"))  # un-inferred frames before we push back
+
+class Session:
+    def __init__(self, session_id):
+        self.id = session_id
+        self.room = f"session:{session_id}"
+        self.sid = None                   # current socket, None while disconnected / HTTP only
+        self.ring = deque(maxlen=FRAME_RING_SIZE)
+        self.backlog = 0                  # frames received since the last one was inferred
+        self.payload_mode = None          # what the client last reported or was told to send
+        self.stats = {"frames_in": 0, "inferred": 0, "superseded": 0, "rejected": 0,
+                      "wait_s_sum": 0.0, "wait_s_max": 0.0}
+
+    def status(self):
+        st = self.stats
+        n = st["inferred"]
+        return {"connected": self.sid is not None, "backlog": self.backlog, "payload_mode": self.payload_mode,
+                "frames_in": st["frames_in"], "inferred": n, "superseded": st["superseded"],
+                "rejected": st["rejected"],
+                "mean_wait_ms": round(1000 * st["wait_s_sum"] / n, 1) if n else 0.0,
+                "max_wait_ms": round(1000 * st["wait_s_max"], 1)}
+
+_sessions = {}                   # session id -> Session
+_sid_sessions = {}               # socket sid -> session id
+
+def _session(session_id):
+    session = _sessions.get(session_id)
+    if session is None:
+        session = _sessions[session_id] = Session(session_id)
+    return session
+
+def _socket_session(sid):
+    # unregistered sockets get a session of their own, keyed by sid (every sid is also a room)
+    session_id = _sid_sessions.get(sid)
+    if session_id is None:
+        session = _session(sid)
+        session.room = sid
+        session.sid = sid
+        return session
+    return _sessions[session_id]
+
+@socketio.on("register")
+def on_register(data):
+    session_id = str(data.get("session", "")).strip()
+    if not session_id:
+        return {"ok": False, "error": "missing session"}
+    _sid_sessions[request.sid] = session_id
+    session = _session(session_id)
+    session.sid = request.sid
+    join_room(session.room)
+    session.payload_mode = data.get("payload_mode", session.payload_mode)
+    tprint(f"[SESSION] {session_id} on {request.sid} mode={session.payload_mode}")
+    if DEFAULT_PAYLOAD_MODE and session.payload_mode != DEFAULT_PAYLOAD_MODE:
+        _set_payload_mode(session, DEFAULT_PAYLOAD_MODE)
+    return {"ok": True}
+
+# {"format": "JPEG"|"LUMA", "scale": 1|2|4, "roi": "full"|"center"|"lower"|[left, top, right, bottom]}
+# Fractions of the upright frame; keys left out keep the client's current value.
+DEFAULT_PAYLOAD_MODE = json.loads(os.environ.get("PAYLOAD_MODE", "null"))   # pushed to every client on register
+PAYLOAD_ROIS = ("full", "center", "lower")
+
+def _valid_payload_mode(mode):
+    if not isinstance(mode, dict):
+        return False
+    roi = mode.get("roi", "full")
+    roi_ok = roi in PAYLOAD_ROIS or (isinstance(roi, list) and len(roi) == 4
+                                     and all(isinstance(v, (int, float)) and 0 <= v <= 1 for v in roi))
+    return mode.get("format", "JPEG") in FRAME_FORMATS.values() and mode.get("scale", 1) in (1, 2, 4) and roi_ok
+
+def _set_payload_mode(session, mode):
+    # takes effect from the client's next captured frame; frames in flight keep their own header
+    socketio.emit("payload_mode", mode, to=session.room)
+    session.payload_mode = mode
+
+@app.route("/sessions/<session_id>/payload_mode", methods=["POST"])
+def set_payload_mode(session_id):
+    session = _sessions.get(session_id)
+    if session is None:
+        return jsonify({"error": "unknown session"}), 404
+    mode = request.get_json(silent=True)
+    if not _valid_payload_mode(mode):
+        return jsonify({"error": "bad payload mode"}), 400
+    _set_payload_mode(session, mode)
+    return jsonify({"ok": True, "payload_mode": mode})
+
+@app.route("/sessions", methods=["GET"])
+def sessions_status():
+    return jsonify({s.id: s.status() for s in list(_sessions.values())})
 
-def broadcaster():
-    while not _stop_flag:
-        socketio.emit("instruction", {"code": "2"})
-        time.sleep(1)
+# ---------------------------
+# Socket.IO
+# ---------------------------
 
 @socketio.on("connect")
 def on_connect():
     tprint("Client connected!")
     emit("instruction", {"code": "1"})
-    global _broadcast_thread
-    if _broadcast_thread is None:
-        _broadcast_thread = threading.Thread(target=broadcaster, daemon=True)
-        _broadcast_thread.start()
 
 @socketio.on("disconnect")
 def on_disconnect():
     tprint("Client disconnected.")
+    for key in [k for k in _voice_sessions if k[0] == request.sid]:
+        del _voice_sessions[key]
+    session_id = _sid_sessions.pop(request.sid, request.sid)
+    session = _sessions.get(session_id)
+    if session is not None and session.sid == request.sid:
+        # keep the counters for /sessions; drop frames nobody is waiting for
+        session.sid = None
+        session.ring.clear()
+        session.backlog = 0
+        _pending_sessions.pop(session_id, None)
+        if session_id == request.sid:
+            del _sessions[session_id]   # unregistered socket: nothing to come back to
 
 if __name__ == "__main__":
     try:
@@ -216,5 +787,6 @@ if __name__ == "__main__":
     except Exception:
         pass
 
+    _get_stt_pool()   # load the models now, not on the first voice command
     tprint("Starting Flask-SocketIO server with gevent WebSocket support...")
     socketio.run(app, host="0.0.0.0", port=5000, debug=False, use_reloader=False)
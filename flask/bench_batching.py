@@ -0,0 +1,141 @@
+# bench_batching.py — one multipart POST per frame vs K frames per POST to /Server/batch
+#
+# Start the server first (python app.py), then:
+#   python bench_batching.py --batches 1,2,4,8 --fps 10 --seconds 15
+#
+# Batch size 1 is today's upload (multipart /Server); larger sizes pack K frames into the
+# FrameBatch container and flush when K have accumulated or the oldest has waited --max-wait-ms,
+# like FrameBatcher on the glasses. For each size it reports requests/s, bytes on the wire
+# (request line + headers + body) and frame -> instruction latency. The server runs the model
+# once over a batch's frames as one clip and answers with one instruction for its newest frame,
+# so a frame's latency runs until the first instruction for it or a later frame.
+
+import argparse, os, struct, threading, time
+from urllib.parse import urlsplit
+
+import requests
+import socketio
+
+# Same layouts as FrameHeader.java / FrameBatch.java and FRAME_HEADER / FRAME_BATCH_HEADER in app.py
+FRAME_HEADER = struct.Struct(">2sBBIqHHBxHHHH")
+FRAME_BATCH_HEADER = struct.Struct(">2sBB")
+FRAME_BATCH_ENTRY = struct.Struct(">I")
+FORMAT_JPEG = 1
+
+class Run:
+    def __init__(self, url, batch, fps, seconds, max_wait, payload):
+        self.url = url
+        self.batch = batch
+        self.interval = 1.0 / fps
+        self.seconds = seconds
+        self.max_wait = max_wait
+        self.payload = payload
+        self.session = f"bench-batch-{batch}-{os.getpid()}"
+        self.http = requests.Session()
+        self.pending = {}          # seq -> perf_counter at capture, until an instruction covers it
+        self.latencies = []
+        self.requests = self.frames = self.wire_bytes = self.rejected = 0
+        self.lock = threading.Lock()
+        self.sio = socketio.Client()
+        self.sio.on("instruction", self.on_instruction)
+
+    def on_instruction(self, data):
+        frame_id = data.get("frame_id")
+        if frame_id is None:
+            return  # greeting on connect
+        now = time.perf_counter()
+        with self.lock:
+            for seq in [s for s in self.pending if s <= frame_id]:
+                self.latencies.append(now - self.pending.pop(seq))
+
+    def post(self, frames):
+        if self.batch == 1:
+            seq, ts, _ = frames[0]
+            form = {"session": self.session, "seq": str(seq), "ts": str(ts), "format": "JPEG",
+                    "width": "640", "height": "480"}
+            req = requests.Request("POST", self.url + "/Server", data=form,
+                                   files={"file": ("frame.jpg", self.payload, "image/jpeg")})
+        else:
+            body = FRAME_BATCH_HEADER.pack(b"BB", 1, len(frames)) + b"".join(
+                FRAME_BATCH_ENTRY.pack(len(frame)) + frame for _, _, frame in frames)
+            req = requests.Request("POST", self.url + "/Server/batch", params={"session": self.session},
+                                   data=body, headers={"Content-Type": "application/octet-stream"})
+        prep = self.http.prepare_request(req)
+        self.wire_bytes += wire_size(prep)
+        r = self.http.send(prep)
+        self.requests += 1
+        self.frames += len(frames)
+        if r.status_code == 429:
+            self.rejected += len(frames)  # session busy: backpressure, not a transport failure
+        else:
+            r.raise_for_status()
+
+    def run(self):
+        self.sio.connect(self.url, transports=["websocket"])
+        self.sio.call("register", {"session": self.session}, timeout=5)
+        try:
+            start = time.perf_counter()
+            stop_at = start + self.seconds
+            next_frame = start
+            held = []
+            seq = 0
+            while True:
+                now = time.perf_counter()
+                if now >= stop_at and not held:
+                    break
+                if now >= next_frame and now < stop_at:
+                    ts = time.monotonic_ns()
+                    frame = FRAME_HEADER.pack(b"BF", 2, FORMAT_JPEG, seq, ts, 640, 480, 1, 0, 0, 640, 480) + self.payload
+                    with self.lock:
+                        self.pending[seq] = now
+                    held.append((seq, ts, frame))
+                    if len(held) == 1:
+                        flush_at = now + self.max_wait
+                    seq += 1
+                    next_frame += self.interval
+                if held and (len(held) >= self.batch or time.perf_counter() >= flush_at or now >= stop_at):
+                    self.post(held)
+                    held = []
+                wake = next_frame if not held else min(next_frame, flush_at)
+                time.sleep(max(0.0, wake - time.perf_counter()))
+            elapsed = time.perf_counter() - start
+            time.sleep(0.5)  # let the last instructions arrive
+            return elapsed
+        finally:
+            self.sio.disconnect()
+
+def wire_size(prep):
+    """Bytes of an HTTP/1.1 request: request line, headers and body (TCP/IP framing not counted)."""
+    head = len(f"{prep.method} {prep.path_url} HTTP/1.1\r\n") + 2
+    head += len(f"Host: {urlsplit(prep.url).netloc}\r\n")  # urllib3 adds it when sending
+    head += sum(len(k) + len(v) + 4 for k, v in prep.headers.items())
+    return head + len(prep.body or b"")
+
+def percentile(sorted_values, p):
+    if not sorted_values:
+        return 0.0
+    return sorted_values[min(len(sorted_values) - 1, int(p / 100 * len(sorted_values)))]
+
+if __name__ == "__main__":
+    ap = argparse.ArgumentParser()
+    ap.add_argument("--url", default="http://127.0.0.1:5000")
+    ap.add_argument("--batches", default="1,2,4,8", help="frames per request; 1 = multipart /Server")
+    ap.add_argument("--fps", type=float, default=10)
+    ap.add_argument("--seconds", type=float, default=15)
+    ap.add_argument("--max-wait-ms", type=float, default=150, help="flush a partial batch after this long")
+    ap.add_argument("--size", type=int, default=30000, help="payload bytes per frame (~q50 640x480 JPEG)")
+    args = ap.parse_args()
+
+    payload = os.urandom(args.size)
+    print(f"{args.fps:g} fps for {args.seconds:g}s, {args.size} B payloads, max wait {args.max_wait_ms:g} ms")
+    print(f"{'batch':>5s} {'req/s':>7s} {'frames/s':>8s} {'B/frame':>8s} {'overhead':>8s} {'MB/s':>6s} "
+          f"{'p50 ms':>7s} {'p95 ms':>7s} {'p99 ms':>7s} {'answered':>8s} {'rejected':>8s}")
+    for batch in (int(b) for b in args.batches.split(",")):
+        run = Run(args.url, batch, args.fps, args.seconds, args.max_wait_ms / 1000, payload)
+        elapsed = run.run()
+        latencies = sorted(run.latencies)
+        per_frame = run.wire_bytes / max(run.frames, 1)
+        print(f"{batch:5d} {run.requests / elapsed:7.1f} {run.frames / elapsed:8.1f} {per_frame:8.0f} "
+              f"{per_frame - args.size:8.0f} {run.wire_bytes / elapsed / 1e6:6.2f} "
+              + " ".join(f"{1000 * percentile(latencies, p):7.1f}" for p in (50, 95, 99))
+              + f" {100 * len(latencies) / max(run.frames, 1):7.0f}% {run.rejected:8d}")
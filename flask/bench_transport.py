@@ -0,0 +1,53 @@
+# bench_transport.py — loopback throughput: one multipart POST per frame vs binary frames over Socket.IO
+#
+# Start the server first (python app.py), then:
+#   python bench_transport.py --frames 300 --size 30000
+
+import argparse, os, struct, time
+
+import requests
+import socketio
+
+# Same layout as FrameHeader.java / FRAME_HEADER in app.py
+FRAME_HEADER = struct.Struct(">2sBBIqHH")
+FORMAT_JPEG = 1
+
+def bench_http(url, frames, payload):
+    session = requests.Session()
+    form = {"format": "JPEG", "width": "640", "height": "480"}
+    start = time.perf_counter()
+    for _ in range(frames):
+        r = session.post(url + "/Server", files={"file": ("frame.jpg", payload, "image/jpeg")}, data=form)
+        if r.status_code != 429:  # session busy: backpressure, not a transport failure
+            r.raise_for_status()
+    return time.perf_counter() - start
+
+def bench_socket(url, frames, payload):
+    sio = socketio.Client()
+    sio.connect(url, transports=["websocket"])
+    try:
+        start = time.perf_counter()
+        for seq in range(frames):
+            msg = FRAME_HEADER.pack(b"BF", 1, FORMAT_JPEG, seq, time.monotonic_ns(), 640, 480) + payload
+            ack = sio.call("frame", msg, timeout=5)
+            # "session busy" is backpressure, not a transport failure: the frame still crossed the wire
+            if not ack or (not ack.get("ok") and ack.get("error") != "session busy"):
+                raise RuntimeError(f"frame {seq} rejected: {ack}")
+        return time.perf_counter() - start
+    finally:
+        sio.disconnect()
+
+def report(name, frames, size, elapsed):
+    print(f"{name:7s} {frames / elapsed:8.1f} frames/s  {frames * size / elapsed / 1e6:7.2f} MB/s  "
+          f"{elapsed * 1000 / frames:6.2f} ms/frame")
+
+if __name__ == "__main__":
+    ap = argparse.ArgumentParser()
+    ap.add_argument("--url", default="http://127.0.0.1:5000")
+    ap.add_argument("--frames", type=int, default=300)
+    ap.add_argument("--size", type=int, default=30000, help="payload bytes per frame (~q50 640x480 JPEG)")
+    args = ap.parse_args()
+
+    payload = os.urandom(args.size)
+    report("http", args.frames, args.size, bench_http(args.url, args.frames, payload))
+    report("socket", args.frames, args.size, bench_socket(args.url, args.frames, payload))
@@ -0,0 +1,99 @@
+# load_test.py — many simulated glasses against one server: throughput, tail latency, fairness
+#
+# Start the server first (python app.py), then:
+#   python load_test.py --clients 32 --fps 10 --seconds 30
+#
+# Each client registers its own session, streams binary frames at --fps (waiting for each ack
+# like the app does) and times frame -> instruction by the echoed frame_id.
+
+import argparse, os, struct, threading, time
+
+import socketio
+
+# Same layout as FrameHeader.java / FRAME_HEADER in app.py
+FRAME_HEADER = struct.Struct(">2sBBIqHH")
+FORMAT_JPEG = 1
+
+class SimClient:
+    def __init__(self, index, url, fps, payload):
+        self.session = f"load-{index}"
+        self.url = url
+        self.interval = 1.0 / fps
+        self.payload = payload
+        self.sent_at = {}
+        self.latencies = []
+        self.sent = self.rejected = self.errors = self.foreign = 0
+        self.lock = threading.Lock()
+        self.sio = socketio.Client()
+        self.sio.on("instruction", self.on_instruction)
+
+    def on_instruction(self, data):
+        seq = data.get("frame_id")
+        if seq is None:
+            return  # greeting on connect
+        now = time.perf_counter()
+        with self.lock:
+            sent = self.sent_at.pop(seq, None)
+            if sent is None:
+                self.foreign += 1   # not one of ours: routing leaked another session's result
+            else:
+                self.latencies.append(now - sent)
+
+    def run(self, stop_at):
+        self.sio.connect(self.url, transports=["websocket"])
+        self.sio.call("register", {"session": self.session}, timeout=5)
+        seq = 0
+        next_at = time.perf_counter()
+        try:
+            while time.perf_counter() < stop_at:
+                msg = FRAME_HEADER.pack(b"BF", 1, FORMAT_JPEG, seq, time.monotonic_ns(), 640, 480) + self.payload
+                with self.lock:
+                    self.sent_at[seq] = time.perf_counter()
+                try:
+                    ack = self.sio.call("frame", msg, timeout=5)
+                    self.sent += 1
+                    if not ack or not ack.get("ok"):
+                        self.rejected += 1
+                except socketio.exceptions.TimeoutError:
+                    self.errors += 1
+                seq += 1
+                next_at += self.interval
+                time.sleep(max(0.0, next_at - time.perf_counter()))
+            time.sleep(0.5)  # let the last instructions arrive
+        finally:
+            self.sio.disconnect()
+
+def percentile(sorted_values, p):
+    if not sorted_values:
+        return 0.0
+    return sorted_values[min(len(sorted_values) - 1, int(p / 100 * len(sorted_values)))]
+
+if __name__ == "__main__":
+    ap = argparse.ArgumentParser()
+    ap.add_argument("--url", default="http://127.0.0.1:5000")
+    ap.add_argument("--clients", type=int, default=24)
+    ap.add_argument("--fps", type=float, default=10)
+    ap.add_argument("--seconds", type=float, default=20)
+    ap.add_argument("--size", type=int, default=30000, help="payload bytes per frame (~q50 640x480 JPEG)")
+    args = ap.parse_args()
+
+    payload = os.urandom(args.size)
+    clients = [SimClient(i, args.url, args.fps, payload) for i in range(args.clients)]
+    stop_at = time.perf_counter() + args.seconds
+    threads = [threading.Thread(target=c.run, args=(stop_at,), daemon=True) for c in clients]
+    for t in threads:
+        t.start()
+    for t in threads:
+        t.join()
+
+    latencies = sorted(l for c in clients for l in c.latencies)
+    answered = [len(c.latencies) for c in clients]
+    sent = sum(c.sent for c in clients)
+    print(f"clients {args.clients} x {args.fps:g} fps for {args.seconds:g}s")
+    print(f"frames sent {sent}  rejected {sum(c.rejected for c in clients)}  "
+          f"ack timeouts {sum(c.errors for c in clients)}  misrouted {sum(c.foreign for c in clients)}")
+    print(f"instructions {len(latencies)}  ({len(latencies) / args.seconds:.1f}/s, "
+          f"{100 * len(latencies) / max(sent, 1):.0f}% of frames; the rest were superseded)")
+    print("frame->instruction ms  p50 {:.1f}  p95 {:.1f}  p99 {:.1f}  max {:.1f}".format(
+        *(1000 * percentile(latencies, p) for p in (50, 95, 99, 100))))
+    print(f"per-client instructions  min {min(answered)}  max {max(answered)}  (fairness)")
@@ -35,6 +35,12 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        unitTests.all {
+            // replay a recording pulled from the glasses: ./gradlew testDebugUnitTest -Preplay.file=/path/session-….yuvrec
+            it.systemProperty("replay.file", project.findProperty("replay.file") ?: "")
+        }
+    }
 }
 
 dependencies {
@@ -52,7 +58,9 @@ dependencies {
     implementation("com.vuzix:hud-actionmenu:1.1")
     implementation("com.vuzix:hud-resources:1.1")
     implementation("com.squareup.okhttp3:okhttp:4.7.2")
+    implementation("io.socket:socket.io-client:2.1.0")
     testImplementation(libs.junit)
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.7.2")
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
     implementation("com.vuzix:sdk-speechrecognitionservice:1.97.1")
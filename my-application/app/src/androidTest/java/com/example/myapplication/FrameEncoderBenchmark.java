@@ -0,0 +1,93 @@
+package com.example.myapplication;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.ImageFormat;
+import android.graphics.Matrix;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Before/after throughput of the per-frame encode on 640x480 frames, run on the device
+ * so both paths use the real platform codecs.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FrameEncoderBenchmark {
+
+    private static final String TAG = "FrameEncoderBenchmark";
+    private static final int W = 640;
+    private static final int H = 480;
+    private static final int FRAMES = 60;
+
+    private static YuvFrame syntheticFrame() {
+        ByteBuffer y = ByteBuffer.allocateDirect(W * H);
+        for (int i = 0; i < W * H; i++) y.put(i, (byte) ((i % W) ^ (i / W)));
+        // pixelStride 2, V/U share one interleaved buffer like most Camera2 HALs
+        ByteBuffer vu = ByteBuffer.allocateDirect(W * H / 2);
+        for (int i = 0; i < W * H / 2; i++) vu.put(i, (byte) (96 + (i & 63)));
+        ByteBuffer v = vu.duplicate();
+        vu.position(1);
+        ByteBuffer u = vu.slice();
+        return new YuvFrame(W, H, y, u, v, W, W, 2);
+    }
+
+    /** The pre-FrameEncoder path: NV21 -> JPEG -> Bitmap -> rotated Bitmap -> PNG. */
+    private static byte[] legacyEncode(YuvFrame frame) {
+        byte[] nv21 = new byte[W * H * 3 / 2];
+        FrameEncoder.toNv21(frame, nv21, false);
+
+        YuvImage yuvImage = new YuvImage(nv21, ImageFormat.NV21, W, H, null);
+        ByteArrayOutputStream jpegOut = new ByteArrayOutputStream();
+        yuvImage.compressToJpeg(new Rect(0, 0, W, H), 50, jpegOut);
+        byte[] jpegBytes = jpegOut.toByteArray();
+
+        Bitmap bitmap = BitmapFactory.decodeByteArray(jpegBytes, 0, jpegBytes.length);
+        Matrix matrix = new Matrix();
+        matrix.postRotate(180);
+        Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+
+        ByteArrayOutputStream pngOut = new ByteArrayOutputStream();
+        rotated.compress(Bitmap.CompressFormat.PNG, 100, pngOut);
+        return pngOut.toByteArray();
+    }
+
+    private interface Encode { byte[] run(YuvFrame frame); }
+
+    private static double framesPerSecond(String name, YuvFrame frame, Encode encode) {
+        for (int i = 0; i < 5; i++) encode.run(frame); // warm-up
+
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) bytes += encode.run(frame).length;
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        double fps = FRAMES / seconds;
+        Log.i(TAG, String.format("%-12s %7.1f fps  %7d bytes/frame", name, fps, bytes / FRAMES));
+        return fps;
+    }
+
+    @Test
+    public void encodeThroughput_640x480() {
+        YuvFrame frame = syntheticFrame();
+        FrameEncoder jpeg = new FrameEncoder(FrameFormat.JPEG, 50, true, new YuvJpegCompressor());
+        FrameEncoder luma = new FrameEncoder(FrameFormat.LUMA, 50, true, null);
+
+        double before = framesPerSecond("legacy-png", frame, FrameEncoderBenchmark::legacyEncode);
+        double afterJpeg = framesPerSecond("jpeg-q50", frame, jpeg::encode);
+        double afterLuma = framesPerSecond("luma", frame, luma::encode);
+
+        assertTrue("JPEG encoder slower than legacy path", afterJpeg > before);
+        assertTrue("luma encoder slower than legacy path", afterLuma > before);
+    }
+}
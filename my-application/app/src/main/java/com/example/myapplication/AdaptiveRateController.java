@@ -0,0 +1,118 @@
+package com.example.myapplication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Keeps end-to-end frame age (capture to upload complete) under a budget by stepping through
+ * a ladder of {@link Level}s: capture interval, target resolution and JPEG quality.
+ *
+ * Frames are admitted with {@link #tryAcquire} and reported back with {@link #onFrameDone} or
+ * {@link #onFrameDropped}, which also caps how many frames can be in flight at once. All times
+ * are passed in by the caller so the controller is deterministic under test.
+ */
+public final class AdaptiveRateController {
+
+    public static final class Level {
+        public final long intervalMs;
+        public final int width;
+        public final int height;
+        public final int quality;
+
+        public Level(long intervalMs, int width, int height, int quality) {
+            this.intervalMs = intervalMs;
+            this.width = width;
+            this.height = height;
+            this.quality = quality;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%dms %dx%d q%d", intervalMs, width, height, quality);
+        }
+    }
+
+    public interface Listener {
+        void onLevelChanged(int index, Level level);
+    }
+
+    private static final double EWMA_ALPHA = 0.3;
+
+    private final List<Level> levels;
+    private final long frameAgeBudgetMs;
+    private final int maxInFlight;
+    private final long cooldownMs;
+    private final Listener listener;
+
+    private int levelIndex = 0;
+    private int inFlight = 0;
+    private long lastAdmitMs = Long.MIN_VALUE / 2;
+    private long lastChangeMs = Long.MIN_VALUE / 2;
+    private double ageEwmaMs = -1;
+    private double rttEwmaMs = -1;
+
+    /**
+     * @param levels     best quality first; each following level must be cheaper
+     * @param cooldownMs minimum time between two level changes, so one change can take effect
+     */
+    public AdaptiveRateController(List<Level> levels, long frameAgeBudgetMs, int maxInFlight,
+                                  long cooldownMs, Listener listener) {
+        if (levels.isEmpty()) throw new IllegalArgumentException("no levels");
+        this.levels = new ArrayList<>(levels);
+        this.frameAgeBudgetMs = frameAgeBudgetMs;
+        this.maxInFlight = maxInFlight;
+        this.cooldownMs = cooldownMs;
+        this.listener = listener;
+    }
+
+    /** True if a frame captured now should enter the pipeline; reserves an in-flight slot. */
+    public synchronized boolean tryAcquire(long nowMs) {
+        if (inFlight >= maxInFlight) return false;
+        if (nowMs - lastAdmitMs < levels.get(levelIndex).intervalMs) return false;
+        lastAdmitMs = nowMs;
+        inFlight++;
+        return true;
+    }
+
+    /** Releases a slot for a frame that was dropped before upload; no latency sample. */
+    public synchronized void onFrameDropped() {
+        if (inFlight > 0) inFlight--;
+    }
+
+    /**
+     * Records a finished upload. A failed upload counts as twice the budget, so a dead link
+     * steps down the ladder instead of leaving the last good estimate in place.
+     */
+    public void onFrameDone(long nowMs, long frameAgeMs, long rttMs, boolean ok) {
+        int changedTo = -1;
+        synchronized (this) {
+            if (inFlight > 0) inFlight--;
+            double age = ok ? frameAgeMs : Math.max(frameAgeMs, 2 * frameAgeBudgetMs);
+            ageEwmaMs = ageEwmaMs < 0 ? age : ageEwmaMs + EWMA_ALPHA * (age - ageEwmaMs);
+            if (ok) rttEwmaMs = rttEwmaMs < 0 ? rttMs : rttEwmaMs + EWMA_ALPHA * (rttMs - rttEwmaMs);
+
+            if (nowMs - lastChangeMs >= cooldownMs) {
+                if (ageEwmaMs > frameAgeBudgetMs && levelIndex < levels.size() - 1) {
+                    changedTo = ++levelIndex;
+                } else if (ageEwmaMs < frameAgeBudgetMs / 2.0 && levelIndex > 0) {
+                    changedTo = --levelIndex;
+                }
+                if (changedTo >= 0) lastChangeMs = nowMs;
+            }
+        }
+        if (changedTo >= 0 && listener != null) listener.onLevelChanged(changedTo, levels.get(changedTo));
+    }
+
+    public synchronized int getLevelIndex() { return levelIndex; }
+    public synchronized Level getLevel() { return levels.get(levelIndex); }
+    public synchronized int getInFlight() { return inFlight; }
+    public synchronized double getFrameAgeEwmaMs() { return ageEwmaMs; }
+    public synchronized double getRttEwmaMs() { return rttEwmaMs; }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "level=%d (%s) inFlight=%d age=%.0fms rtt=%.0fms",
+                levelIndex, levels.get(levelIndex), inFlight, ageEwmaMs, rttEwmaMs);
+    }
+}
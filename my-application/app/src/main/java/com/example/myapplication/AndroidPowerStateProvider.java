@@ -0,0 +1,46 @@
+package com.example.myapplication;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.PowerManager;
+
+/** {@link PowerStateProvider} backed by PowerManager's thermal status and the sticky battery broadcast. */
+public final class AndroidPowerStateProvider implements PowerStateProvider {
+
+    private final Context context;
+    private final PowerManager powerManager;
+
+    public AndroidPowerStateProvider(Context context) {
+        this.context = context.getApplicationContext();
+        this.powerManager = context.getSystemService(PowerManager.class);
+    }
+
+    @Override
+    public int thermalStatus() {
+        return powerManager.getCurrentThermalStatus();
+    }
+
+    @Override
+    public int batteryPercent() {
+        Intent battery = batteryIntent();
+        if (battery == null) return -1;
+        int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        return level < 0 || scale <= 0 ? -1 : level * 100 / scale;
+    }
+
+    @Override
+    public boolean isCharging() {
+        Intent battery = batteryIntent();
+        if (battery == null) return false;
+        int status = battery.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+        return status == BatteryManager.BATTERY_STATUS_CHARGING || status == BatteryManager.BATTERY_STATUS_FULL;
+    }
+
+    // Sticky broadcast: returns the last value immediately, no receiver is kept registered
+    private Intent batteryIntent() {
+        return context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.myapplication;
+
+/**
+ * Millisecond clock, injectable so time-based logic can be tested with a fake.
+ */
+public interface Clock {
+    long nowMs();
+
+    Clock MONOTONIC = () -> System.nanoTime() / 1_000_000;
+
+    /** Wall time, for timestamps that are persisted and compared after a restart. */
+    Clock WALL = System::currentTimeMillis;
+}
@@ -0,0 +1,85 @@
+package com.example.myapplication;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Minimal loopback-only HTTP server for debug JSON, e.g. {@code GET /trace}.
+ * Reach it from a workstation with {@code adb forward tcp:8089 tcp:8089}.
+ */
+public final class DebugEndpoint {
+
+    private final int port;
+    private final Map<String, Supplier<String>> routes = new ConcurrentHashMap<>();
+    private volatile ServerSocket serverSocket;
+
+    public DebugEndpoint(int port) {
+        this.port = port;
+    }
+
+    public DebugEndpoint route(String path, Supplier<String> json) {
+        routes.put(path, json);
+        return this;
+    }
+
+    /** Binds and serves on a daemon thread; requests are handled one at a time. */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port, 4, InetAddress.getLoopbackAddress());
+        Thread t = new Thread(this::acceptLoop, "debug-endpoint");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public int getLocalPort() {
+        ServerSocket s = serverSocket;
+        return s == null ? -1 : s.getLocalPort();
+    }
+
+    public void stop() {
+        try {
+            if (serverSocket != null) serverSocket.close();
+        } catch (IOException ignored) {}
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try (Socket client = serverSocket.accept()) {
+                handle(client);
+            } catch (IOException ignored) {
+                // closed or client went away
+            }
+        }
+    }
+
+    private void handle(Socket client) throws IOException {
+        client.setSoTimeout(2000);
+        BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+        String requestLine = in.readLine();
+        if (requestLine == null) return;
+
+        String[] parts = requestLine.split(" ");
+        String path = parts.length > 1 ? parts[1] : "/";
+        Supplier<String> route = routes.get(path);
+
+        int status = route == null ? 404 : 200;
+        String body = route == null ? "{\"error\":\"not found\",\"routes\":\"" + String.join(",", routes.keySet()) + "\"}" : route.get();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        OutputStream out = client.getOutputStream();
+        out.write(("HTTP/1.1 " + status + (status == 200 ? " OK" : " Not Found") + "\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + bytes.length + "\r\n"
+                + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.flush();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.myapplication;
+
+/**
+ * What a {@link PipelineStage} does when a frame arrives and its hand-off queue is full.
+ */
+public enum DropPolicy {
+    /** Evict the oldest queued item to make room; keeps the freshest frames moving. */
+    DROP_OLDEST,
+    /** Reject the incoming item; queued frames are kept in order. */
+    DROP_NEWEST,
+    /** Block the producer until there is room. */
+    BLOCK
+}
@@ -0,0 +1,125 @@
+package com.example.myapplication;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Up to 255 consecutive frames packed into one upload, big-endian:
+ *
+ * <pre>
+ *   0  2  magic "BB"
+ *   2  1  version (1)
+ *   3  1  frame count
+ *   then per frame:
+ *   4  entry length (header + payload)
+ *  30  {@link FrameHeader}: sequence number, capture timestamp, format and geometry
+ *   n  payload
+ * </pre>
+ *
+ * Frames are copied in as they are added, so the pooled frame can go back to its pool right
+ * away. The buffer grows to the largest batch seen and is reused after {@link #clear()}.
+ * The server unpacks it with {@code _parse_batch} in app.py.
+ */
+public final class FrameBatch {
+
+    public static final int HEADER_SIZE = 4;
+    public static final int ENTRY_OVERHEAD = 4 + FrameHeader.SIZE;
+    public static final int MAX_FRAMES = 255;
+    public static final int VERSION = 1;
+    private static final byte MAGIC_0 = 'B';
+    private static final byte MAGIC_1 = 'B';
+
+    private byte[] buffer;
+    private int length = HEADER_SIZE;
+    private int count = 0;
+    private long firstCaptureNanos;
+    private long lastCaptureNanos;
+
+    public FrameBatch(int initialBytes) {
+        this.buffer = new byte[Math.max(HEADER_SIZE + ENTRY_OVERHEAD, initialBytes)];
+    }
+
+    /** Appends {@code frame}'s header and payload. */
+    public void add(PooledFrame frame) {
+        if (count == MAX_FRAMES) throw new IllegalStateException("batch is full");
+        int entry = FrameHeader.SIZE + frame.payloadLength();
+        ensureCapacity(length + 4 + entry);
+        ByteBuffer out = ByteBuffer.wrap(buffer, length, 4 + entry);
+        out.putInt(entry);
+        FrameHeader.write(out, frame);
+        out.put(frame.payload(), 0, frame.payloadLength());
+        length += 4 + entry;
+        if (count == 0) firstCaptureNanos = frame.captureNanos;
+        lastCaptureNanos = frame.captureNanos;
+        count++;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(needed, buffer.length * 2));
+    }
+
+    public void clear() {
+        length = HEADER_SIZE;
+        count = 0;
+    }
+
+    public int size() { return count; }
+    public boolean isEmpty() { return count == 0; }
+
+    /** Bytes on the wire for the batch as it stands. */
+    public int length() { return length; }
+
+    /** Capture timestamps of the oldest and newest frame in the batch. */
+    public long getFirstCaptureNanos() { return firstCaptureNanos; }
+    public long getLastCaptureNanos() { return lastCaptureNanos; }
+
+    /**
+     * The container, header filled in; only the first {@link #length()} bytes are valid, and
+     * they are overwritten once the batch is cleared and refilled.
+     */
+    public byte[] bytes() {
+        ByteBuffer.wrap(buffer, 0, HEADER_SIZE)
+                .put(MAGIC_0).put(MAGIC_1)
+                .put((byte) VERSION)
+                .put((byte) count);
+        return buffer;
+    }
+
+    /** Header and payload of one frame in a container. */
+    public static final class Entry {
+        public final FrameHeader header;
+        public final ByteBuffer payload;
+
+        Entry(FrameHeader header, ByteBuffer payload) {
+            this.header = header;
+            this.payload = payload;
+        }
+    }
+
+    /** Splits a container; the payloads are views of {@code in}, not copies. */
+    public static List<Entry> read(ByteBuffer in) {
+        if (in.remaining() < HEADER_SIZE || in.get() != MAGIC_0 || in.get() != MAGIC_1) {
+            throw new IllegalArgumentException("not a frame batch");
+        }
+        int version = in.get() & 0xFF;
+        if (version != VERSION) throw new IllegalArgumentException("unsupported frame batch version " + version);
+        int count = in.get() & 0xFF;
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.remaining() < 4) throw new IllegalArgumentException("short frame batch");
+            int entry = in.getInt();
+            if (entry < FrameHeader.SIZE || entry > in.remaining()) {
+                throw new IllegalArgumentException("bad entry length " + entry);
+            }
+            int end = in.position() + entry;
+            FrameHeader header = FrameHeader.read(in);
+            ByteBuffer payload = in.slice();
+            payload.limit(end - in.position());
+            in.position(end);
+            entries.add(new Entry(header, payload));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.myapplication;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packs consecutive frames into a {@link FrameBatch} and sends it once {@code maxFrames} have
+ * accumulated or the oldest has waited {@code maxWaitMs}, whichever comes first, so a slow
+ * frame rate never holds a frame back longer than the deadline.
+ *
+ * {@link #offer} copies the frame in and returns at once, except for the frame that fills the
+ * batch: that one waits for the upload, and an upload failure or {@link FrameRejectedException}
+ * surfaces there, as with a single-frame transport. The frames that only joined a batch are not
+ * uploaded yet when {@link #offer} returns; they are reported to the {@link Listener} once their
+ * batch has gone out or failed, so their metrics count the wait. A deadline flush runs on the
+ * batcher's own thread. Both hold the batcher's lock while sending, so the upload thread waits
+ * behind a deadline flush instead of building a second batch.
+ */
+public final class FrameBatcher implements FrameTransport {
+
+    public interface Sender {
+        void send(FrameBatch batch) throws IOException;
+    }
+
+    public interface Listener {
+        /**
+         * Frames that waited in a batch went out with it ({@code failure} null) or were lost with
+         * it. The frame that filled the batch is not among them: its own {@link #offer} reports it.
+         * Called on the thread that flushed, outside the batcher's lock.
+         */
+        void onHeldFramesDone(HeldFrames frames, IOException failure);
+    }
+
+    /** What the pipeline knew about each frame that waited in a batch, oldest first. */
+    public static final class HeldFrames {
+        public final int count;
+        public final int[] seq;
+        public final long[] startNanos;
+        public final long[] encodedNanos;
+        /** When each frame joined the batch. */
+        public final long[] heldSinceNanos;
+        /** When the batch's upload finished or failed. */
+        public final long doneNanos;
+
+        HeldFrames(int count, int[] seq, long[] startNanos, long[] encodedNanos, long[] heldSinceNanos, long doneNanos) {
+            this.count = count;
+            this.seq = seq;
+            this.startNanos = startNanos;
+            this.encodedNanos = encodedNanos;
+            this.heldSinceNanos = heldSinceNanos;
+            this.doneNanos = doneNanos;
+        }
+    }
+
+    private final int maxFrames;
+    private final long maxWaitMs;
+    private final Sender sender;
+    private final FrameBatch batch;
+    // per frame in the batch, for HeldFrames
+    private final int[] seq;
+    private final long[] startNanos;
+    private final long[] encodedNanos;
+    private final long[] heldSinceNanos;
+    private final ScheduledExecutorService timer =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "upload-batch"));
+    private volatile Listener listener;
+
+    private long generation = 0; // bumped by every flush, so a stale deadline leaves the next batch alone
+    private long batches, frames, bytes, fullFlushes, deadlineFlushes, failedBatches, lostFrames;
+
+    /**
+     * @param maxFrames    frames per batch, 1 to {@link FrameBatch#MAX_FRAMES}
+     * @param maxWaitMs    longest a frame waits in an unfinished batch
+     * @param initialBytes starting buffer size, e.g. maxFrames typical payloads
+     */
+    public FrameBatcher(int maxFrames, long maxWaitMs, int initialBytes, Sender sender) {
+        if (maxFrames < 1 || maxFrames > FrameBatch.MAX_FRAMES) {
+            throw new IllegalArgumentException("maxFrames must be 1.." + FrameBatch.MAX_FRAMES);
+        }
+        this.maxFrames = maxFrames;
+        this.maxWaitMs = maxWaitMs;
+        this.sender = sender;
+        this.batch = new FrameBatch(initialBytes);
+        this.seq = new int[maxFrames];
+        this.startNanos = new long[maxFrames];
+        this.encodedNanos = new long[maxFrames];
+        this.heldSinceNanos = new long[maxFrames];
+    }
+
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    @Override
+    public void send(PooledFrame frame) throws IOException {
+        offer(frame);
+    }
+
+    /**
+     * Adds the frame to the batch, and sends the batch if the frame filled it. Call from the
+     * upload thread.
+     *
+     * @return true if the frame was uploaded, false if it waits in the batch and will be
+     *         reported to the {@link Listener}
+     */
+    public boolean offer(PooledFrame frame) throws IOException {
+        HeldFrames held;
+        IOException failure;
+        synchronized (this) {
+            int i = batch.size();
+            batch.add(frame);
+            seq[i] = frame.seq;
+            startNanos[i] = frame.startNanos;
+            encodedNanos[i] = frame.encodedNanos;
+            heldSinceNanos[i] = System.nanoTime();
+            if (batch.size() < maxFrames) {
+                if (batch.size() == 1) {
+                    long due = generation;
+                    timer.schedule(() -> flushIfDue(due), maxWaitMs, TimeUnit.MILLISECONDS);
+                }
+                return false;
+            }
+            fullFlushes++;
+            failure = flush();
+            held = held(maxFrames - 1); // all but this frame
+        }
+        notifyHeld(held, failure);
+        if (failure != null) throw failure;
+        return true;
+    }
+
+    private void flushIfDue(long due) {
+        HeldFrames held;
+        IOException failure;
+        synchronized (this) {
+            if (generation != due || batch.isEmpty()) return;
+            deadlineFlushes++;
+            int n = batch.size();
+            failure = flush();
+            held = held(n);
+        }
+        notifyHeld(held, failure);
+    }
+
+    /** Sends and clears the batch; returns the failure, if any. */
+    private IOException flush() {
+        generation++;
+        int n = batch.size();
+        int length = batch.length();
+        try {
+            sender.send(batch);
+            batches++;
+            frames += n;
+            bytes += length;
+            return null;
+        } catch (IOException e) {
+            failedBatches++;
+            lostFrames += n;
+            return e;
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private HeldFrames held(int count) {
+        return new HeldFrames(count, Arrays.copyOf(seq, count), Arrays.copyOf(startNanos, count),
+                Arrays.copyOf(encodedNanos, count), Arrays.copyOf(heldSinceNanos, count), System.nanoTime());
+    }
+
+    private void notifyHeld(HeldFrames held, IOException failure) {
+        Listener l = listener;
+        if (l != null && held.count > 0) l.onHeldFramesDone(held, failure);
+    }
+
+    /** Stops the deadline timer; frames still in an unfinished batch are dropped. */
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    public synchronized int getPending() { return batch.size(); }
+    public synchronized long getBatches() { return batches; }
+    public synchronized long getFrames() { return frames; }
+    public synchronized long getBytes() { return bytes; }
+    public synchronized long getFullFlushes() { return fullFlushes; }
+    public synchronized long getDeadlineFlushes() { return deadlineFlushes; }
+    public synchronized long getLostFrames() { return lostFrames; }
+
+    public synchronized String toJson() {
+        return String.format(Locale.US,
+                "{\"max_frames\":%d,\"max_wait_ms\":%d,\"batches\":%d,\"frames\":%d,\"bytes\":%d,"
+                        + "\"mean_frames\":%.2f,\"full\":%d,\"deadline\":%d,\"failed\":%d,\"lost_frames\":%d,\"pending\":%d}",
+                maxFrames, maxWaitMs, batches, frames, bytes, batches == 0 ? 0.0 : (double) frames / batches,
+                fullFlushes, deadlineFlushes, failedBatches, lostFrames, batch.size());
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "batches=%d frames=%d (%.2f/batch) bytes=%d full=%d deadline=%d failed=%d lost=%d",
+                batches, frames, batches == 0 ? 0.0 : (double) frames / batches, bytes,
+                fullFlushes, deadlineFlushes, failedBatches, lostFrames);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.myapplication;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recycles {@link PooledFrame}s per (width, height, format) so steady-state streaming does
+ * not allocate frame-sized arrays.
+ *
+ * A camera session uses one key per payload mode it has streamed in, so buckets are a short list scanned by index
+ * rather than a map (no key objects are created on lookup).
+ */
+public final class FrameBufferPool {
+
+    private static final class Bucket {
+        final int width;
+        final int height;
+        final FrameFormat format;
+        final ArrayDeque<PooledFrame> free = new ArrayDeque<>();
+
+        Bucket(int width, int height, FrameFormat format) {
+            this.width = width;
+            this.height = height;
+            this.format = format;
+        }
+    }
+
+    private final int maxFreePerKey;
+    private final ArrayList<Bucket> buckets = new ArrayList<>();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
+    /** @param maxFreePerKey frames kept for reuse per key; extras are left to the GC */
+    public FrameBufferPool(int maxFreePerKey) {
+        this.maxFreePerKey = maxFreePerKey;
+    }
+
+    public synchronized PooledFrame acquire(int width, int height, FrameFormat format) {
+        PooledFrame frame = bucket(width, height, format).free.pollFirst();
+        if (frame == null) {
+            frame = new PooledFrame(this, width, height, format);
+            created.incrementAndGet();
+        } else {
+            reused.incrementAndGet();
+        }
+        frame.inPool = false;
+        frame.seq = 0;
+        frame.captureNanos = 0;
+        frame.startNanos = 0;
+        frame.encodedNanos = 0;
+        frame.sourceWidth = width;
+        frame.sourceHeight = height;
+        frame.roiX = 0;
+        frame.roiY = 0;
+        frame.scale = 1;
+        frame.setPayload(null, 0);
+        return frame;
+    }
+
+    synchronized void release(PooledFrame frame) {
+        if (frame.inPool) return; // double close
+        frame.inPool = true;
+        Bucket bucket = bucket(frame.width, frame.height, frame.format);
+        if (bucket.free.size() < maxFreePerKey) bucket.free.addFirst(frame);
+    }
+
+    /** Frames allocated because no free one matched. */
+    public long getCreatedCount() { return created.get(); }
+    public long getReusedCount() { return reused.get(); }
+
+    private Bucket bucket(int width, int height, FrameFormat format) {
+        for (int i = 0; i < buckets.size(); i++) {
+            Bucket b = buckets.get(i);
+            if (b.width == width && b.height == height && b.format == format) return b;
+        }
+        Bucket b = new Bucket(width, height, format);
+        buckets.add(b);
+        return b;
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.myapplication;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Turns a camera frame into the upload payload in a single pass.
+ *
+ * The 180° mount rotation is applied while copying the planes (reverse row order and
+ * reverse pixel order), so no Bitmap is ever decoded, rotated or re-encoded. The
+ * {@link PayloadMode}'s crop and downscale happen in the same pass.
+ */
+public final class FrameEncoder {
+
+    private volatile PayloadMode mode;
+    private volatile int quality;
+    private final boolean rotate180;
+    private final JpegCompressor jpeg;
+
+    public FrameEncoder(FrameFormat format, int quality, boolean rotate180, JpegCompressor jpeg) {
+        this(PayloadMode.full(format), quality, rotate180, jpeg);
+    }
+
+    public FrameEncoder(PayloadMode mode, int quality, boolean rotate180, JpegCompressor jpeg) {
+        this.mode = mode;
+        setQuality(quality);
+        this.rotate180 = rotate180;
+        this.jpeg = jpeg;
+    }
+
+    public FrameFormat getFormat() { return mode.format; }
+    public PayloadMode getMode() { return mode; }
+    public int getQuality() { return quality; }
+
+    /** Payload mode for frames captured after this call; may be changed while streaming. */
+    public void setMode(PayloadMode mode) {
+        if (mode.format == FrameFormat.JPEG && jpeg == null) {
+            throw new IllegalArgumentException("no JPEG compressor for " + mode);
+        }
+        this.mode = mode;
+    }
+
+    /** JPEG quality for frames compressed after this call; may be changed while streaming. */
+    public void setQuality(int quality) {
+        if (quality < 0 || quality > 100) {
+            throw new IllegalArgumentException("quality must be 0..100: " + quality);
+        }
+        this.quality = quality;
+    }
+
+    /** Allocating one-shot encode; the streaming path uses {@link #copyPlanes} + {@link #compress}. */
+    public byte[] encode(YuvFrame frame) {
+        PayloadMode mode = this.mode;
+        int width = mode.outputWidth(frame.width);
+        int height = mode.outputHeight(frame.height);
+        byte[] planes = new byte[mode.format.planeBytes(width, height)];
+        copyPlanes(frame, mode, planes);
+        if (mode.format == FrameFormat.LUMA) return planes;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(planes.length / 8);
+        jpeg.compress(planes, width, height, quality, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Copies (and rotates) the planes the current mode needs into {@code dst}, so the camera
+     * image can be closed before {@link #compress} runs on another thread.
+     */
+    public void copyPlanes(YuvFrame frame, byte[] dst) {
+        copyPlanes(frame, mode, dst);
+    }
+
+    /**
+     * Same as {@link #copyPlanes(YuvFrame, byte[])} for a mode read once by the caller, who sized
+     * {@code dst} from it. Capture thread only: the region path reuses scratch rows.
+     */
+    public void copyPlanes(YuvFrame frame, PayloadMode mode, byte[] dst) {
+        if (mode.isFullFrame()) {
+            copyLuma(frame, dst, rotate180);
+            if (mode.format == FrameFormat.LUMA) return;
+            copyChroma(frame, dst, frame.width * frame.height, rotate180, vuLayout.isInterleaved(frame));
+            return;
+        }
+        int outWidth = mode.outputWidth(frame.width);
+        int outHeight = mode.outputHeight(frame.height);
+        int regionWidth = outWidth * mode.scale;
+        int regionHeight = outHeight * mode.scale;
+        // the region is in upright coordinates; find the same block in the sensor's orientation
+        int srcX = rotate180 ? frame.width - mode.cropX(frame.width) - regionWidth : mode.cropX(frame.width);
+        int srcY = rotate180 ? frame.height - mode.cropY(frame.height) - regionHeight : mode.cropY(frame.height);
+        if (rowScratch.length < regionWidth * mode.scale) rowScratch = new byte[regionWidth * mode.scale];
+        copyLumaRegion(frame, dst, srcX, srcY, outWidth, outHeight, mode.scale, rotate180, rowScratch);
+        if (mode.format == FrameFormat.LUMA) return;
+        copyChromaRegion(frame, dst, outWidth * outHeight, srcX, srcY, outWidth, outHeight, mode.scale, rotate180);
+    }
+
+    /** Produces the upload payload from {@code frame.planes}, reusing the frame's stream. */
+    public void compress(PooledFrame frame) {
+        if (frame.format == FrameFormat.LUMA) {
+            frame.setPayload(frame.planes, frame.planes.length);
+            return;
+        }
+        PooledFrame.PayloadStream out = frame.stream;
+        out.reset();
+        jpeg.compress(frame.planes, frame.width, frame.height, quality, out);
+        frame.setPayload(out.buffer(), out.size());
+    }
+
+    // Region copy scratch (one band of source rows), grown to the largest seen.
+    private byte[] rowScratch = new byte[0];
+
+    private final VuLayout vuLayout = new VuLayout();
+
+    /**
+     * {@link #isInterleavedVu} for a stream of frames. Heap planes show their layout
+     * structurally, every frame. Direct planes (the camera's) can only be compared by content:
+     * that answer is kept per geometry, and only once a frame with varying chroma has settled it
+     * (a black or grey start frame matches either way). Camera buffers are only ever read.
+     */
+    static final class VuLayout {
+        private int key = 0;
+        private boolean interleaved;
+
+        boolean isInterleaved(YuvFrame frame) {
+            int shared = sharedVuBuffer(frame);
+            if (shared != LAYOUT_UNKNOWN) return shared == LAYOUT_SHARED;
+            int k = ((frame.width * 31 + frame.height) * 31 + frame.uvRowStride) * 31 + frame.uvPixelStride;
+            if (k != key) {
+                int matched = vuContentsMatch(frame);
+                if (matched == LAYOUT_UNKNOWN) return false; // the per-sample copy is right for any layout
+                interleaved = matched == LAYOUT_SHARED;
+                key = k;
+            }
+            return interleaved;
+        }
+    }
+
+    // ====== Plane copy ======
+
+    static final int LAYOUT_SEPARATE = 0;
+    static final int LAYOUT_SHARED = 1;
+    static final int LAYOUT_UNKNOWN = -1;
+
+    /** Packs the frame into {@code dst} as NV21 (Y plane followed by interleaved VU). */
+    public static void toNv21(YuvFrame frame, byte[] dst, boolean rotate180) {
+        copyLuma(frame, dst, rotate180);
+        copyChroma(frame, dst, frame.width * frame.height, rotate180, isInterleavedVu(frame));
+    }
+
+    /**
+     * True when the V plane read sequentially is already the NV21 VU row we need (V0 U0 V1 U1 ...):
+     * for heap planes, when U and V are views of one buffer; for direct planes, which expose no
+     * address, when V shifted by one byte matches U over varying chroma. Reads the planes, never
+     * writes them; {@link VuLayout} saves the content comparison on every frame.
+     */
+    static boolean isInterleavedVu(YuvFrame frame) {
+        int shared = sharedVuBuffer(frame);
+        return shared == LAYOUT_UNKNOWN ? vuContentsMatch(frame) == LAYOUT_SHARED : shared == LAYOUT_SHARED;
+    }
+
+    /**
+     * Whether U starts one byte into V's buffer, by array and offset. {@link #LAYOUT_UNKNOWN} for
+     * direct planes, which expose no address. Never reads the planes' contents.
+     */
+    static int sharedVuBuffer(YuvFrame frame) {
+        if (frame.uvPixelStride != 2) return LAYOUT_SEPARATE;
+        ByteBuffer u = frame.u;
+        ByteBuffer v = frame.v;
+        if (u.hasArray() && v.hasArray()) {
+            return u.array() == v.array() && v.arrayOffset() + 1 == u.arrayOffset() ? LAYOUT_SHARED : LAYOUT_SEPARATE;
+        }
+        if (u.hasArray() != v.hasArray() || u.limit() < 1 || v.limit() < 2) return LAYOUT_SEPARATE;
+        return LAYOUT_UNKNOWN;
+    }
+
+    /**
+     * Compares V shifted by one byte with U. A mismatch means separate planes; a match counts
+     * only if the chroma varies, since uniform planes match whatever the layout.
+     */
+    static int vuContentsMatch(YuvFrame frame) {
+        ByteBuffer v = frame.v.duplicate();
+        ByteBuffer u = frame.u.duplicate();
+        int len = Math.min(v.limit() - 1, u.limit());
+        if (len <= 0) return LAYOUT_SEPARATE;
+        v.limit(1 + len).position(1);
+        u.limit(len).position(0);
+        if (!v.equals(u)) return LAYOUT_SEPARATE;
+        byte first = u.get(0);
+        for (int i = 1; i < len; i++) {
+            if (u.get(i) != first) return LAYOUT_SHARED;
+        }
+        return LAYOUT_UNKNOWN;
+    }
+
+    /** Copies the Y plane into the first {@code width * height} bytes of {@code dst}, dropping row padding. */
+    public static void copyLuma(YuvFrame frame, byte[] dst, boolean rotate180) {
+        int width = frame.width;
+        int height = frame.height;
+        ByteBuffer yBuffer = frame.y;
+
+        for (int row = 0; row < height; row++) {
+            int dstRow = rotate180 ? height - 1 - row : row;
+            int pos = dstRow * width;
+            yBuffer.position(row * frame.yRowStride);
+            yBuffer.get(dst, pos, width);
+            if (rotate180) reverse(dst, pos, pos + width - 1);
+        }
+    }
+
+    /**
+     * Writes interleaved VU samples into {@code dst} starting at {@code offset}. With an
+     * NV21-ordered source each row is one bulk get instead of a get per sample.
+     */
+    static void copyChroma(YuvFrame frame, byte[] dst, int offset, boolean rotate180, boolean interleavedVu) {
+        int chromaWidth = frame.width / 2;
+        int chromaHeight = frame.height / 2;
+        int rowBytes = chromaWidth * 2;
+        ByteBuffer uBuffer = frame.u;
+        ByteBuffer vBuffer = frame.v;
+
+        for (int row = 0; row < chromaHeight; row++) {
+            int dstRow = rotate180 ? chromaHeight - 1 - row : row;
+            int pos = offset + dstRow * rowBytes;
+            int srcRow = row * frame.uvRowStride;
+
+            if (interleavedVu) {
+                vBuffer.position(srcRow);
+                vBuffer.get(dst, pos, rowBytes - 1);
+                dst[pos + rowBytes - 1] = uBuffer.get(srcRow + rowBytes - 2); // last U is past V's end
+                if (rotate180) reversePairs(dst, pos, chromaWidth);
+                continue;
+            }
+
+            for (int col = 0; col < chromaWidth; col++) {
+                int vuPos = srcRow + col * frame.uvPixelStride;
+                int dstCol = rotate180 ? chromaWidth - 1 - col : col;
+                dst[pos + dstCol * 2] = vBuffer.get(vuPos);     // V
+                dst[pos + dstCol * 2 + 1] = uBuffer.get(vuPos); // U
+            }
+        }
+    }
+
+    /**
+     * Writes the {@code outWidth x outHeight} Y plane of the source block at
+     * ({@code srcX}, {@code srcY}), each output pixel the mean of a {@code scale x scale} block.
+     * The {@code scale} source rows behind an output row are bulk-read into {@code rows} first.
+     */
+    static void copyLumaRegion(YuvFrame frame, byte[] dst, int srcX, int srcY, int outWidth, int outHeight,
+                               int scale, boolean rotate180, byte[] rows) {
+        ByteBuffer yBuffer = frame.y;
+        int regionWidth = outWidth * scale;
+        int shift = Integer.numberOfTrailingZeros(scale * scale);
+        int round = (scale * scale) >> 1;
+
+        for (int r = 0; r < outHeight; r++) {
+            int dstRow = rotate180 ? outHeight - 1 - r : r;
+            int pos = dstRow * outWidth;
+            if (scale == 1) {
+                yBuffer.position((srcY + r) * frame.yRowStride + srcX);
+                yBuffer.get(dst, pos, outWidth);
+                if (rotate180) reverse(dst, pos, pos + outWidth - 1);
+                continue;
+            }
+
+            for (int k = 0; k < scale; k++) {
+                yBuffer.position((srcY + r * scale + k) * frame.yRowStride + srcX);
+                yBuffer.get(rows, k * regionWidth, regionWidth);
+            }
+            for (int c = 0; c < outWidth; c++) {
+                int i = c * scale;
+                int sum;
+                if (scale == 2) {
+                    int j = i + regionWidth;
+                    sum = (rows[i] & 0xFF) + (rows[i + 1] & 0xFF) + (rows[j] & 0xFF) + (rows[j + 1] & 0xFF);
+                } else {
+                    sum = 0;
+                    for (int k = 0; k < scale; k++, i += regionWidth) {
+                        for (int j = 0; j < scale; j++) sum += rows[i + j] & 0xFF;
+                    }
+                }
+                dst[rotate180 ? pos + outWidth - 1 - c : pos + c] = (byte) ((sum + round) >> shift);
+            }
+        }
+    }
+
+    /**
+     * Interleaved VU for the same block as {@link #copyLumaRegion}, nearest sample per output
+     * pair: chroma is already half resolution and the JPEG pass smooths it again anyway.
+     */
+    static void copyChromaRegion(YuvFrame frame, byte[] dst, int offset, int srcX, int srcY,
+                                 int outWidth, int outHeight, int scale, boolean rotate180) {
+        int chromaWidth = outWidth / 2;
+        int chromaHeight = outHeight / 2;
+        ByteBuffer uBuffer = frame.u;
+        ByteBuffer vBuffer = frame.v;
+        int srcCol0 = srcX / 2;
+        int srcRow0 = srcY / 2;
+
+        for (int r = 0; r < chromaHeight; r++) {
+            int dstRow = rotate180 ? chromaHeight - 1 - r : r;
+            int pos = offset + dstRow * chromaWidth * 2;
+            int srcRow = (srcRow0 + r * scale) * frame.uvRowStride;
+            for (int c = 0; c < chromaWidth; c++) {
+                int vuPos = srcRow + (srcCol0 + c * scale) * frame.uvPixelStride;
+                int dstCol = rotate180 ? chromaWidth - 1 - c : c;
+                dst[pos + dstCol * 2] = vBuffer.get(vuPos);     // V
+                dst[pos + dstCol * 2 + 1] = uBuffer.get(vuPos); // U
+            }
+        }
+    }
+
+    private static void reverse(byte[] a, int from, int to) {
+        while (from < to) {
+            byte t = a[from];
+            a[from++] = a[to];
+            a[to--] = t;
+        }
+    }
+
+    /** Reverses the order of {@code pairs} two-byte samples starting at {@code from}. */
+    private static void reversePairs(byte[] a, int from, int pairs) {
+        int i = from;
+        int j = from + (pairs - 1) * 2;
+        while (i < j) {
+            byte t0 = a[i];
+            byte t1 = a[i + 1];
+            a[i] = a[j];
+            a[i + 1] = a[j + 1];
+            a[j] = t0;
+            a[j + 1] = t1;
+            i += 2;
+            j -= 2;
+        }
+    }
+}
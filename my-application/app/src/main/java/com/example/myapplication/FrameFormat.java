@@ -0,0 +1,34 @@
+package com.example.myapplication;
+
+/**
+ * Upload payload formats produced by {@link FrameEncoder}.
+ */
+public enum FrameFormat {
+    /** NV21 compressed to JPEG at the encoder's quality. */
+    JPEG(1, "image/jpeg", "frame.jpg"),
+    /** Raw 8-bit Y plane, width * height bytes, no header. */
+    LUMA(2, "application/octet-stream", "frame.y");
+
+    /** Format byte in a {@link FrameHeader}; must match the server's decoder table. */
+    public final int wireId;
+    public final String mimeType;
+    public final String fileName;
+
+    FrameFormat(int wireId, String mimeType, String fileName) {
+        this.wireId = wireId;
+        this.mimeType = mimeType;
+        this.fileName = fileName;
+    }
+
+    /** Size of the uncompressed planes this format is built from (NV21 for JPEG, Y only for LUMA). */
+    public int planeBytes(int width, int height) {
+        return this == LUMA ? width * height : width * height * 3 / 2;
+    }
+
+    public static FrameFormat fromWireId(int wireId) {
+        for (FrameFormat f : values()) {
+            if (f.wireId == wireId) return f;
+        }
+        throw new IllegalArgumentException("unknown frame format id " + wireId);
+    }
+}
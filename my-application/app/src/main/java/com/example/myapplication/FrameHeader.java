@@ -0,0 +1,119 @@
+package com.example.myapplication;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed 30-byte big-endian header that prefixes a binary frame message:
+ *
+ * <pre>
+ *   0  2  magic "BF"
+ *   2  1  version (2)
+ *   3  1  format  ({@link FrameFormat#wireId})
+ *   4  4  sequence number
+ *   8  8  capture timestamp, ns
+ *  16  2  width   (payload)
+ *  18  2  height  (payload)
+ *  20  1  scale   ({@link PayloadMode#scale})
+ *  21  1  reserved, 0
+ *  22  2  region left, in source pixels
+ *  24  2  region top
+ *  26  2  source width
+ *  28  2  source height
+ * </pre>
+ *
+ * The server parses it with {@code struct.unpack(">2sBBIqHHBxHHHH", ...)}; it still accepts
+ * version 1 (the first 20 bytes, whole frame at full resolution) from older clients.
+ */
+public final class FrameHeader {
+
+    public static final int SIZE = 30;
+    public static final int VERSION = 2;
+    private static final byte MAGIC_0 = 'B';
+    private static final byte MAGIC_1 = 'F';
+
+    public final FrameFormat format;
+    public final int seq;
+    public final long captureNanos;
+    public final int width;
+    public final int height;
+    public final int scale;
+    public final int roiX;
+    public final int roiY;
+    public final int sourceWidth;
+    public final int sourceHeight;
+
+    public FrameHeader(FrameFormat format, int seq, long captureNanos, int width, int height) {
+        this(format, seq, captureNanos, width, height, 1, 0, 0, width, height);
+    }
+
+    public FrameHeader(FrameFormat format, int seq, long captureNanos, int width, int height,
+                       int scale, int roiX, int roiY, int sourceWidth, int sourceHeight) {
+        this.format = format;
+        this.seq = seq;
+        this.captureNanos = captureNanos;
+        this.width = width;
+        this.height = height;
+        this.scale = scale;
+        this.roiX = roiX;
+        this.roiY = roiY;
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+    }
+
+    /** Writes the header for {@code frame} at the buffer's position. */
+    public static void write(ByteBuffer out, PooledFrame frame) {
+        write(out, frame.format, frame.seq, frame.captureNanos, frame.width, frame.height,
+                frame.scale, frame.roiX, frame.roiY, frame.sourceWidth, frame.sourceHeight);
+    }
+
+    /** Header for a whole frame at full resolution. */
+    public static void write(ByteBuffer out, FrameFormat format, int seq, long captureNanos, int width, int height) {
+        write(out, format, seq, captureNanos, width, height, 1, 0, 0, width, height);
+    }
+
+    public static void write(ByteBuffer out, FrameFormat format, int seq, long captureNanos, int width, int height,
+                             int scale, int roiX, int roiY, int sourceWidth, int sourceHeight) {
+        out.put(MAGIC_0).put(MAGIC_1)
+                .put((byte) VERSION)
+                .put((byte) format.wireId)
+                .putInt(seq)
+                .putLong(captureNanos)
+                .putShort((short) width)
+                .putShort((short) height)
+                .put((byte) scale)
+                .put((byte) 0)
+                .putShort((short) roiX)
+                .putShort((short) roiY)
+                .putShort((short) sourceWidth)
+                .putShort((short) sourceHeight);
+    }
+
+    /** Header followed by the frame's payload, as one message. */
+    public static byte[] message(PooledFrame frame) {
+        byte[] message = new byte[SIZE + frame.payloadLength()];
+        ByteBuffer out = ByteBuffer.wrap(message);
+        write(out, frame);
+        out.put(frame.payload(), 0, frame.payloadLength());
+        return message;
+    }
+
+    public static FrameHeader read(ByteBuffer in) {
+        if (in.remaining() < SIZE || in.get() != MAGIC_0 || in.get() != MAGIC_1) {
+            throw new IllegalArgumentException("not a frame header");
+        }
+        int version = in.get() & 0xFF;
+        if (version != VERSION) throw new IllegalArgumentException("unsupported frame header version " + version);
+        FrameFormat format = FrameFormat.fromWireId(in.get() & 0xFF);
+        int seq = in.getInt();
+        long captureNanos = in.getLong();
+        int width = in.getShort() & 0xFFFF;
+        int height = in.getShort() & 0xFFFF;
+        int scale = in.get() & 0xFF;
+        in.get();
+        int roiX = in.getShort() & 0xFFFF;
+        int roiY = in.getShort() & 0xFFFF;
+        int sourceWidth = in.getShort() & 0xFFFF;
+        int sourceHeight = in.getShort() & 0xFFFF;
+        return new FrameHeader(format, seq, captureNanos, width, height, scale, roiX, roiY, sourceWidth, sourceHeight);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.myapplication;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * capture -> encode -> upload, each stage on its own thread with a bounded hand-off queue.
+ *
+ * Capture runs on {@link #getCaptureExecutor()} (the camera analyzer executor) and only copies
+ * the planes into a pooled buffer, so the camera image can be closed right away. That buffer
+ * travels with the frame and goes back to the pool after upload or when a queue drops it.
+ * Nothing here touches the UI thread.
+ */
+public final class FramePipeline {
+
+    public interface Uploader {
+        void upload(PooledFrame frame) throws Exception;
+    }
+
+    public interface Listener {
+        /**
+         * Called once per captured frame as it leaves the pipeline, on the thread that released it.
+         * {@code uploadNanos} is 0 for frames dropped before reaching the uploader.
+         */
+        void onFrameDone(PooledFrame frame, boolean uploaded, long uploadNanos);
+    }
+
+    private final FrameEncoder encoder;
+    private final FrameBufferPool pool;
+    private final StageStats captureStats = new StageStats("capture");
+    private final ExecutorService captureExecutor =
+            Executors.newSingleThreadExecutor(r -> new Thread(r, "pipeline-capture"));
+    private final PipelineStage<PooledFrame> encodeStage;
+    private final PipelineStage<PooledFrame> uploadStage;
+    private volatile Listener listener;
+    private int nextSeq = 0; // capture thread only
+
+    public FramePipeline(FrameEncoder encoder, Uploader uploader, int queueCapacity, DropPolicy policy) {
+        this.encoder = encoder;
+        // every frame can be in a queue or a stage at once: 2 queues + 3 stages
+        this.pool = new FrameBufferPool(2 * queueCapacity + 3);
+        this.uploadStage = new PipelineStage<>("upload", queueCapacity, policy, frame -> {
+            long start = System.nanoTime();
+            boolean ok = false;
+            try {
+                uploader.upload(frame);
+                ok = true;
+            } finally {
+                finish(frame, ok, System.nanoTime() - start);
+            }
+        }, this::drop);
+        this.encodeStage = new PipelineStage<>("encode", queueCapacity, policy, this::encode, this::drop);
+    }
+
+    public Executor getCaptureExecutor() { return captureExecutor; }
+
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    /**
+     * Copies the frame's planes and queues it for encoding. Call from the capture executor;
+     * the caller may close the source image as soon as this returns.
+     *
+     * @return false if the frame was dropped at the encode queue
+     */
+    public boolean capture(YuvFrame frame, long captureNanos) {
+        captureStats.onSubmitted();
+        long start = System.nanoTime();
+        PayloadMode mode = encoder.getMode(); // once, so a mode switch cannot land mid-frame
+        PooledFrame pooled = pool.acquire(mode.outputWidth(frame.width), mode.outputHeight(frame.height), mode.format);
+        pooled.setRegion(mode, frame.width, frame.height);
+        pooled.seq = nextSeq++;
+        pooled.captureNanos = captureNanos;
+        pooled.startNanos = start;
+        encoder.copyPlanes(frame, mode, pooled.planes);
+        captureStats.onProcessed(System.nanoTime() - start, true);
+        return encodeStage.offer(pooled);
+    }
+
+    private void encode(PooledFrame frame) {
+        try {
+            encoder.compress(frame);
+            frame.encodedNanos = System.nanoTime();
+        } catch (RuntimeException e) {
+            drop(frame);
+            throw e;
+        }
+        uploadStage.offer(frame);
+    }
+
+    private void drop(PooledFrame frame) {
+        finish(frame, false, 0);
+    }
+
+    private void finish(PooledFrame frame, boolean uploaded, long uploadNanos) {
+        Listener l = listener;
+        if (l != null) l.onFrameDone(frame, uploaded, uploadNanos);
+        frame.close();
+    }
+
+    public FrameBufferPool getPool() { return pool; }
+
+    public List<StageStats> getStats() {
+        return Arrays.asList(captureStats, encodeStage.getStats(), uploadStage.getStats());
+    }
+
+    public void shutdown() {
+        captureExecutor.shutdownNow();
+        encodeStage.shutdown();
+        uploadStage.shutdown();
+    }
+}
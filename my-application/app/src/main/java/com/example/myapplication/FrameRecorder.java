@@ -0,0 +1,80 @@
+package com.example.myapplication;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Records camera frames exactly as {@code ImageAnalysis} delivered them (planes, strides,
+ * timestamps), so a field session can be replayed on a workstation with {@link FrameReplayer}.
+ *
+ * File layout, big-endian: magic {@code "BFRC"}, version, then per frame
+ * {@code width, height, yRowStride, uvRowStride, uvPixelStride, flags, timestampNanos,
+ * yLength, uLength, vLength} followed by the three planes' bytes. Planes are stored as the
+ * camera filled them, row padding included, and {@link #FLAG_SHARED_VU} records that U and V
+ * were views of one NV21 buffer (for direct planes, as far as their contents show), so replay
+ * exercises the same stride and layout handling.
+ * Version 1 recordings have no flags.
+ */
+public final class FrameRecorder implements Closeable {
+
+    static final int MAGIC = 0x42465243; // "BFRC"
+    static final int VERSION = 2;
+    static final int FLAG_SHARED_VU = 1;
+
+    private final DataOutputStream out;
+    private byte[] scratch = new byte[0];
+    private final FrameEncoder.VuLayout vuLayout = new FrameEncoder.VuLayout();
+    private long frames = 0;
+    private long bytes = 0;
+
+    public FrameRecorder(File file) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    /** Appends one frame; leaves the frame's buffers untouched. Call from one thread. */
+    public void write(YuvFrame frame, long timestampNanos) throws IOException {
+        out.writeInt(frame.width);
+        out.writeInt(frame.height);
+        out.writeInt(frame.yRowStride);
+        out.writeInt(frame.uvRowStride);
+        out.writeInt(frame.uvPixelStride);
+        out.writeInt(vuLayout.isInterleaved(frame) ? FLAG_SHARED_VU : 0);
+        out.writeLong(timestampNanos);
+        ByteBuffer y = frame.y.duplicate();
+        ByteBuffer u = frame.u.duplicate();
+        ByteBuffer v = frame.v.duplicate();
+        y.rewind();
+        u.rewind();
+        v.rewind();
+        out.writeInt(y.remaining());
+        out.writeInt(u.remaining());
+        out.writeInt(v.remaining());
+        writePlane(y);
+        writePlane(u);
+        writePlane(v);
+        frames++;
+    }
+
+    private void writePlane(ByteBuffer plane) throws IOException {
+        int n = plane.remaining();
+        if (scratch.length < n) scratch = new byte[n];
+        plane.get(scratch, 0, n);
+        out.write(scratch, 0, n);
+        bytes += n;
+    }
+
+    public long getFrames() { return frames; }
+    public long getBytes() { return bytes; }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.myapplication;
+
+import java.io.IOException;
+
+/**
+ * The server received the frame but refused it because this session is sending faster than it
+ * is being served. Not a network error: the caller should slow down, not switch transports.
+ */
+public class FrameRejectedException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public FrameRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.myapplication;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Plays back a {@link FrameRecorder} file as {@link YuvFrame}s, either paced by the recorded
+ * timestamps or as fast as the consumer takes them.
+ *
+ * The frame passed to the sink is only valid for the duration of the call, like a camera image;
+ * its buffers are reused for the next frame.
+ */
+public final class FrameReplayer implements Closeable {
+
+    /** Same shape as {@link FramePipeline#capture}, so a pipeline can be the sink. */
+    public interface Sink {
+        boolean onFrame(YuvFrame frame, long captureNanos);
+    }
+
+    private final DataInputStream in;
+    private ByteBuffer y = ByteBuffer.allocate(0);
+    private ByteBuffer u = ByteBuffer.allocate(0);
+    private ByteBuffer v = ByteBuffer.allocate(0);
+    private ByteBuffer vu = ByteBuffer.allocate(0); // backs both chroma planes of a shared-VU frame
+    private final int version;
+    private YuvFrame frame;
+    private long timestampNanos;
+
+    public FrameReplayer(File file) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        if (in.readInt() != FrameRecorder.MAGIC) {
+            in.close();
+            throw new IOException("not a frame recording: " + file);
+        }
+        version = in.readInt();
+        if (version != 1 && version != FrameRecorder.VERSION) {
+            in.close();
+            throw new IOException("unsupported recording version " + version);
+        }
+    }
+
+    /** Reads the next frame; false at the end of the recording or at a frame cut short by a crash. */
+    public boolean next() throws IOException {
+        try {
+            return readFrame();
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    private boolean readFrame() throws IOException {
+        int width = in.readInt();
+        int height = in.readInt();
+        int yRowStride = in.readInt();
+        int uvRowStride = in.readInt();
+        int uvPixelStride = in.readInt();
+        int flags = version >= 2 ? in.readInt() : 0;
+        timestampNanos = in.readLong();
+        int yLength = in.readInt();
+        int uLength = in.readInt();
+        int vLength = in.readInt();
+        y = readPlane(y, yLength);
+        if ((flags & FrameRecorder.FLAG_SHARED_VU) != 0) {
+            readSharedVu(uLength, vLength);
+        } else {
+            u = readPlane(u, uLength);
+            v = readPlane(v, vLength);
+        }
+        frame = new YuvFrame(width, height, y, u, v, yRowStride, uvRowStride, uvPixelStride);
+        return true;
+    }
+
+    public YuvFrame frame() { return frame; }
+    public long timestampNanos() { return timestampNanos; }
+
+    /**
+     * Feeds every remaining frame to {@code sink} on the calling thread.
+     *
+     * @param realtime wait out the recorded gaps between frames instead of running flat out
+     * @return frames the sink accepted
+     */
+    public int replay(Sink sink, boolean realtime) throws IOException, InterruptedException {
+        int accepted = 0;
+        long firstTimestamp = -1;
+        long startNanos = System.nanoTime();
+        while (next()) {
+            if (firstTimestamp < 0) firstTimestamp = timestampNanos;
+            if (realtime) {
+                long waitNanos = (timestampNanos - firstTimestamp) - (System.nanoTime() - startNanos);
+                if (waitNanos > 0) Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            }
+            if (sink.onFrame(frame, timestampNanos)) accepted++;
+        }
+        return accepted;
+    }
+
+    private ByteBuffer readPlane(ByteBuffer buf, int length) throws IOException {
+        // a plane left over from a shared-VU frame is a view into vu; don't write through it
+        if (buf.capacity() < length || buf.array() == vu.array()) buf = ByteBuffer.allocate(length);
+        in.readFully(buf.array(), 0, length);
+        buf.clear();
+        buf.limit(length);
+        return buf;
+    }
+
+    // V at the start of one buffer and U one byte in, as the camera hands them over;
+    // the overlapping bytes were recorded twice and are equal
+    private void readSharedVu(int uLength, int vLength) throws IOException {
+        int length = Math.max(vLength, uLength + 1);
+        if (vu.capacity() < length) vu = ByteBuffer.allocate(length);
+        in.readFully(vu.array(), 1, uLength);
+        in.readFully(vu.array(), 0, vLength);
+        vu.clear();
+        vu.position(1).limit(1 + uLength);
+        u = vu.slice();
+        vu.position(0).limit(vLength);
+        v = vu.slice();
+        vu.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.myapplication;
+
+/**
+ * End-to-end latency tracing, keyed by frame sequence number:
+ * capture -> encode -> upload complete -> instruction (server echoes the frame id) -> audio start.
+ *
+ * All timestamps are {@link System#nanoTime()}. Upload completion times are kept in a small
+ * ring indexed by sequence number, so an instruction for a frame older than the ring is not
+ * matched rather than mismatched.
+ */
+public final class FrameTracer {
+
+    private static final int RING = 256; // power of two
+
+    public final LatencyHistogram captureToEncode = new LatencyHistogram("capture_to_encode");
+    public final LatencyHistogram encodeToUpload = new LatencyHistogram("encode_to_upload");
+    public final LatencyHistogram uploadToInstruction = new LatencyHistogram("upload_to_instruction");
+    public final LatencyHistogram instructionToAudio = new LatencyHistogram("instruction_to_audio");
+
+    private final int[] ringSeq = new int[RING];
+    private final long[] ringUploadedAt = new long[RING];
+    private final long[] ringStartedAt = new long[RING];
+    private long lastInstructionFrame = -1;
+    private long unmatchedInstructions = 0;
+
+    public void onEncoded(PooledFrame frame) {
+        onEncoded(frame.startNanos, frame.encodedNanos);
+    }
+
+    public void onEncoded(long startNanos, long encodedNanos) {
+        captureToEncode.recordNanos(encodedNanos - startNanos);
+    }
+
+    public void onUploaded(PooledFrame frame, long nowNanos) {
+        onUploaded(frame.seq, frame.startNanos, frame.encodedNanos, nowNanos);
+    }
+
+    /** For a frame whose pooled buffer is gone by the time its upload finishes, e.g. a batched one. */
+    public void onUploaded(int seq, long startNanos, long encodedNanos, long nowNanos) {
+        encodeToUpload.recordNanos(nowNanos - encodedNanos);
+        synchronized (ringSeq) {
+            int slot = seq & (RING - 1);
+            ringSeq[slot] = seq;
+            ringUploadedAt[slot] = nowNanos;
+            ringStartedAt[slot] = startNanos;
+        }
+    }
+
+    /** When the pipeline copied frame {@code frameId}, or -1 if it is not in the ring. */
+    public long capturedAtNanos(long frameId) {
+        synchronized (ringSeq) {
+            int slot = (int) frameId & (RING - 1);
+            return frameId >= 0 && ringSeq[slot] == (int) frameId && ringUploadedAt[slot] != 0
+                    ? ringStartedAt[slot] : -1;
+        }
+    }
+
+    /**
+     * Records an instruction carrying the id of the frame it was computed from.
+     *
+     * @return true if the frame was found in the ring
+     */
+    public boolean onInstruction(long frameId, long nowNanos) {
+        long uploadedAt = 0;
+        synchronized (ringSeq) {
+            int slot = (int) frameId & (RING - 1);
+            if (frameId >= 0 && ringSeq[slot] == (int) frameId) uploadedAt = ringUploadedAt[slot];
+            lastInstructionFrame = frameId;
+            if (uploadedAt == 0) unmatchedInstructions++;
+        }
+        if (uploadedAt == 0) return false;
+        uploadToInstruction.recordNanos(nowNanos - uploadedAt);
+        return true;
+    }
+
+    public void onAudioStart(long instructionNanos, long nowNanos) {
+        instructionToAudio.recordNanos(nowNanos - instructionNanos);
+    }
+
+    public String toJson() {
+        long lastFrame;
+        long unmatched;
+        synchronized (ringSeq) {
+            lastFrame = lastInstructionFrame;
+            unmatched = unmatchedInstructions;
+        }
+        return "{\"last_instruction_frame\":" + lastFrame
+                + ",\"unmatched_instructions\":" + unmatched
+                + ",\"" + captureToEncode.getName() + "\":" + captureToEncode.toJson()
+                + ",\"" + encodeToUpload.getName() + "\":" + encodeToUpload.toJson()
+                + ",\"" + uploadToInstruction.getName() + "\":" + uploadToInstruction.toJson()
+                + ",\"" + instructionToAudio.getName() + "\":" + instructionToAudio.toJson()
+                + "}";
+    }
+}
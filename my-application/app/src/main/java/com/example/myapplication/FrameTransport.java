@@ -0,0 +1,11 @@
+package com.example.myapplication;
+
+import java.io.IOException;
+
+/**
+ * Delivers one encoded frame to the server. Called on the pipeline's upload thread; returns
+ * once the server has accepted the frame, so the upload stage's service time is the round trip.
+ */
+public interface FrameTransport {
+    void send(PooledFrame frame) throws IOException;
+}
@@ -0,0 +1,109 @@
+package com.example.myapplication;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * One multipart POST per frame to {@code /Server}, tagged with the session id so the result is
+ * routed back to this client's socket. Each frame goes to the endpoint the {@link ServerPool}
+ * picks; if that one fails, the frame is retried once on another endpoint. A 4xx reply is
+ * the request's fault, not the endpoint's, so it is neither retried nor held against the endpoint.
+ *
+ * {@link #sendBatch} posts a {@link FrameBatch} container to {@code /Server/batch} instead,
+ * with the same endpoint choice and retry.
+ */
+public class HttpFrameTransport implements FrameTransport {
+
+    private static final int MAX_ATTEMPTS = 2;
+    private static final MediaType BATCH_TYPE = MediaType.parse("application/octet-stream");
+
+    private final OkHttpClient client;
+    private final ServerPool servers;
+    private final String path;
+    private final String sessionId;
+    private final String batchPath;
+
+    public HttpFrameTransport(OkHttpClient client, ServerPool servers, String path, String sessionId) {
+        this.client = client;
+        this.servers = servers;
+        this.path = path;
+        this.sessionId = sessionId;
+        try {
+            // the body is the bare container, so the session rides in the query string
+            this.batchPath = path + "/batch?session=" + URLEncoder.encode(sessionId, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /** The multipart form for one frame; it reads the frame's payload when written, not before. */
+    static RequestBody body(PooledFrame frame, String sessionId) {
+        return new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("session", sessionId)
+                .addFormDataPart("seq", String.valueOf(frame.seq))
+                .addFormDataPart("ts", String.valueOf(frame.captureNanos))
+                .addFormDataPart("format", frame.format.name())
+                .addFormDataPart("width", String.valueOf(frame.width))
+                .addFormDataPart("height", String.valueOf(frame.height))
+                .addFormDataPart("scale", String.valueOf(frame.scale))
+                .addFormDataPart("roi_x", String.valueOf(frame.roiX))
+                .addFormDataPart("roi_y", String.valueOf(frame.roiY))
+                .addFormDataPart("src_width", String.valueOf(frame.sourceWidth))
+                .addFormDataPart("src_height", String.valueOf(frame.sourceHeight))
+                .addFormDataPart(
+                        "file",
+                        frame.format.fileName,
+                        RequestBody.create(frame.payload(), MediaType.parse(frame.format.mimeType), 0, frame.payloadLength())
+                )
+                .build();
+    }
+
+    // The frame's buffers are recycled once this returns, which is safe because execute()
+    // has written the whole body by then
+    @Override
+    public void send(PooledFrame frame) throws IOException {
+        post(path, body(frame, sessionId));
+    }
+
+    /** Posts every frame in {@code batch} in one request; the batch may be cleared once this returns. */
+    public void sendBatch(FrameBatch batch) throws IOException {
+        post(batchPath, RequestBody.create(batch.bytes(), BATCH_TYPE, 0, batch.length()));
+    }
+
+    private void post(String path, RequestBody requestBody) throws IOException {
+        IOException failure = null;
+        ServerPool.Endpoint failed = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            ServerPool.Lease lease = servers.acquire(failed);
+            if (lease == null) break; // no other endpoint to retry on
+            int code = -1;
+            try (Response response = client.newCall(new Request.Builder()
+                    .url(lease.endpoint.url(path))
+                    .post(requestBody)
+                    .build()).execute()) {
+                code = response.code();
+            } catch (IOException e) {
+                failure = e;
+            }
+            // 4xx: the server is fine and answered; 429 means this session is sending too fast,
+            // any other 4xx is a bad request that another endpoint would refuse just the same
+            boolean clientError = code >= 400 && code < 500;
+            lease.close(clientError || (code >= 200 && code < 300));
+            if (code == 429) throw new FrameRejectedException("session busy");
+            if (clientError) throw new IOException("HTTP " + code);
+            if (code >= 200 && code < 300) return;
+            if (code != -1) failure = new IOException("HTTP " + code);
+            failed = lease.endpoint;
+        }
+        throw failure;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.myapplication;
+
+/**
+ * Navigation cues the server can send as the {@code code} of an {@code instruction} event.
+ * Anything unrecognised maps to {@link #STOP}, matching the original handler's default.
+ */
+public enum Instruction {
+    LEFT("1", 50),
+    RIGHT("2", 50),
+    LEFT2("3", 60),
+    RIGHT2("4", 60),
+    STRAIGHT("5", 10),
+    STOP("0", 100);
+
+    /** Priority at or above which a cue is urgent: it clears the queue and interrupts playback. */
+    public static final int URGENT_PRIORITY = 100;
+
+    public final String code;
+    /** Scheduling priority; sharp turns outrank gentle ones, STOP outranks everything. */
+    public final int priority;
+
+    Instruction(String code, int priority) {
+        this.code = code;
+        this.priority = priority;
+    }
+
+    public boolean isUrgent() {
+        return priority >= URGENT_PRIORITY;
+    }
+
+    public static Instruction fromCode(String code) {
+        for (Instruction i : values()) {
+            if (i.code.equals(code)) return i;
+        }
+        return STOP;
+    }
+
+    public boolean isDirectional() {
+        return this != STOP;
+    }
+
+    /** Whether this cue should cut off {@code playing}: only STOP interrupts, and never itself. */
+    public boolean preempts(Instruction playing) {
+        return this == STOP && playing != null && playing != STOP;
+    }
+}
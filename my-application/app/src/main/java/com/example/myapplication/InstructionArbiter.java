@@ -0,0 +1,164 @@
+package com.example.myapplication;
+
+import java.util.Locale;
+
+/**
+ * Chooses between the server's cues and the on-device {@link LocalInstructionEngine}.
+ *
+ * A server cue is fresh when its frame is at most {@code budgetMs} old on arrival. While fresh
+ * server cues keep coming, they are forwarded and local cues are ignored. When no fresh server
+ * cue has arrived for {@code staleAfterMs} the arbiter switches to the local source; it
+ * switches back only after server cues have been fresh again for {@code recoverMs}, with no
+ * late cue and no gap longer than {@code staleAfterMs} in between, so a link that is barely
+ * keeping up does not flip the source on every cue. While the local source cannot run at all
+ * (see {@link #setLocalAvailable}) the server stays active, so its cues are played even late.
+ *
+ * Every source calls {@link #onInstruction} from its own thread; forwarding happens outside the
+ * lock, like the governor's listener.
+ */
+public final class InstructionArbiter implements InstructionSource.Sink {
+
+    public interface Listener {
+        void onSourceChanged(InstructionSource from, InstructionSource to, String reason);
+    }
+
+    private final InstructionSource server;
+    private final InstructionSource local;
+    private final InstructionSource.Sink downstream;
+    private final Clock clock;
+    private final long budgetMs;
+    private final long staleAfterMs;
+    private final long recoverMs;
+    private volatile Listener listener;
+
+    private InstructionSource active;
+    private boolean localAvailable = true;
+    private long lastFreshMs = -1;    // last fresh server cue; -1 until the grace period starts
+    private long freshSinceMs = -1;   // start of the current unbroken run of fresh server cues while local
+    private long forwardedServer, forwardedLocal, ignored, lateServer, switches;
+
+    /**
+     * @param budgetMs     oldest frame age at which a server cue still counts as fresh
+     * @param staleAfterMs time without a fresh server cue before the local source takes over
+     * @param recoverMs    time server cues must stay fresh before they take over again
+     */
+    public InstructionArbiter(InstructionSource server, InstructionSource local, InstructionSource.Sink downstream,
+                              Clock clock, long budgetMs, long staleAfterMs, long recoverMs) {
+        this.server = server;
+        this.local = local;
+        this.downstream = downstream;
+        this.clock = clock;
+        this.budgetMs = budgetMs;
+        this.staleAfterMs = staleAfterMs;
+        this.recoverMs = recoverMs;
+        this.active = server;
+        server.setSink(this);
+        local.setSink(this);
+    }
+
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    /** Back to the server with a fresh grace period, e.g. when streaming starts. */
+    public synchronized void reset() {
+        active = server;
+        lastFreshMs = -1;
+        freshSinceMs = -1;
+    }
+
+    /**
+     * Whether the local source can produce cues, e.g. false while a performance tier turns the
+     * on-device detector off. Going unavailable hands back to the server at once.
+     */
+    public void setLocalAvailable(boolean available) {
+        InstructionSource from = null;
+        synchronized (this) {
+            localAvailable = available;
+            if (!available && active == local) from = switchTo(server);
+        }
+        if (from != null) notifyChanged(from, server, "local source unavailable");
+    }
+
+    /**
+     * Switches to the local source if the server has gone stale. Call it per frame, before
+     * deciding whether to run the local engine.
+     *
+     * @return whether local cues are currently played
+     */
+    public boolean useLocal() {
+        InstructionSource from = null;
+        long nowMs = clock.nowMs();
+        long silentMs;
+        synchronized (this) {
+            if (lastFreshMs < 0) lastFreshMs = nowMs; // the server gets staleAfterMs from the first frame
+            silentMs = nowMs - lastFreshMs;
+            if (active == server && localAvailable && silentMs > staleAfterMs) from = switchTo(local);
+        }
+        if (from != null) notifyChanged(from, local, "no fresh server cue for " + silentMs + " ms");
+        return isLocal();
+    }
+
+    @Override
+    public void onInstruction(InstructionSource source, Instruction instruction, long frameAtMs) {
+        long nowMs = clock.nowMs();
+        boolean forward;
+        InstructionSource from = null;
+        synchronized (this) {
+            if (source == server) {
+                boolean fresh = nowMs - frameAtMs <= budgetMs;
+                if (fresh) {
+                    // a gap as long as the one that made the server stale breaks the run too
+                    boolean gap = nowMs - lastFreshMs > staleAfterMs;
+                    lastFreshMs = nowMs;
+                    if (active == local) {
+                        if (freshSinceMs < 0 || gap) freshSinceMs = nowMs;
+                        if (nowMs - freshSinceMs >= recoverMs) from = switchTo(server);
+                    }
+                } else {
+                    lateServer++;
+                    freshSinceMs = -1;
+                }
+                // a late server cue is still the best we have while the local source is not running
+                forward = active == server;
+                if (forward) forwardedServer++;
+            } else {
+                forward = active == local;
+                if (forward) forwardedLocal++;
+            }
+            if (!forward) ignored++;
+        }
+        if (from != null) notifyChanged(from, server, "server fresh for " + recoverMs + " ms");
+        if (forward) downstream.onInstruction(source, instruction, frameAtMs);
+    }
+
+    private InstructionSource switchTo(InstructionSource to) {
+        InstructionSource from = active;
+        active = to;
+        freshSinceMs = -1;
+        switches++;
+        return from;
+    }
+
+    private void notifyChanged(InstructionSource from, InstructionSource to, String reason) {
+        Listener l = listener;
+        if (l != null) l.onSourceChanged(from, to, reason);
+    }
+
+    public synchronized InstructionSource getActive() { return active; }
+    public synchronized boolean isLocal() { return active == local; }
+    public synchronized long getSwitches() { return switches; }
+    public synchronized long getForwardedServer() { return forwardedServer; }
+    public synchronized long getForwardedLocal() { return forwardedLocal; }
+    public synchronized long getIgnored() { return ignored; }
+
+    public synchronized String toJson() {
+        return String.format(Locale.US,
+                "{\"active\":\"%s\",\"switches\":%d,\"server\":%d,\"local\":%d,\"ignored\":%d,\"late_server\":%d}",
+                active.name(), switches, forwardedServer, forwardedLocal, ignored, lateServer);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "active=%s switches=%d server=%d local=%d ignored=%d late=%d",
+                active.name(), switches, forwardedServer, forwardedLocal, ignored, lateServer);
+    }
+}
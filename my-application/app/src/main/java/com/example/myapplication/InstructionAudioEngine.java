@@ -0,0 +1,134 @@
+package com.example.myapplication;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioAttributes;
+import android.media.AudioFocusRequest;
+import android.media.AudioManager;
+import android.media.MediaMetadataRetriever;
+import android.media.SoundPool;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Plays the six instruction cues from a {@link SoundPool} that is loaded once at startup, so a cue
+ * starts without per-event decoder setup or file opens (MediaPlayer.create took 100+ ms).
+ *
+ * Only one cue plays at a time. While a cue is playing, a new cue either preempts it
+ * ({@link Instruction#preempts}) or is rejected.
+ */
+public class InstructionAudioEngine implements InstructionScheduler.CuePlayer {
+
+    private static final String TAG = "InstructionAudio";
+
+    private final AudioManager audioManager;
+    private final SoundPool soundPool;
+    private final AudioFocusRequest focusRequest;
+
+    private final Map<Instruction, Integer> soundIds = new EnumMap<>(Instruction.class);
+    private final Map<Instruction, Long> durationsMs = new EnumMap<>(Instruction.class);
+    private final boolean[] loaded = new boolean[Instruction.values().length];
+
+    private Instruction playing = null;
+    private int playingStream = 0;
+    private long playingUntilMs = 0;
+
+    public InstructionAudioEngine(Context context) {
+        AudioAttributes attrs = new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_ASSISTANCE_ACCESSIBILITY)
+                .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
+                .build();
+        this.audioManager = context.getSystemService(AudioManager.class);
+        this.focusRequest = new AudioFocusRequest.Builder(AudioManager.AUDIOFOCUS_GAIN_TRANSIENT)
+                .setAudioAttributes(attrs)
+                .build();
+        this.soundPool = new SoundPool.Builder()
+                .setMaxStreams(2)
+                .setAudioAttributes(attrs)
+                .build();
+
+        soundPool.setOnLoadCompleteListener((pool, sampleId, status) -> {
+            synchronized (this) {
+                for (Map.Entry<Instruction, Integer> e : soundIds.entrySet()) {
+                    if (e.getValue() == sampleId) loaded[e.getKey().ordinal()] = status == 0;
+                }
+            }
+        });
+
+        for (Instruction instruction : Instruction.values()) {
+            int resId = rawResource(instruction);
+            synchronized (this) {
+                soundIds.put(instruction, soundPool.load(context, resId, 1)); // decoded to PCM off-thread
+            }
+            durationsMs.put(instruction, durationMs(context, resId));
+        }
+    }
+
+    static int rawResource(Instruction instruction) {
+        switch (instruction) {
+            case LEFT:     return R.raw.left;
+            case RIGHT:    return R.raw.right;
+            case LEFT2:    return R.raw.left2;
+            case RIGHT2:   return R.raw.right2;
+            case STRAIGHT: return R.raw.straight;
+            default:       return R.raw.stop;
+        }
+    }
+
+    private static long durationMs(Context context, int resId) {
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try (AssetFileDescriptor fd = context.getResources().openRawResourceFd(resId)) {
+            retriever.setDataSource(fd.getFileDescriptor(), fd.getStartOffset(), fd.getLength());
+            String d = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION);
+            return d == null ? 1000 : Long.parseLong(d);
+        } catch (Exception e) {
+            Log.w(TAG, "no duration for cue " + resId, e);
+            return 1000;
+        } finally {
+            try { retriever.release(); } catch (Exception ignored) {}
+        }
+    }
+
+    public synchronized boolean isLoaded(Instruction instruction) {
+        return loaded[instruction.ordinal()];
+    }
+
+    /** The cue still playing, or null. */
+    @Override
+    public synchronized Instruction current() {
+        if (playing != null && SystemClock.uptimeMillis() >= playingUntilMs) playing = null;
+        return playing;
+    }
+
+    /** @return true if the cue started; false if it is not loaded yet or lost to the playing cue */
+    @Override
+    public synchronized boolean play(Instruction instruction) {
+        if (!loaded[instruction.ordinal()]) {
+            Log.w(TAG, "cue not loaded yet: " + instruction);
+            return false;
+        }
+
+        Instruction now = current();
+        if (now != null) {
+            if (!instruction.preempts(now)) return false;
+            soundPool.stop(playingStream);
+        }
+
+        if (audioManager != null) audioManager.requestAudioFocus(focusRequest);
+        int stream = soundPool.play(soundIds.get(instruction), 1f, 1f, 1, 0, 1f);
+        if (stream == 0) return false;
+
+        playing = instruction;
+        playingStream = stream;
+        playingUntilMs = SystemClock.uptimeMillis() + durationsMs.get(instruction);
+        return true;
+    }
+
+    public synchronized void release() {
+        soundPool.release();
+        if (audioManager != null) audioManager.abandonAudioFocusRequest(focusRequest);
+    }
+}
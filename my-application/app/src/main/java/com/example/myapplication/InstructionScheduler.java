@@ -0,0 +1,159 @@
+package com.example.myapplication;
+
+import java.util.Locale;
+
+/**
+ * Decides which navigation cue to play next, replacing the fixed 1-second debounce.
+ *
+ * <ul>
+ *   <li>At most one pending entry per cue: a repeat of a pending cue is coalesced into it.</li>
+ *   <li>Highest {@link Instruction#priority} is played first; ties go to the newer frame.</li>
+ *   <li>Urgent cues (STOP) drop every lower-priority pending cue and interrupt playback.</li>
+ *   <li>A cue whose frame is older than {@code maxAgeMs} is expired instead of played.</li>
+ *   <li>Playing a cue drops every pending cue from the same or an older frame: it is outdated.</li>
+ *   <li>The cue that just played is not repeated within {@code repeatSuppressMs}.</li>
+ * </ul>
+ *
+ * Not thread-safe by design: all calls come from the single scheduler thread, and
+ * {@link #submit}/{@link #pump} are synchronous so tests drive them with a fake clock.
+ */
+public final class InstructionScheduler {
+
+    public interface CuePlayer {
+        /** Cue currently audible, or null. */
+        Instruction current();
+
+        boolean play(Instruction instruction);
+    }
+
+    public interface Listener {
+        /**
+         * @param frameAtMs     capture time of the newest frame behind the cue (as submitted)
+         * @param submittedAtMs when the cue was first queued
+         */
+        void onPlayed(Instruction instruction, long frameAtMs, long submittedAtMs, long nowMs);
+    }
+
+    private static final Instruction[] ALL = Instruction.values();
+
+    private final Clock clock;
+    private final CuePlayer player;
+    private final long maxAgeMs;
+    private final long repeatSuppressMs;
+    private Listener listener;
+
+    private final boolean[] pending = new boolean[ALL.length];
+    private final long[] frameAtMs = new long[ALL.length];
+    private final long[] submittedAtMs = new long[ALL.length];
+
+    private Instruction lastPlayed = null;
+    private long lastPlayedAtMs = 0;
+
+    private long submitted, coalesced, preempted, expired, suppressed, outdated, played;
+
+    public InstructionScheduler(Clock clock, CuePlayer player, long maxAgeMs, long repeatSuppressMs) {
+        this.clock = clock;
+        this.player = player;
+        this.maxAgeMs = maxAgeMs;
+        this.repeatSuppressMs = repeatSuppressMs;
+    }
+
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    /**
+     * Queues a cue.
+     *
+     * @param frameAtMs when the frame behind this cue was captured (same clock); use the
+     *                  receive time when the frame is unknown
+     */
+    public void submit(Instruction instruction, long frameAtMs) {
+        submitted++;
+        int i = instruction.ordinal();
+        if (pending[i]) {
+            coalesced++;
+            this.frameAtMs[i] = Math.max(this.frameAtMs[i], frameAtMs);
+        } else {
+            pending[i] = true;
+            this.frameAtMs[i] = frameAtMs;
+            submittedAtMs[i] = clock.nowMs();
+        }
+
+        if (instruction.isUrgent()) {
+            for (Instruction other : ALL) {
+                if (pending[other.ordinal()] && other.priority < instruction.priority) {
+                    pending[other.ordinal()] = false;
+                    preempted++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Plays at most one cue if the player is free (or the best cue may interrupt it).
+     *
+     * @return the cue that started, or null
+     */
+    public Instruction pump() {
+        long now = clock.nowMs();
+
+        while (true) {
+            Instruction next = null;
+            for (Instruction candidate : ALL) {
+                int i = candidate.ordinal();
+                if (!pending[i]) continue;
+                if (now - frameAtMs[i] > maxAgeMs) {
+                    pending[i] = false;
+                    expired++;
+                    continue;
+                }
+                if (next == null || candidate.priority > next.priority
+                        || (candidate.priority == next.priority && frameAtMs[i] > frameAtMs[next.ordinal()])) {
+                    next = candidate;
+                }
+            }
+            if (next == null) return null;
+
+            Instruction playing = player.current();
+            if (playing != null && !next.preempts(playing)) return null; // wait for the cue to end
+
+            int n = next.ordinal();
+            if (next == lastPlayed && now - lastPlayedAtMs < repeatSuppressMs) {
+                pending[n] = false;
+                suppressed++;
+                continue; // look at the next-best cue
+            }
+
+            if (!player.play(next)) return null; // keep it pending, e.g. audio still loading
+            pending[n] = false;
+            if (playing != null) preempted++;
+            lastPlayed = next;
+            lastPlayedAtMs = now;
+            played++;
+            for (int i = 0; i < ALL.length; i++) {
+                if (pending[i] && frameAtMs[i] <= frameAtMs[n]) {
+                    pending[i] = false;
+                    outdated++;
+                }
+            }
+            if (listener != null) listener.onPlayed(next, frameAtMs[n], submittedAtMs[n], now);
+            return next;
+        }
+    }
+
+    public boolean isPending(Instruction instruction) {
+        return pending[instruction.ordinal()];
+    }
+
+    public long getPlayed() { return played; }
+    public long getCoalesced() { return coalesced; }
+    public long getPreempted() { return preempted; }
+    public long getExpired() { return expired; }
+    public long getSuppressed() { return suppressed; }
+    public long getOutdated() { return outdated; }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "in=%d played=%d coalesced=%d preempted=%d expired=%d suppressed=%d outdated=%d",
+                submitted, played, coalesced, preempted, expired, suppressed, outdated);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.myapplication;
+
+/**
+ * Something that produces navigation cues: the server over the socket, or the on-device
+ * {@link LocalInstructionEngine}. An {@link InstructionArbiter} decides whose cues are played.
+ */
+public interface InstructionSource {
+
+    interface Sink {
+        /**
+         * @param frameAtMs when the frame behind the cue was captured ({@link Clock#MONOTONIC});
+         *                  the receive time when the frame is unknown
+         */
+        void onInstruction(InstructionSource source, Instruction instruction, long frameAtMs);
+    }
+
+    /** Short name for logs and {@code /instructions}, e.g. {@code "server"}. */
+    String name();
+
+    void setSink(Sink sink);
+}
@@ -0,0 +1,12 @@
+package com.example.myapplication;
+
+import java.io.OutputStream;
+
+/**
+ * Compresses a packed NV21 buffer to JPEG.
+ *
+ * On device this is backed by {@code YuvImage} ({@link YuvJpegCompressor}); tests plug in a fake.
+ */
+public interface JpegCompressor {
+    void compress(byte[] nv21, int width, int height, int quality, OutputStream out);
+}
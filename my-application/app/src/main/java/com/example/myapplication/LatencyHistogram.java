@@ -0,0 +1,104 @@
+package com.example.myapplication;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-bucket latency histogram in milliseconds. Recording is lock-free and allocation-free,
+ * so it can sit on the frame and audio hot paths; percentiles are bucket upper bounds.
+ */
+public final class LatencyHistogram {
+
+    /** Upper bounds (inclusive) in ms; the last bucket collects everything above. */
+    static final long[] BOUNDS_MS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000 };
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MS.length + 1);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sumMs = new AtomicLong();
+    private final AtomicLong maxMs = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1_000_000);
+    }
+
+    public void record(long ms) {
+        if (ms < 0) ms = 0;
+        int i = 0;
+        while (i < BOUNDS_MS.length && ms > BOUNDS_MS[i]) i++;
+        counts.incrementAndGet(i);
+        total.incrementAndGet();
+        sumMs.addAndGet(ms);
+        long max;
+        while (ms > (max = maxMs.get())) {
+            if (maxMs.compareAndSet(max, ms)) break;
+        }
+    }
+
+    public long getCount() { return total.get(); }
+    public long getMaxMs() { return maxMs.get(); }
+
+    public double getMeanMs() {
+        long n = total.get();
+        return n == 0 ? 0 : (double) sumMs.get() / n;
+    }
+
+    /** Upper bound of the bucket holding the p-th percentile (0..100); max for the overflow bucket. */
+    public long percentileMs(double p) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(p / 100.0 * n);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MS.length; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(BOUNDS_MS[i], maxMs.get());
+        }
+        return maxMs.get();
+    }
+
+    /** Number of buckets, including the overflow bucket. */
+    public static int bucketCount() { return BOUNDS_MS.length + 1; }
+
+    /** Copies the per-bucket counts into {@code into}, which has {@link #bucketCount()} slots. */
+    public void copyCounts(long[] into) {
+        for (int i = 0; i < into.length; i++) into[i] = counts.get(i);
+    }
+
+    /**
+     * Percentile over bucket counts taken with {@link #copyCounts}, e.g. the difference of two
+     * copies for the samples in between. The overflow bucket reports the largest bound; -1 if
+     * there are no samples.
+     */
+    public static long percentileMs(long[] bucketCounts, double p) {
+        long n = 0;
+        for (long c : bucketCounts) n += c;
+        if (n == 0) return -1;
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MS.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) return BOUNDS_MS[i];
+        }
+        return BOUNDS_MS[BOUNDS_MS.length - 1];
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US,
+                "{\"count\":%d,\"mean_ms\":%.2f,\"p50_ms\":%d,\"p95_ms\":%d,\"p99_ms\":%d,\"max_ms\":%d,\"buckets\":{",
+                getCount(), getMeanMs(), percentileMs(50), percentileMs(95), percentileMs(99), getMaxMs()));
+        for (int i = 0; i <= BOUNDS_MS.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append('"').append(i < BOUNDS_MS.length ? "le_" + BOUNDS_MS[i] : "inf").append("\":").append(counts.get(i));
+        }
+        return sb.append("}}").toString();
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.myapplication;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * On-device fallback for the server's navigation cues, computed from the Y plane alone.
+ *
+ * The lower part of the view (the floor just ahead) is split into five columns, and each
+ * column's edge density is the fraction of sampled pixels whose luma gradient exceeds
+ * {@code edgeThreshold}. Open floor is smooth; furniture, people and clutter are not. If the
+ * centre column is free the cue is STRAIGHT; otherwise it is the turn towards the clearest
+ * column (gentle turns for the inner columns, sharp for the outer ones), or STOP when every
+ * column is blocked. Every {@link #SAMPLE_STEP}th pixel of every {@link #SAMPLE_STEP}th row is
+ * sampled: under 8k samples for the lower 40% of a VGA frame.
+ *
+ * {@link #process} is called from the capture thread only; the counters are safe to read anywhere.
+ */
+public final class LocalInstructionEngine implements InstructionSource {
+
+    static final int COLUMNS = 5;
+    static final int SAMPLE_STEP = 4;
+    /**
+     * A column must be this much clearer than the best so far to win, so an obstacle's own edge
+     * spilling into the next column doesn't turn a gentle turn into a sharp one.
+     */
+    static final double MARGIN = 0.15;
+
+    private static final Instruction[] BY_COLUMN =
+            { Instruction.LEFT2, Instruction.LEFT, Instruction.STRAIGHT, Instruction.RIGHT, Instruction.RIGHT2 };
+    private static final int[] SEARCH_ORDER = { 1, 3, 0, 4 }; // gentle turns before sharp ones
+
+    private final boolean rotate180;
+    private final double lowerFraction;
+    private final int edgeThreshold;
+    private final double freeDensity;
+    private final double blockedDensity;
+    private final long budgetNanos;
+    private volatile Sink sink;
+
+    private final int[] edges = new int[COLUMNS];
+    private final int[] samples = new int[COLUMNS];
+    private final double[] density = new double[COLUMNS];
+    private volatile Instruction last = null;
+
+    private final AtomicLong evaluated = new AtomicLong();
+    private final AtomicLong overBudget = new AtomicLong();
+    private final AtomicLong costNanos = new AtomicLong();
+    private final AtomicLong maxCostNanos = new AtomicLong();
+
+    /**
+     * @param rotate180      the sensor is mounted upside down (as on the Blade), so the floor is
+     *                       at the top of the buffer and left and right are swapped
+     * @param lowerFraction  share of the (upright) frame height, from the bottom, that is analysed
+     * @param edgeThreshold  luma gradient (0..510) that counts as an edge
+     * @param freeDensity    edge density at or below which a column is free
+     * @param blockedDensity edge density above which a column is blocked
+     * @param budgetMs       per-frame CPU budget; frames over it are counted
+     */
+    public LocalInstructionEngine(boolean rotate180, double lowerFraction, int edgeThreshold,
+                                  double freeDensity, double blockedDensity, double budgetMs) {
+        this.rotate180 = rotate180;
+        this.lowerFraction = lowerFraction;
+        this.edgeThreshold = edgeThreshold;
+        this.freeDensity = freeDensity;
+        this.blockedDensity = blockedDensity;
+        this.budgetNanos = (long) (budgetMs * 1_000_000);
+    }
+
+    @Override
+    public String name() { return "local"; }
+
+    @Override
+    public void setSink(Sink sink) { this.sink = sink; }
+
+    /** Classifies the frame and hands the cue to the sink. */
+    public Instruction process(YuvFrame frame, long frameAtMs) {
+        long start = System.nanoTime();
+        Instruction instruction = classify(frame);
+        record(System.nanoTime() - start);
+        last = instruction;
+        Sink s = sink;
+        if (s != null) s.onInstruction(this, instruction, frameAtMs);
+        return instruction;
+    }
+
+    Instruction classify(YuvFrame frame) {
+        columnDensity(frame);
+        if (density[2] <= freeDensity) return Instruction.STRAIGHT;
+        int best = 2;
+        for (int column : SEARCH_ORDER) {
+            if (density[column] + MARGIN < density[best]) best = column;
+        }
+        return density[best] > blockedDensity ? Instruction.STOP : BY_COLUMN[best];
+    }
+
+    /** Edge density of each upright column, left to right, into {@link #density}. */
+    private void columnDensity(YuvFrame frame) {
+        int w = frame.width;
+        int h = frame.height;
+        int stride = frame.yRowStride;
+        int bandRows = (int) (h * lowerFraction);
+        // the upright bottom band is the top of the buffer when the sensor is upside down
+        int rowStart = rotate180 ? 0 : h - bandRows;
+        int rowEnd = Math.min(rowStart + bandRows, h - SAMPLE_STEP);
+        int xEnd = w - SAMPLE_STEP;
+        Arrays.fill(edges, 0);
+        Arrays.fill(samples, 0);
+        for (int row = rowStart; row < rowEnd; row += SAMPLE_STEP) {
+            int base = row * stride;
+            int below = base + SAMPLE_STEP * stride;
+            for (int x = 0; x < xEnd; x += SAMPLE_STEP) {
+                int p = frame.y.get(base + x) & 0xFF;
+                int gradient = Math.abs((frame.y.get(base + x + SAMPLE_STEP) & 0xFF) - p)
+                        + Math.abs((frame.y.get(below + x) & 0xFF) - p);
+                int column = x * COLUMNS / w;
+                samples[column]++;
+                if (gradient > edgeThreshold) edges[column]++;
+            }
+        }
+        for (int c = 0; c < COLUMNS; c++) {
+            int upright = rotate180 ? COLUMNS - 1 - c : c;
+            density[upright] = samples[c] == 0 ? 0 : (double) edges[c] / samples[c];
+        }
+    }
+
+    private void record(long nanos) {
+        evaluated.incrementAndGet();
+        if (nanos > budgetNanos) overBudget.incrementAndGet();
+        costNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = maxCostNanos.get())) {
+            if (maxCostNanos.compareAndSet(max, nanos)) break;
+        }
+    }
+
+    /** Edge density of upright column {@code i} (0 = left) in the last frame; capture thread only. */
+    double getColumnDensity(int i) { return density[i]; }
+
+    public Instruction getLast() { return last; }
+    public long getEvaluated() { return evaluated.get(); }
+    public long getOverBudget() { return overBudget.get(); }
+
+    /** Mean cost per frame, in microseconds. */
+    public double getMeanCostUs() {
+        long n = evaluated.get();
+        return n == 0 ? 0 : costNanos.get() / 1e3 / n;
+    }
+
+    public double getMaxCostUs() { return maxCostNanos.get() / 1e3; }
+
+    public String toJson() {
+        return String.format(Locale.US,
+                "{\"evaluated\":%d,\"last\":\"%s\",\"over_budget\":%d,\"budget_us\":%d,\"mean_cost_us\":%.1f,\"max_cost_us\":%.1f}",
+                getEvaluated(), last, getOverBudget(), budgetNanos / 1000, getMeanCostUs(), getMaxCostUs());
+    }
+}
@@ -1,25 +1,24 @@
 package com.example.myapplication;
 
 import android.Manifest;
+import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.ImageFormat;
-import android.graphics.Matrix;
-import android.graphics.Rect;
-import android.graphics.YuvImage;
-import android.media.AudioAttributes;
 import android.media.AudioManager;
-import android.media.MediaPlayer;
-import android.media.MediaRecorder;
+import android.net.ConnectivityManager;
+import android.net.Network;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
 import android.util.Size;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
 import android.widget.Button;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultCallback;
@@ -37,16 +36,26 @@ import androidx.core.content.ContextCompat;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-import okhttp3.Call;
-import okhttp3.Callback;
 import okhttp3.FormBody;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
@@ -61,17 +70,94 @@ import io.socket.client.Socket;
 public class MainActivity extends AppCompatActivity {
 
     // -------- configurable --------
-    private static final String SERVER_IP = "10.129.141.205"; // <-- your PC LAN IP
-    private static final String BASE_HTTP = "http://" + SERVER_IP + ":5000";
-    private static final String UPLOAD_URL = BASE_HTTP + "/Server";
-    private static final String TEXT_URL   = BASE_HTTP + "/stt";
-    private static final String AUDIO_URL  = BASE_HTTP + "/stt_audio";
-    private static final String SOCKET_URL = BASE_HTTP;      // root is fine for Socket.IO
+    // Interchangeable inference servers; the first is preferred for the socket
+    private static final String[] SERVER_URLS = {
+            "http://10.129.141.205:5000", // <-- your PC LAN IP
+    };
+    private static final String UPLOAD_PATH = "/Server";
+    private static final String TEXT_PATH   = "/stt";
+    private static final String AUDIO_PATH  = "/stt_audio";  // GET doubles as the health probe
+    private static final ServerPool.Strategy SERVER_STRATEGY = ServerPool.Strategy.LEAST_OUTSTANDING;
+    private static final long SERVER_PROBE_INTERVAL_MS = 3000;
+    private static final long SERVER_PROBE_TIMEOUT_MS = 1000;
+    private static final long OUTBOX_MAX_BYTES = 20L << 20;    // clips/text kept while offline
+    private static final long OUTBOX_SEGMENT_BYTES = 4L << 20;
+    private static final long OUTBOX_TTL_MS = 5 * 60_000;     // a voice command older than this is stale
+    private static final int OUTBOX_BATCH = 4;
+    private static final long OUTBOX_MIN_BACKOFF_MS = 1000;
+    private static final long OUTBOX_MAX_BACKOFF_MS = 60_000;
+    // JPEG or LUMA (raw Y plane), downscale 1/2/4, region; the server can switch it with "payload_mode"
+    private static final PayloadMode PAYLOAD_MODE = PayloadMode.full(FrameFormat.JPEG);
+    private static final int JPEG_QUALITY = 50;
+    private static final boolean STREAM_FRAMES_OVER_SOCKET = true; // false = one HTTP POST per frame
+    private static final int UPLOAD_BATCH_FRAMES = 1;          // >1: HTTP uploads pack this many frames per POST
+    private static final long UPLOAD_BATCH_MAX_WAIT_MS = 150;  // a partial batch goes out after this long
+    private static final boolean STREAM_VOICE_OVER_SOCKET = true;  // false = record a clip, then POST it
+    private static final int VOICE_SAMPLE_RATE = 16000;       // PCM s16le mono, what Whisper expects
+    private static final int VOICE_CHUNK_MS = 250;            // audio per voice_chunk event
+    private static final int VOICE_RING_MS = 10_000;          // audio kept while the link stalls
+    private static final int VAD_FRAME_MS = 20;
+    private static final double VAD_THRESHOLD_DB = 10;        // speech is this far above the room's noise floor
+    private static final double VAD_MIN_SPEECH_DBFS = -50;
+    private static final int VAD_FLOOR_WINDOW_MS = 1000;
+    private static final int VOICE_CLIP_PADDING_MS = 200;     // kept around the speech when trimming a clip
+    private static final int VOICE_TRAILING_SILENCE_MS = 1500; // a clip ends by itself after this much quiet
+    private static final int VOICE_NO_SPEECH_TIMEOUT_MS = 5000;
+    private static final int VOICE_MAX_CLIP_MS = 30_000;
+    private static final long FRAME_ACK_TIMEOUT_MS = 2000;
+    private static final int PIPELINE_QUEUE_CAPACITY = 2;   // per hand-off queue (encode, upload)
+    private static final DropPolicy PIPELINE_DROP_POLICY = DropPolicy.DROP_OLDEST;
+    private static final long FRAME_AGE_BUDGET_MS = 400;    // capture -> upload complete
+    private static final int MAX_FRAMES_IN_FLIGHT = 3;
+    private static final long RATE_COOLDOWN_MS = 2000;      // min time between rate level changes
+    private static final long TRACE_REPORT_INTERVAL_MS = 10_000; // latency_trace.json refresh
+    private static final int DEBUG_ENDPOINT_PORT = 8089;    // adb forward tcp:8089 tcp:8089; GET /trace
+    private static final long INSTRUCTION_MAX_AGE_MS = 1500; // drop cues computed from older frames
+    private static final long CUE_REPEAT_SUPPRESS_MS = 2000; // don't repeat the same cue sooner
+    private static final long CUE_PUMP_INTERVAL_MS = 50;     // re-check the queue while a cue plays
+    private static final double MOTION_THRESHOLD = 3.0;      // mean luma change (0..255) that counts as motion
+    private static final long KEYFRAME_INTERVAL_MS = 1000;   // upload at least this often when nothing moves
+    private static final boolean CAMERA_UPSIDE_DOWN = true;   // Blade sensor: frames are rotated 180° before upload
+    // On-device cues when the server's go stale: edge density of the floor band, in 5 columns
+    private static final long SERVER_CUE_BUDGET_MS = 1000;   // a server cue for an older frame is late
+    private static final long SERVER_STALE_AFTER_MS = 2000;  // no timely server cue this long -> local cues
+    private static final long SERVER_RECOVER_MS = 3000;      // timely server cues this long -> back to the server
+    private static final long LOCAL_CUE_INTERVAL_MS = 500;
+    private static final double LOCAL_FLOOR_FRACTION = 0.4;  // lower part of the view that is analysed
+    private static final int LOCAL_EDGE_THRESHOLD = 24;      // luma gradient that counts as an edge
+    private static final double LOCAL_FREE_DENSITY = 0.08;
+    private static final double LOCAL_BLOCKED_DENSITY = 0.35;
+    private static final double LOCAL_BUDGET_MS = 4;         // per-frame CPU budget on the capture thread
+    private static final boolean RECORD_FRAMES = false;      // raw camera frames to files/recordings/ while streaming
+    private static final long HUD_REFRESH_MS = 1000;         // overlay redraw period; DPAD up shows it, down hides it
+    // Best first: capture interval, target resolution, JPEG quality
+    private static final AdaptiveRateController.Level[] RATE_LEVELS = {
+            new AdaptiveRateController.Level(100, 640, 480, JPEG_QUALITY),
+            new AdaptiveRateController.Level(200, 640, 480, 40),
+            new AdaptiveRateController.Level(300, 320, 240, 50),
+            new AdaptiveRateController.Level(500, 320, 240, 35),
+            new AdaptiveRateController.Level(1000, 320, 240, 30),
+    };
+    // Ceiling under thermal/battery pressure, best first; the rate levels adapt within it
+    private static final PerformanceGovernor.Tier[] PERFORMANCE_TIERS = {
+            new PerformanceGovernor.Tier("full", 100, 640, 480, FrameFormat.JPEG, true),
+            new PerformanceGovernor.Tier("warm", 200, 640, 480, FrameFormat.JPEG, true),   // thermal moderate / battery low
+            new PerformanceGovernor.Tier("hot", 500, 320, 240, FrameFormat.LUMA, true),    // thermal severe / battery critical
+            new PerformanceGovernor.Tier("critical", 1000, 320, 240, FrameFormat.LUMA, false),
+    };
+    private static final long GOVERNOR_POLL_MS = 5000;
+    private static final long GOVERNOR_RECOVERY_MS = 30_000; // conditions must stay better this long per step up
+    private static final int LOW_BATTERY_PERCENT = 20;
+    private static final int CRITICAL_BATTERY_PERCENT = 10;
     // ------------------------------
 
+    private static final String TAG = "MainActivity";
+    private static final int OUTBOX_TEXT = 1;
+    private static final int OUTBOX_AUDIO = 2; // AAC clips queued by earlier versions
+    private static final int OUTBOX_WAV = 3;   // VAD-trimmed PCM clips
+
     private double startTime = 0;
-    private double period = 0;
-    private int count = 0;
+    private final AtomicInteger count = new AtomicInteger();
     private int holdCount = 0;
 
     private Button capture;
@@ -79,12 +165,77 @@ public class MainActivity extends AppCompatActivity {
 
     private final int cameraFacing = CameraSelector.LENS_FACING_BACK;
     private final OkHttpClient okHttpClient = new OkHttpClient();
-
-    private boolean streaming = false;
-    private boolean spoken = false;
+    private final ServerPool serverPool = new ServerPool(
+            okHttpClient.newBuilder().callTimeout(SERVER_PROBE_TIMEOUT_MS, TimeUnit.MILLISECONDS).build(),
+            Arrays.asList(SERVER_URLS), SERVER_STRATEGY, AUDIO_PATH);
+    private volatile String sessionId;        // stable per install; routes our instructions back to us
+    private volatile HttpFrameTransport httpFrameTransport;
+    private volatile FrameBatcher frameBatcher;          // only when UPLOAD_BATCH_FRAMES > 1
+    private boolean frameHeldInBatch;                    // upload thread: the last frame waits in a batch
+    private volatile SocketFrameTransport socketFrameTransport;
+    private volatile ServerPool.Endpoint socketEndpoint; // server mSocket points at
+    private final FrameEncoder frameEncoder =
+            new FrameEncoder(PAYLOAD_MODE, JPEG_QUALITY, CAMERA_UPSIDE_DOWN, new YuvJpegCompressor());
+    private final FramePipeline framePipeline = new FramePipeline(
+            frameEncoder, this::uploadToServer, PIPELINE_QUEUE_CAPACITY, PIPELINE_DROP_POLICY);
+    // a batched frame stays in flight until its batch is sent, so a batch must be able to fill
+    private final AdaptiveRateController rateController = new AdaptiveRateController(
+            Arrays.asList(RATE_LEVELS), FRAME_AGE_BUDGET_MS, Math.max(MAX_FRAMES_IN_FLIGHT, UPLOAD_BATCH_FRAMES + 1),
+            RATE_COOLDOWN_MS, this::onRateLevelChanged);
+    private volatile Size targetResolution = new Size(RATE_LEVELS[0].width, RATE_LEVELS[0].height);
+    // 16x12 cells of mean luma: coarse enough to ignore sensor noise, fine enough to see a doorway
+    private final MotionGate motionGate = new MotionGate(16, 12, MOTION_THRESHOLD, KEYFRAME_INTERVAL_MS);
+    private volatile PerformanceGovernor governor;
+    private volatile PerformanceGovernor.Tier performanceTier = PERFORMANCE_TIERS[0];
+    private PayloadMode requestedPayloadMode = PAYLOAD_MODE; // ours or the server's; the tier may force LUMA
+    private long lastTierAdmitMs = Long.MIN_VALUE / 2; // capture thread only
+    private final ScheduledExecutorService governorExecutor =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "performance-governor"));
+    private volatile PowerManager.OnThermalStatusChangedListener thermalListener;
+
+    private volatile FrameRecorder frameRecorder; // only while streaming with RECORD_FRAMES
+    private final FrameTracer frameTracer = new FrameTracer();
+    // Lock-free counters and histograms behind the HUD overlay and GET /metrics
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final MetricsRegistry.Counter framesCaptured = metrics.counter("frames_captured");
+    private final MetricsRegistry.Counter framesSkippedMotion = metrics.counter("frames_skipped_motion");
+    private final MetricsRegistry.Counter framesUploaded = metrics.counter(PerformanceHud.FRAMES_UPLOADED);
+    private final MetricsRegistry.Counter framesRejected = metrics.counter("frames_rejected");
+    private final MetricsRegistry.Counter uploadErrors = metrics.counter("upload_errors");
+    private final LatencyHistogram uploadRtt = metrics.histogram(PerformanceHud.UPLOAD_RTT);
+    private final MetricsRegistry.Counter instructionsReceived = metrics.counter("instructions");
+    private final LatencyHistogram cueLatency = metrics.histogram(PerformanceHud.CUE_LATENCY);
+    private final MetricsRegistry.Counter voiceClips = metrics.counter("voice_clips");
+    private final LatencyHistogram outboxDelivery = metrics.histogram("outbox_delivery");
+    private final SocketInstructionSource serverCues = new SocketInstructionSource(frameTracer, instructionsReceived);
+    private final LocalInstructionEngine localCues = new LocalInstructionEngine(CAMERA_UPSIDE_DOWN,
+            LOCAL_FLOOR_FRACTION, LOCAL_EDGE_THRESHOLD, LOCAL_FREE_DENSITY, LOCAL_BLOCKED_DENSITY, LOCAL_BUDGET_MS);
+    private final InstructionArbiter cueArbiter = new InstructionArbiter(serverCues, localCues, this::onCue,
+            Clock.MONOTONIC, SERVER_CUE_BUDGET_MS, SERVER_STALE_AFTER_MS, SERVER_RECOVER_MS);
+    private long lastLocalCueMs = Long.MIN_VALUE / 2; // capture thread only
+    private final PerformanceHud hud = new PerformanceHud(metrics, Clock.MONOTONIC, HUD_REFRESH_MS);
+    private final Handler hudHandler = new Handler(Looper.getMainLooper());
+    private final Runnable hudRefresh = this::refreshHud;
+    private TextView hudView;
+    private final DebugEndpoint debugEndpoint = new DebugEndpoint(DEBUG_ENDPOINT_PORT);
+    private final ScheduledExecutorService traceReporter = Executors.newSingleThreadScheduledExecutor();
+
+    private volatile boolean streaming = false;
+    private volatile boolean cameraRequested = false;
+
+    // Cold start: init tasks with their dependencies, and the trace of how long each took
+    private final StartupOrchestrator startup = new StartupOrchestrator(Clock.MONOTONIC);
+    private final ExecutorService startupExecutor =
+            Executors.newFixedThreadPool(3, r -> new Thread(r, "startup"));
 
     private AudioManager audioManager;
+    private volatile InstructionAudioEngine audioEngine; // created on instructionExecutor
+    private InstructionScheduler instructionScheduler; // only touched on instructionExecutor
+    private final ScheduledExecutorService instructionExecutor =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "instruction-scheduler"));
     private Socket mSocket;
+    private volatile OutboxSender outboxSender; // text and clips, delivered when the link allows
+    private ConnectivityManager.NetworkCallback networkCallback;
 
     // --- Swipe/DPAD helpers ---
     private static final float TRACKBALL_SWIPE_THRESH = 0.5f;
@@ -92,10 +243,10 @@ public class MainActivity extends AppCompatActivity {
     private static final boolean DEBUG_SWIPE = false;
     private void dbg(String m){ if (DEBUG_SWIPE) Toast.makeText(this, m, Toast.LENGTH_SHORT).show(); }
 
-    // --- Audio recording (AAC/M4A to cache) ---
-    private boolean isRecording = false;
-    private MediaRecorder recorder = null;
-    private File audioTmpFile = null;
+    // --- Audio recording ---
+    private final VoiceClipRecorder clipRecorder =
+            new VoiceClipRecorder(VOICE_SAMPLE_RATE, this::newVoiceClip, this::onVoiceClip);
+    private VoiceStreamer voiceStreamer; // PCM chunks over the socket while the user speaks
 
     // Permissions
     private final ActivityResultLauncher<String> camPermLauncher =
@@ -130,28 +281,32 @@ public class MainActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        Log.i(TAG, "process start -> onCreate " + (SystemClock.uptimeMillis() - Process.getStartUptimeMillis()) + " ms");
         previewView = findViewById(R.id.cameraPreview);
         capture = findViewById(R.id.capture);
-
+        hudView = findViewById(R.id.hud);
+        registerMetrics();
+        cueArbiter.setListener(this::onCueSourceChanged);
         audioManager = getSystemService(AudioManager.class);
-        nudgeVolumeUp(2); // optional
-
-        // Camera permission
-        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA)
-                != PackageManager.PERMISSION_GRANTED) {
-            camPermLauncher.launch(Manifest.permission.CAMERA);
-        } else {
-            startCamera(cameraFacing);
-        }
+        serverPool.setListener(this::onPrimaryServerChanged);
 
-        // Mic permission (for recording)
-        if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO)
-                != PackageManager.PERMISSION_GRANTED) {
-            micPermLauncher.launch(Manifest.permission.RECORD_AUDIO);
-        }
-
-        // Socket.IO
-        startSocketIO();
+        framePipeline.setListener((frame, uploaded, uploadNanos) -> {
+            if (uploaded && frameHeldInBatch) {
+                frameHeldInBatch = false; // not sent yet: onHeldFramesDone reports it with its batch
+            } else if (uploadNanos == 0) {
+                rateController.onFrameDropped();
+            } else {
+                long now = System.nanoTime();
+                rateController.onFrameDone(now / 1_000_000, (now - frame.startNanos) / 1_000_000,
+                        uploadNanos / 1_000_000, uploaded);
+                if (uploaded) {
+                    startup.milestone("first_frame");
+                    frameTracer.onEncoded(frame);
+                    frameTracer.onUploaded(frame, now);
+                }
+            }
+        });
+        startInit();
 
         // UI button tap toggles streaming (touchpad press)
         capture.setOnClickListener(v -> {
@@ -159,18 +314,82 @@ public class MainActivity extends AppCompatActivity {
             if (streaming) {
                 Toast.makeText(MainActivity.this, "Streaming started", Toast.LENGTH_SHORT).show();
                 startTime = System.currentTimeMillis();
-                spoken = false;
+                motionGate.reset();
+                cueArbiter.reset();
+                startFrameRecording();
             } else {
                 double elapsed = (System.currentTimeMillis() - startTime) / 1000.0;
-                Toast.makeText(MainActivity.this, count + " photos in " + elapsed + "s", Toast.LENGTH_LONG).show();
+                Toast.makeText(MainActivity.this, count.get() + " photos in " + elapsed + "s", Toast.LENGTH_LONG).show();
+                for (StageStats stats : framePipeline.getStats()) Log.i(TAG, stats.toString());
+                Log.i(TAG, "rate " + rateController);
+                Log.i(TAG, "governor " + governor);
+                Log.i(TAG, motionGate.toString());
+                Log.i(TAG, "cue source " + cueArbiter + "; local " + localCues.toJson());
+                stopFrameRecording();
+                Log.i(TAG, serverPool.toString());
+                if (frameBatcher != null) Log.i(TAG, "upload batches " + frameBatcher);
+                if (outboxSender != null) Log.i(TAG, outboxSender.toString());
+                instructionExecutor.execute(() -> Log.i(TAG, "cues " + instructionScheduler));
                 startTime = 0;
-                count = 0;
+                count.set(0);
             }
         });
 
         // NOTE: No OnTouchListener — gestures come via DPAD/trackball events on Blade
     }
 
+    // ====== Startup ======
+    // Independent init runs concurrently; only camera binding, permission dialogs and the socket
+    // (whose fields are UI-thread only) stay on the main thread
+    private void startInit() {
+        Executor main = ContextCompat.getMainExecutor(this);
+        startup.setListener(s -> {
+            Log.i(TAG, s.toString());
+            startupExecutor.shutdown();
+        });
+        startup.task("session", startupExecutor, () -> {
+                    sessionId = loadSessionId();
+                    httpFrameTransport = new HttpFrameTransport(okHttpClient, serverPool, UPLOAD_PATH, sessionId);
+                    if (UPLOAD_BATCH_FRAMES > 1) startFrameBatcher(httpFrameTransport);
+                })
+                .task("network", startupExecutor, this::warmUpNetwork)
+                // on the instruction thread, so a cue that arrives while the sounds load waits its turn
+                .task("audio", instructionExecutor, this::startInstructionScheduler)
+                .task("governor", startupExecutor, this::startGovernor)
+                .task("debug", startupExecutor, this::startTraceExport, "governor")
+                .task("outbox", startupExecutor, this::startOutbox, "session")
+                // the first bind already uses the governor's capture size
+                .task("camera", main, this::requestCamera, "session", "governor")
+                .task("mic", main, this::requestMic, "camera")
+                .task("socket", main, () -> startSocketIO(serverPool.primary()), "session")
+                .start();
+    }
+
+    // Startup thread: DNS and a pooled connection to every server before the first upload needs them
+    private void warmUpNetwork() {
+        List<String> unresolved = serverPool.warmUp();
+        if (!unresolved.isEmpty()) Log.w(TAG, "servers not resolved: " + unresolved);
+        serverPool.start(SERVER_PROBE_INTERVAL_MS, SERVER_PROBE_INTERVAL_MS);
+    }
+
+    private void requestCamera() {
+        cameraRequested = true;
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA)
+                != PackageManager.PERMISSION_GRANTED) {
+            camPermLauncher.launch(Manifest.permission.CAMERA);
+        } else {
+            startCamera(cameraFacing);
+        }
+    }
+
+    // Mic permission (for recording)
+    private void requestMic() {
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO)
+                != PackageManager.PERMISSION_GRANTED) {
+            micPermLauncher.launch(Manifest.permission.RECORD_AUDIO);
+        }
+    }
+
     // ====== DPAD (touchpad) gestures ======
     @Override
     public boolean onKeyDown(int keyCode, KeyEvent event) {
@@ -185,19 +404,19 @@ public class MainActivity extends AppCompatActivity {
             }
             case KeyEvent.KEYCODE_DPAD_LEFT: {
                 // LEFT swipe => toggle mic recording / upload
-                if (!isRecording) {
-                    startRecording();
-                } else {
-                    stopAndUploadRecording();
-                }
+                toggleVoice();
                 dbg("DPAD LEFT");
                 return true;
             }
             case KeyEvent.KEYCODE_DPAD_UP: {
+                // UP swipe => show the performance overlay
+                showHud(true);
                 dbg("DPAD UP");
                 return true;
             }
             case KeyEvent.KEYCODE_DPAD_DOWN: {
+                // DOWN swipe => hide it
+                showHud(false);
                 dbg("DPAD DOWN");
                 return true;
             }
@@ -222,15 +441,16 @@ public class MainActivity extends AppCompatActivity {
                 dbg("TRACKBALL RIGHT");
             } else {
                 // LEFT -> toggle recording/upload
-                if (!isRecording) startRecording(); else stopAndUploadRecording();
+                toggleVoice();
                 dbg("TRACKBALL LEFT");
             }
             accumX = accumY = 0f;
             return true;
         }
 
-        // Vertical swipe (unused)
+        // Vertical swipe: UP shows the performance overlay, DOWN hides it
         if (Math.abs(accumY) >= TRACKBALL_SWIPE_THRESH && Math.abs(accumY) > Math.abs(accumX)) {
+            showHud(accumY < 0);
             if (accumY < 0) dbg("TRACKBALL UP"); else dbg("TRACKBALL DOWN");
             accumX = accumY = 0f;
             return true;
@@ -251,17 +471,38 @@ public class MainActivity extends AppCompatActivity {
                 preview.setSurfaceProvider(previewView.getSurfaceProvider());
 
                 ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
-                        .setTargetResolution(new Size(640, 480))
+                        .setTargetResolution(targetResolution)
                         .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                         .build();
 
-                imageAnalysis.setAnalyzer(ContextCompat.getMainExecutor(this), image -> {
-                    if (streaming) {
-                        byte[] pngBytes = imageToPng(image);
-                        ++count;
-                        uploadToServer(pngBytes);
+                // Capture only copies planes; encode and upload run on their own pipeline threads
+                imageAnalysis.setAnalyzer(framePipeline.getCaptureExecutor(), image -> {
+                    try {
+                        long nowMs = System.nanoTime() / 1_000_000;
+                        if (!streaming) return;
+                        framesCaptured.inc();
+                        YuvFrame frame = toYuvFrame(image);
+                        recordFrame(frame, image.getImageInfo().getTimestamp()); // before any gating
+                        PerformanceGovernor.Tier tier = performanceTier;
+                        // on-device cues only while the server's are stale; the hottest tier turns them off
+                        if (tier.detector && nowMs - lastLocalCueMs >= LOCAL_CUE_INTERVAL_MS && cueArbiter.useLocal()) {
+                            lastLocalCueMs = nowMs;
+                            localCues.process(frame, nowMs);
+                        }
+                        if (nowMs - lastTierAdmitMs < tier.intervalMs) return;
+                        if (!rateController.tryAcquire(nowMs)) return;
+                        lastTierAdmitMs = nowMs;
+                        if (tier.detector && !motionGate.admit(frame, nowMs)) {
+                            framesSkippedMotion.inc();
+                            rateController.onFrameDropped(); // nothing new in view
+                            return;
+                        }
+                        if (framePipeline.capture(frame, image.getImageInfo().getTimestamp())) {
+                            count.incrementAndGet();
+                        }
+                    } finally {
+                        image.close();
                     }
-                    image.close();
                 });
 
                 CameraSelector cameraSelector = new CameraSelector.Builder()
@@ -277,107 +518,238 @@ public class MainActivity extends AppCompatActivity {
         }, ContextCompat.getMainExecutor(this));
     }
 
-    private byte[] imageToPng(ImageProxy image) {
-        ImageProxy.PlaneProxy[] planes = image.getPlanes();
-        int width = image.getWidth();
-        int height = image.getHeight();
+    // ====== Session recording, for replay on a workstation (FrameReplayer) ======
+    private void startFrameRecording() {
+        File dir = getExternalFilesDir("recordings");
+        if (!RECORD_FRAMES || dir == null) return;
+        File file = new File(dir, "session-" + System.currentTimeMillis() + ".yuvrec");
+        try {
+            frameRecorder = new FrameRecorder(file);
+            Log.i(TAG, "recording frames to " + file);
+        } catch (IOException e) {
+            Log.w(TAG, "recording not started", e);
+        }
+    }
 
-        byte[] nv21 = new byte[width * height * 3 / 2];
-        int pos = 0;
+    private void stopFrameRecording() {
+        FrameRecorder recorder = frameRecorder;
+        if (recorder == null) return;
+        frameRecorder = null;
+        // closed on the capture thread, after any write already in progress
+        framePipeline.getCaptureExecutor().execute(() -> closeRecorder(recorder));
+    }
 
-        ByteBuffer yBuffer = planes[0].getBuffer();
-        ByteBuffer uBuffer = planes[1].getBuffer();
-        ByteBuffer vBuffer = planes[2].getBuffer();
+    // Capture thread
+    private void recordFrame(YuvFrame frame, long timestampNanos) {
+        FrameRecorder recorder = frameRecorder;
+        if (recorder == null) return;
+        try {
+            recorder.write(frame, timestampNanos);
+        } catch (IOException e) {
+            Log.w(TAG, "recording stopped", e); // e.g. storage full; streaming carries on
+            frameRecorder = null;
+            closeRecorder(recorder);
+        }
+    }
 
-        int yRowStride = planes[0].getRowStride();
-        int uvRowStride = planes[1].getRowStride();
-        int uvPixelStride = planes[1].getPixelStride();
+    private void closeRecorder(FrameRecorder recorder) {
+        try {
+            recorder.close();
+            Log.i(TAG, "recorded " + recorder.getFrames() + " frames, " + recorder.getBytes() + " bytes");
+        } catch (IOException e) {
+            Log.w(TAG, "recording not closed cleanly", e);
+        }
+    }
+
+    // Called on the upload thread when the frame-age EWMA crosses the budget
+    private void onRateLevelChanged(int index, AdaptiveRateController.Level level) {
+        Log.i(TAG, "rate level " + index + ": " + level);
+        frameEncoder.setQuality(level.quality);
+        applyCaptureSize();
+    }
 
-        // Copy Y plane
-        for (int row = 0; row < height; row++) {
-            yBuffer.position(row * yRowStride);
-            yBuffer.get(nv21, pos, width);
-            pos += width;
+    // Upload or governor thread: the smaller of what the network and the device allow
+    private synchronized void applyCaptureSize() {
+        AdaptiveRateController.Level level = rateController.getLevel();
+        PerformanceGovernor.Tier tier = performanceTier;
+        Size size = level.width * level.height <= tier.width * tier.height
+                ? new Size(level.width, level.height) : new Size(tier.width, tier.height);
+        if (!size.equals(targetResolution)) {
+            targetResolution = size;
+            // rebind ImageAnalysis at the new size; before the first bind, that bind picks it up
+            if (cameraRequested) runOnUiThread(() -> startCamera(cameraFacing));
         }
+    }
+
+    // ====== Thermal / battery governor ======
+    private void startGovernor() {
+        governor = new PerformanceGovernor(Arrays.asList(PERFORMANCE_TIERS), new AndroidPowerStateProvider(this),
+                Clock.MONOTONIC, LOW_BATTERY_PERCENT, CRITICAL_BATTERY_PERCENT, GOVERNOR_RECOVERY_MS);
+        governor.setListener(this::onPerformanceTierChanged);
+        governor.evaluate(); // a hot or flat device starts on its tier, not on "full"
+        governorExecutor.scheduleWithFixedDelay(governor::evaluate, GOVERNOR_POLL_MS, GOVERNOR_POLL_MS, TimeUnit.MILLISECONDS);
+        // react to throttling as it starts rather than at the next poll
+        thermalListener = status -> governor.evaluate();
+        getSystemService(PowerManager.class).addThermalStatusListener(governorExecutor, thermalListener);
+    }
+
+    // Governor thread
+    private void onPerformanceTierChanged(int from, int to, PerformanceGovernor.Tier tier, String reason) {
+        Log.i(TAG, "performance tier " + from + " -> " + to + ": " + tier + " (" + reason + ")");
+        performanceTier = tier;
+        cueArbiter.setLocalAvailable(tier.detector); // no local cues: play the server's, however late
+        applyPayloadMode();
+        applyCaptureSize();
+    }
+
+    // Governor or socket thread: the requested mode, as far as the tier allows
+    private synchronized void applyPayloadMode() {
+        PayloadMode mode = performanceTier.limit(requestedPayloadMode);
+        if (!mode.equals(frameEncoder.getMode())) frameEncoder.setMode(mode);
+    }
+
+    private static YuvFrame toYuvFrame(ImageProxy image) {
+        ImageProxy.PlaneProxy[] planes = image.getPlanes();
+        return new YuvFrame(
+                image.getWidth(), image.getHeight(),
+                planes[0].getBuffer(), planes[1].getBuffer(), planes[2].getBuffer(),
+                planes[0].getRowStride(), planes[1].getRowStride(), planes[1].getPixelStride()
+        );
+    }
 
-        // Copy VU plane interleaved
-        for (int row = 0; row < height / 2; row++) {
-            for (int col = 0; col < width / 2; col++) {
-                int vuPos = row * uvRowStride + col * uvPixelStride;
-                nv21[pos++] = vBuffer.get(vuPos); // V
-                nv21[pos++] = uBuffer.get(vuPos); // U
+    // Runs on the pipeline's upload thread, one frame at a time
+    private void uploadToServer(PooledFrame frame) throws IOException {
+        long start = System.nanoTime();
+        frameHeldInBatch = false;
+        try {
+            if (!sendFrame(frame)) {
+                frameHeldInBatch = true;
+                return;
             }
+        } catch (FrameRejectedException e) {
+            framesRejected.inc();
+            throw e;
+        } catch (IOException e) {
+            uploadErrors.inc();
+            throw e;
         }
+        uploadRtt.recordNanos(System.nanoTime() - start);
+        framesUploaded.inc();
+    }
 
-        // NV21 -> JPEG
-        YuvImage yuvImage = new YuvImage(nv21, ImageFormat.NV21, width, height, null);
-        ByteArrayOutputStream jpegOut = new ByteArrayOutputStream();
-        yuvImage.compressToJpeg(new Rect(0, 0, width, height), 50, jpegOut);
-        byte[] jpegBytes = jpegOut.toByteArray();
-
-        Bitmap bitmap = BitmapFactory.decodeByteArray(jpegBytes, 0, jpegBytes.length);
-        Matrix matrix = new Matrix();
-        matrix.postRotate(180); // adjust if needed
-        Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
-
-        // JPEG -> PNG
-        ByteArrayOutputStream pngOut = new ByteArrayOutputStream();
-        rotated.compress(Bitmap.CompressFormat.PNG, 100, pngOut);
-        return pngOut.toByteArray();
-    }
-
-    private void uploadToServer(byte[] pngBytes) {
-        RequestBody requestBody = new MultipartBody.Builder()
-                .setType(MultipartBody.FORM)
-                .addFormDataPart(
-                        "file",
-                        "frame.png",
-                        RequestBody.create(pngBytes, MediaType.parse("image/png"))
-                )
-                .build();
-
-        Request request = new Request.Builder()
-                .url(UPLOAD_URL)
-                .post(requestBody)
-                .build();
-
-        okHttpClient.newCall(request).enqueue(new Callback() {
-            @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                runOnUiThread(() -> Toast.makeText(MainActivity.this, "Network error", Toast.LENGTH_SHORT).show());
+    /** @return false if the frame only joined a batch and is not uploaded yet */
+    private boolean sendFrame(PooledFrame frame) throws IOException {
+        SocketFrameTransport socketTransport = socketFrameTransport;
+        ServerPool.Endpoint endpoint = socketEndpoint;
+        if (STREAM_FRAMES_OVER_SOCKET && socketTransport != null && socketTransport.isConnected()) {
+            // counted against the socket's server so a dead primary gets ejected and replaced
+            ServerPool.Lease lease = serverPool.leaseOn(endpoint);
+            boolean ok = false;
+            try {
+                socketTransport.send(frame);
+                ok = true;
+                return true;
+            } catch (FrameRejectedException e) {
+                ok = true; // busy, not broken
+                throw e; // server backpressure: count it as a failed frame so the rate steps down
+            } catch (SocketFrameTransport.AckTimeoutException e) {
+                // the server most likely has the frame and is slow: a resend over HTTP would add
+                // load just as it falls behind and could bring two cues for one frame
+                throw e;
+            } catch (IOException e) {
+                Log.w(TAG, "socket frame send failed, falling back to HTTP", e);
+            } finally {
+                lease.close(ok);
             }
+        }
+
+        FrameBatcher batcher = frameBatcher;
+        try {
+            if (batcher != null) return batcher.offer(frame);
+            httpFrameTransport.send(frame);
+            return true;
+        } catch (FrameRejectedException e) {
+            throw e;
+        } catch (IOException e) {
+            String msg = serverPool.anyHealthy() ? "Network error" : "No server reachable";
+            runOnUiThread(() -> Toast.makeText(MainActivity.this, msg, Toast.LENGTH_SHORT).show());
+            throw e;
+        }
+    }
+
+    // Frames the batcher holds are copied, so the pipeline recycles them as usual; only the frame
+    // that fills a batch waits for (and reports) the upload, the others are reported when it is done
+    private void startFrameBatcher(HttpFrameTransport http) {
+        FrameBatcher batcher = new FrameBatcher(UPLOAD_BATCH_FRAMES, UPLOAD_BATCH_MAX_WAIT_MS,
+                UPLOAD_BATCH_FRAMES * 40_000, http::sendBatch); // a q50 640x480 JPEG is about 30 KB
+        batcher.setListener(this::onHeldFramesDone);
+        frameBatcher = batcher;
+    }
 
-            @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) {
-                response.close();
+    // Upload or batch-timer thread: what uploadToServer and the pipeline listener do for a sent
+    // frame, with the time spent waiting in the batch counted as part of the upload
+    private void onHeldFramesDone(FrameBatcher.HeldFrames held, IOException failure) {
+        long nowMs = held.doneNanos / 1_000_000;
+        for (int i = 0; i < held.count; i++) {
+            long uploadNanos = held.doneNanos - held.heldSinceNanos[i];
+            rateController.onFrameDone(nowMs, (held.doneNanos - held.startNanos[i]) / 1_000_000,
+                    uploadNanos / 1_000_000, failure == null);
+            if (failure == null) {
+                uploadRtt.recordNanos(uploadNanos);
+                framesUploaded.inc();
+                startup.milestone("first_frame");
+                frameTracer.onEncoded(held.startNanos[i], held.encodedNanos[i]);
+                frameTracer.onUploaded(held.seq[i], held.startNanos[i], held.encodedNanos[i], held.doneNanos);
+            } else if (failure instanceof FrameRejectedException) {
+                framesRejected.inc();
+            } else {
+                uploadErrors.inc();
             }
-        });
+        }
+        if (failure != null) Log.w(TAG, held.count + " batched frames not sent", failure);
     }
 
-    // ====== Send text (form) ======
+    // ====== Send text (form), through the outbox ======
     private void sendTextOnce(String text) {
-        RequestBody body = new FormBody.Builder()
-                .add("text", text)
-                .build();
+        if (outboxSender == null) {
+            Toast.makeText(this, "Send failed", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        outboxSender.submit(OUTBOX_TEXT, text.getBytes(StandardCharsets.UTF_8));
+    }
 
-        Request req = new Request.Builder()
-                .url(TEXT_URL)
-                .post(body)
-                .build();
+    // ====== Voice: stream PCM over the socket, or record a clip when it is down ======
+    private void toggleVoice() {
+        if (clipRecorder.isRecording()) {
+            clipRecorder.stop(); // the clip is trimmed and queued on the recording thread
+        } else if (voiceStreamer != null && voiceStreamer.isRunning()) {
+            voiceStreamer.stop(); // the sender flushes the tail and sends voice_end
+            Toast.makeText(this, "Voice sent", Toast.LENGTH_SHORT).show();
+        } else if (STREAM_VOICE_OVER_SOCKET && voiceStreamer != null && mSocket.connected()) {
+            startVoiceStream();
+        } else {
+            startVoiceClip();
+        }
+    }
 
-        okHttpClient.newCall(req).enqueue(new Callback() {
-            @Override public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                runOnUiThread(() -> Toast.makeText(MainActivity.this, "Send failed", Toast.LENGTH_SHORT).show());
-            }
-            @Override public void onResponse(@NonNull Call call, @NonNull Response resp) {
-                resp.close();
-            }
-        });
+    private void startVoiceStream() {
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO)
+                != PackageManager.PERMISSION_GRANTED) {
+            micPermLauncher.launch(Manifest.permission.RECORD_AUDIO);
+            return;
+        }
+        try {
+            voiceStreamer.start(new MicPcmSource(VOICE_SAMPLE_RATE));
+            Toast.makeText(this, "Listening… (left swipe again to finish)", Toast.LENGTH_SHORT).show();
+        } catch (IOException e) {
+            Log.w(TAG, "voice stream not started", e);
+            Toast.makeText(this, "Record error", Toast.LENGTH_SHORT).show();
+        }
     }
 
-    // ====== Record + upload audio (AAC/M4A to cache, then delete) ======
-    private void startRecording() {
-        if (isRecording) return;
+    // ====== Record a clip when the socket is down: PCM, trimmed to the speech, queued as WAV ======
+    private void startVoiceClip() {
+        if (clipRecorder.isRecording()) return;
 
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO)
                 != PackageManager.PERMISSION_GRANTED) {
@@ -386,173 +758,351 @@ public class MainActivity extends AppCompatActivity {
         }
 
         try {
-            // temp file in app cache (not persisted)
-            audioTmpFile = File.createTempFile("blade_clip_", ".m4a", getCacheDir());
-
-            recorder = new MediaRecorder();
-            recorder.setAudioSource(MediaRecorder.AudioSource.MIC);
-            recorder.setOutputFormat(MediaRecorder.OutputFormat.MPEG_4);
-            recorder.setAudioEncoder(MediaRecorder.AudioEncoder.AAC);
-            recorder.setAudioChannels(1);
-            recorder.setAudioSamplingRate(16000);   // good for STT
-            recorder.setAudioEncodingBitRate(64000);
-            recorder.setOutputFile(audioTmpFile.getAbsolutePath());
-
-            recorder.prepare();
-            recorder.start();
-            isRecording = true;
-
-            Toast.makeText(this, "Recording… (left swipe again to send)", Toast.LENGTH_SHORT).show();
-        } catch (Exception e) {
-            isRecording = false;
-            safeReleaseRecorder();
-            if (audioTmpFile != null) audioTmpFile.delete();
+            clipRecorder.start(new MicPcmSource(VOICE_SAMPLE_RATE));
+            Toast.makeText(this, "Recording… (stops when you pause, or left swipe to send)", Toast.LENGTH_SHORT).show();
+        } catch (IOException e) {
+            Log.w(TAG, "clip not started", e);
             Toast.makeText(this, "Record error", Toast.LENGTH_SHORT).show();
         }
     }
 
-    private void stopAndUploadRecording() {
-        if (!isRecording) return;
+    private VoiceClip newVoiceClip() {
+        VoiceActivityDetector vad = new VoiceActivityDetector(VOICE_SAMPLE_RATE, VAD_FRAME_MS,
+                VAD_THRESHOLD_DB, VAD_MIN_SPEECH_DBFS, VAD_FLOOR_WINDOW_MS);
+        return new VoiceClip(vad, VOICE_CLIP_PADDING_MS, VOICE_TRAILING_SILENCE_MS,
+                VOICE_NO_SPEECH_TIMEOUT_MS, VOICE_MAX_CLIP_MS);
+    }
 
-        File toUpload = audioTmpFile;
-        try {
-            recorder.stop();
-        } catch (Exception ignored) {
-            // ignore stop errors
-        } finally {
-            isRecording = false;
-            safeReleaseRecorder();
+    // Recording thread
+    private void onVoiceClip(byte[] wav, VoiceClip clip, boolean autoStopped) {
+        Log.i(TAG, "clip raw=" + clip.getRawMs() + "ms trimmed=" + clip.getTrimmedMs() + "ms speech="
+                + clip.getSpeechMs() + "ms" + (autoStopped ? " (auto-stopped)" : "") + "; " + clipRecorder);
+        voiceClips.inc();
+        if (wav == null) {
+            runOnUiThread(() -> Toast.makeText(this, "No speech heard", Toast.LENGTH_SHORT).show());
+            return;
         }
-
-        if (toUpload == null || !toUpload.exists()) {
-            Toast.makeText(this, "No audio to send", Toast.LENGTH_SHORT).show();
+        if (outboxSender == null) {
+            runOnUiThread(() -> Toast.makeText(this, "Upload failed", Toast.LENGTH_SHORT).show());
             return;
         }
+        // Queued on disk first so a clip spoken in a dead spot is sent once the link is back
+        outboxSender.submit(OUTBOX_WAV, wav);
+    }
 
-        // Upload as form field 'audio' to /stt_audio
-        RequestBody fileBody = RequestBody.create(toUpload, MediaType.parse("audio/mp4"));
-        RequestBody multipart = new MultipartBody.Builder()
-                .setType(MultipartBody.FORM)
-                .addFormDataPart("audio", "clip.m4a", fileBody)
-                .build();
-
-        Request req = new Request.Builder()
-                .url(AUDIO_URL)
-                .post(multipart)
-                .build();
+    // ====== Outbox: store-and-forward for text and clips ======
+    private void startOutbox() {
+        Outbox outbox;
+        try {
+            outbox = new Outbox(new File(getCacheDir(), "outbox"), OUTBOX_MAX_BYTES, OUTBOX_SEGMENT_BYTES,
+                    OUTBOX_TTL_MS, Clock.WALL);
+        } catch (IOException e) {
+            Log.e(TAG, "outbox unavailable", e);
+            return;
+        }
+        outboxSender = new OutboxSender(outbox, this::deliverOutboxItem, OUTBOX_BATCH,
+                OUTBOX_MIN_BACKOFF_MS, OUTBOX_MAX_BACKOFF_MS);
+        outboxSender.setListener(new OutboxSender.Listener() {
+            @Override public void onDelivered(Outbox.Item item) {
+                if (item.kind != OUTBOX_TEXT) {
+                    runOnUiThread(() -> Toast.makeText(MainActivity.this, "Audio sent", Toast.LENGTH_SHORT).show());
+                }
+            }
 
-        okHttpClient.newCall(req).enqueue(new Callback() {
-            @Override public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                // delete temp even on failure
-                toUpload.delete();
-                runOnUiThread(() -> Toast.makeText(MainActivity.this, "Upload failed", Toast.LENGTH_SHORT).show());
+            @Override public void onRetryScheduled(int queued, long delayMs, IOException cause) {
+                Log.w(TAG, "outbox: " + queued + " queued, retry in " + delayMs + " ms: " + cause.getMessage());
+                if (delayMs == OUTBOX_MIN_BACKOFF_MS) { // first failure of an outage, not every retry
+                    runOnUiThread(() -> Toast.makeText(MainActivity.this,
+                            "Offline: will send when connected", Toast.LENGTH_SHORT).show());
+                }
             }
 
-            @Override public void onResponse(@NonNull Call call, @NonNull Response resp) {
-                // delete temp file after server receives it
-                toUpload.delete();
-                resp.close();
-                runOnUiThread(() -> Toast.makeText(MainActivity.this, "Audio sent", Toast.LENGTH_SHORT).show());
+            @Override public void onQueueFailed(int kind, IOException cause) {
+                Log.e(TAG, "outbox append failed", cause);
+                runOnUiThread(() -> Toast.makeText(MainActivity.this, "Send failed", Toast.LENGTH_SHORT).show());
             }
         });
-    }
+        outboxSender.kick(); // whatever an earlier run left behind
 
-    private void safeReleaseRecorder() {
-        try {
-            if (recorder != null) {
-                recorder.reset();
-                recorder.release();
+        networkCallback = new ConnectivityManager.NetworkCallback() {
+            @Override public void onAvailable(@NonNull Network network) {
+                outboxSender.kick();
             }
-        } catch (Exception ignored) {}
-        recorder = null;
+        };
+        getSystemService(ConnectivityManager.class).registerDefaultNetworkCallback(networkCallback);
+    }
+
+    // Runs on the outbox thread; throwing keeps the item for a later retry
+    private void deliverOutboxItem(Outbox.Item item) throws IOException {
+        String path;
+        RequestBody body;
+        if (item.kind == OUTBOX_TEXT) {
+            path = TEXT_PATH;
+            body = new FormBody.Builder()
+                    .add("text", new String(item.payload, StandardCharsets.UTF_8))
+                    .build();
+        } else {
+            // form field 'audio' to /stt_audio; 'session' lets the server push the transcript back over our socket
+            path = AUDIO_PATH;
+            boolean wav = item.kind == OUTBOX_WAV;
+            MultipartBody.Builder form = new MultipartBody.Builder()
+                    .setType(MultipartBody.FORM)
+                    .addFormDataPart("audio", wav ? "clip.wav" : "clip.m4a",
+                            RequestBody.create(item.payload, MediaType.parse(wav ? "audio/wav" : "audio/mp4")))
+                    .addFormDataPart("session", sessionId);
+            if (wav) form.addFormDataPart("vad", "device"); // already trimmed; the server skips its own VAD pass
+            body = form.build();
+        }
+
+        ServerPool.Lease lease = serverPool.acquire(null);
+        int code = -1;
+        long start = System.nanoTime();
+        try (Response resp = okHttpClient.newCall(new Request.Builder()
+                .url(lease.endpoint.url(path))
+                .post(body)
+                .build()).execute()) {
+            code = resp.code();
+        } finally {
+            lease.close(code != -1 && (code < 500 || code == 503)); // 503: transcription queue full, server alive
+        }
+        outboxDelivery.recordNanos(System.nanoTime() - start);
+        if (code >= 500) throw new IOException("HTTP " + code);
+        if (code >= 300) Log.w(TAG, "outbox item refused: HTTP " + code); // won't get better on retry
     }
 
     // ====== Socket.IO ======
-    private void startSocketIO() {
+    private String loadSessionId() {
+        SharedPreferences prefs = getSharedPreferences("session", MODE_PRIVATE);
+        String id = prefs.getString("id", null);
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+            prefs.edit().putString("id", id).apply();
+        }
+        return id;
+    }
+
+    // UI thread only
+    private void startSocketIO(ServerPool.Endpoint endpoint) {
         try {
             IO.Options opts = new IO.Options();
             opts.reconnection = true;
             opts.transports = new String[] { "websocket", "polling" };
-            mSocket = IO.socket(SOCKET_URL, opts);
+            mSocket = IO.socket(endpoint.baseUrl, opts); // root is fine for Socket.IO
         } catch (Exception e) {
             e.printStackTrace();
             return;
         }
+        socketEndpoint = endpoint;
+        socketFrameTransport = new SocketFrameTransport(mSocket, FRAME_ACK_TIMEOUT_MS);
+        int bytesPerMs = VOICE_SAMPLE_RATE * 2 / 1000;
+        voiceStreamer = new VoiceStreamer(new SocketVoiceSink(mSocket), VOICE_SAMPLE_RATE,
+                VOICE_CHUNK_MS * bytesPerMs, VOICE_RING_MS * bytesPerMs);
+
+        mSocket.on(Socket.EVENT_CONNECT, args -> {
+            // on every (re)connect: the server moves our session to the new socket
+            try {
+                mSocket.emit("register", new JSONObject()
+                        .put("session", sessionId)
+                        .put("payload_mode", payloadModeJson(frameEncoder.getMode())));
+            } catch (JSONException e) {
+                Log.w(TAG, "register not sent", e);
+            }
+            startup.milestone("socket_connected");
+            runOnUiThread(() ->
+                    Toast.makeText(MainActivity.this, "WS connected", Toast.LENGTH_SHORT).show()
+            );
+        });
 
-        mSocket.on(Socket.EVENT_CONNECT, args ->
-                runOnUiThread(() ->
-                        Toast.makeText(MainActivity.this, "WS connected", Toast.LENGTH_SHORT).show()
-                )
-        );
+        serverCues.attach(mSocket); // through the arbiter to the cue scheduler
 
-        mSocket.on("instruction", args -> runOnUiThread(() -> {
+        // {"format": "LUMA", "scale": 2, "roi": "lower" | [l, t, r, b]}; missing keys keep their value
+        mSocket.on("payload_mode", args -> {
             if (args.length == 0 || !(args[0] instanceof JSONObject)) return;
-            JSONObject obj = (JSONObject) args[0];
-            String code = obj.optString("code", "");
-
-            long now = System.currentTimeMillis();
-            if (!spoken || (now - period) >= 1000) {
-                spoken = true;
-                period = now;
-
-                switch (code) {
-                    case "1": playRaw(R.raw.left); break;
-                    case "2": playRaw(R.raw.right); break;
-                    case "3": playRaw(R.raw.left2); break;
-                    case "4": playRaw(R.raw.right2); break;
-                    case "5": playRaw(R.raw.straight); break;
-                    default:  playRaw(R.raw.stop); break;
+            try {
+                PayloadMode requested;
+                synchronized (MainActivity.this) {
+                    requested = requestedPayloadMode = parsePayloadMode((JSONObject) args[0], requestedPayloadMode);
+                    applyPayloadMode(); // kept as asked for; the tier may hold it at LUMA for now
                 }
+                Log.i(TAG, "payload mode " + requested + ", sending " + frameEncoder.getMode());
+            } catch (JSONException | IllegalArgumentException e) {
+                Log.w(TAG, "bad payload_mode " + args[0], e);
             }
-        }));
+        });
+
+        mSocket.on("transcript", args -> {
+            if (args.length == 0 || !(args[0] instanceof JSONObject)) return;
+            JSONObject obj = (JSONObject) args[0];
+            String text = obj.optString("text", "");
+            Log.i(TAG, "transcript " + obj);
+            if (obj.optBoolean("final") && !text.isEmpty()) {
+                runOnUiThread(() -> Toast.makeText(MainActivity.this, text, Toast.LENGTH_LONG).show());
+            }
+        });
 
         mSocket.connect();
     }
 
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (isRecording) {
-            try { recorder.stop(); } catch (Exception ignored) {}
+    private static PayloadMode parsePayloadMode(JSONObject obj, PayloadMode current) throws JSONException {
+        FrameFormat format = FrameFormat.valueOf(obj.optString("format", current.format.name()).toUpperCase(Locale.US));
+        int scale = obj.optInt("scale", current.scale);
+        float[] roi = { current.left, current.top, current.right, current.bottom };
+        Object r = obj.opt("roi");
+        if (r instanceof String) {
+            roi = PayloadMode.roi((String) r);
+        } else if (r instanceof JSONArray) {
+            JSONArray a = (JSONArray) r;
+            for (int i = 0; i < 4; i++) roi[i] = (float) a.getDouble(i);
         }
-        safeReleaseRecorder();
-        if (audioTmpFile != null) audioTmpFile.delete();
+        return new PayloadMode(format, scale, roi);
+    }
+
+    private static JSONObject payloadModeJson(PayloadMode mode) throws JSONException {
+        return new JSONObject()
+                .put("format", mode.format.name())
+                .put("scale", mode.scale)
+                .put("roi", new JSONArray()
+                        .put((double) mode.left).put((double) mode.top)
+                        .put((double) mode.right).put((double) mode.bottom));
+    }
 
+    private void stopSocketIO() {
+        if (voiceStreamer != null) voiceStreamer.stop();
+        socketFrameTransport = null;
         if (mSocket != null) {
             mSocket.disconnect();
             mSocket.off();
         }
     }
 
-    // ---- Audio helpers ----
-    private void playRaw(int resId) {
-        if (audioManager != null) {
-            audioManager.requestAudioFocus(
-                    focusChange -> {},
-                    AudioManager.STREAM_MUSIC,
-                    AudioManager.AUDIOFOCUS_GAIN_TRANSIENT
-            );
+    // Probe / upload thread: the socket's server went down and another one is healthy
+    private void onPrimaryServerChanged(ServerPool.Endpoint from, ServerPool.Endpoint to) {
+        Log.w(TAG, "primary server " + from + " -> " + to);
+        runOnUiThread(() -> {
+            if (isDestroyed() || to == socketEndpoint) return;
+            stopSocketIO();
+            startSocketIO(to); // register on connect moves our session over
+            Toast.makeText(MainActivity.this, "Switched to " + to, Toast.LENGTH_SHORT).show();
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        startup.cancel();
+        startupExecutor.shutdownNow();
+        hudHandler.removeCallbacks(hudRefresh);
+        clipRecorder.stop();
+        serverPool.shutdown();
+        stopSocketIO();
+        if (networkCallback != null) {
+            getSystemService(ConnectivityManager.class).unregisterNetworkCallback(networkCallback);
         }
+        if (outboxSender != null) outboxSender.shutdown();
+
+        stopFrameRecording();
+        if (frameBatcher != null) frameBatcher.shutdown();
+        framePipeline.shutdown();
+        instructionExecutor.shutdownNow();
+        if (audioEngine != null) audioEngine.release();
+        traceReporter.shutdownNow();
+        if (thermalListener != null) getSystemService(PowerManager.class).removeThermalStatusListener(thermalListener);
+        governorExecutor.shutdownNow();
+        debugEndpoint.stop();
+    }
 
-        MediaPlayer mp = MediaPlayer.create(this, resId);
-        if (mp == null) {
-            Toast.makeText(this, "Audio init failed", Toast.LENGTH_SHORT).show();
-            return;
+    // ====== Instruction sources: server cues, or on-device cues when those go stale ======
+    // Socket or capture thread: a cue the arbiter let through
+    private void onCue(InstructionSource source, Instruction instruction, long frameAtMs) {
+        instructionExecutor.execute(() -> {
+            instructionScheduler.submit(instruction, frameAtMs);
+            instructionScheduler.pump();
+        });
+    }
+
+    private void onCueSourceChanged(InstructionSource from, InstructionSource to, String reason) {
+        Log.w(TAG, "cue source " + from.name() + " -> " + to.name() + " (" + reason + "); " + cueArbiter);
+        String msg = to == localCues ? "Server slow: on-device guidance" : "Server guidance back";
+        runOnUiThread(() -> Toast.makeText(MainActivity.this, msg, Toast.LENGTH_SHORT).show());
+    }
+
+    // ====== Instruction scheduling (off the main thread) ======
+    // Instruction thread
+    private void startInstructionScheduler() {
+        nudgeVolumeUp(2); // optional
+        audioEngine = new InstructionAudioEngine(this); // decodes all cues now, not on first instruction
+        instructionScheduler = new InstructionScheduler(
+                Clock.MONOTONIC, audioEngine, INSTRUCTION_MAX_AGE_MS, CUE_REPEAT_SUPPRESS_MS);
+        instructionScheduler.setListener((instruction, frameAtMs, submittedAtMs, nowMs) -> {
+            startup.milestone("first_cue");
+            cueLatency.record(nowMs - frameAtMs); // from the frame the cue was computed from
+            frameTracer.onAudioStart(submittedAtMs * 1_000_000, nowMs * 1_000_000);
+        });
+        // picks up cues that waited for the previous one to finish
+        instructionExecutor.scheduleWithFixedDelay(() -> instructionScheduler.pump(),
+                CUE_PUMP_INTERVAL_MS, CUE_PUMP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // ====== Performance HUD ======
+    private void registerMetrics() {
+        metrics.register(frameTracer.captureToEncode);
+        metrics.register(frameTracer.encodeToUpload);
+        metrics.register(frameTracer.uploadToInstruction);
+        metrics.register(frameTracer.instructionToAudio);
+        metrics.gauge(PerformanceHud.UPLOADS_IN_FLIGHT, rateController::getInFlight);
+        for (StageStats stats : framePipeline.getStats()) {
+            metrics.gauge("queue_" + stats.getName(), stats::getDepth);
         }
+    }
+
+    // UI thread
+    private void showHud(boolean show) {
+        hudHandler.removeCallbacks(hudRefresh);
+        hudView.setVisibility(show ? View.VISIBLE : View.GONE);
+        if (show) {
+            hud.reset();
+            hudView.setText("…");
+            hudHandler.postDelayed(hudRefresh, HUD_REFRESH_MS);
+        }
+    }
+
+    // UI thread, once per HUD_REFRESH_MS while the overlay is up; never per frame
+    private void refreshHud() {
+        String text = hud.render();
+        if (text != null && !text.contentEquals(hudView.getText())) hudView.setText(text);
+        hudHandler.postDelayed(hudRefresh, HUD_REFRESH_MS);
+    }
 
+    // ====== Latency trace export ======
+    private void startTraceExport() {
         try {
-            mp.setAudioAttributes(
-                    new AudioAttributes.Builder()
-                            .setUsage(AudioAttributes.USAGE_ASSISTANCE_ACCESSIBILITY)
-                            .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
-                            .build()
-            );
-        } catch (Exception ignored) {}
+            debugEndpoint.route("/trace", frameTracer::toJson)
+                    .route("/motion", motionGate::toJson)
+                    .route("/governor", governor::toJson)
+                    .route("/voice", clipRecorder::toJson)
+                    .route("/startup", startup::toJson)
+                    .route("/metrics", metrics::toJson)
+                    .route("/instructions", () -> "{\"arbiter\":" + cueArbiter.toJson()
+                            + ",\"local\":" + localCues.toJson() + "}")
+                    .route("/upload_batches", () -> frameBatcher != null ? frameBatcher.toJson() : "null")
+                    .start();
+        } catch (IOException e) {
+            Log.w(TAG, "debug endpoint not started", e);
+        }
 
-        mp.setOnCompletionListener(MediaPlayer::release);
-        mp.start();
+        File report = new File(getExternalFilesDir(null), "latency_trace.json");
+        traceReporter.scheduleWithFixedDelay(() -> {
+            String json = frameTracer.toJson();
+            Log.i(TAG, "trace " + json);
+            try {
+                Files.write(report.toPath(), json.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                Log.w(TAG, "trace report not written", e);
+            }
+        }, TRACE_REPORT_INTERVAL_MS, TRACE_REPORT_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
 
+    // ---- Audio helpers ----
     private void nudgeVolumeUp(int steps) {
         if (audioManager == null) return;
         for (int i = 0; i < steps; i++) {
@@ -0,0 +1,104 @@
+package com.example.myapplication;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Named counters, gauges and {@link LatencyHistogram}s for the live HUD and {@code /metrics}.
+ *
+ * Look a metric up once and keep the reference; updating it is a single atomic operation with
+ * no locks or allocation, so it can be called per frame from any thread. Lookups are
+ * get-or-create and safe to race: every caller gets the same instance.
+ */
+public final class MetricsRegistry {
+
+    /** Monotonic count, e.g. frames uploaded. */
+    public static final class Counter {
+        private final AtomicLong value = new AtomicLong();
+
+        public void inc() { value.incrementAndGet(); }
+        public void add(long n) { value.addAndGet(n); }
+        public long get() { return value.get(); }
+    }
+
+    /** Current level, e.g. uploads in flight. */
+    public static final class Gauge {
+        private final AtomicLong value = new AtomicLong();
+
+        public void set(long v) { value.set(v); }
+        public void inc() { value.incrementAndGet(); }
+        public void dec() { value.decrementAndGet(); }
+        public long get() { return value.get(); }
+    }
+
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentSkipListMap<>();
+    private final Map<String, LongSupplier> computedGauges = new ConcurrentSkipListMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    public Gauge gauge(String name) {
+        return gauges.computeIfAbsent(name, n -> new Gauge());
+    }
+
+    /** A gauge read from elsewhere when the registry is read, e.g. a queue depth. */
+    public void gauge(String name, LongSupplier value) {
+        computedGauges.put(name, value);
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /** Adds a histogram that already exists, e.g. one of {@link FrameTracer}'s, under its own name. */
+    public void register(LatencyHistogram histogram) {
+        histograms.putIfAbsent(histogram.getName(), histogram);
+    }
+
+    /** 0 for a counter or gauge that has not been created. */
+    public long get(String name) {
+        Counter c = counters.get(name);
+        if (c != null) return c.get();
+        Gauge g = gauges.get(name);
+        if (g != null) return g.get();
+        LongSupplier s = computedGauges.get(name);
+        return s != null ? s.getAsLong() : 0;
+    }
+
+    /** Null if no histogram has that name. */
+    public LatencyHistogram findHistogram(String name) {
+        return histograms.get(name);
+    }
+
+    /** {@code {"counters": {...}, "gauges": {...}, "histograms": {name: histogram json}}}, names sorted. */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\"counters\":{");
+        String sep = "";
+        for (Map.Entry<String, Counter> e : counters.entrySet()) {
+            sb.append(sep).append('"').append(e.getKey()).append("\":").append(e.getValue().get());
+            sep = ",";
+        }
+        sb.append("},\"gauges\":{");
+        sep = "";
+        Map<String, Long> levels = new TreeMap<>();
+        for (Map.Entry<String, Gauge> e : gauges.entrySet()) levels.put(e.getKey(), e.getValue().get());
+        for (Map.Entry<String, LongSupplier> e : computedGauges.entrySet()) levels.put(e.getKey(), e.getValue().getAsLong());
+        for (Map.Entry<String, Long> e : levels.entrySet()) {
+            sb.append(sep).append('"').append(e.getKey()).append("\":").append(e.getValue());
+            sep = ",";
+        }
+        sb.append("},\"histograms\":{");
+        sep = "";
+        for (Map.Entry<String, LatencyHistogram> e : histograms.entrySet()) {
+            sb.append(sep).append('"').append(e.getKey()).append("\":").append(e.getValue().toJson());
+            sep = ",";
+        }
+        return sb.append("}}").toString();
+    }
+}
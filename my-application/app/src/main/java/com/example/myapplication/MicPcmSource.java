@@ -0,0 +1,45 @@
+package com.example.myapplication;
+
+import android.annotation.SuppressLint;
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+
+import java.io.IOException;
+
+/**
+ * 16-bit mono PCM straight from the microphone. The caller checks RECORD_AUDIO first.
+ */
+public class MicPcmSource implements VoiceStreamer.PcmSource {
+
+    private final AudioRecord record;
+
+    @SuppressLint("MissingPermission")
+    public MicPcmSource(int sampleRate) throws IOException {
+        int minBuffer = AudioRecord.getMinBufferSize(sampleRate,
+                AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT);
+        if (minBuffer <= 0) throw new IOException("unsupported sample rate " + sampleRate);
+        record = new AudioRecord(MediaRecorder.AudioSource.VOICE_RECOGNITION, sampleRate,
+                AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT, minBuffer * 4);
+        if (record.getState() != AudioRecord.STATE_INITIALIZED) {
+            record.release();
+            throw new IOException("AudioRecord not initialized");
+        }
+        record.startRecording();
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) {
+        return record.read(buf, off, len);
+    }
+
+    @Override
+    public void close() {
+        try {
+            record.stop();
+        } catch (IllegalStateException ignored) {
+            // already stopped
+        }
+        record.release();
+    }
+}
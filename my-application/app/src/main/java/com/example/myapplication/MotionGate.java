@@ -0,0 +1,147 @@
+package com.example.myapplication;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Skips frames that look like the last one sent, before anything is copied or compressed.
+ *
+ * The Y plane is reduced to a small grid of mean-luma cells (sampling every
+ * {@link #SAMPLE_STEP}th pixel), and the score is the mean absolute difference between that
+ * grid and the grid of the last admitted frame, in luma levels (0..255). Comparing against the
+ * last admitted frame rather than the previous one means slow drift still adds up to an upload.
+ * A frame is always admitted once {@code keyframeIntervalMs} has passed since the last one.
+ *
+ * {@link #admit} is called from the capture thread only; the counters are safe to read anywhere.
+ */
+public final class MotionGate {
+
+    static final int SAMPLE_STEP = 4;
+
+    private final int gridWidth;
+    private final int gridHeight;
+    private final double threshold;
+    private final long keyframeIntervalMs;
+
+    private int[] reference;
+    private int[] current;
+    private volatile boolean hasReference = false; // cleared by reset() from any thread
+    private long lastAdmitMs;
+    private volatile double lastScore = -1;
+
+    private final AtomicLong evaluated = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong keyframes = new AtomicLong();
+    private final AtomicLong costNanos = new AtomicLong();
+    private final AtomicLong maxCostNanos = new AtomicLong();
+
+    /**
+     * @param threshold          minimum mean cell difference, in luma levels, that counts as motion
+     * @param keyframeIntervalMs admit a frame at least this often, even when nothing moved
+     */
+    public MotionGate(int gridWidth, int gridHeight, double threshold, long keyframeIntervalMs) {
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.threshold = threshold;
+        this.keyframeIntervalMs = keyframeIntervalMs;
+        this.reference = new int[gridWidth * gridHeight];
+        this.current = new int[gridWidth * gridHeight];
+    }
+
+    /** True if the frame should be uploaded; admitted frames become the new reference. */
+    public boolean admit(YuvFrame frame, long nowMs) {
+        long start = System.nanoTime();
+        cellMeans(frame, gridWidth, gridHeight, current);
+        double score = hasReference ? meanAbsDiff(reference, current) : -1;
+
+        boolean moved = !hasReference || score >= threshold;
+        boolean keyframe = !moved && nowMs - lastAdmitMs >= keyframeIntervalMs;
+        if (moved || keyframe) {
+            int[] t = reference;
+            reference = current;
+            current = t;
+            hasReference = true;
+            lastAdmitMs = nowMs;
+        }
+        record(System.nanoTime() - start, moved || keyframe, keyframe);
+        lastScore = score;
+        return moved || keyframe;
+    }
+
+    /** Forgets the reference, so the next frame is admitted (e.g. when streaming restarts). */
+    public void reset() {
+        hasReference = false;
+    }
+
+    private void record(long nanos, boolean admitted, boolean keyframe) {
+        evaluated.incrementAndGet();
+        if (!admitted) skipped.incrementAndGet();
+        if (keyframe) keyframes.incrementAndGet();
+        costNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = maxCostNanos.get())) {
+            if (maxCostNanos.compareAndSet(max, nanos)) break;
+        }
+    }
+
+    /** Mean luma of each grid cell, row-major into {@code out}; cells split the frame evenly. */
+    static void cellMeans(YuvFrame frame, int gridWidth, int gridHeight, int[] out) {
+        int cellW = frame.width / gridWidth;
+        int cellH = frame.height / gridHeight;
+        for (int gy = 0; gy < gridHeight; gy++) {
+            for (int gx = 0; gx < gridWidth; gx++) {
+                int sum = 0;
+                int n = 0;
+                int x0 = gx * cellW;
+                for (int row = gy * cellH; row < (gy + 1) * cellH; row += SAMPLE_STEP) {
+                    int base = row * frame.yRowStride;
+                    for (int x = x0; x < x0 + cellW; x += SAMPLE_STEP) {
+                        sum += frame.y.get(base + x) & 0xFF;
+                        n++;
+                    }
+                }
+                out[gy * gridWidth + gx] = n == 0 ? 0 : sum / n;
+            }
+        }
+    }
+
+    static double meanAbsDiff(int[] a, int[] b) {
+        long sad = 0;
+        for (int i = 0; i < a.length; i++) sad += Math.abs(a[i] - b[i]);
+        return (double) sad / a.length;
+    }
+
+    /** Score of the last evaluated frame, or -1 if it had no reference to compare against. */
+    public double getLastScore() { return lastScore; }
+    public long getEvaluated() { return evaluated.get(); }
+    public long getSkipped() { return skipped.get(); }
+    public long getKeyframes() { return keyframes.get(); }
+
+    /** Fraction of evaluated frames that were not uploaded. */
+    public double getSkipRate() {
+        long n = evaluated.get();
+        return n == 0 ? 0 : (double) skipped.get() / n;
+    }
+
+    /** Mean detector cost per frame, in microseconds. */
+    public double getMeanCostUs() {
+        long n = evaluated.get();
+        return n == 0 ? 0 : costNanos.get() / 1e3 / n;
+    }
+
+    public double getMaxCostUs() { return maxCostNanos.get() / 1e3; }
+
+    public String toJson() {
+        return String.format(Locale.US,
+                "{\"evaluated\":%d,\"skipped\":%d,\"keyframes\":%d,\"skip_rate\":%.3f,"
+                        + "\"last_score\":%.2f,\"mean_cost_us\":%.1f,\"max_cost_us\":%.1f}",
+                getEvaluated(), getSkipped(), getKeyframes(), getSkipRate(),
+                lastScore, getMeanCostUs(), getMaxCostUs());
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "motion evaluated=%d skipped=%d (%.0f%%) keyframes=%d cost=%.0fus max=%.0fus",
+                getEvaluated(), getSkipped(), 100 * getSkipRate(), getKeyframes(), getMeanCostUs(), getMaxCostUs());
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.myapplication;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * Bounded, append-only on-disk queue for messages that must survive a dead link or a restart
+ * (voice clips, typed text).
+ *
+ * Items are appended to numbered segment files and forced to disk before {@link #append}
+ * returns. A small {@code head} file, replaced atomically, records how far the queue has been
+ * consumed; segments wholly behind it are deleted. On open every record after the head is
+ * checked against its CRC, and a torn write at the end of the log is cut off.
+ *
+ * When the queue is over {@code maxBytes} the oldest items are evicted, and items older than
+ * {@code ttlMs} are dropped instead of delivered. Thread-safe; one process per directory.
+ */
+public final class Outbox implements AutoCloseable {
+
+    public static final class Item {
+        public final int kind;
+        public final long createdAtMs;
+        public final byte[] payload;
+
+        Item(int kind, long createdAtMs, byte[] payload) {
+            this.kind = kind;
+            this.createdAtMs = createdAtMs;
+            this.payload = payload;
+        }
+    }
+
+    /** Where a record lives; the payload is read back only when it is peeked. */
+    private static final class Ref {
+        final long segment;
+        final long offset;
+        final int kind;
+        final long createdAtMs;
+        final int length;
+
+        Ref(long segment, long offset, int kind, long createdAtMs, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.kind = kind;
+            this.createdAtMs = createdAtMs;
+            this.length = length;
+        }
+    }
+
+    private static final int MAGIC = 0x4F425831; // "OBX1"
+    // magic, kind, createdAtMs, length, crc
+    static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4;
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final File dir;
+    private final long maxBytes;
+    private final long segmentBytes;
+    private final long ttlMs;
+    private final Clock clock;
+
+    private final Deque<Ref> records = new ArrayDeque<>();
+    private final TreeSet<Long> segments = new TreeSet<>();
+    private long bytes = 0;
+    private long activeSegment;
+    private FileChannel active;
+
+    private long appended = 0;
+    private long removed = 0;
+    private long evicted = 0;
+    private long expired = 0;
+    private long corrupt = 0;
+
+    /**
+     * @param maxBytes     cap on queued records, headers included; the oldest go first
+     * @param segmentBytes roll to a new segment file past this size
+     * @param ttlMs        items older than this are dropped; timestamps come from {@code clock},
+     *                     which must be a wall clock so ages survive a reboot
+     */
+    public Outbox(File dir, long maxBytes, long segmentBytes, long ttlMs, Clock clock) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("cannot create " + dir);
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.segmentBytes = segmentBytes;
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+        recover();
+    }
+
+    /** Appends one item and forces it to disk. */
+    public synchronized void append(int kind, byte[] payload) throws IOException {
+        long size = HEADER_SIZE + (long) payload.length;
+        if (size > maxBytes) throw new IOException("item of " + payload.length + " bytes exceeds the queue");
+        boolean headMoved = false;
+        while (bytes + size > maxBytes) {
+            dropHead();
+            evicted++;
+            headMoved = true;
+        }
+        if (headMoved) writeHead();
+
+        if (active.size() > 0 && active.size() + size > segmentBytes) roll();
+
+        long createdAtMs = clock.nowMs();
+        ByteBuffer record = ByteBuffer.allocate((int) size);
+        record.putInt(MAGIC).putInt(kind).putLong(createdAtMs).putInt(payload.length)
+                .putInt(crc(kind, createdAtMs, payload, payload.length)).put(payload);
+        record.flip();
+        long offset = active.size();
+        while (record.hasRemaining()) active.write(record, offset + record.position());
+        active.force(false);
+
+        records.addLast(new Ref(activeSegment, offset, kind, createdAtMs, payload.length));
+        bytes += size;
+        appended++;
+    }
+
+    /** Returns up to {@code max} of the oldest live items without removing them; drops expired ones first. */
+    public synchronized List<Item> peek(int max) throws IOException {
+        dropExpired();
+        List<Item> out = new ArrayList<>();
+        FileChannel channel = null;
+        long channelSegment = -1;
+        try {
+            for (Ref ref : records) {
+                if (out.size() >= max) break;
+                if (ref.segment != channelSegment) {
+                    if (channel != null) channel.close();
+                    channel = FileChannel.open(segmentFile(ref.segment).toPath(), StandardOpenOption.READ);
+                    channelSegment = ref.segment;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(ref.length);
+                readFully(channel, payload, ref.offset + HEADER_SIZE);
+                out.add(new Item(ref.kind, ref.createdAtMs, payload.array()));
+            }
+        } finally {
+            if (channel != null) channel.close();
+        }
+        return out;
+    }
+
+    /** Removes the {@code count} oldest items, normally the ones just delivered from {@link #peek}. */
+    public synchronized void remove(int count) throws IOException {
+        int n = Math.min(count, records.size());
+        for (int i = 0; i < n; i++) dropHead();
+        removed += n;
+        if (n > 0) writeHead();
+    }
+
+    public synchronized int size() { return records.size(); }
+    public synchronized long getBytes() { return bytes; }
+    public synchronized long getAppended() { return appended; }
+    public synchronized long getRemoved() { return removed; }
+    public synchronized long getEvicted() { return evicted; }
+    public synchronized long getExpired() { return expired; }
+    /** Segments whose tail failed its checks at open and was cut off (torn writes). */
+    public synchronized long getCorrupt() { return corrupt; }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (active != null) active.close();
+    }
+
+    private void dropExpired() throws IOException {
+        long cutoff = clock.nowMs() - ttlMs;
+        boolean headMoved = false;
+        // appended in time order, so the stale ones are always at the front
+        while (!records.isEmpty() && records.peekFirst().createdAtMs < cutoff) {
+            dropHead();
+            expired++;
+            headMoved = true;
+        }
+        if (headMoved) writeHead();
+    }
+
+    private void dropHead() {
+        Ref ref = records.removeFirst();
+        bytes -= HEADER_SIZE + ref.length;
+    }
+
+    // ---- persistence ----
+
+    private File segmentFile(long segment) {
+        return new File(dir, String.format(Locale.US, "%016d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    /** Persists the position of the oldest live record and deletes segments behind it. */
+    private void writeHead() throws IOException {
+        long segment;
+        long offset;
+        Ref first = records.peekFirst();
+        if (first != null) {
+            segment = first.segment;
+            offset = first.offset;
+        } else {
+            segment = activeSegment;
+            offset = active.size();
+        }
+        File tmp = new File(dir, "head.tmp");
+        ByteBuffer buf = ByteBuffer.allocate(16).putLong(segment).putLong(offset);
+        buf.flip();
+        try (FileChannel ch = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        Files.move(tmp.toPath(), new File(dir, "head").toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Iterator<Long> it = segments.iterator();
+        while (it.hasNext()) {
+            long s = it.next();
+            if (s >= segment) break;
+            //noinspection ResultOfMethodCallIgnored
+            segmentFile(s).delete();
+            it.remove();
+        }
+    }
+
+    private void roll() throws IOException {
+        active.close();
+        openActive(activeSegment + 1);
+    }
+
+    private void openActive(long segment) throws IOException {
+        activeSegment = segment;
+        segments.add(segment);
+        active = FileChannel.open(segmentFile(segment).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private void recover() throws IOException {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (File f : files) {
+                String name = f.getName();
+                try {
+                    segments.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException ignored) {
+                    // not ours
+                }
+            }
+        }
+
+        long headSegment = segments.isEmpty() ? 0 : segments.first();
+        long headOffset = 0;
+        File head = new File(dir, "head");
+        if (head.length() == 16) {
+            ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(head.toPath()));
+            headSegment = buf.getLong();
+            headOffset = buf.getLong();
+        }
+
+        for (Long s : new ArrayList<>(segments)) {
+            if (s < headSegment) {
+                //noinspection ResultOfMethodCallIgnored
+                segmentFile(s).delete();
+                segments.remove(s);
+            } else {
+                scan(s, s == headSegment ? headOffset : 0);
+            }
+        }
+        openActive(segments.isEmpty() ? headSegment : segments.last());
+    }
+
+    /** Indexes a segment's valid records; anything after the first bad one is cut off. */
+    private void scan(long segment, long from) throws IOException {
+        try (FileChannel ch = FileChannel.open(segmentFile(segment).toPath(),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = ch.size();
+            long pos = from;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (pos < size) {
+                header.clear();
+                if (size - pos < HEADER_SIZE || !readFully(ch, header, pos)) break;
+                header.flip();
+                int magic = header.getInt();
+                int kind = header.getInt();
+                long createdAtMs = header.getLong();
+                int length = header.getInt();
+                int crc = header.getInt();
+                if (magic != MAGIC || length < 0 || length > size - pos - HEADER_SIZE) break;
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(ch, payload, pos + HEADER_SIZE);
+                if (crc(kind, createdAtMs, payload.array(), length) != crc) break;
+
+                records.addLast(new Ref(segment, pos, kind, createdAtMs, length));
+                bytes += HEADER_SIZE + length;
+                pos += HEADER_SIZE + length;
+            }
+            if (pos < size) {
+                corrupt++;
+                ch.truncate(pos);
+                ch.force(true);
+            }
+        }
+    }
+
+    private static boolean readFully(FileChannel ch, ByteBuffer dst, long position) throws IOException {
+        long pos = position;
+        while (dst.hasRemaining()) {
+            int n = ch.read(dst, pos);
+            if (n < 0) return false;
+            pos += n;
+        }
+        return true;
+    }
+
+    private static int crc(int kind, long createdAtMs, byte[] payload, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(16).putInt(kind).putLong(createdAtMs).putInt(length).array());
+        crc.update(payload, 0, length);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "outbox items=%d bytes=%d segments=%s appended=%d sent=%d evicted=%d expired=%d corrupt=%d",
+                records.size(), bytes, Arrays.toString(segments.toArray()), appended, removed, evicted, expired, corrupt);
+    }
+}
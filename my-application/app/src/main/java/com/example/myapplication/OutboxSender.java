@@ -0,0 +1,164 @@
+package com.example.myapplication;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains an {@link Outbox} on its own thread, a batch at a time, oldest first.
+ *
+ * An item leaves the outbox only after {@link Delivery#deliver} returned for it, so delivery is
+ * at-least-once. A failure stops the batch and retries after an exponential backoff;
+ * {@link #kick()} skips the wait, e.g. when the network comes back or a new item is queued.
+ */
+public final class OutboxSender {
+
+    public interface Delivery {
+        /** Sends one item. Returns once the server has it (or refused it for good); throws to retry later. */
+        void deliver(Outbox.Item item) throws IOException;
+    }
+
+    public interface Listener {
+        void onDelivered(Outbox.Item item);
+
+        void onRetryScheduled(int queued, long delayMs, IOException cause);
+
+        /** The item could not even be written to the outbox (disk full, too large). */
+        void onQueueFailed(int kind, IOException cause);
+    }
+
+    private final Outbox outbox;
+    private final Delivery delivery;
+    private final int batchSize;
+    private final long minBackoffMs;
+    private final long maxBackoffMs;
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "outbox-sender"));
+    private volatile Listener listener;
+
+    private long backoffMs;                 // only touched on the sender thread
+    private ScheduledFuture<?> pending;     // guarded by this
+    private long generation = 0;            // guarded by this; bumped by kick() so only one drain chain reschedules
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    public OutboxSender(Outbox outbox, Delivery delivery, int batchSize, long minBackoffMs, long maxBackoffMs) {
+        this.outbox = outbox;
+        this.delivery = delivery;
+        this.batchSize = batchSize;
+        this.minBackoffMs = minBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.backoffMs = minBackoffMs;
+    }
+
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    /** Queues an item on the sender thread (the append waits for the disk), then drains. */
+    public void submit(int kind, byte[] payload) {
+        if (executor.isShutdown()) return;
+        executor.execute(() -> {
+            try {
+                outbox.append(kind, payload);
+            } catch (IOException e) {
+                Listener l = listener;
+                if (l != null) l.onQueueFailed(kind, e);
+                return;
+            }
+            kick();
+        });
+    }
+
+    /** Drains now, dropping any backoff in progress. */
+    public synchronized void kick() {
+        if (executor.isShutdown()) return;
+        if (pending != null) pending.cancel(false);
+        long chain = ++generation;
+        pending = executor.schedule(() -> {
+            backoffMs = minBackoffMs;
+            run(chain);
+        }, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /** Lets a queued append finish but starts no new drain; undelivered items stay on disk. */
+    public synchronized void shutdown() {
+        if (pending != null) pending.cancel(false);
+        executor.shutdown();
+    }
+
+    /** Waits for a drain already running when {@link #shutdown()} was called to finish. */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * One drain, then its retry if needed. A drain that was already running when {@link #kick()}
+     * came in cannot be cancelled, so it leaves the rescheduling to the kicked drain instead of
+     * starting a second retry chain next to it.
+     */
+    private void run(long chain) {
+        long delayMs;
+        try {
+            delayMs = drainOnce();
+        } catch (IOException e) {
+            delayMs = failed(e); // the outbox itself failed; try again later rather than give up
+        }
+        synchronized (this) {
+            if (executor.isShutdown() || chain != generation) return;
+            pending = delayMs < 0 ? null : executor.schedule(() -> run(chain), delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Delivers batches until the outbox is empty or a delivery fails.
+     *
+     * @return -1 when empty, otherwise how long to wait before the next attempt
+     */
+    long drainOnce() throws IOException {
+        while (true) {
+            List<Outbox.Item> batch = outbox.peek(batchSize);
+            if (batch.isEmpty()) {
+                backoffMs = minBackoffMs;
+                return -1;
+            }
+            int done = 0;
+            try {
+                for (Outbox.Item item : batch) {
+                    delivery.deliver(item);
+                    done++;
+                    delivered.incrementAndGet();
+                    Listener l = listener;
+                    if (l != null) l.onDelivered(item);
+                }
+            } catch (IOException e) {
+                outbox.remove(done);
+                return failed(e);
+            }
+            outbox.remove(done);
+            backoffMs = minBackoffMs;
+        }
+    }
+
+    private long failed(IOException cause) {
+        long delayMs = backoffMs;
+        backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+        retries.incrementAndGet();
+        Listener l = listener;
+        if (l != null) l.onRetryScheduled(outbox.size(), delayMs, cause);
+        return delayMs;
+    }
+
+    public long getDelivered() { return delivered.get(); }
+    public long getRetries() { return retries.get(); }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "sender delivered=%d retries=%d %s",
+                getDelivered(), getRetries(), outbox);
+    }
+}
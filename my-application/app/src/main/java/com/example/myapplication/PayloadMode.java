@@ -0,0 +1,117 @@
+package com.example.myapplication;
+
+import java.util.Locale;
+
+/**
+ * What part of the camera frame is uploaded, and at what resolution: a {@link FrameFormat},
+ * an integer downscale and a region of interest.
+ *
+ * The region is given as fractions of the upright (already rotated) frame, so "lower" means
+ * the lower half of what the wearer sees whatever way the camera is mounted. Crop and
+ * downscale are applied by {@link FrameEncoder} while copying the planes; the server gets the
+ * geometry in the {@link FrameHeader} and puts the pixels back where they came from.
+ */
+public final class PayloadMode {
+
+    /** Region presets; {@code roi} in the server's control message is one of these names or four fractions. */
+    public static final float[] ROI_FULL = { 0f, 0f, 1f, 1f };
+    public static final float[] ROI_CENTER = { 0.25f, 0.25f, 0.75f, 0.75f };
+    /** Ground in front of the wearer: where kerbs, steps and obstacles show up. */
+    public static final float[] ROI_LOWER = { 0f, 0.5f, 1f, 1f };
+
+    public final FrameFormat format;
+    /** 1, 2 or 4; each output pixel is the mean of a scale x scale block. */
+    public final int scale;
+    public final float left;
+    public final float top;
+    public final float right;
+    public final float bottom;
+
+    public PayloadMode(FrameFormat format, int scale, float left, float top, float right, float bottom) {
+        if (scale != 1 && scale != 2 && scale != 4) {
+            throw new IllegalArgumentException("scale must be 1, 2 or 4: " + scale);
+        }
+        if (!(left >= 0f && top >= 0f && right <= 1f && bottom <= 1f && left < right && top < bottom)) {
+            throw new IllegalArgumentException("bad region " + left + "," + top + "," + right + "," + bottom);
+        }
+        this.format = format;
+        this.scale = scale;
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    public PayloadMode(FrameFormat format, int scale, float[] roi) {
+        this(format, scale, roi[0], roi[1], roi[2], roi[3]);
+    }
+
+    /** Whole frame at full resolution, the behaviour before payload modes existed. */
+    public static PayloadMode full(FrameFormat format) {
+        return new PayloadMode(format, 1, ROI_FULL);
+    }
+
+    /** Resolves a preset name ("full", "center", "lower"). */
+    public static float[] roi(String name) {
+        switch (name.toLowerCase(Locale.US)) {
+            case "full": return ROI_FULL;
+            case "center": return ROI_CENTER;
+            case "lower": return ROI_LOWER;
+            default: throw new IllegalArgumentException("unknown region " + name);
+        }
+    }
+
+    /** True when frames go out untouched, so the encoder can take its straight-copy path. */
+    public boolean isFullFrame() {
+        return scale == 1 && left == 0f && top == 0f && right == 1f && bottom == 1f;
+    }
+
+    // Region edges snap to multiples of 2 * scale pixels so the output keeps even dimensions (NV21).
+
+    /** Left edge of the region in the upright source frame, in pixels. */
+    public int cropX(int width) {
+        return align(left * width, width);
+    }
+
+    public int cropY(int height) {
+        return align(top * height, height);
+    }
+
+    public int outputWidth(int width) {
+        return regionSize(cropX(width), right * width, width) / scale;
+    }
+
+    public int outputHeight(int height) {
+        return regionSize(cropY(height), bottom * height, height) / scale;
+    }
+
+    private int align(float edge, int size) {
+        int step = 2 * scale;
+        int aligned = (int) edge / step * step;
+        return Math.min(aligned, (size - step) / step * step);
+    }
+
+    private int regionSize(int start, float end, int size) {
+        int step = 2 * scale;
+        int span = Math.min((int) end, size) - start;
+        return Math.max(step, span / step * step);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PayloadMode)) return false;
+        PayloadMode m = (PayloadMode) o;
+        return format == m.format && scale == m.scale
+                && left == m.left && top == m.top && right == m.right && bottom == m.bottom;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((format.hashCode() * 31 + scale) * 31 + Float.floatToIntBits(left + 2 * top + 4 * right + 8 * bottom));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s/%d [%.2f,%.2f,%.2f,%.2f]", format, scale, left, top, right, bottom);
+    }
+}
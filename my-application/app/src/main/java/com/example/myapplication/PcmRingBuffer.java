@@ -0,0 +1,109 @@
+package com.example.myapplication;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Single-producer, single-consumer byte ring between the microphone thread and the sender.
+ *
+ * {@link #write} never blocks: the microphone has to be drained in real time, so when the
+ * sender falls behind the oldest audio is overwritten and counted in {@link #getOverrunBytes()}.
+ * {@link #read} blocks until a whole chunk is available or the ring is closed.
+ */
+public final class PcmRingBuffer {
+
+    private final byte[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition readable = lock.newCondition();
+
+    private int head = 0;   // next byte to read
+    private int size = 0;
+    private boolean closed = false;
+    private long overrunBytes = 0;
+
+    public PcmRingBuffer(int capacityBytes) {
+        this.ring = new byte[capacityBytes];
+    }
+
+    public void write(byte[] src, int off, int len) {
+        lock.lock();
+        try {
+            if (closed) return;
+            if (len > ring.length) { // keep only the newest ring.length bytes
+                overrunBytes += len - ring.length;
+                off += len - ring.length;
+                len = ring.length;
+            }
+            int overflow = size + len - ring.length;
+            if (overflow > 0) {
+                head = (head + overflow) % ring.length;
+                size -= overflow;
+                overrunBytes += overflow;
+            }
+            int tail = (head + size) % ring.length;
+            int first = Math.min(len, ring.length - tail);
+            System.arraycopy(src, off, ring, tail, first);
+            System.arraycopy(src, off + first, ring, 0, len - first);
+            size += len;
+            readable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads exactly {@code len} bytes, or fewer once the ring is closed and drained.
+     *
+     * @return bytes read; 0 on timeout, -1 when closed and empty
+     */
+    public int read(byte[] dst, int off, int len, long timeoutMs) throws InterruptedException {
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        lock.lock();
+        try {
+            while (size < len && !closed) {
+                if (remainingNanos <= 0) return 0;
+                remainingNanos = readable.awaitNanos(remainingNanos);
+            }
+            if (size == 0) return -1;
+            int n = Math.min(len, size);
+            int first = Math.min(n, ring.length - head);
+            System.arraycopy(ring, head, dst, off, first);
+            System.arraycopy(ring, 0, dst, off + first, n - first);
+            head = (head + n) % ring.length;
+            size -= n;
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** No more writes; readers drain what is left, then get -1. */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            readable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int available() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getOverrunBytes() {
+        lock.lock();
+        try {
+            return overrunBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
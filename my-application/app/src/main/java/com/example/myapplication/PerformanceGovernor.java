@@ -0,0 +1,167 @@
+package com.example.myapplication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Picks a performance {@link Tier} from thermal status, battery level and charging state, so
+ * continuous streaming backs off before the device throttles or runs flat.
+ *
+ * Conditions are read from a {@link PowerStateProvider} on each {@link #evaluate}. Getting
+ * worse moves straight to the tier the conditions call for; getting better moves up one tier
+ * at a time, and only after conditions have allowed it for {@code recoveryMs}, so a status
+ * flickering around a boundary does not make capture restart over and over. Battery
+ * thresholds get a {@link #BATTERY_HYSTERESIS_PERCENT} margin on the way back up for the same
+ * reason.
+ *
+ * The tiers are a ceiling: the {@link AdaptiveRateController} still adapts to the network
+ * within whatever the current tier allows.
+ */
+public final class PerformanceGovernor {
+
+    public static final class Tier {
+        public final String name;
+        /** Minimum time between captured frames. */
+        public final long intervalMs;
+        /** Largest capture resolution. */
+        public final int width;
+        public final int height;
+        /**
+         * Most expensive upload format allowed; LUMA skips the JPEG compressor, the most expensive
+         * per-frame step. A JPEG tier leaves the format to whoever asked for one.
+         */
+        public final FrameFormat format;
+        /** On-device frame analysis (the motion gate) runs in this tier. */
+        public final boolean detector;
+
+        public Tier(String name, long intervalMs, int width, int height, FrameFormat format, boolean detector) {
+            this.name = name;
+            this.intervalMs = intervalMs;
+            this.width = width;
+            this.height = height;
+            this.format = format;
+            this.detector = detector;
+        }
+
+        /** The mode to encode in when {@code requested} is asked for: LUMA if this tier requires it. */
+        public PayloadMode limit(PayloadMode requested) {
+            if (format != FrameFormat.LUMA || requested.format == FrameFormat.LUMA) return requested;
+            return new PayloadMode(FrameFormat.LUMA, requested.scale,
+                    requested.left, requested.top, requested.right, requested.bottom);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s %dms %dx%d %s detector=%s",
+                    name, intervalMs, width, height, format, detector ? "on" : "off");
+        }
+    }
+
+    public interface Listener {
+        /** Called on the thread that ran {@link #evaluate}. */
+        void onTierChanged(int fromIndex, int toIndex, Tier tier, String reason);
+    }
+
+    static final int BATTERY_HYSTERESIS_PERCENT = 5;
+    private static final String[] THERMAL_NAMES =
+            { "none", "light", "moderate", "severe", "critical", "emergency", "shutdown" };
+
+    private final List<Tier> tiers;
+    private final PowerStateProvider provider;
+    private final Clock clock;
+    private final int lowBatteryPercent;
+    private final int criticalBatteryPercent;
+    private final long recoveryMs;
+    private volatile Listener listener;
+
+    private int tierIndex = 0;
+    private long betterSinceMs = -1; // when conditions started allowing a better tier; -1 while they don't
+    private long changes = 0;
+    private String lastConditions = "";
+
+    /**
+     * @param tiers      best first; thermal status moderate, severe and critical map to
+     *                   tiers 1, 2 and 3 (capped at the last tier)
+     * @param recoveryMs how long conditions must stay better before moving up one tier
+     */
+    public PerformanceGovernor(List<Tier> tiers, PowerStateProvider provider, Clock clock,
+                               int lowBatteryPercent, int criticalBatteryPercent, long recoveryMs) {
+        if (tiers.isEmpty()) throw new IllegalArgumentException("no tiers");
+        this.tiers = new ArrayList<>(tiers);
+        this.provider = provider;
+        this.clock = clock;
+        this.lowBatteryPercent = lowBatteryPercent;
+        this.criticalBatteryPercent = criticalBatteryPercent;
+        this.recoveryMs = recoveryMs;
+    }
+
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    /** Reads the current conditions and moves to another tier if they call for it. */
+    public Tier evaluate() {
+        int thermal = provider.thermalStatus();
+        int battery = provider.batteryPercent();
+        boolean charging = provider.isCharging();
+        long nowMs = clock.nowMs();
+
+        int from;
+        int to;
+        String conditions = String.format(Locale.US, "thermal=%s battery=%d%%%s",
+                thermalName(thermal), battery, charging ? " charging" : "");
+        synchronized (this) {
+            lastConditions = conditions;
+            from = tierIndex;
+            int target = Math.min(tiers.size() - 1,
+                    Math.max(thermalTier(thermal), batteryTier(battery, charging, tierIndex)));
+            if (target > tierIndex) {
+                tierIndex = target;
+                betterSinceMs = -1;
+            } else if (target < tierIndex) {
+                if (betterSinceMs < 0) betterSinceMs = nowMs;
+                if (nowMs - betterSinceMs >= recoveryMs) {
+                    tierIndex--;
+                    betterSinceMs = nowMs; // the next step up waits a full period again
+                }
+            } else {
+                betterSinceMs = -1;
+            }
+            to = tierIndex;
+            if (to != from) changes++;
+        }
+        Tier tier = tiers.get(to);
+        Listener l = listener;
+        if (to != from && l != null) l.onTierChanged(from, to, tier, conditions);
+        return tier;
+    }
+
+    static int thermalTier(int status) {
+        return Math.max(0, Math.min(status, PowerStateProvider.THERMAL_CRITICAL) - 1);
+    }
+
+    private int batteryTier(int percent, boolean charging, int current) {
+        if (charging || percent < 0) return 0;
+        if (percent <= criticalBatteryPercent + (current >= 2 ? BATTERY_HYSTERESIS_PERCENT : 0)) return 2;
+        if (percent <= lowBatteryPercent + (current >= 1 ? BATTERY_HYSTERESIS_PERCENT : 0)) return 1;
+        return 0;
+    }
+
+    private static String thermalName(int status) {
+        return status >= 0 && status < THERMAL_NAMES.length ? THERMAL_NAMES[status] : String.valueOf(status);
+    }
+
+    public synchronized int getTierIndex() { return tierIndex; }
+    public synchronized Tier getTier() { return tiers.get(tierIndex); }
+    public synchronized long getChanges() { return changes; }
+
+    public synchronized String toJson() {
+        return String.format(Locale.US, "{\"tier\":%d,\"name\":\"%s\",\"changes\":%d,\"conditions\":\"%s\"}",
+                tierIndex, tiers.get(tierIndex).name, changes, lastConditions);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "tier=%d (%s) changes=%d %s",
+                tierIndex, tiers.get(tierIndex), changes, lastConditions);
+    }
+}
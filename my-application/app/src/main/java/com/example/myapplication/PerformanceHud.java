@@ -0,0 +1,90 @@
+package com.example.myapplication;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Text for the on-head performance overlay, built from a {@link MetricsRegistry}.
+ *
+ * Rates and percentiles cover only the interval since the previous refresh, so the overlay
+ * shows what is happening now rather than averages since launch. {@link #render} returns null
+ * when called again within {@code minIntervalMs}: the overlay's own cost stays bounded however
+ * often it is asked to refresh.
+ */
+public final class PerformanceHud {
+
+    // Metrics the overlay reads; MainActivity feeds them
+    public static final String FRAMES_UPLOADED = "frames_uploaded";
+    public static final String UPLOADS_IN_FLIGHT = "uploads_in_flight";
+    public static final String UPLOAD_RTT = "upload_rtt";
+    public static final String CUE_LATENCY = "cue_latency";   // frame capture -> cue audio start
+    static final String ENCODE = "capture_to_encode";          // FrameTracer
+    static final String SERVER = "upload_to_instruction";      // FrameTracer
+
+    private static final String[][] ROWS = {
+            { "enc", ENCODE }, { "rtt", UPLOAD_RTT }, { "srv", SERVER }, { "cue", CUE_LATENCY },
+    };
+
+    private final MetricsRegistry registry;
+    private final Clock clock;
+    private final long minIntervalMs;
+    private final Map<String, long[]> lastCounts = new HashMap<>();
+    private final long[] scratch = new long[LatencyHistogram.bucketCount()];
+    private long lastRenderMs = Long.MIN_VALUE / 2;
+    private long lastFrames = 0;
+
+    public PerformanceHud(MetricsRegistry registry, Clock clock, long minIntervalMs) {
+        this.registry = registry;
+        this.clock = clock;
+        this.minIntervalMs = minIntervalMs;
+    }
+
+    /** Marks the start of a fresh interval, e.g. when the overlay is shown; nothing is rendered. */
+    public synchronized void reset() {
+        lastRenderMs = clock.nowMs();
+        lastFrames = registry.get(FRAMES_UPLOADED);
+        for (String[] row : ROWS) window(row[1]);
+    }
+
+    /** Overlay text for the interval since the last call, or null if that was under {@code minIntervalMs} ago. */
+    public synchronized String render() {
+        long now = clock.nowMs();
+        long elapsedMs = now - lastRenderMs;
+        if (elapsedMs < minIntervalMs) return null;
+        lastRenderMs = now;
+
+        long frames = registry.get(FRAMES_UPLOADED);
+        double fps = (frames - lastFrames) * 1000.0 / elapsedMs;
+        lastFrames = frames;
+
+        StringBuilder sb = new StringBuilder(String.format(Locale.US, "%4.1f fps  %d in flight",
+                fps, registry.get(UPLOADS_IN_FLIGHT)));
+        for (String[] row : ROWS) {
+            sb.append('\n').append(row[0]);
+            if (window(row[1])) {
+                sb.append(String.format(Locale.US, " p50 %d p95 %d ms",
+                        LatencyHistogram.percentileMs(scratch, 50), LatencyHistogram.percentileMs(scratch, 95)));
+            } else {
+                sb.append(" -");
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Puts the histogram's samples since the last window into {@link #scratch}; false if there were none. */
+    private boolean window(String name) {
+        LatencyHistogram h = registry.findHistogram(name);
+        if (h == null) return false;
+        long[] last = lastCounts.computeIfAbsent(name, n -> new long[scratch.length]);
+        h.copyCounts(scratch);
+        boolean any = false;
+        for (int i = 0; i < scratch.length; i++) {
+            long now = scratch[i];
+            scratch[i] = now - last[i];
+            last[i] = now;
+            any |= scratch[i] > 0;
+        }
+        return any;
+    }
+}
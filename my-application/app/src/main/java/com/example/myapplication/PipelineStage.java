@@ -0,0 +1,160 @@
+package com.example.myapplication;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * One stage of the frame pipeline: a bounded hand-off queue drained by a dedicated thread.
+ *
+ * The queue is a fixed ring so offering an item does not allocate. When it is full the
+ * stage applies its {@link DropPolicy}; every item that does not reach the handler is passed
+ * to the drop callback so pooled buffers can be returned.
+ */
+public final class PipelineStage<T> {
+
+    public interface Handler<T> {
+        void handle(T item) throws Exception;
+    }
+
+    private final DropPolicy policy;
+    private final Handler<T> handler;
+    private final Consumer<? super T> onDrop;
+    private final StageStats stats;
+
+    private final Object[] items;
+    private final long[] enqueuedAt;
+    private int head = 0;
+    private int size = 0;
+    private boolean running = true;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final ExecutorService executor;
+
+    public PipelineStage(String name, int capacity, DropPolicy policy, Handler<T> handler) {
+        this(name, capacity, policy, handler, item -> {});
+    }
+
+    public PipelineStage(String name, int capacity, DropPolicy policy, Handler<T> handler,
+                         Consumer<? super T> onDrop) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1");
+        this.policy = policy;
+        this.handler = handler;
+        this.onDrop = onDrop;
+        this.stats = new StageStats(name);
+        this.items = new Object[capacity];
+        this.enqueuedAt = new long[capacity];
+        this.executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "pipeline-" + name));
+        executor.execute(this::drain);
+    }
+
+    public StageStats getStats() { return stats; }
+
+    /**
+     * Hands an item to the stage.
+     *
+     * @return false if the item was rejected (DROP_NEWEST, interrupted while blocking, or shut down)
+     */
+    public boolean offer(T item) {
+        stats.onSubmitted();
+        T evicted = null;
+        boolean accepted = false;
+        lock.lock();
+        try {
+            if (size == items.length && running) {
+                switch (policy) {
+                    case DROP_OLDEST:
+                        evicted = removeHead();
+                        stats.onDropped();
+                        break;
+                    case DROP_NEWEST:
+                        stats.onDropped();
+                        return false;
+                    case BLOCK:
+                        while (size == items.length && running) notFull.await();
+                        break;
+                }
+            }
+            if (!running) {
+                stats.onDropped();
+                return false;
+            }
+            int tail = (head + size) % items.length;
+            items[tail] = item;
+            enqueuedAt[tail] = System.nanoTime();
+            size++;
+            stats.setDepth(size);
+            notEmpty.signal();
+            accepted = true;
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stats.onDropped();
+            return false;
+        } finally {
+            lock.unlock();
+            if (evicted != null) onDrop.accept(evicted);
+            if (!accepted) onDrop.accept(item);
+        }
+    }
+
+    /** Stops the worker; anything still queued is discarded. */
+    public void shutdown() {
+        lock.lock();
+        try {
+            running = false;
+            while (size > 0) {
+                onDrop.accept(removeHead());
+                stats.onDropped();
+            }
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        executor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T removeHead() {
+        T item = (T) items[head];
+        items[head] = null;
+        head = (head + 1) % items.length;
+        size--;
+        stats.setDepth(size);
+        return item;
+    }
+
+    private void drain() {
+        while (true) {
+            T item;
+            long queuedAt;
+            lock.lock();
+            try {
+                while (size == 0 && running) notEmpty.await();
+                if (!running) return;
+                queuedAt = enqueuedAt[head];
+                item = removeHead();
+                notFull.signal();
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            long start = System.nanoTime();
+            stats.onDequeued(start - queuedAt);
+            boolean ok = true;
+            try {
+                handler.handle(item);
+            } catch (Exception e) {
+                ok = false;
+            }
+            stats.onProcessed(System.nanoTime() - start, ok);
+        }
+    }
+}
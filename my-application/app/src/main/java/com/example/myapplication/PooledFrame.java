@@ -0,0 +1,77 @@
+package com.example.myapplication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+
+/**
+ * A frame's plane buffer and payload stream, borrowed from a {@link FrameBufferPool}.
+ *
+ * The same instance carries the frame from capture through upload; {@link #close()} hands
+ * both buffers back to the pool once the frame is uploaded or dropped.
+ */
+public final class PooledFrame implements Closeable {
+
+    /** ByteArrayOutputStream whose backing array can be read without copying. */
+    static final class PayloadStream extends ByteArrayOutputStream {
+        PayloadStream(int size) { super(size); }
+        byte[] buffer() { return buf; }
+    }
+
+    public final int width;
+    public final int height;
+    public final FrameFormat format;
+    public final byte[] planes;
+
+    final PayloadStream stream;
+    private final FrameBufferPool pool;
+    boolean inPool;
+
+    /** Per-pipeline sequence number, increasing by one per captured frame. */
+    public int seq;
+    /** Camera sensor timestamp. */
+    public long captureNanos;
+    /** {@link System#nanoTime()} when the pipeline copied the frame; used for frame age. */
+    public long startNanos;
+    /** {@link System#nanoTime()} when encoding finished. */
+    public long encodedNanos;
+    /** Where the payload sits in the upright camera frame; see {@link PayloadMode}. */
+    public int sourceWidth;
+    public int sourceHeight;
+    public int roiX;
+    public int roiY;
+    public int scale = 1;
+    private byte[] payload;
+    private int payloadLength;
+
+    PooledFrame(FrameBufferPool pool, int width, int height, FrameFormat format) {
+        this.pool = pool;
+        this.width = width;
+        this.height = height;
+        this.format = format;
+        this.planes = new byte[format.planeBytes(width, height)];
+        this.stream = new PayloadStream(format == FrameFormat.LUMA ? 0 : planes.length / 8);
+    }
+
+    /** Records the region {@code mode} cuts out of a {@code sourceWidth x sourceHeight} frame. */
+    public void setRegion(PayloadMode mode, int sourceWidth, int sourceHeight) {
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+        this.roiX = mode.cropX(sourceWidth);
+        this.roiY = mode.cropY(sourceHeight);
+        this.scale = mode.scale;
+    }
+
+    void setPayload(byte[] payload, int length) {
+        this.payload = payload;
+        this.payloadLength = length;
+    }
+
+    /** Upload bytes; only the first {@link #payloadLength()} are valid. */
+    public byte[] payload() { return payload; }
+    public int payloadLength() { return payloadLength; }
+
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+}
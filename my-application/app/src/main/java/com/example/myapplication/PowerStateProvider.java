@@ -0,0 +1,25 @@
+package com.example.myapplication;
+
+/**
+ * Device conditions the {@link PerformanceGovernor} reacts to; injectable so the governor can
+ * be tested with a fake.
+ */
+public interface PowerStateProvider {
+
+    // Same values as PowerManager.THERMAL_STATUS_*
+    int THERMAL_NONE = 0;
+    int THERMAL_LIGHT = 1;
+    int THERMAL_MODERATE = 2;
+    int THERMAL_SEVERE = 3;
+    int THERMAL_CRITICAL = 4;
+    int THERMAL_EMERGENCY = 5;
+    int THERMAL_SHUTDOWN = 6;
+
+    /** One of the {@code THERMAL_*} values. */
+    int thermalStatus();
+
+    /** 0..100, or -1 if unknown. */
+    int batteryPercent();
+
+    boolean isCharging();
+}
@@ -0,0 +1,277 @@
+package com.example.myapplication;
+
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Several interchangeable inference servers behind one interface.
+ *
+ * Health comes from two places: background probes of {@code GET /stt_audio} on every endpoint,
+ * and the outcome of real requests ({@link Lease#close}), which mark an endpoint down after
+ * {@link #FAILURES_TO_EJECT} failures in a row. A probe success brings it back.
+ *
+ * Per-request traffic goes to the healthy endpoint with the fewest outstanding requests or the
+ * lowest latency EWMA. The socket instead sticks to a {@link #primary()} endpoint and only
+ * moves when that one goes down, reported through {@link Listener#onPrimaryChanged}.
+ */
+public final class ServerPool {
+
+    public enum Strategy { LEAST_OUTSTANDING, LOWEST_LATENCY }
+
+    public interface Listener {
+        /** Called on the thread that noticed. While nothing is healthy the primary stays put. */
+        void onPrimaryChanged(Endpoint from, Endpoint to);
+    }
+
+    static final int FAILURES_TO_EJECT = 2;
+    private static final double EWMA_ALPHA = 0.3;
+
+    public static final class Endpoint {
+        public final String baseUrl;
+
+        // guarded by the pool
+        private boolean healthy = true;   // optimistic until the first probe says otherwise
+        private int outstanding = 0;
+        private int consecutiveFailures = 0;
+        private double latencyEwmaMs = -1;
+        private long requests = 0;
+        private long failures = 0;
+
+        Endpoint(String baseUrl) {
+            this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        }
+
+        public String url(String path) { return baseUrl + path; }
+
+        @Override
+        public String toString() { return baseUrl; }
+    }
+
+    /** One request against an endpoint; close it exactly once with the outcome. */
+    public final class Lease {
+        public final Endpoint endpoint;
+        private final long startNanos = System.nanoTime();
+        private boolean closed = false;
+
+        Lease(Endpoint endpoint) { this.endpoint = endpoint; }
+
+        public void close(boolean ok) {
+            synchronized (ServerPool.this) {
+                if (closed) return;
+                closed = true;
+                endpoint.outstanding--;
+            }
+            record(endpoint, ok, (System.nanoTime() - startNanos) / 1e6);
+        }
+    }
+
+    private final OkHttpClient client;
+    private final List<Endpoint> endpoints;
+    private final Strategy strategy;
+    private final String probePath;
+    private final ScheduledExecutorService prober =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "server-probe"));
+    private volatile Listener listener;
+    private Endpoint primary;
+
+    /**
+     * @param probeClient client used for health probes; give it short timeouts
+     * @param probePath   status route every server answers, e.g. {@code /stt_audio}
+     */
+    public ServerPool(OkHttpClient probeClient, List<String> baseUrls, Strategy strategy, String probePath) {
+        if (baseUrls.isEmpty()) throw new IllegalArgumentException("no servers");
+        this.client = probeClient;
+        List<Endpoint> list = new ArrayList<>();
+        for (String url : baseUrls) list.add(new Endpoint(url));
+        this.endpoints = Collections.unmodifiableList(list);
+        this.strategy = strategy;
+        this.probePath = probePath;
+        this.primary = endpoints.get(0);
+    }
+
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    public List<Endpoint> getEndpoints() { return endpoints; }
+
+    public void start(long probeIntervalMs) {
+        start(0, probeIntervalMs);
+    }
+
+    /** As {@link #start(long)}, for callers that already probed, e.g. through {@link #warmUp}. */
+    public void start(long initialDelayMs, long probeIntervalMs) {
+        prober.scheduleWithFixedDelay(this::probeAll, initialDelayMs, probeIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Resolves every endpoint's host and probes it once, on the calling thread. The probe client
+     * shares its connection pool with the clients derived from the same OkHttpClient, so the
+     * first real request finds a cached address and an open connection instead of paying for
+     * DNS, TCP and keep-alive setup itself.
+     *
+     * @return hosts that did not resolve; their endpoints are also marked down by the probe
+     */
+    public List<String> warmUp() {
+        List<String> unresolved = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            HttpUrl url = HttpUrl.parse(endpoint.baseUrl);
+            if (url == null) continue;
+            try {
+                client.dns().lookup(url.host());
+            } catch (UnknownHostException e) {
+                unresolved.add(url.host());
+            }
+        }
+        probeAll();
+        return unresolved;
+    }
+
+    public void shutdown() {
+        prober.shutdownNow();
+    }
+
+    /** Probes every endpoint once, in order. Runs on the probe thread, or directly in tests. */
+    public void probeAll() {
+        for (Endpoint endpoint : endpoints) {
+            long start = System.nanoTime();
+            boolean ok;
+            try (Response response = client.newCall(new Request.Builder().url(endpoint.url(probePath)).build()).execute()) {
+                ok = response.isSuccessful();
+            } catch (IOException e) {
+                ok = false;
+            }
+            double ms = (System.nanoTime() - start) / 1e6;
+            Endpoint from = null;
+            Endpoint to = null;
+            synchronized (this) {
+                endpoint.healthy = ok;
+                if (ok) {
+                    endpoint.consecutiveFailures = 0;
+                    updateEwma(endpoint, ms);
+                }
+                Endpoint before = primary;
+                if (updatePrimary()) {
+                    from = before;
+                    to = primary;
+                }
+            }
+            notifyPrimary(from, to);
+        }
+    }
+
+    /**
+     * Picks an endpoint for one request and counts it as outstanding until the lease is closed.
+     *
+     * @param avoid endpoint that just failed this request, or null
+     * @return null only if {@code avoid} is the sole endpoint
+     */
+    public synchronized Lease acquire(Endpoint avoid) {
+        Endpoint best = null;
+        for (Endpoint e : endpoints) {
+            if (!e.healthy || e == avoid) continue;
+            if (best == null || better(e, best)) best = e;
+        }
+        if (best == null) {
+            // nothing healthy: still try the one with the fewest failures in a row
+            for (Endpoint e : endpoints) {
+                if (e == avoid) continue;
+                if (best == null || e.consecutiveFailures < best.consecutiveFailures) best = e;
+            }
+        }
+        if (best == null) return null;
+        best.outstanding++;
+        best.requests++;
+        return new Lease(best);
+    }
+
+    /** Counts one request against a fixed endpoint, e.g. a frame sent over the primary's socket. */
+    public synchronized Lease leaseOn(Endpoint endpoint) {
+        endpoint.outstanding++;
+        endpoint.requests++;
+        return new Lease(endpoint);
+    }
+
+    /** Endpoint the socket should be connected to; sticky while it stays healthy. */
+    public synchronized Endpoint primary() { return primary; }
+
+    public synchronized boolean anyHealthy() {
+        for (Endpoint e : endpoints) if (e.healthy) return true;
+        return false;
+    }
+
+    public synchronized boolean isHealthy(Endpoint endpoint) { return endpoint.healthy; }
+    public synchronized int getOutstanding(Endpoint endpoint) { return endpoint.outstanding; }
+    public synchronized double getLatencyEwmaMs(Endpoint endpoint) { return endpoint.latencyEwmaMs; }
+
+    private boolean better(Endpoint a, Endpoint b) {
+        if (strategy == Strategy.LEAST_OUTSTANDING && a.outstanding != b.outstanding) {
+            return a.outstanding < b.outstanding;
+        }
+        // unknown latency sorts first so a new endpoint gets measured
+        return a.latencyEwmaMs < b.latencyEwmaMs;
+    }
+
+    private void record(Endpoint endpoint, boolean ok, double ms) {
+        Endpoint from = null;
+        Endpoint to = null;
+        synchronized (this) {
+            if (ok) {
+                endpoint.consecutiveFailures = 0;
+                updateEwma(endpoint, ms);
+            } else {
+                endpoint.failures++;
+                if (++endpoint.consecutiveFailures >= FAILURES_TO_EJECT) endpoint.healthy = false;
+            }
+            Endpoint before = primary;
+            if (updatePrimary()) {
+                from = before;
+                to = primary;
+            }
+        }
+        notifyPrimary(from, to);
+    }
+
+    private static void updateEwma(Endpoint endpoint, double ms) {
+        endpoint.latencyEwmaMs = endpoint.latencyEwmaMs < 0 ? ms
+                : endpoint.latencyEwmaMs + EWMA_ALPHA * (ms - endpoint.latencyEwmaMs);
+    }
+
+    /** Moves the primary off an unhealthy endpoint to the fastest healthy one; true if it moved. */
+    private boolean updatePrimary() {
+        if (primary.healthy) return false;
+        Endpoint next = null;
+        for (Endpoint e : endpoints) {
+            if (e.healthy && (next == null || e.latencyEwmaMs < next.latencyEwmaMs)) next = e;
+        }
+        if (next == null) return false;
+        primary = next;
+        return true;
+    }
+
+    private void notifyPrimary(Endpoint from, Endpoint to) {
+        Listener l = listener;
+        if (l != null && to != null) l.onPrimaryChanged(from, to);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("servers");
+        for (Endpoint e : endpoints) {
+            sb.append(String.format(Locale.US, " [%s %s out=%d ewma=%.0fms req=%d fail=%d%s]",
+                    e.baseUrl, e.healthy ? "up" : "down", e.outstanding, e.latencyEwmaMs,
+                    e.requests, e.failures, e == primary ? " primary" : ""));
+        }
+        return sb.toString();
+    }
+}
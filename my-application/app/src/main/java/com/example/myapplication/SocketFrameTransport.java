@@ -0,0 +1,70 @@
+package com.example.myapplication;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.socket.client.Ack;
+import io.socket.client.Socket;
+
+/**
+ * Sends each frame as a single binary {@code frame} event ({@link FrameHeader} + payload) over
+ * the already-open Socket.IO connection and waits for the server's ack, so there is no
+ * per-frame HTTP request, multipart framing or disk write. An ack with {@code ok: false}
+ * (the session is over its backlog) surfaces as {@link FrameRejectedException}.
+ *
+ * A plain IOException means the frame never left (the socket is down), so another transport
+ * may send it. {@link AckTimeoutException} means it left but was not acked in time: the server
+ * most likely has it and is slow, so it must not be sent again.
+ */
+public class SocketFrameTransport implements FrameTransport {
+
+    public static final String EVENT = "frame";
+
+    /** The frame was emitted but not acked in time; it may still be inferred. */
+    public static final class AckTimeoutException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public AckTimeoutException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private final Socket socket;
+    private final long ackTimeoutMs;
+
+    public SocketFrameTransport(Socket socket, long ackTimeoutMs) {
+        this.socket = socket;
+        this.ackTimeoutMs = ackTimeoutMs;
+    }
+
+    public boolean isConnected() {
+        return socket.connected();
+    }
+
+    @Override
+    public void send(PooledFrame frame) throws IOException {
+        if (!socket.connected()) throw new IOException("socket not connected");
+
+        CountDownLatch acked = new CountDownLatch(1);
+        Object[] reply = new Object[1];
+        socket.emit(EVENT, new Object[] { FrameHeader.message(frame) }, (Ack) args -> {
+            if (args.length > 0) reply[0] = args[0];
+            acked.countDown();
+        });
+        try {
+            if (!acked.await(ackTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new AckTimeoutException("no ack for frame " + frame.seq + " in " + ackTimeoutMs + "ms", null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AckTimeoutException("interrupted waiting for ack for frame " + frame.seq, e);
+        }
+        // the latch orders the callback's write before this read
+        if (reply[0] instanceof JSONObject && !((JSONObject) reply[0]).optBoolean("ok", true)) {
+            throw new FrameRejectedException(((JSONObject) reply[0]).optString("error", "rejected"));
+        }
+    }
+}
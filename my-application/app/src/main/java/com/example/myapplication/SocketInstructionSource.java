@@ -0,0 +1,50 @@
+package com.example.myapplication;
+
+import org.json.JSONObject;
+
+import io.socket.client.Socket;
+
+/**
+ * The server's cues: {@code instruction} events {"code", "frame_id"} on the Socket.IO link.
+ *
+ * The frame id is matched in the {@link FrameTracer}, which both records the upload-to-cue
+ * latency and tells when that frame was captured, so the cue's age is judged by its frame.
+ */
+public final class SocketInstructionSource implements InstructionSource {
+
+    private final FrameTracer tracer;
+    private final MetricsRegistry.Counter received;
+    private volatile Sink sink;
+
+    public SocketInstructionSource(FrameTracer tracer, MetricsRegistry.Counter received) {
+        this.tracer = tracer;
+        this.received = received;
+    }
+
+    @Override
+    public String name() { return "server"; }
+
+    @Override
+    public void setSink(Sink sink) { this.sink = sink; }
+
+    /** Listens on {@code socket}; call again for the new socket after a failover. */
+    public void attach(Socket socket) {
+        socket.on("instruction", this::onEvent);
+    }
+
+    // Socket thread
+    private void onEvent(Object... args) {
+        if (args.length == 0 || !(args[0] instanceof JSONObject)) return;
+        long receivedNanos = System.nanoTime();
+        received.inc();
+        JSONObject obj = (JSONObject) args[0];
+        Instruction instruction = Instruction.fromCode(obj.optString("code", ""));
+        long frameId = obj.optLong("frame_id", -1);
+        tracer.onInstruction(frameId, receivedNanos);
+
+        long frameStartNanos = tracer.capturedAtNanos(frameId);
+        long frameAtMs = (frameStartNanos > 0 ? frameStartNanos : receivedNanos) / 1_000_000;
+        Sink s = sink;
+        if (s != null) s.onInstruction(this, instruction, frameAtMs);
+    }
+}
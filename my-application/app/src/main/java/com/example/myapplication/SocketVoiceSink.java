@@ -0,0 +1,53 @@
+package com.example.myapplication;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import io.socket.client.Socket;
+
+/**
+ * Sends an utterance as {@code voice_start}, binary {@code voice_chunk}s and {@code voice_end}
+ * over the Socket.IO connection. Socket.IO keeps the events in order, so chunks are not acked;
+ * the server answers with {@code transcript} events for the stream id.
+ */
+public class SocketVoiceSink implements VoiceStreamer.Sink {
+
+    private final Socket socket;
+
+    public SocketVoiceSink(Socket socket) {
+        this.socket = socket;
+    }
+
+    @Override
+    public void onStart(int streamId, int sampleRate) throws IOException {
+        if (!socket.connected()) throw new IOException("socket not connected");
+        try {
+            socket.emit("voice_start", new JSONObject()
+                    .put("id", streamId)
+                    .put("sample_rate", sampleRate)
+                    .put("encoding", "pcm_s16le"));
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void onChunk(int streamId, int seq, byte[] pcm, int len) throws IOException {
+        if (!socket.connected()) throw new IOException("socket not connected");
+        // the chunk buffer is reused by the sender, and emit() serializes later on the socket thread
+        socket.emit("voice_chunk", streamId, seq, Arrays.copyOf(pcm, len));
+    }
+
+    @Override
+    public void onEnd(int streamId, int chunks) throws IOException {
+        if (!socket.connected()) throw new IOException("socket not connected");
+        try {
+            socket.emit("voice_end", new JSONObject().put("id", streamId).put("chunks", chunks));
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+    }
+}
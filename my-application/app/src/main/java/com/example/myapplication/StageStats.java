@@ -0,0 +1,67 @@
+package com.example.myapplication;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue depth and latency counters for one pipeline stage. Safe to read from any thread.
+ */
+public final class StageStats {
+
+    private final String name;
+
+    private volatile int depth;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong serviceNanos = new AtomicLong();
+    private final AtomicLong maxServiceNanos = new AtomicLong();
+
+    public StageStats(String name) {
+        this.name = name;
+    }
+
+    void setDepth(int depth) { this.depth = depth; }
+    void onSubmitted() { submitted.incrementAndGet(); }
+    void onDropped() { dropped.incrementAndGet(); }
+    void onDequeued(long waitNs) { waitNanos.addAndGet(waitNs); }
+
+    void onProcessed(long serviceNs, boolean ok) {
+        if (ok) processed.incrementAndGet(); else failed.incrementAndGet();
+        serviceNanos.addAndGet(serviceNs);
+        long max;
+        while (serviceNs > (max = maxServiceNanos.get())) {
+            if (maxServiceNanos.compareAndSet(max, serviceNs)) break;
+        }
+    }
+
+    public String getName() { return name; }
+    public int getDepth() { return depth; }
+    public long getSubmitted() { return submitted.get(); }
+    public long getDropped() { return dropped.get(); }
+    public long getProcessed() { return processed.get(); }
+    public long getFailed() { return failed.get(); }
+
+    /** Mean time an item sat in the hand-off queue, in milliseconds. */
+    public double getMeanWaitMs() {
+        long n = processed.get() + failed.get();
+        return n == 0 ? 0 : waitNanos.get() / 1e6 / n;
+    }
+
+    /** Mean time the stage spent handling an item, in milliseconds. */
+    public double getMeanServiceMs() {
+        long n = processed.get() + failed.get();
+        return n == 0 ? 0 : serviceNanos.get() / 1e6 / n;
+    }
+
+    public double getMaxServiceMs() { return maxServiceNanos.get() / 1e6; }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s depth=%d in=%d out=%d drop=%d fail=%d wait=%.1fms svc=%.1fms max=%.1fms",
+                name, depth, getSubmitted(), getProcessed(), getDropped(), getFailed(),
+                getMeanWaitMs(), getMeanServiceMs(), getMaxServiceMs());
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.myapplication;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the app's init tasks as a dependency graph instead of one after another in onCreate.
+ *
+ * Each task names the tasks it needs and the executor it runs on (the main thread for UI and
+ * camera binding, a background pool for disk and network). A task is dispatched as soon as all
+ * of its dependencies have finished, so independent tasks overlap. A task that throws is
+ * recorded and the tasks that depend on it are skipped; unrelated tasks still run.
+ *
+ * Every task's queue, start and end times are kept relative to the orchestrator's creation, as
+ * are named milestones such as the first cue played, for {@link #toJson}.
+ */
+public final class StartupOrchestrator {
+
+    public interface Listener {
+        /** Called once, on the thread that finished the last task. */
+        void onFinished(StartupOrchestrator startup);
+    }
+
+    enum State { WAITING, QUEUED, RUNNING, DONE, FAILED, SKIPPED }
+
+    private static final class Task {
+        final String name;
+        final Executor executor;
+        final Runnable body;
+        final List<String> dependsOn;
+        final List<Task> dependents = new ArrayList<>();
+        int pending;                 // unfinished dependencies
+        State state = State.WAITING;
+        long queuedMs = -1;
+        long startMs = -1;
+        long endMs = -1;
+        String thread;
+        Throwable error;
+
+        Task(String name, Executor executor, Runnable body, List<String> dependsOn) {
+            this.name = name;
+            this.executor = executor;
+            this.body = body;
+            this.dependsOn = dependsOn;
+        }
+    }
+
+    private final Clock clock;
+    private final long originMs;
+    private final Map<String, Task> tasks = new LinkedHashMap<>();
+    private final Map<String, Long> milestones = new LinkedHashMap<>();
+    private volatile Listener listener;
+    private boolean started = false;
+    private boolean cancelled = false;
+    private int unfinished;
+    private long finishedMs = -1;
+
+    public StartupOrchestrator(Clock clock) {
+        this.clock = clock;
+        this.originMs = clock.nowMs();
+    }
+
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    /** Adds a task; dependencies may be added later, but all must exist by {@link #start}. */
+    public synchronized StartupOrchestrator task(String name, Executor executor, Runnable body, String... dependsOn) {
+        if (started) throw new IllegalStateException("already started");
+        if (tasks.containsKey(name)) throw new IllegalArgumentException("duplicate task " + name);
+        tasks.put(name, new Task(name, executor, body, Arrays.asList(dependsOn)));
+        return this;
+    }
+
+    /**
+     * Checks the graph and dispatches every task without dependencies.
+     *
+     * @throws IllegalArgumentException on an unknown dependency or a cycle; nothing runs then
+     */
+    public void start() {
+        List<Task> ready = new ArrayList<>();
+        synchronized (this) {
+            if (started) throw new IllegalStateException("already started");
+            order(); // validates
+            if (cancelled) return;
+            for (Task t : tasks.values()) {
+                t.pending = t.dependsOn.size();
+                for (String dep : t.dependsOn) tasks.get(dep).dependents.add(t);
+            }
+            started = true;
+            unfinished = tasks.size();
+            for (Task t : tasks.values()) {
+                if (t.pending == 0) ready.add(queue(t));
+            }
+        }
+        if (tasks.isEmpty()) finish();
+        for (Task t : ready) dispatch(t);
+    }
+
+    /** Tasks not yet dispatched are skipped; running ones finish normally. */
+    public void cancel() {
+        boolean last;
+        synchronized (this) {
+            if (cancelled) return;
+            cancelled = true;
+            if (!started) return;
+            for (Task t : tasks.values()) {
+                if (t.state == State.WAITING) {
+                    t.state = State.SKIPPED;
+                    unfinished--;
+                }
+            }
+            last = unfinished == 0 && finishedMs < 0;
+        }
+        if (last) finish();
+    }
+
+    /** Task names in an order that respects every dependency, ties in insertion order. */
+    public synchronized List<String> order() {
+        Map<String, Integer> pending = new LinkedHashMap<>();
+        for (Task t : tasks.values()) {
+            for (String dep : t.dependsOn) {
+                if (!tasks.containsKey(dep)) {
+                    throw new IllegalArgumentException(t.name + " depends on unknown task " + dep);
+                }
+            }
+            pending.put(t.name, t.dependsOn.size());
+        }
+        List<String> order = new ArrayList<>();
+        while (order.size() < tasks.size()) {
+            String next = null;
+            for (Map.Entry<String, Integer> e : pending.entrySet()) {
+                if (e.getValue() == 0) {
+                    next = e.getKey();
+                    break;
+                }
+            }
+            if (next == null) throw new IllegalArgumentException("dependency cycle among " + pending.keySet());
+            pending.remove(next);
+            order.add(next);
+            for (Task t : tasks.values()) {
+                if (pending.containsKey(t.name)) {
+                    for (String dep : t.dependsOn) {
+                        if (dep.equals(next)) pending.put(t.name, pending.get(t.name) - 1);
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    /** Records the first time {@code name} happened, e.g. the first cue played. Later calls are ignored. */
+    public synchronized void milestone(String name) {
+        if (!milestones.containsKey(name)) milestones.put(name, elapsedMs());
+    }
+
+    public synchronized State getState(String name) {
+        Task t = tasks.get(name);
+        if (t == null) throw new IllegalArgumentException("no task " + name);
+        return t.state;
+    }
+
+    public synchronized boolean isFinished() { return finishedMs >= 0; }
+
+    /** From creation until the last task finished, or -1 while tasks are outstanding. */
+    public synchronized long getTotalMs() { return finishedMs; }
+
+    private Task queue(Task t) {
+        t.state = State.QUEUED;
+        t.queuedMs = elapsedMs();
+        return t;
+    }
+
+    private void dispatch(Task t) {
+        try {
+            t.executor.execute(() -> run(t));
+        } catch (RuntimeException e) { // executor shut down
+            completed(t, e);
+        }
+    }
+
+    private void run(Task t) {
+        synchronized (this) {
+            t.state = State.RUNNING;
+            t.startMs = elapsedMs();
+            t.thread = Thread.currentThread().getName();
+        }
+        Throwable error = null;
+        try {
+            t.body.run();
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        completed(t, error);
+    }
+
+    private void completed(Task t, Throwable error) {
+        List<Task> ready = new ArrayList<>();
+        boolean last;
+        synchronized (this) {
+            t.endMs = elapsedMs();
+            if (t.startMs < 0) t.startMs = t.endMs;
+            t.error = error;
+            t.state = error == null ? State.DONE : State.FAILED;
+            unfinished--;
+            if (error == null) {
+                for (Task d : t.dependents) {
+                    if (--d.pending == 0 && d.state == State.WAITING) ready.add(queue(d));
+                }
+            } else {
+                skipDependents(t);
+            }
+            last = unfinished == 0 && finishedMs < 0;
+        }
+        for (Task d : ready) dispatch(d);
+        if (last) finish();
+    }
+
+    private void skipDependents(Task t) {
+        for (Task d : t.dependents) {
+            if (d.state == State.WAITING) {
+                d.state = State.SKIPPED;
+                unfinished--;
+                skipDependents(d);
+            }
+        }
+    }
+
+    private void finish() {
+        synchronized (this) {
+            finishedMs = elapsedMs();
+        }
+        Listener l = listener;
+        if (l != null) l.onFinished(this);
+    }
+
+    private long elapsedMs() {
+        return clock.nowMs() - originMs;
+    }
+
+    /**
+     * {@code {"total_ms", "milestones": {...}, "tasks": [{"name", "deps", "state", "thread",
+     * "queued_ms", "start_ms", "end_ms", "error"?}]}}, tasks in dependency order.
+     */
+    public synchronized String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "{\"total_ms\":%d,\"milestones\":{", finishedMs));
+        String sep = "";
+        for (Map.Entry<String, Long> m : milestones.entrySet()) {
+            sb.append(sep).append('"').append(m.getKey()).append("\":").append(m.getValue());
+            sep = ",";
+        }
+        sb.append("},\"tasks\":[");
+        sep = "";
+        for (String name : order()) {
+            Task t = tasks.get(name);
+            sb.append(sep).append(String.format(Locale.US,
+                    "{\"name\":\"%s\",\"deps\":%s,\"state\":\"%s\",\"thread\":%s,\"queued_ms\":%d,\"start_ms\":%d,\"end_ms\":%d",
+                    t.name, jsonNames(t.dependsOn), t.state.name().toLowerCase(Locale.US),
+                    t.thread == null ? "null" : "\"" + t.thread + "\"", t.queuedMs, t.startMs, t.endMs));
+            if (t.error != null) sb.append(",\"error\":\"").append(jsonEscape(String.valueOf(t.error))).append('"');
+            sb.append('}');
+            sep = ",";
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static String jsonNames(List<String> names) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append('"').append(names.get(i)).append('"');
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String jsonEscape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", " ");
+    }
+
+    /** One line per task: {@code name start..end ms (thread)}, in dependency order. */
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder(String.format(Locale.US, "startup %d ms", finishedMs));
+        for (String name : order()) {
+            Task t = tasks.get(name);
+            sb.append(String.format(Locale.US, "\n  %-10s %5d..%5d ms %s%s", t.name, t.startMs, t.endMs,
+                    t.state == State.DONE ? "" : t.state.name().toLowerCase(Locale.US) + " ",
+                    t.thread == null ? "" : "(" + t.thread + ")"));
+        }
+        for (Map.Entry<String, Long> m : milestones.entrySet()) {
+            sb.append(String.format(Locale.US, "\n  %-10s %5d ms", m.getKey(), m.getValue()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.myapplication;
+
+/**
+ * Energy-based voice activity detector for 16-bit mono PCM, one fixed-size frame at a time.
+ *
+ * A frame is speech when its level is {@code thresholdDb} above the noise floor and above an
+ * absolute minimum. The noise floor is the quietest frame of the last {@code floorWindowMs}:
+ * speech always has dips between syllables, so the floor keeps tracking the room even while
+ * the user talks, and it follows a louder room within one window.
+ *
+ * Not thread-safe; one detector per utterance.
+ */
+public final class VoiceActivityDetector {
+
+    private static final double SILENCE_DB = -100;
+
+    private final int sampleRate;
+    private final int frameMs;
+    private final int frameBytes;
+    private final double thresholdDb;
+    private final double minSpeechDb;
+    private final double[] recentLevels;
+    private int recentCount = 0;
+    private int recentNext = 0;
+    private double lastLevelDb = SILENCE_DB;
+    private double noiseFloorDb = SILENCE_DB;
+
+    /**
+     * @param thresholdDb   how far above the noise floor speech must be
+     * @param minSpeechDb   absolute level (dBFS) below which nothing counts as speech
+     * @param floorWindowMs history the noise floor is taken from
+     */
+    public VoiceActivityDetector(int sampleRate, int frameMs, double thresholdDb, double minSpeechDb, int floorWindowMs) {
+        this.sampleRate = sampleRate;
+        this.frameMs = frameMs;
+        this.frameBytes = sampleRate * frameMs / 1000 * 2;
+        this.thresholdDb = thresholdDb;
+        this.minSpeechDb = minSpeechDb;
+        this.recentLevels = new double[Math.max(1, floorWindowMs / frameMs)];
+    }
+
+    public int getSampleRate() { return sampleRate; }
+    public int getFrameMs() { return frameMs; }
+    public int getFrameBytes() { return frameBytes; }
+    public double getLastLevelDb() { return lastLevelDb; }
+    public double getNoiseFloorDb() { return noiseFloorDb; }
+
+    /** Classifies the {@link #getFrameBytes()} bytes of little-endian PCM at {@code off}. */
+    public boolean isSpeech(byte[] pcm, int off) {
+        double level = levelDb(pcm, off, frameBytes);
+        lastLevelDb = level;
+
+        recentLevels[recentNext] = level;
+        recentNext = (recentNext + 1) % recentLevels.length;
+        if (recentCount < recentLevels.length) recentCount++;
+        double floor = level;
+        for (int i = 0; i < recentCount; i++) floor = Math.min(floor, recentLevels[i]);
+        noiseFloorDb = floor;
+
+        return level >= minSpeechDb && level - floor >= thresholdDb;
+    }
+
+    /** RMS level of s16le samples in dBFS, {@value #SILENCE_DB} for digital silence. */
+    static double levelDb(byte[] pcm, int off, int len) {
+        long sumSquares = 0;
+        int samples = len / 2;
+        for (int i = 0; i < samples; i++) {
+            int s = (short) ((pcm[off + 2 * i] & 0xFF) | (pcm[off + 2 * i + 1] << 8));
+            sumSquares += (long) s * s;
+        }
+        if (sumSquares == 0) return SILENCE_DB;
+        double rms = Math.sqrt((double) sumSquares / samples);
+        return Math.max(SILENCE_DB, 20 * Math.log10(rms / 32768.0));
+    }
+}
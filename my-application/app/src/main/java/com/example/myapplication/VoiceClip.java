@@ -0,0 +1,108 @@
+package com.example.myapplication;
+
+import java.util.Arrays;
+
+/**
+ * One spoken command as raw PCM, with the silence around it marked by a
+ * {@link VoiceActivityDetector}.
+ *
+ * {@link #write} keeps the whole recording and reports when the utterance is over: once
+ * {@code trailingSilenceMs} have passed after the last speech, when nothing was said within
+ * {@code noSpeechTimeoutMs}, or when the clip reaches {@code maxMs}. {@link #trimmed} then
+ * returns the speech plus {@code paddingMs} either side, or null if there was too little speech
+ * to be a command (a cough or a door).
+ */
+public final class VoiceClip {
+
+    /** Speech shorter than this in total is not a command. */
+    static final int MIN_SPEECH_MS = 120;
+
+    private final VoiceActivityDetector vad;
+    private final int frameBytes;
+    private final int paddingFrames;
+    private final int trailingSilenceFrames;
+    private final int noSpeechTimeoutFrames;
+    private final int maxBytes;
+    private final int minSpeechFrames;
+
+    private byte[] pcm;
+    private int length = 0;
+    private int frames = 0;          // frames classified so far
+    private int speechFrames = 0;
+    private int firstSpeechFrame = -1;
+    private int lastSpeechFrame = -1;
+    private boolean complete = false;
+
+    /**
+     * @param paddingMs         kept before the first and after the last speech frame, so soft
+     *                          word edges the detector missed are not cut off
+     * @param trailingSilenceMs silence after speech that ends the utterance
+     */
+    public VoiceClip(VoiceActivityDetector vad, int paddingMs, int trailingSilenceMs, int noSpeechTimeoutMs, int maxMs) {
+        this.vad = vad;
+        this.frameBytes = vad.getFrameBytes();
+        int frameMs = vad.getFrameMs();
+        this.paddingFrames = paddingMs / frameMs;
+        this.trailingSilenceFrames = Math.max(1, trailingSilenceMs / frameMs);
+        this.noSpeechTimeoutFrames = Math.max(1, noSpeechTimeoutMs / frameMs);
+        this.maxBytes = maxMs / frameMs * frameBytes;
+        this.minSpeechFrames = Math.max(1, MIN_SPEECH_MS / frameMs);
+        this.pcm = new byte[Math.min(maxBytes, 1 << 16)];
+    }
+
+    /**
+     * Appends microphone PCM and classifies every whole frame.
+     *
+     * @return true once the utterance is over; later writes are ignored
+     */
+    public boolean write(byte[] buf, int off, int len) {
+        if (complete) return true;
+        len = Math.min(len, maxBytes - length);
+        if (length + len > pcm.length) pcm = Arrays.copyOf(pcm, Math.min(maxBytes, Math.max(length + len, pcm.length * 2)));
+        System.arraycopy(buf, off, pcm, length, len);
+        length += len;
+
+        while ((frames + 1) * frameBytes <= length && !complete) {
+            if (vad.isSpeech(pcm, frames * frameBytes)) {
+                speechFrames++;
+                if (firstSpeechFrame < 0) firstSpeechFrame = frames;
+                lastSpeechFrame = frames;
+            }
+            frames++;
+            complete = hasSpeech()
+                    ? frames - 1 - lastSpeechFrame >= trailingSilenceFrames
+                    : frames >= noSpeechTimeoutFrames;
+        }
+        if (length >= maxBytes) complete = true;
+        return complete;
+    }
+
+    public boolean isComplete() { return complete; }
+
+    /** Enough speech to be worth sending. */
+    public boolean hasSpeech() { return speechFrames >= minSpeechFrames; }
+
+    /** Speech plus padding, or null if {@link #hasSpeech()} is false. */
+    public byte[] trimmed() {
+        return hasSpeech() ? Arrays.copyOfRange(pcm, trimStart(), trimEnd()) : null;
+    }
+
+    private int trimStart() {
+        return Math.max(0, firstSpeechFrame - paddingFrames) * frameBytes;
+    }
+
+    private int trimEnd() {
+        return Math.min(length, (lastSpeechFrame + 1 + paddingFrames) * frameBytes);
+    }
+
+    public int getRawBytes() { return length; }
+    public int getTrimmedBytes() { return hasSpeech() ? trimEnd() - trimStart() : 0; }
+
+    public long getRawMs() { return bytesToMs(getRawBytes()); }
+    public long getTrimmedMs() { return bytesToMs(getTrimmedBytes()); }
+    public int getSpeechMs() { return speechFrames * vad.getFrameMs(); }
+
+    private long bytesToMs(long bytes) {
+        return bytes * 1000 / (2L * vad.getSampleRate());
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.myapplication;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Records one voice command at a time from a {@link VoiceStreamer.PcmSource} into a
+ * {@link VoiceClip}, and hands over the trimmed clip as WAV when the user stops or the clip
+ * ends by itself (trailing silence, no speech, length cap).
+ *
+ * Counts raw and trimmed audio so the saving from trimming can be reported.
+ */
+public final class VoiceClipRecorder {
+
+    public interface Listener {
+        /**
+         * Called on the recording thread once per clip. {@code wav} is null when the clip had
+         * no speech and was dropped.
+         *
+         * @param autoStopped the clip ended by itself rather than by {@link #stop()}
+         */
+        void onClip(byte[] wav, VoiceClip clip, boolean autoStopped);
+    }
+
+    private final int sampleRate;
+    private final Supplier<VoiceClip> newClip;
+    private final Listener listener;
+
+    private AtomicBoolean recording = new AtomicBoolean(false); // per clip, so a late thread can't resume
+
+    private final AtomicLong clips = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong autoStopped = new AtomicLong();
+    private final AtomicLong rawBytes = new AtomicLong();
+    private final AtomicLong trimmedBytes = new AtomicLong();
+
+    public VoiceClipRecorder(int sampleRate, Supplier<VoiceClip> newClip, Listener listener) {
+        this.sampleRate = sampleRate;
+        this.newClip = newClip;
+        this.listener = listener;
+    }
+
+    public synchronized boolean isRecording() { return recording.get(); }
+
+    /** Starts a clip on a new thread; false if one is already being recorded. */
+    public synchronized boolean start(VoiceStreamer.PcmSource source) {
+        if (recording.get()) return false;
+        AtomicBoolean running = new AtomicBoolean(true);
+        recording = running;
+        VoiceClip clip = newClip.get();
+        Thread thread = new Thread(() -> record(source, clip, running), "voice-clip");
+        thread.start();
+        return true;
+    }
+
+    /** Ends the current clip; it is delivered to the listener from the recording thread. */
+    public synchronized void stop() {
+        recording.set(false);
+    }
+
+    private void record(VoiceStreamer.PcmSource source, VoiceClip clip, AtomicBoolean running) {
+        byte[] buf = new byte[2048];
+        boolean ended = false;
+        try {
+            while (running.get() && !ended) {
+                int n = source.read(buf, 0, buf.length);
+                if (n < 0) break;
+                ended = clip.write(buf, 0, n);
+            }
+        } catch (IOException ignored) {
+            // microphone gone; send what was captured
+        } finally {
+            source.close();
+            running.set(false);
+        }
+        finish(clip, ended);
+    }
+
+    /** Trims the clip, counts it and hands it to the listener; also used to replay recordings in tests. */
+    void finish(VoiceClip clip, boolean ended) {
+        clips.incrementAndGet();
+        rawBytes.addAndGet(clip.getRawBytes());
+        if (ended) autoStopped.incrementAndGet();
+        byte[] trimmed = clip.trimmed();
+        byte[] wav = null;
+        if (trimmed == null) {
+            dropped.incrementAndGet();
+        } else {
+            trimmedBytes.addAndGet(trimmed.length);
+            wav = WavFile.encode(trimmed, sampleRate);
+        }
+        if (listener != null) listener.onClip(wav, clip, ended);
+    }
+
+    public long getClips() { return clips.get(); }
+    /** Clips with no speech, not uploaded. */
+    public long getDropped() { return dropped.get(); }
+    public long getAutoStopped() { return autoStopped.get(); }
+    public long getRawBytes() { return rawBytes.get(); }
+    public long getTrimmedBytes() { return trimmedBytes.get(); }
+    public long getBytesSaved() { return rawBytes.get() - trimmedBytes.get(); }
+
+    private long ms(long bytes) { return bytes * 1000 / (2L * sampleRate); }
+
+    public String toJson() {
+        return String.format(Locale.US,
+                "{\"clips\":%d,\"dropped_no_speech\":%d,\"auto_stopped\":%d,\"raw_ms\":%d,\"trimmed_ms\":%d,"
+                        + "\"raw_bytes\":%d,\"trimmed_bytes\":%d,\"bytes_saved\":%d}",
+                getClips(), getDropped(), getAutoStopped(), ms(getRawBytes()), ms(getTrimmedBytes()),
+                getRawBytes(), getTrimmedBytes(), getBytesSaved());
+    }
+
+    @Override
+    public String toString() {
+        long raw = getRawBytes();
+        return String.format(Locale.US, "voice clips=%d dropped=%d autoStopped=%d raw=%dms trimmed=%dms saved=%d bytes (%.0f%%)",
+                getClips(), getDropped(), getAutoStopped(), ms(raw), ms(getTrimmedBytes()), getBytesSaved(),
+                raw == 0 ? 0.0 : 100.0 * getBytesSaved() / raw);
+    }
+}
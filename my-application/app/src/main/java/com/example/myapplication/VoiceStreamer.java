@@ -0,0 +1,145 @@
+package com.example.myapplication;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams 16-bit mono PCM to the server in fixed-size chunks while the user is still speaking.
+ *
+ * A capture thread drains the {@link PcmSource} into a {@link PcmRingBuffer}; a sender thread
+ * cuts it into {@code chunkBytes} chunks for the {@link Sink}. {@link #stop()} ends capture,
+ * flushes the last partial chunk and then reports the end of the utterance, so the server can
+ * finish transcribing right after the user stops.
+ */
+public final class VoiceStreamer {
+
+    /** Blocking PCM reader, e.g. an {@code AudioRecord}. */
+    public interface PcmSource {
+        /** @return bytes read, or a negative value on error / end of input */
+        int read(byte[] buf, int off, int len) throws IOException;
+
+        void close();
+    }
+
+    public interface Sink {
+        void onStart(int streamId, int sampleRate) throws IOException;
+
+        void onChunk(int streamId, int seq, byte[] pcm, int len) throws IOException;
+
+        void onEnd(int streamId, int chunks) throws IOException;
+    }
+
+    private static final long READ_TIMEOUT_MS = 100;
+
+    private final Sink sink;
+    private final int sampleRate;
+    private final int chunkBytes;
+    private final int ringBytes;
+
+    private AtomicBoolean capturing = new AtomicBoolean(false); // per utterance, so a late thread can't resume
+    private int nextStreamId = 1;
+    private Thread captureThread;
+    private Thread sendThread;
+
+    private final AtomicLong chunksSent = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong sendErrors = new AtomicLong();
+    private final AtomicLong overrunBytes = new AtomicLong();
+
+    /**
+     * @param chunkBytes bytes per chunk; 16 kHz 16-bit mono is 32 bytes per ms
+     * @param ringBytes  how much audio may queue up behind a slow link before the oldest is lost
+     */
+    public VoiceStreamer(Sink sink, int sampleRate, int chunkBytes, int ringBytes) {
+        this.sink = sink;
+        this.sampleRate = sampleRate;
+        this.chunkBytes = chunkBytes;
+        this.ringBytes = ringBytes;
+    }
+
+    public synchronized boolean isRunning() { return capturing.get(); }
+
+    /** Starts a new utterance; returns its stream id, or -1 if one is already running. */
+    public synchronized int start(PcmSource source) {
+        if (capturing.get()) return -1;
+        int streamId = nextStreamId++;
+        PcmRingBuffer ring = new PcmRingBuffer(ringBytes);
+        AtomicBoolean running = new AtomicBoolean(true);
+        capturing = running;
+
+        captureThread = new Thread(() -> {
+            byte[] buf = new byte[Math.min(chunkBytes, 4096)];
+            try {
+                while (running.get()) {
+                    int n = source.read(buf, 0, buf.length);
+                    if (n < 0) break;
+                    ring.write(buf, 0, n);
+                }
+            } catch (IOException ignored) {
+                // treat as end of input; whatever was captured is still sent
+            } finally {
+                source.close();
+                ring.close();
+            }
+        }, "voice-capture");
+
+        sendThread = new Thread(() -> {
+            byte[] chunk = new byte[chunkBytes];
+            int seq = 0;
+            try {
+                sink.onStart(streamId, sampleRate);
+                while (true) {
+                    int n = ring.read(chunk, 0, chunkBytes, READ_TIMEOUT_MS);
+                    if (n < 0) break;
+                    if (n == 0) continue;
+                    sink.onChunk(streamId, seq++, chunk, n);
+                    chunksSent.incrementAndGet();
+                    bytesSent.addAndGet(n);
+                }
+                sink.onEnd(streamId, seq);
+            } catch (IOException e) {
+                sendErrors.incrementAndGet();
+                running.set(false); // stop capturing audio nobody will receive
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                overrunBytes.addAndGet(ring.getOverrunBytes());
+            }
+        }, "voice-send");
+
+        captureThread.start();
+        sendThread.start();
+        return streamId;
+    }
+
+    /** Stops capture; the sender flushes what is buffered and ends the stream on its own thread. */
+    public synchronized void stop() {
+        capturing.set(false);
+    }
+
+    /** Stops and waits for the sender to finish (tests, shutdown). */
+    public void stopAndJoin(long timeoutMs) throws InterruptedException {
+        Thread capture;
+        Thread send;
+        synchronized (this) {
+            capturing.set(false);
+            capture = captureThread;
+            send = sendThread;
+        }
+        if (capture != null) capture.join(timeoutMs);
+        if (send != null) send.join(timeoutMs);
+    }
+
+    public long getChunksSent() { return chunksSent.get(); }
+    public long getBytesSent() { return bytesSent.get(); }
+    public long getSendErrors() { return sendErrors.get(); }
+    public long getOverrunBytes() { return overrunBytes.get(); }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "voice chunks=%d bytes=%d errors=%d overrun=%dB",
+                getChunksSent(), getBytesSent(), getSendErrors(), getOverrunBytes());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.myapplication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/** 16-bit mono PCM WAV: the clip upload format, and how test fixtures are stored. */
+public final class WavFile {
+
+    public static final int HEADER_SIZE = 44;
+
+    public final int sampleRate;
+    /** Little-endian s16 samples. */
+    public final byte[] pcm;
+
+    private WavFile(int sampleRate, byte[] pcm) {
+        this.sampleRate = sampleRate;
+        this.pcm = pcm;
+    }
+
+    /** Canonical 44-byte header followed by {@code pcm}. */
+    public static byte[] encode(byte[] pcm, int sampleRate) {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + pcm.length).order(ByteOrder.LITTLE_ENDIAN);
+        out.put(new byte[] { 'R', 'I', 'F', 'F' }).putInt(36 + pcm.length)
+                .put(new byte[] { 'W', 'A', 'V', 'E' })
+                .put(new byte[] { 'f', 'm', 't', ' ' }).putInt(16)
+                .putShort((short) 1)              // PCM
+                .putShort((short) 1)              // mono
+                .putInt(sampleRate)
+                .putInt(sampleRate * 2)           // byte rate
+                .putShort((short) 2)              // block align
+                .putShort((short) 16)             // bits per sample
+                .put(new byte[] { 'd', 'a', 't', 'a' }).putInt(pcm.length)
+                .put(pcm);
+        return out.array();
+    }
+
+    /** Reads a 16-bit mono PCM WAV, skipping chunks other than fmt and data. */
+    public static WavFile read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] id = new byte[4];
+        data.readFully(id);
+        if (!"RIFF".equals(new String(id, "US-ASCII"))) throw new IOException("not a RIFF file");
+        data.readInt();
+        data.readFully(id);
+        if (!"WAVE".equals(new String(id, "US-ASCII"))) throw new IOException("not a WAVE file");
+
+        int sampleRate = -1;
+        while (true) {
+            data.readFully(id);
+            String chunk = new String(id, "US-ASCII");
+            int size = Integer.reverseBytes(data.readInt());
+            if (chunk.equals("fmt ")) {
+                byte[] fmt = new byte[size];
+                data.readFully(fmt);
+                ByteBuffer f = ByteBuffer.wrap(fmt).order(ByteOrder.LITTLE_ENDIAN);
+                int format = f.getShort(0);
+                int channels = f.getShort(2);
+                int bits = f.getShort(14);
+                if (format != 1 || channels != 1 || bits != 16) {
+                    throw new IOException("need 16-bit mono PCM, got format " + format + ", "
+                            + channels + " channels, " + bits + " bits");
+                }
+                sampleRate = f.getInt(4);
+            } else if (chunk.equals("data")) {
+                if (sampleRate < 0) throw new IOException("data before fmt");
+                ByteArrayOutputStream pcm = new ByteArrayOutputStream(size);
+                byte[] buf = new byte[8192];
+                int remaining = size;
+                while (remaining > 0) {
+                    int n = data.read(buf, 0, Math.min(buf.length, remaining));
+                    if (n < 0) break; // truncated; keep what is there
+                    pcm.write(buf, 0, n);
+                    remaining -= n;
+                }
+                return new WavFile(sampleRate, pcm.toByteArray());
+            } else {
+                data.skipBytes(size + (size & 1));
+            }
+        }
+    }
+}
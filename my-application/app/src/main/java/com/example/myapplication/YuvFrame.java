@@ -0,0 +1,35 @@
+package com.example.myapplication;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Stride-aware view of a YUV_420_888 frame.
+ *
+ * Mirrors the three planes of a CameraX {@code ImageProxy} without depending on Android,
+ * so the copy/encode code can run (and be tested) on a plain JVM.
+ */
+public final class YuvFrame {
+    public final int width;
+    public final int height;
+
+    public final ByteBuffer y;
+    public final ByteBuffer u;
+    public final ByteBuffer v;
+
+    public final int yRowStride;
+    public final int uvRowStride;
+    public final int uvPixelStride;
+
+    public YuvFrame(int width, int height,
+                    ByteBuffer y, ByteBuffer u, ByteBuffer v,
+                    int yRowStride, int uvRowStride, int uvPixelStride) {
+        this.width = width;
+        this.height = height;
+        this.y = y;
+        this.u = u;
+        this.v = v;
+        this.yRowStride = yRowStride;
+        this.uvRowStride = uvRowStride;
+        this.uvPixelStride = uvPixelStride;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.myapplication;
+
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
+
+import java.io.OutputStream;
+
+/**
+ * {@link JpegCompressor} backed by the platform's hardware-assisted {@link YuvImage} encoder.
+ */
+public class YuvJpegCompressor implements JpegCompressor {
+    @Override
+    public void compress(byte[] nv21, int width, int height, int quality, OutputStream out) {
+        YuvImage yuvImage = new YuvImage(nv21, ImageFormat.NV21, width, height, null);
+        yuvImage.compressToJpeg(new Rect(0, 0, width, height), quality, out);
+    }
+}
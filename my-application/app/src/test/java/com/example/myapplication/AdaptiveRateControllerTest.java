@@ -0,0 +1,146 @@
+package com.example.myapplication;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveRateControllerTest {
+
+    private static final List<AdaptiveRateController.Level> LEVELS = Arrays.asList(
+            new AdaptiveRateController.Level(0, 640, 480, 50),
+            new AdaptiveRateController.Level(100, 640, 480, 40),
+            new AdaptiveRateController.Level(200, 320, 240, 30)
+    );
+
+    private final List<Integer> changes = new ArrayList<>();
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private AdaptiveRateController controller(long budgetMs, int maxInFlight, long cooldownMs) {
+        return new AdaptiveRateController(LEVELS, budgetMs, maxInFlight, cooldownMs,
+                (index, level) -> changes.add(index));
+    }
+
+    @Test
+    public void capsFramesInFlight() {
+        AdaptiveRateController c = controller(100, 2, 0);
+        assertTrue(c.tryAcquire(0));
+        assertTrue(c.tryAcquire(1));
+        assertFalse(c.tryAcquire(2));
+
+        c.onFrameDropped();
+        assertTrue(c.tryAcquire(3));
+        assertEquals(2, c.getInFlight());
+    }
+
+    @Test
+    public void stepsDownWhenOverBudgetAndBackUpWhenWellUnder() {
+        AdaptiveRateController c = controller(100, 4, 1000);
+
+        c.tryAcquire(0);
+        c.onFrameDone(0, 300, 250, true);
+        assertEquals(1, c.getLevelIndex());
+
+        // cooldown: another slow frame right away does not step again
+        c.tryAcquire(10);
+        c.onFrameDone(10, 300, 250, true);
+        assertEquals(1, c.getLevelIndex());
+
+        c.tryAcquire(1100);
+        c.onFrameDone(1100, 300, 250, true);
+        assertEquals(2, c.getLevelIndex());
+        assertEquals(320, c.getLevel().width);
+
+        // fast frames pull the EWMA below half the budget
+        long t = 2200;
+        for (int i = 0; i < 10; i++, t += 1100) {
+            c.tryAcquire(t);
+            c.onFrameDone(t, 10, 5, true);
+        }
+        assertEquals(0, c.getLevelIndex());
+        assertEquals(Arrays.asList(1, 2, 1, 0), changes);
+    }
+
+    @Test
+    public void levelIntervalLimitsCaptureRate() {
+        AdaptiveRateController c = controller(100, 10, 0);
+        c.tryAcquire(0);
+        c.onFrameDone(0, 500, 400, true); // -> level 1, 100 ms interval
+
+        assertTrue(c.tryAcquire(1000));
+        assertFalse(c.tryAcquire(1050));
+        assertTrue(c.tryAcquire(1100));
+    }
+
+    @Test
+    public void failedUploadCountsAsOverBudget() {
+        AdaptiveRateController c = controller(100, 4, 0);
+        c.tryAcquire(0);
+        c.onFrameDone(0, 5, 0, false);
+        assertEquals(1, c.getLevelIndex());
+    }
+
+    // ---- against a real HTTP round trip with simulated latency ----
+
+    private void upload(OkHttpClient client, AdaptiveRateController c) throws Exception {
+        long start = System.nanoTime();
+        if (!c.tryAcquire(start / 1_000_000)) return;
+        Request request = new Request.Builder()
+                .url(server.url("/Server"))
+                .post(RequestBody.create(new byte[2048], MediaType.parse("image/jpeg")))
+                .build();
+        boolean ok;
+        try (Response response = client.newCall(request).execute()) {
+            ok = response.isSuccessful();
+        }
+        long end = System.nanoTime();
+        long ms = (end - start) / 1_000_000;
+        c.onFrameDone(end / 1_000_000, ms, ms, ok);
+    }
+
+    @Test
+    public void degradesOnSlowServerAndRecoversWhenFast() throws Exception {
+        OkHttpClient client = new OkHttpClient();
+        AdaptiveRateController c = controller(60, 1, 0);
+
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setBody("2").setHeadersDelay(150, TimeUnit.MILLISECONDS));
+            upload(client, c);
+        }
+        assertEquals(LEVELS.size() - 1, c.getLevelIndex());
+        assertTrue(c.getRttEwmaMs() >= 150);
+
+        for (int i = 0; i < 20 && c.getLevelIndex() > 0; i++) {
+            Thread.sleep(LEVELS.get(c.getLevelIndex()).intervalMs);
+            server.enqueue(new MockResponse().setBody("2"));
+            upload(client, c);
+        }
+        assertEquals(0, c.getLevelIndex());
+        assertEquals(0, c.getInFlight());
+    }
+}
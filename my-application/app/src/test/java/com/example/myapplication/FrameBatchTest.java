@@ -0,0 +1,97 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrameBatchTest {
+
+    private final FrameBufferPool pool = new FrameBufferPool(4);
+
+    private PooledFrame frame(int seq, int payloadBytes) {
+        PooledFrame frame = pool.acquire(640, 480, FrameFormat.JPEG);
+        frame.seq = seq;
+        frame.captureNanos = 1_000_000_000L + seq * 33_000_000L;
+        byte[] payload = new byte[payloadBytes + 5]; // only the first payloadBytes are valid
+        for (int i = 0; i < payload.length; i++) payload[i] = (byte) (seq + i);
+        frame.setPayload(payload, payloadBytes);
+        return frame;
+    }
+
+    @Test
+    public void framesRoundTripInOrder() {
+        FrameBatch batch = new FrameBatch(16); // grows as frames are added
+        for (int seq = 7; seq < 10; seq++) {
+            try (PooledFrame f = frame(seq, 100 * seq)) {
+                batch.add(f);
+            }
+        }
+        assertEquals(3, batch.size());
+        assertEquals(FrameBatch.HEADER_SIZE + 3 * FrameBatch.ENTRY_OVERHEAD + 700 + 800 + 900, batch.length());
+        assertEquals(1_231_000_000L, batch.getFirstCaptureNanos());
+        assertEquals(1_297_000_000L, batch.getLastCaptureNanos());
+
+        List<FrameBatch.Entry> entries = FrameBatch.read(ByteBuffer.wrap(batch.bytes(), 0, batch.length()));
+        assertEquals(3, entries.size());
+        for (int i = 0; i < 3; i++) {
+            FrameBatch.Entry e = entries.get(i);
+            int seq = 7 + i;
+            assertEquals(seq, e.header.seq);
+            assertEquals(1_000_000_000L + seq * 33_000_000L, e.header.captureNanos);
+            assertEquals(FrameFormat.JPEG, e.header.format);
+            assertEquals(100 * seq, e.payload.remaining());
+            assertEquals((byte) seq, e.payload.get(0));
+            assertEquals((byte) (seq + 100 * seq - 1), e.payload.get(100 * seq - 1));
+        }
+    }
+
+    @Test
+    public void clearReusesTheBuffer() {
+        FrameBatch batch = new FrameBatch(1);
+        try (PooledFrame f = frame(1, 5000)) {
+            batch.add(f);
+        }
+        byte[] grown = batch.bytes();
+        batch.clear();
+        assertTrue(batch.isEmpty());
+        assertEquals(FrameBatch.HEADER_SIZE, batch.length());
+        try (PooledFrame f = frame(2, 3000)) {
+            batch.add(f);
+        }
+        assertSame(grown, batch.bytes());
+        assertEquals(2, FrameBatch.read(ByteBuffer.wrap(batch.bytes(), 0, batch.length())).get(0).header.seq);
+    }
+
+    @Test
+    public void layoutMatchesServerParser() {
+        // _parse_batch in app.py: ">2sBB" then per frame ">I" + FrameHeader + payload
+        FrameBatch batch = new FrameBatch(64);
+        try (PooledFrame f = frame(3, 2)) {
+            batch.add(f);
+        }
+        byte[] b = batch.bytes();
+        assertEquals('B', b[0]);
+        assertEquals('B', b[1]);
+        assertEquals(FrameBatch.VERSION, b[2]);
+        assertEquals(1, b[3]);
+        assertEquals(FrameHeader.SIZE + 2, ByteBuffer.wrap(b, 4, 4).getInt());
+        assertEquals('F', b[9]); // the frame's own header magic follows the length
+    }
+
+    @Test
+    public void truncatedContainerIsRejected() {
+        FrameBatch batch = new FrameBatch(64);
+        try (PooledFrame f = frame(3, 10)) {
+            batch.add(f);
+        }
+        try {
+            FrameBatch.read(ByteBuffer.wrap(batch.bytes(), 0, batch.length() - 1));
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("entry length"));
+        }
+    }
+}
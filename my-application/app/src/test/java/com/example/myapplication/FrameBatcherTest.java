@@ -0,0 +1,175 @@
+package com.example.myapplication;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class FrameBatcherTest {
+
+    private final FrameBufferPool pool = new FrameBufferPool(4);
+    /** Sequence numbers of each batch the sender got, in order. */
+    private final List<List<Integer>> sent = Collections.synchronizedList(new ArrayList<>());
+    private FrameBatcher batcher;
+
+    @After
+    public void tearDown() {
+        if (batcher != null) batcher.shutdown();
+    }
+
+    private void record(FrameBatch batch) {
+        List<Integer> seqs = new ArrayList<>();
+        for (FrameBatch.Entry e : FrameBatch.read(ByteBuffer.wrap(batch.bytes(), 0, batch.length()))) {
+            seqs.add(e.header.seq);
+        }
+        sent.add(seqs);
+    }
+
+    private void send(int seq) throws IOException {
+        offer(seq);
+    }
+
+    private boolean offer(int seq) throws IOException {
+        try (PooledFrame frame = pool.acquire(320, 240, FrameFormat.JPEG)) {
+            frame.seq = seq;
+            frame.startNanos = 1000L * seq;
+            frame.encodedNanos = 1000L * seq + 500;
+            frame.setPayload(new byte[200], 200);
+            return batcher.offer(frame);
+        }
+    }
+
+    @Test
+    public void fullBatchIsSentByTheFrameThatFillsIt() throws Exception {
+        batcher = new FrameBatcher(3, 10_000, 1024, this::record);
+        send(0);
+        send(1);
+        assertTrue(sent.isEmpty());
+        assertEquals(2, batcher.getPending());
+        send(2);
+        send(3);
+        assertEquals(1, sent.size());
+        assertEquals(List.of(0, 1, 2), sent.get(0));
+        assertEquals(1, batcher.getFullFlushes());
+        assertEquals(3, batcher.getFrames());
+        assertEquals(FrameBatch.HEADER_SIZE + 3 * (FrameBatch.ENTRY_OVERHEAD + 200), batcher.getBytes());
+    }
+
+    @Test
+    public void deadlineFlushesAPartialBatch() throws Exception {
+        CountDownLatch flushed = new CountDownLatch(1);
+        batcher = new FrameBatcher(8, 50, 1024, batch -> {
+            record(batch);
+            flushed.countDown();
+        });
+        long start = System.nanoTime();
+        send(0);
+        send(1);
+        assertTrue(flushed.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(List.of(List.of(0, 1)), sent);
+        assertEquals(1, batcher.getDeadlineFlushes());
+        assertEquals(0, batcher.getPending());
+    }
+
+    @Test
+    public void staleDeadlineLeavesTheNextBatchAlone() throws Exception {
+        batcher = new FrameBatcher(2, 100, 1024, this::record);
+        send(0);
+        send(1);    // full: the first batch's deadline is now stale
+        Thread.sleep(60);
+        send(2);    // new batch, due 100 ms from now rather than 40
+        Thread.sleep(70);
+        assertEquals(1, sent.size());
+        Thread.sleep(150);
+        assertEquals(List.of(List.of(0, 1), List.of(2)), sent);
+        assertEquals(1, batcher.getDeadlineFlushes());
+    }
+
+    @Test
+    public void heldFramesAreReportedOnlyOnceTheirBatchIsSent() throws Exception {
+        List<FrameBatcher.HeldFrames> done = new ArrayList<>();
+        batcher = new FrameBatcher(3, 10_000, 1024, this::record);
+        batcher.setListener((frames, failure) -> {
+            assertNull(failure);
+            done.add(frames);
+        });
+        assertFalse(offer(4));
+        assertFalse(offer(5));
+        assertTrue("nothing is uploaded yet", done.isEmpty());
+
+        assertTrue(offer(6)); // fills the batch and reports itself through its own offer()
+        assertEquals(1, done.size());
+        FrameBatcher.HeldFrames held = done.get(0);
+        assertEquals(2, held.count);
+        assertArrayEquals(new int[] { 4, 5 }, held.seq);
+        assertArrayEquals(new long[] { 4000, 5000 }, held.startNanos);
+        assertArrayEquals(new long[] { 4500, 5500 }, held.encodedNanos);
+        assertTrue(held.heldSinceNanos[0] <= held.heldSinceNanos[1]);
+        assertTrue(held.heldSinceNanos[1] <= held.doneNanos);
+    }
+
+    @Test
+    public void failuresSurfaceOnTheFillingFrameAndTheHeldOnesThroughTheListener() throws Exception {
+        CountDownLatch failed = new CountDownLatch(2);
+        List<Integer> lost = Collections.synchronizedList(new ArrayList<>());
+        batcher = new FrameBatcher(2, 50, 1024, batch -> {
+            throw new FrameRejectedException("session busy");
+        });
+        batcher.setListener((frames, e) -> {
+            assertTrue(e instanceof FrameRejectedException);
+            for (int i = 0; i < frames.count; i++) lost.add(frames.seq[i]);
+            failed.countDown();
+        });
+        send(0);
+        try {
+            send(1);
+            fail();
+        } catch (FrameRejectedException expected) {
+        }
+        assertEquals(List.of(0), lost); // 1 was reported by the exception
+        send(2); // the deadline flush fails on the batcher's thread
+        assertTrue(failed.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 2), lost);
+        assertEquals(3, batcher.getLostFrames());
+        assertEquals(0, batcher.getBatches());
+    }
+
+    @Test
+    public void httpTransportPostsTheContainerWithTheSession() throws Exception {
+        MockWebServer web = new MockWebServer();
+        web.start();
+        try {
+            web.enqueue(new MockResponse().setBody("{\"ok\":true}"));
+            OkHttpClient client = new OkHttpClient();
+            ServerPool servers = new ServerPool(client, List.of(web.url("/").toString()),
+                    ServerPool.Strategy.LEAST_OUTSTANDING, "/stt_audio");
+            HttpFrameTransport http = new HttpFrameTransport(client, servers, "/Server", "glasses 1");
+            batcher = new FrameBatcher(2, 10_000, 64, http::sendBatch);
+            send(5);
+            send(6);
+
+            RecordedRequest request = web.takeRequest(1, TimeUnit.SECONDS);
+            assertEquals("/Server/batch?session=glasses+1", request.getPath());
+            assertEquals("application/octet-stream", request.getHeader("Content-Type"));
+            List<FrameBatch.Entry> entries = FrameBatch.read(ByteBuffer.wrap(request.getBody().readByteArray()));
+            assertEquals(2, entries.size());
+            assertEquals(6, entries.get(1).header.seq);
+        } finally {
+            web.shutdown();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class FrameBufferPoolTest {
+
+    private static final int W = 640;
+    private static final int H = 480;
+
+    /** 640x480 frame whose U/V planes are NV21-ordered views of one buffer (pixelStride 2). */
+    private static YuvFrame cameraFrame() {
+        ByteBuffer y = ByteBuffer.allocateDirect(W * H);
+        ByteBuffer vu = ByteBuffer.allocateDirect(W * H / 2);
+        for (int i = 0; i < W * H / 2; i++) vu.put(i, (byte) i);
+        ByteBuffer v = vu.duplicate();
+        vu.position(1);
+        ByteBuffer u = vu.slice();
+        return new YuvFrame(W, H, y, u, v, W, W, 2);
+    }
+
+    /** Stand-in for the platform encoder: writes a fixed-size "JPEG" without allocating. */
+    private static final JpegCompressor FAKE_JPEG = new JpegCompressor() {
+        @Override
+        public void compress(byte[] nv21, int width, int height, int quality, OutputStream out) {
+            try {
+                out.write(nv21, 0, 20_000);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }
+    };
+
+    @Test
+    public void reusesFramesPerKey() {
+        FrameBufferPool pool = new FrameBufferPool(4);
+        PooledFrame a = pool.acquire(W, H, FrameFormat.JPEG);
+        a.close();
+        PooledFrame b = pool.acquire(W, H, FrameFormat.JPEG);
+        PooledFrame c = pool.acquire(W, H, FrameFormat.LUMA);
+
+        assertSame(a, b);
+        assertNotSame(b, c);
+        assertEquals(W * H, c.planes.length);
+        assertEquals(2, pool.getCreatedCount());
+        assertEquals(1, pool.getReusedCount());
+    }
+
+    @Test
+    public void doubleCloseReturnsFrameOnce() {
+        FrameBufferPool pool = new FrameBufferPool(4);
+        PooledFrame a = pool.acquire(W, H, FrameFormat.LUMA);
+        a.close();
+        a.close();
+
+        assertSame(a, pool.acquire(W, H, FrameFormat.LUMA));
+        assertNotSame(a, pool.acquire(W, H, FrameFormat.LUMA));
+    }
+
+    @Test
+    public void bulkVuPathMatchesPerSampleCopy() {
+        YuvFrame frame = cameraFrame();
+        assertTrue(FrameEncoder.isInterleavedVu(frame));
+
+        for (boolean rotate : new boolean[] { false, true }) {
+            byte[] bulk = new byte[W * H * 3 / 2];
+            byte[] perSample = new byte[W * H * 3 / 2];
+            FrameEncoder.copyChroma(frame, bulk, W * H, rotate, true);
+            FrameEncoder.copyChroma(frame, perSample, W * H, rotate, false);
+            assertArrayEquals(perSample, bulk);
+        }
+    }
+
+    @Test
+    public void steadyStateStreamingAllocatesNothingPerFrame() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        YuvFrame frame = cameraFrame();
+        FrameEncoder encoder = new FrameEncoder(FrameFormat.JPEG, 50, true, FAKE_JPEG);
+        FrameBufferPool pool = new FrameBufferPool(4);
+
+        // capture -> encode -> upload -> release, as the pipeline threads do it
+        for (int i = 0; i < 200; i++) streamOneFrame(frame, encoder, pool);
+
+        int frames = 1000;
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < frames; i++) streamOneFrame(frame, encoder, pool);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // a single un-pooled NV21 buffer would be 460 KB; allow only measurement noise in total
+        assertTrue("allocated " + allocated + " bytes over " + frames + " frames", allocated < 4096);
+        assertEquals(1, pool.getCreatedCount());
+    }
+
+    private static void streamOneFrame(YuvFrame frame, FrameEncoder encoder, FrameBufferPool pool) {
+        PooledFrame pooled = pool.acquire(frame.width, frame.height, encoder.getFormat());
+        encoder.copyPlanes(frame, pooled.planes);
+        encoder.compress(pooled);
+        if (pooled.payloadLength() != 20_000) throw new AssertionError();
+        pooled.close();
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FrameEncoderTest {
+
+    private static final int W = 4;
+    private static final int H = 4;
+
+    /** Builds a 4x4 frame with padded rows; Y = row*10+col, U = 100+i, V = 200+i. */
+    private static YuvFrame frame(int uvPixelStride) {
+        int yRowStride = W + 3;
+        ByteBuffer y = ByteBuffer.allocate(yRowStride * H);
+        for (int r = 0; r < H; r++) {
+            for (int c = 0; c < W; c++) y.put(r * yRowStride + c, (byte) (r * 10 + c));
+        }
+
+        int uvRowStride = (W / 2) * uvPixelStride + 2;
+        ByteBuffer u = ByteBuffer.allocate(uvRowStride * H / 2);
+        ByteBuffer v = ByteBuffer.allocate(uvRowStride * H / 2);
+        for (int r = 0; r < H / 2; r++) {
+            for (int c = 0; c < W / 2; c++) {
+                int i = r * (W / 2) + c;
+                u.put(r * uvRowStride + c * uvPixelStride, (byte) (100 + i));
+                v.put(r * uvRowStride + c * uvPixelStride, (byte) (200 + i));
+            }
+        }
+        return new YuvFrame(W, H, y, u, v, yRowStride, uvRowStride, uvPixelStride);
+    }
+
+    @Test
+    public void nv21_dropsPaddingAndInterleavesVu() {
+        byte[] nv21 = new byte[W * H * 3 / 2];
+        FrameEncoder.toNv21(frame(2), nv21, false);
+
+        assertEquals(0, nv21[0]);
+        assertEquals(3, nv21[3]);
+        assertEquals(10, nv21[4]);
+        assertEquals(33, nv21[15]);
+        assertArrayEquals(new byte[] { (byte) 200, 100, (byte) 201, 101, (byte) 202, 102, (byte) 203, 103 },
+                java.util.Arrays.copyOfRange(nv21, W * H, nv21.length));
+    }
+
+    @Test
+    public void nv21_rotate180_reversesRowsAndPixels() {
+        for (int pixelStride : new int[] { 1, 2 }) {
+            byte[] nv21 = new byte[W * H * 3 / 2];
+            FrameEncoder.toNv21(frame(pixelStride), nv21, true);
+
+            assertEquals(33, nv21[0]);
+            assertEquals(30, nv21[3]);
+            assertEquals(0, nv21[15]);
+            // last chroma sample comes first, V/U order inside a pair is preserved
+            assertArrayEquals(new byte[] { (byte) 203, 103, (byte) 202, 102, (byte) 201, 101, (byte) 200, 100 },
+                    java.util.Arrays.copyOfRange(nv21, W * H, nv21.length));
+        }
+    }
+
+    @Test
+    public void luma_isRotatedYPlaneOnly() {
+        FrameEncoder encoder = new FrameEncoder(FrameFormat.LUMA, 50, true, null);
+        byte[] luma = encoder.encode(frame(2));
+
+        assertEquals(W * H, luma.length);
+        assertEquals(33, luma[0]);
+        assertEquals(0, luma[W * H - 1]);
+    }
+
+    @Test
+    public void jpeg_passesRotatedNv21AndQualityToCompressor() {
+        final int[] seenQuality = { -1 };
+        final byte[][] seenNv21 = { null };
+        JpegCompressor fake = new JpegCompressor() {
+            @Override
+            public void compress(byte[] nv21, int width, int height, int quality, OutputStream out) {
+                seenQuality[0] = quality;
+                seenNv21[0] = nv21.clone();
+                try {
+                    out.write(new byte[] { (byte) 0xFF, (byte) 0xD8 });
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        };
+
+        byte[] jpeg = new FrameEncoder(FrameFormat.JPEG, 70, true, fake).encode(frame(2));
+
+        assertArrayEquals(new byte[] { (byte) 0xFF, (byte) 0xD8 }, jpeg);
+        assertEquals(70, seenQuality[0]);
+        assertEquals(33, seenNv21[0][0]);
+    }
+
+    /** 64x48 camera-like frame with padded rows and random pixels. */
+    private static YuvFrame randomFrame(int uvPixelStride, long seed) {
+        int w = 64, h = 48;
+        Random random = new Random(seed);
+        int yRowStride = w + 16;
+        ByteBuffer y = ByteBuffer.allocate(yRowStride * h);
+        for (int i = 0; i < y.capacity(); i++) y.put(i, (byte) random.nextInt(256));
+        int uvRowStride = (w / 2) * uvPixelStride + 8;
+        ByteBuffer u = ByteBuffer.allocate(uvRowStride * h / 2);
+        ByteBuffer v = ByteBuffer.allocate(uvRowStride * h / 2);
+        for (int i = 0; i < u.capacity(); i++) {
+            u.put(i, (byte) random.nextInt(256));
+            v.put(i, (byte) random.nextInt(256));
+        }
+        return new YuvFrame(w, h, y, u, v, yRowStride, uvRowStride, uvPixelStride);
+    }
+
+    @Test
+    public void region_isBlockMeanOfTheUprightFrame() {
+        for (boolean rotate : new boolean[] { false, true }) {
+            for (PayloadMode mode : new PayloadMode[] {
+                    new PayloadMode(FrameFormat.LUMA, 1, PayloadMode.ROI_CENTER),
+                    new PayloadMode(FrameFormat.LUMA, 2, PayloadMode.ROI_FULL),
+                    new PayloadMode(FrameFormat.LUMA, 2, PayloadMode.ROI_LOWER),
+                    new PayloadMode(FrameFormat.LUMA, 4, 0.1f, 0.3f, 0.9f, 0.8f) }) {
+                YuvFrame frame = randomFrame(2, 7);
+                byte[] upright = new FrameEncoder(FrameFormat.LUMA, 50, rotate, null).encode(frame);
+                FrameEncoder encoder = new FrameEncoder(mode, 50, rotate, null);
+                byte[] out = encoder.encode(frame);
+
+                int outW = mode.outputWidth(frame.width);
+                int outH = mode.outputHeight(frame.height);
+                int x0 = mode.cropX(frame.width);
+                int y0 = mode.cropY(frame.height);
+                int s = mode.scale;
+                assertEquals(outW * outH, out.length);
+                for (int oy = 0; oy < outH; oy++) {
+                    for (int ox = 0; ox < outW; ox++) {
+                        int sum = 0;
+                        for (int dy = 0; dy < s; dy++) {
+                            for (int dx = 0; dx < s; dx++) {
+                                sum += upright[(y0 + oy * s + dy) * frame.width + x0 + ox * s + dx] & 0xFF;
+                            }
+                        }
+                        assertEquals(mode + " rotate=" + rotate + " at " + ox + "," + oy,
+                                (sum + s * s / 2) / (s * s), out[oy * outW + ox] & 0xFF);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void region_jpegCropKeepsMatchingChroma() {
+        for (int pixelStride : new int[] { 1, 2 }) {
+            YuvFrame frame = randomFrame(pixelStride, 11);
+            byte[] full = new byte[frame.width * frame.height * 3 / 2];
+            FrameEncoder.toNv21(frame, full, true);
+
+            PayloadMode mode = new PayloadMode(FrameFormat.JPEG, 1, PayloadMode.ROI_CENTER);
+            FrameEncoder encoder = new FrameEncoder(mode, 50, true, null);
+            int outW = mode.outputWidth(frame.width);
+            int outH = mode.outputHeight(frame.height);
+            byte[] nv21 = new byte[FrameFormat.JPEG.planeBytes(outW, outH)];
+            encoder.copyPlanes(frame, nv21);
+
+            int cx = mode.cropX(frame.width) / 2;
+            int cy = mode.cropY(frame.height) / 2;
+            for (int r = 0; r < outH / 2; r++) {
+                for (int i = 0; i < outW; i++) {
+                    assertEquals(full[frame.width * frame.height + (cy + r) * frame.width + cx * 2 + i],
+                            nv21[outW * outH + r * outW + i]);
+                }
+            }
+        }
+    }
+
+    /** 64x48 frame, pixel stride 2, U and V in separate buffers whose contents make V[i+1] == U[i]. */
+    private static YuvFrame separateLookalikeFrame(boolean direct, boolean readOnly, int chroma) {
+        int w = 64, h = 48;
+        ByteBuffer y = direct ? ByteBuffer.allocateDirect(w * h) : ByteBuffer.allocate(w * h);
+        ByteBuffer u = direct ? ByteBuffer.allocateDirect(w * h / 2) : ByteBuffer.allocate(w * h / 2);
+        ByteBuffer v = direct ? ByteBuffer.allocateDirect(w * h / 2) : ByteBuffer.allocate(w * h / 2);
+        for (int i = 0; i < w * h / 2; i++) {
+            u.put(i, (byte) (chroma < 0 ? i : chroma));
+            v.put(i, (byte) (chroma < 0 ? i - 1 : chroma));
+        }
+        if (readOnly) {
+            u = u.asReadOnlyBuffer();
+            v = v.asReadOnlyBuffer();
+        }
+        return new YuvFrame(w, h, y, u, v, w, w, 2);
+    }
+
+    private static final JpegCompressor NO_JPEG = (nv21, width, height, quality, out) -> { };
+
+    @Test
+    public void vuLayout_heapPlanesAreDecidedByTheBuffersNotTheirContents() {
+        assertFalse(FrameEncoder.isInterleavedVu(separateLookalikeFrame(false, false, 128)));
+        assertFalse(FrameEncoder.isInterleavedVu(separateLookalikeFrame(false, false, -1)));
+        ByteBuffer vu = ByteBuffer.allocate(64 * 48 / 2);
+        ByteBuffer v = vu.duplicate();
+        vu.position(1);
+        YuvFrame shared = new YuvFrame(64, 48, ByteBuffer.allocate(64 * 48), vu.slice(), v, 64, 64, 2);
+        assertTrue(FrameEncoder.isInterleavedVu(shared));
+    }
+
+    @Test
+    public void vuLayout_directPlanesAreOnlyRead() {
+        YuvFrame grey = separateLookalikeFrame(true, false, 128);
+        YuvFrame ramp = separateLookalikeFrame(true, false, -1);
+        ByteBuffer u = ByteBuffer.allocate(ramp.u.capacity()).put(ramp.u.duplicate());
+        assertFalse("uniform chroma settles nothing", FrameEncoder.isInterleavedVu(grey));
+        assertTrue("V shifted by one is U", FrameEncoder.isInterleavedVu(ramp));
+        assertEquals(u.flip(), ramp.u.duplicate().clear());
+
+        // the lookalike's bulk VU copy is the per-sample copy, which is all the answer is used for
+        byte[] bulk = new byte[64 * 48 * 3 / 2];
+        byte[] perSample = new byte[bulk.length];
+        FrameEncoder.copyChroma(ramp, bulk, 64 * 48, false, true);
+        FrameEncoder.copyChroma(ramp, perSample, 64 * 48, false, false);
+        assertArrayEquals(perSample, bulk);
+    }
+
+    @Test
+    public void vuLayout_greyStartFrameIsNotCachedForDirectPlanes() {
+        FrameEncoder encoder = new FrameEncoder(FrameFormat.JPEG, 50, false, NO_JPEG);
+        byte[] nv21 = new byte[64 * 48 * 3 / 2];
+        encoder.copyPlanes(separateLookalikeFrame(true, true, 128), nv21);
+
+        // real chroma in separate planes: V1 != U0, so the bulk VU copy would be wrong
+        YuvFrame ramp = separateLookalikeFrame(true, true, -1);
+        ByteBuffer v = ByteBuffer.allocateDirect(64 * 48 / 2);
+        for (int i = 0; i < v.capacity(); i++) v.put(i, (byte) (200 - i));
+        YuvFrame frame = new YuvFrame(64, 48, ramp.y, ramp.u, v.asReadOnlyBuffer(), 64, 64, 2);
+        encoder.copyPlanes(frame, nv21);
+        byte[] perSample = new byte[nv21.length];
+        FrameEncoder.copyChroma(frame, perSample, 64 * 48, false, false);
+        for (int i = 64 * 48; i < nv21.length; i++) assertEquals("at " + i, perSample[i], nv21[i]);
+    }
+
+    @Test
+    public void setMode_appliesToTheNextFrame() {
+        FrameEncoder encoder = new FrameEncoder(FrameFormat.LUMA, 50, true, null);
+        assertEquals(64 * 48, encoder.encode(randomFrame(2, 1)).length);
+        encoder.setMode(new PayloadMode(FrameFormat.LUMA, 4, PayloadMode.ROI_LOWER));
+        assertEquals(16 * 6, encoder.encode(randomFrame(2, 1)).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setMode_needsACompressorForJpeg() {
+        new FrameEncoder(FrameFormat.LUMA, 50, true, null).setMode(PayloadMode.full(FrameFormat.JPEG));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOutOfRangeQuality() {
+        new FrameEncoder(FrameFormat.JPEG, 101, false, null);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class FrameHeaderTest {
+
+    @Test
+    public void messageRoundTrips() {
+        FrameBufferPool pool = new FrameBufferPool(1);
+        PooledFrame frame = pool.acquire(640, 480, FrameFormat.LUMA);
+        frame.seq = 42;
+        frame.captureNanos = 123_456_789_012L;
+        frame.setPayload(new byte[] { 1, 2, 3 }, 3);
+
+        byte[] message = FrameHeader.message(frame);
+        assertEquals(FrameHeader.SIZE + 3, message.length);
+
+        ByteBuffer in = ByteBuffer.wrap(message);
+        FrameHeader header = FrameHeader.read(in);
+        assertEquals(FrameFormat.LUMA, header.format);
+        assertEquals(42, header.seq);
+        assertEquals(123_456_789_012L, header.captureNanos);
+        assertEquals(640, header.width);
+        assertEquals(480, header.height);
+        assertEquals(1, header.scale);
+        assertEquals(640, header.sourceWidth);
+        assertEquals(3, in.remaining());
+        assertEquals(1, in.get());
+    }
+
+    @Test
+    public void regionGeometryRoundTrips() {
+        PayloadMode mode = new PayloadMode(FrameFormat.LUMA, 2, PayloadMode.ROI_LOWER);
+        PooledFrame frame = new FrameBufferPool(1).acquire(mode.outputWidth(640), mode.outputHeight(480), mode.format);
+        frame.setRegion(mode, 640, 480);
+        frame.setPayload(new byte[0], 0);
+
+        FrameHeader header = FrameHeader.read(ByteBuffer.wrap(FrameHeader.message(frame)));
+        assertEquals(320, header.width);
+        assertEquals(120, header.height);
+        assertEquals(2, header.scale);
+        assertEquals(0, header.roiX);
+        assertEquals(240, header.roiY);
+        assertEquals(640, header.sourceWidth);
+        assertEquals(480, header.sourceHeight);
+    }
+
+    @Test
+    public void layoutMatchesServerStructFormat() {
+        // struct.unpack(">2sBBIqHHBxHHHH", ...) on the server side
+        ByteBuffer out = ByteBuffer.allocate(FrameHeader.SIZE);
+        FrameHeader.write(out, FrameFormat.JPEG, 7, 9L, 320, 240);
+        byte[] b = out.array();
+
+        assertEquals('B', b[0]);
+        assertEquals('F', b[1]);
+        assertEquals(FrameHeader.VERSION, b[2]);
+        assertEquals(FrameFormat.JPEG.wireId, b[3]);
+        assertEquals(7, b[7]);
+        assertEquals(9, b[15]);
+        assertEquals(320 >> 8, b[16]);
+        assertEquals(240, b[19] & 0xFF);
+        assertEquals(1, b[20]);
+        assertEquals(320 >> 8, b[26]);
+        assertEquals(240, b[29] & 0xFF);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBadMagic() {
+        FrameHeader.read(ByteBuffer.wrap(new byte[FrameHeader.SIZE]));
+    }
+}
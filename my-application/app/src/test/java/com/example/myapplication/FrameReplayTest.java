@@ -0,0 +1,162 @@
+package com.example.myapplication;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class FrameReplayTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    /** Camera-like frame: padded rows and one NV21 buffer behind the U/V planes. */
+    private static YuvFrame frame(int width, int height, int shift, Random random) {
+        int yRowStride = width + 64;
+        ByteBuffer y = ByteBuffer.allocate(yRowStride * height);
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                y.put(r * yRowStride + c, (byte) (((c + shift) / 40 % 2) * 160 + random.nextInt(8)));
+            }
+        }
+        ByteBuffer vu = ByteBuffer.allocate(yRowStride * height / 2);
+        for (int i = 0; i < vu.capacity(); i++) vu.put(i, (byte) (128 + i % 7));
+        ByteBuffer v = vu.duplicate();
+        vu.position(1);
+        ByteBuffer u = vu.slice();
+        return new YuvFrame(width, height, y, u, v, yRowStride, yRowStride, 2);
+    }
+
+    private File record(int frames, int width, int height, long intervalNanos) throws Exception {
+        File file = tmp.newFile("session.yuvrec");
+        Random random = new Random(3);
+        try (FrameRecorder recorder = new FrameRecorder(file)) {
+            for (int i = 0; i < frames; i++) recorder.write(frame(width, height, 8 * i, random), i * intervalNanos);
+        }
+        return file;
+    }
+
+    @Test
+    public void replayReproducesPlanesStridesAndTimestamps() throws Exception {
+        Random random = new Random(1);
+        List<YuvFrame> originals = new ArrayList<>();
+        File file = tmp.newFile("frames.yuvrec");
+        try (FrameRecorder recorder = new FrameRecorder(file)) {
+            for (int i = 0; i < 3; i++) {
+                YuvFrame f = frame(64, 48, i * 5, random);
+                originals.add(f);
+                recorder.write(f, 1000L * i);
+            }
+            assertEquals(3, recorder.getFrames());
+        }
+
+        FrameEncoder encoder = new FrameEncoder(FrameFormat.LUMA, 50, true, null);
+        try (FrameReplayer replayer = new FrameReplayer(file)) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(replayer.next());
+                YuvFrame replayed = replayer.frame();
+                YuvFrame original = originals.get(i);
+                assertEquals(1000L * i, replayer.timestampNanos());
+                assertEquals(original.yRowStride, replayed.yRowStride);
+                assertEquals(original.uvRowStride, replayed.uvRowStride);
+                assertEquals(original.uvPixelStride, replayed.uvPixelStride);
+                assertEquals(FrameEncoder.isInterleavedVu(original), FrameEncoder.isInterleavedVu(replayed));
+                assertArrayEquals(encoder.encode(original), encoder.encode(replayed));
+            }
+            assertFalse(replayer.next());
+        }
+    }
+
+    @Test
+    public void frameCutShortByACrashEndsTheReplay() throws Exception {
+        File file = record(3, 32, 24, 1000);
+        try (RandomAccessFile f = new RandomAccessFile(file, "rw")) {
+            f.setLength(f.length() - 100);
+        }
+        try (FrameReplayer replayer = new FrameReplayer(file)) {
+            assertEquals(2, replayer.replay((frame, ts) -> true, false));
+        }
+    }
+
+    @Test
+    public void realtimeReplayKeepsRecordedPacing() throws Exception {
+        File file = record(6, 32, 24, 20_000_000); // 50 fps for 100 ms
+        List<Long> arrivals = new ArrayList<>();
+        long start = System.nanoTime();
+        try (FrameReplayer replayer = new FrameReplayer(file)) {
+            replayer.replay((frame, ts) -> arrivals.add(System.nanoTime() - start), true);
+        }
+        assertEquals(6, arrivals.size());
+        assertTrue("last frame at " + arrivals.get(5) / 1e6 + " ms", arrivals.get(5) >= 100_000_000);
+    }
+
+    // ---- replayed session through encode + HTTP upload against a local stub server ----
+
+    @Test
+    public void replayedSessionIsUploadedThroughThePipeline() throws Exception {
+        // -Dreplay.file=<recording from the glasses>, otherwise a synthetic 2 s pan; the timing
+        // numbers come from ReplayUploadBenchmark in :benchmark
+        String recorded = System.getProperty("replay.file", "");
+        File file = recorded.isEmpty() ? record(60, 640, 480, 33_000_000) : new File(recorded);
+
+        MockWebServer server = new MockWebServer();
+        AtomicLong bytesReceived = new AtomicLong();
+        server.setDispatcher(new Dispatcher() {
+            @Override public MockResponse dispatch(RecordedRequest request) {
+                bytesReceived.addAndGet(request.getBodySize());
+                return new MockResponse().setBody("ok");
+            }
+        });
+        server.start();
+        try {
+            OkHttpClient client = new OkHttpClient();
+            ServerPool pool = new ServerPool(client, Collections.singletonList(server.url("/").toString()),
+                    ServerPool.Strategy.LEAST_OUTSTANDING, "/stt_audio");
+            HttpFrameTransport transport = new HttpFrameTransport(client, pool, "/Server", "bench");
+            FramePipeline pipeline = new FramePipeline(new FrameEncoder(FrameFormat.LUMA, 50, true, null),
+                    transport::send, 2, DropPolicy.BLOCK);
+
+            AtomicLong finished = new AtomicLong();
+            AtomicLong uploaded = new AtomicLong();
+            pipeline.setListener((frame, ok, uploadNanos) -> {
+                if (ok) uploaded.incrementAndGet();
+                finished.incrementAndGet();
+            });
+
+            int frames;
+            long lumaBytes;
+            try (FrameReplayer replayer = new FrameReplayer(file)) {
+                // BLOCK: the replay thread waits for the pipeline, so every frame is measured
+                frames = replayer.replay(pipeline::capture, false);
+                lumaBytes = (long) replayer.frame().width * replayer.frame().height;
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (finished.get() < frames && System.nanoTime() < deadline) Thread.sleep(5);
+            pipeline.shutdown();
+
+            assertTrue(frames > 0);
+            assertEquals(frames, uploaded.get());
+            assertEquals(frames, server.getRequestCount());
+            assertTrue("every frame's luma plane went out", bytesReceived.get() > frames * lumaBytes);
+        } finally {
+            server.shutdown();
+        }
+    }
+}
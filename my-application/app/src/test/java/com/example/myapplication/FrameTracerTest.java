@@ -0,0 +1,84 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class FrameTracerTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void histogramPercentilesUseBucketBounds() {
+        LatencyHistogram h = new LatencyHistogram("h");
+        for (int i = 0; i < 90; i++) h.record(3);   // le_5
+        for (int i = 0; i < 10; i++) h.record(150); // le_200
+
+        assertEquals(100, h.getCount());
+        assertEquals(5, h.percentileMs(50));
+        assertEquals(150, h.percentileMs(95)); // capped at the observed max
+        assertEquals(150, h.getMaxMs());
+        assertTrue(h.toJson().contains("\"le_5\":90"));
+    }
+
+    @Test
+    public void tracesFrameThroughInstructionAndAudio() {
+        FrameTracer tracer = new FrameTracer();
+        PooledFrame frame = new FrameBufferPool(1).acquire(4, 4, FrameFormat.LUMA);
+        frame.seq = 7;
+        frame.startNanos = 0;
+        frame.encodedNanos = 12 * MS;
+
+        tracer.onEncoded(frame);
+        tracer.onUploaded(frame, 60 * MS);
+        assertTrue(tracer.onInstruction(7, 160 * MS));
+        tracer.onAudioStart(160 * MS, 175 * MS);
+
+        assertEquals(12, tracer.captureToEncode.getMaxMs());
+        assertEquals(48, tracer.encodeToUpload.getMaxMs());
+        assertEquals(100, tracer.uploadToInstruction.getMaxMs());
+        assertEquals(15, tracer.instructionToAudio.getMaxMs());
+    }
+
+    @Test
+    public void unknownOrEvictedFrameIdsAreNotMatched() {
+        FrameTracer tracer = new FrameTracer();
+        PooledFrame frame = new FrameBufferPool(1).acquire(4, 4, FrameFormat.LUMA);
+        frame.seq = 3;
+        tracer.onUploaded(frame, MS);
+        frame.seq = 3 + 256; // same ring slot
+        tracer.onUploaded(frame, 2 * MS);
+
+        assertFalse(tracer.onInstruction(3, 10 * MS));
+        assertFalse(tracer.onInstruction(-1, 10 * MS));
+        assertTrue(tracer.onInstruction(3 + 256, 10 * MS));
+        assertTrue(tracer.toJson().contains("\"unmatched_instructions\":2"));
+    }
+
+    @Test
+    public void debugEndpointServesTraceJson() throws Exception {
+        FrameTracer tracer = new FrameTracer();
+        DebugEndpoint endpoint = new DebugEndpoint(0).route("/trace", tracer::toJson);
+        endpoint.start();
+        try {
+            URL url = new URL("http://127.0.0.1:" + endpoint.getLocalPort() + "/trace");
+            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+            assertEquals(200, conn.getResponseCode());
+            try (InputStream in = conn.getInputStream()) {
+                String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                assertEquals(tracer.toJson(), body);
+            }
+
+            HttpURLConnection missing = (HttpURLConnection) new URL(
+                    "http://127.0.0.1:" + endpoint.getLocalPort() + "/nope").openConnection();
+            assertEquals(404, missing.getResponseCode());
+        } finally {
+            endpoint.stop();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class InstructionArbiterTest {
+
+    /** A source the test fires by hand. */
+    private static final class FakeSource implements InstructionSource {
+        final String name;
+        Sink sink;
+
+        FakeSource(String name) { this.name = name; }
+
+        @Override public String name() { return name; }
+        @Override public void setSink(Sink sink) { this.sink = sink; }
+
+        void emit(Instruction instruction, long frameAtMs) {
+            sink.onInstruction(this, instruction, frameAtMs);
+        }
+    }
+
+    private final FakeSource server = new FakeSource("server");
+    private final FakeSource local = new FakeSource("local");
+    private final List<String> played = new ArrayList<>();
+    private final List<String> switches = new ArrayList<>();
+    private long now = 10_000;
+
+    private InstructionArbiter arbiter() {
+        InstructionArbiter arbiter = new InstructionArbiter(server, local,
+                (source, instruction, frameAtMs) -> played.add(source.name() + ":" + instruction),
+                () -> now, 1000, 2000, 3000);
+        arbiter.setListener((from, to, reason) -> switches.add(from.name() + "->" + to.name()));
+        return arbiter;
+    }
+
+    @Test
+    public void timelyServerCuesWinOverLocalOnes() {
+        InstructionArbiter arbiter = arbiter();
+        for (int i = 0; i < 10; i++) {
+            now += 500;
+            assertFalse(arbiter.useLocal());
+            server.emit(Instruction.LEFT, now - 300);
+            local.emit(Instruction.STOP, now);
+        }
+        assertEquals(10, played.size());
+        assertTrue(played.stream().allMatch("server:LEFT"::equals));
+        assertEquals(10, arbiter.getIgnored());
+        assertTrue(switches.isEmpty());
+    }
+
+    @Test
+    public void silentServerHandsOverAfterTheGracePeriod() {
+        InstructionArbiter arbiter = arbiter();
+        assertFalse("grace period starts with the first frame", arbiter.useLocal());
+        now += 2000;
+        assertFalse(arbiter.useLocal());
+        now += 1;
+        assertTrue(arbiter.useLocal());
+        local.emit(Instruction.RIGHT, now);
+        assertEquals(Arrays.asList("local:RIGHT"), played);
+        assertEquals(Arrays.asList("server->local"), switches);
+    }
+
+    @Test
+    public void lateServerCuesCountAsStale() {
+        InstructionArbiter arbiter = arbiter();
+        arbiter.useLocal();
+        for (int i = 0; i < 6; i++) {
+            now += 500;
+            server.emit(Instruction.LEFT, now - 1500); // a slow server, 1.5 s behind
+            arbiter.useLocal();
+        }
+        assertTrue(arbiter.isLocal());
+        // until the hand-over at 2.5 s, late server cues were better than nothing
+        assertEquals(5, played.size());
+        assertEquals(1, arbiter.getSwitches());
+        local.emit(Instruction.STOP, now);
+        assertEquals("local:STOP", played.get(5));
+    }
+
+    @Test
+    public void serverTakesOverAgainOnlyAfterStayingFresh() {
+        InstructionArbiter arbiter = arbiter();
+        arbiter.useLocal();
+        now += 2500;
+        assertTrue(arbiter.useLocal());
+
+        server.emit(Instruction.LEFT, now - 100);
+        now += 2000;
+        server.emit(Instruction.LEFT, now - 1200); // one late cue restarts the recovery period
+        now += 500;
+        server.emit(Instruction.LEFT, now - 100);
+        now += 1500;
+        server.emit(Instruction.LEFT, now - 100);
+        now += 1400;
+        server.emit(Instruction.LEFT, now - 100);
+        assertTrue(arbiter.isLocal());
+        now += 100;
+        server.emit(Instruction.STRAIGHT, now - 100);
+
+        assertFalse(arbiter.isLocal());
+        assertEquals(Arrays.asList("server->local", "local->server"), switches);
+        assertEquals(Arrays.asList("server:STRAIGHT"), played);
+        local.emit(Instruction.STOP, now);
+        assertEquals(1, played.size());
+    }
+
+    @Test
+    public void silenceBetweenFreshCuesRestartsTheRecoveryPeriod() {
+        InstructionArbiter arbiter = arbiter();
+        arbiter.useLocal();
+        now += 2500;
+        assertTrue(arbiter.useLocal());
+
+        server.emit(Instruction.LEFT, now - 100);
+        now += 60_000; // a minute without a word from the server
+        server.emit(Instruction.LEFT, now - 100);
+        assertTrue("one fresh cue after the silence is not a recovery", arbiter.isLocal());
+        now += 2000;
+        server.emit(Instruction.LEFT, now - 100);
+        assertTrue(arbiter.isLocal());
+        now += 1000;
+        server.emit(Instruction.LEFT, now - 100);
+
+        assertFalse(arbiter.isLocal());
+        assertEquals(Arrays.asList("server->local", "local->server"), switches);
+    }
+
+    @Test
+    public void lateServerCuesPlayWhileTheLocalSourceIsUnavailable() {
+        InstructionArbiter arbiter = arbiter();
+        arbiter.useLocal();
+        now += 2500;
+        assertTrue(arbiter.useLocal());
+        server.emit(Instruction.LEFT, now - 1500);
+        assertTrue(played.isEmpty());
+
+        arbiter.setLocalAvailable(false); // the device got too hot for the detector
+        assertFalse(arbiter.isLocal());
+        now += 500;
+        server.emit(Instruction.RIGHT, now - 1500);
+        assertEquals(Arrays.asList("server:RIGHT"), played);
+
+        arbiter.setLocalAvailable(true);
+        assertTrue("still stale, so local takes over again", arbiter.useLocal());
+        assertEquals(Arrays.asList("server->local", "local->server", "server->local"), switches);
+    }
+
+    @Test
+    public void resetGivesTheServerANewGracePeriod() {
+        InstructionArbiter arbiter = arbiter();
+        arbiter.useLocal();
+        now += 5000;
+        assertTrue(arbiter.useLocal());
+        arbiter.reset();
+        now += 60_000; // streaming was off for a minute
+        assertFalse(arbiter.useLocal());
+        assertEquals("{\"active\":\"server\",\"switches\":1,\"server\":0,\"local\":0,\"ignored\":0,\"late_server\":0}",
+                arbiter.toJson());
+    }
+}
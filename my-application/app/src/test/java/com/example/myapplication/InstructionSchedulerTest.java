@@ -0,0 +1,145 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class InstructionSchedulerTest {
+
+    /** Fake player: a cue stays audible until {@link #finish()}. */
+    private static final class FakePlayer implements InstructionScheduler.CuePlayer {
+        final List<Instruction> started = new ArrayList<>();
+        Instruction playing;
+
+        @Override public Instruction current() { return playing; }
+
+        @Override public boolean play(Instruction instruction) {
+            started.add(instruction);
+            playing = instruction;
+            return true;
+        }
+
+        void finish() { playing = null; }
+    }
+
+    private final long[] now = { 0 };
+    private final FakePlayer player = new FakePlayer();
+    private final InstructionScheduler scheduler =
+            new InstructionScheduler(() -> now[0], player, 1000, 2000);
+
+    @Test
+    public void burstWhilePlayingKeepsOnlyBestCue() {
+        scheduler.submit(Instruction.LEFT, 0);
+        assertEquals(Instruction.LEFT, scheduler.pump());
+
+        now[0] = 100;
+        scheduler.submit(Instruction.STRAIGHT, 90);
+        scheduler.submit(Instruction.RIGHT, 95);
+        scheduler.submit(Instruction.RIGHT2, 100);
+        assertNull("directional cues wait for the current one", scheduler.pump());
+
+        now[0] = 400;
+        player.finish();
+        assertEquals(Instruction.RIGHT2, scheduler.pump());
+        assertFalse("older frames' cues are outdated", scheduler.isPending(Instruction.RIGHT));
+        assertFalse(scheduler.isPending(Instruction.STRAIGHT));
+        player.finish();
+        assertNull(scheduler.pump());
+        assertEquals(2, scheduler.getPlayed());
+        assertEquals(2, scheduler.getOutdated());
+        assertEquals(List.of(Instruction.LEFT, Instruction.RIGHT2), player.started);
+    }
+
+    @Test
+    public void cueFromANewerFrameOutlivesThePlayedOne() {
+        player.playing = Instruction.STRAIGHT;
+        scheduler.submit(Instruction.RIGHT2, 100);
+        scheduler.submit(Instruction.LEFT, 150); // lower priority, but from a later frame
+        assertNull(scheduler.pump());
+
+        player.finish();
+        now[0] = 200;
+        assertEquals(Instruction.RIGHT2, scheduler.pump());
+        assertTrue(scheduler.isPending(Instruction.LEFT));
+        player.finish();
+        assertEquals(Instruction.LEFT, scheduler.pump());
+        assertEquals(0, scheduler.getOutdated());
+    }
+
+    @Test
+    public void duplicatesCoalesceAndRepeatsAreSuppressed() {
+        scheduler.submit(Instruction.LEFT, 0);
+        scheduler.submit(Instruction.LEFT, 10);
+        scheduler.submit(Instruction.LEFT, 20);
+        assertEquals(2, scheduler.getCoalesced()); // three submits, one pending entry
+        assertEquals(Instruction.LEFT, scheduler.pump());
+        assertFalse(scheduler.isPending(Instruction.LEFT));
+
+        player.finish();
+        now[0] = 500;
+        scheduler.submit(Instruction.LEFT, 500);
+        assertNull(scheduler.pump());
+        assertEquals(1, scheduler.getSuppressed());
+
+        now[0] = 2500;
+        scheduler.submit(Instruction.LEFT, 2500);
+        assertEquals(Instruction.LEFT, scheduler.pump());
+        assertEquals(2, player.started.size());
+    }
+
+    @Test
+    public void stopPreemptsPlayingAndPendingCues() {
+        scheduler.submit(Instruction.LEFT2, 0);
+        scheduler.pump();
+        scheduler.submit(Instruction.RIGHT, 10);
+        scheduler.submit(Instruction.STRAIGHT, 10);
+
+        scheduler.submit(Instruction.STOP, 20);
+        assertFalse(scheduler.isPending(Instruction.RIGHT));
+        assertFalse(scheduler.isPending(Instruction.STRAIGHT));
+
+        assertEquals(Instruction.STOP, scheduler.pump());
+        assertEquals(List.of(Instruction.LEFT2, Instruction.STOP), player.started);
+        assertEquals(3, scheduler.getPreempted()); // two pending + the playing cue
+    }
+
+    @Test
+    public void staleCuesExpire() {
+        List<Instruction> played = new ArrayList<>();
+        scheduler.setListener((instruction, frameAtMs, submittedAtMs, nowMs) -> played.add(instruction));
+
+        scheduler.submit(Instruction.RIGHT, 0);
+        scheduler.submit(Instruction.LEFT, 800);
+        now[0] = 1200;
+        assertEquals(Instruction.LEFT, scheduler.pump());
+        assertEquals(1, scheduler.getExpired());
+
+        player.finish();
+        scheduler.submit(Instruction.STRAIGHT, 100); // arrives late, frame already too old
+        assertNull(scheduler.pump());
+        assertEquals(2, scheduler.getExpired());
+        assertEquals(List.of(Instruction.LEFT), played);
+    }
+
+    @Test
+    public void listenerGetsTheFrameTimeAsWellAsTheQueueTime() {
+        List<long[]> played = new ArrayList<>();
+        scheduler.setListener((instruction, frameAtMs, submittedAtMs, nowMs) ->
+                played.add(new long[] { frameAtMs, submittedAtMs, nowMs }));
+
+        player.playing = Instruction.LEFT; // the new cue waits for this one
+        now[0] = 150;
+        scheduler.submit(Instruction.RIGHT, 100);
+        now[0] = 170;
+        scheduler.submit(Instruction.RIGHT, 160); // coalesced: the newer frame, the first queue time
+        assertNull(scheduler.pump());
+
+        player.finish();
+        now[0] = 300;
+        assertEquals(Instruction.RIGHT, scheduler.pump());
+        assertArrayEquals(new long[] { 160, 150, 300 }, played.get(0));
+    }
+}
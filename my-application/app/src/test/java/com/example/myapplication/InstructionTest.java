@@ -0,0 +1,30 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InstructionTest {
+
+    @Test
+    public void mapsServerCodes() {
+        assertEquals(Instruction.LEFT, Instruction.fromCode("1"));
+        assertEquals(Instruction.RIGHT, Instruction.fromCode("2"));
+        assertEquals(Instruction.LEFT2, Instruction.fromCode("3"));
+        assertEquals(Instruction.RIGHT2, Instruction.fromCode("4"));
+        assertEquals(Instruction.STRAIGHT, Instruction.fromCode("5"));
+        assertEquals(Instruction.STOP, Instruction.fromCode("0"));
+        assertEquals(Instruction.STOP, Instruction.fromCode(""));
+        assertEquals(Instruction.STOP, Instruction.fromCode("9"));
+    }
+
+    @Test
+    public void onlyStopPreemptsAndOnlyDirectionalCues() {
+        assertTrue(Instruction.STOP.preempts(Instruction.LEFT));
+        assertTrue(Instruction.STOP.preempts(Instruction.STRAIGHT));
+        assertFalse(Instruction.STOP.preempts(Instruction.STOP));
+        assertFalse(Instruction.STOP.preempts(null));
+        assertFalse(Instruction.LEFT.preempts(Instruction.RIGHT));
+        assertFalse(Instruction.RIGHT2.preempts(Instruction.STOP));
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.myapplication;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LocalInstructionEngineTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final int W = 160;
+    private static final int H = 120;
+
+    private static LocalInstructionEngine engine(boolean rotate180) {
+        return new LocalInstructionEngine(rotate180, 0.4, 24, 0.08, 0.35, 4);
+    }
+
+    /**
+     * Upright scene: a smooth floor with a checkered obstacle filling the lower band of each
+     * column flagged in {@code blocked} (0 = left), stored upside down if {@code rotate180}.
+     */
+    private static YuvFrame scene(int width, int height, boolean rotate180, boolean... blocked) {
+        ByteBuffer y = ByteBuffer.allocateDirect(width * height);
+        for (int row = 0; row < height; row++) {
+            for (int x = 0; x < width; x++) {
+                int value = 60 + row * 100 / height; // lit floor, brighter towards the feet
+                int column = x * 5 / width;
+                if (row >= height * 6 / 10 && blocked.length > column && blocked[column]) {
+                    value = ((x / 8 + row / 8) & 1) == 0 ? 40 : 200;
+                }
+                int stored = rotate180 ? (height - 1 - row) * width + (width - 1 - x) : row * width + x;
+                y.put(stored, (byte) value);
+            }
+        }
+        ByteBuffer uv = ByteBuffer.allocateDirect(width * height / 2);
+        return new YuvFrame(width, height, y, uv, uv, width, width, 2);
+    }
+
+    @Test
+    public void openFloorIsStraight() {
+        assertEquals(Instruction.STRAIGHT, engine(false).classify(scene(W, H, false)));
+        // an obstacle off to the side doesn't matter while the middle is free
+        assertEquals(Instruction.STRAIGHT, engine(false).classify(scene(W, H, false, true, false, false, false, true)));
+    }
+
+    @Test
+    public void blockedCentreTurnsTowardsTheClearSide() {
+        LocalInstructionEngine engine = engine(false);
+        assertEquals(Instruction.RIGHT, engine.classify(scene(W, H, false, true, true, true, false, false)));
+        assertTrue(engine.getColumnDensity(2) > 0.35);
+        assertEquals(0, engine.getColumnDensity(3), 0.01);
+        assertEquals(Instruction.LEFT, engine.classify(scene(W, H, false, false, false, true, true, true)));
+        assertEquals(Instruction.LEFT2, engine.classify(scene(W, H, false, false, true, true, true, true)));
+        assertEquals(Instruction.RIGHT2, engine.classify(scene(W, H, false, true, true, true, true, false)));
+    }
+
+    @Test
+    public void everythingBlockedIsStop() {
+        assertEquals(Instruction.STOP, engine(false).classify(scene(W, H, false, true, true, true, true, true)));
+    }
+
+    @Test
+    public void upsideDownSensorIsReadUpright() {
+        YuvFrame frame = scene(W, H, true, true, true, true, false, false); // clear on the wearer's right
+        assertEquals(Instruction.RIGHT, engine(true).classify(frame));
+        assertNotEquals(Instruction.RIGHT, engine(false).classify(frame));
+    }
+
+    @Test
+    public void processHandsTheCueToTheSinkAndCountsIt() {
+        LocalInstructionEngine engine = engine(false);
+        Instruction[] got = new Instruction[1];
+        long[] at = new long[1];
+        engine.setSink((source, instruction, frameAtMs) -> {
+            got[0] = instruction;
+            at[0] = frameAtMs;
+        });
+        engine.process(scene(W, H, false, true, true, true, true, true), 1234);
+        assertEquals(Instruction.STOP, got[0]);
+        assertEquals(1234, at[0]);
+        assertEquals(Instruction.STOP, engine.getLast());
+        assertEquals(1, engine.getEvaluated());
+    }
+
+    // ---- a recorded session ----
+
+    @Test
+    public void replayedSessionGivesTheSameCuesAsTheLiveFrames() throws Exception {
+        // a synthetic walk past obstacles; the per-frame cost is measured by LocalInstructionBenchmark
+        File file = tmp.newFile("walk.yuvrec");
+        Random random = new Random(5);
+        List<Instruction> live = new ArrayList<>();
+        LocalInstructionEngine liveEngine = engine(true);
+        liveEngine.setSink((source, instruction, frameAtMs) -> live.add(instruction));
+        try (FrameRecorder recorder = new FrameRecorder(file)) {
+            for (int i = 0; i < 90; i++) {
+                boolean[] blocked = new boolean[5];
+                for (int c = 0; c < 5; c++) blocked[c] = random.nextInt(3) == 0;
+                YuvFrame frame = scene(640, 480, true, blocked);
+                recorder.write(frame, i * 33_000_000L);
+                liveEngine.process(frame, i * 33L);
+            }
+        }
+
+        List<Instruction> replayed = new ArrayList<>();
+        LocalInstructionEngine engine = engine(true);
+        engine.setSink((source, instruction, frameAtMs) -> replayed.add(instruction));
+        int frames;
+        try (FrameReplayer replayer = new FrameReplayer(file)) {
+            frames = replayer.replay((frame, nanos) -> engine.process(frame, nanos / 1_000_000) != null, false);
+        }
+        assertEquals(90, engine.getEvaluated());
+        assertEquals(live.size(), frames);
+        assertEquals(live, replayed);
+        assertTrue("a walk past obstacles needs more than one cue", live.stream().distinct().count() > 1);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private long now = 10_000;
+
+    @Test
+    public void concurrentUpdatesAreNotLost() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                // looked up per call on purpose: racing get-or-create must hand out one instance
+                for (int i = 0; i < 10_000; i++) {
+                    registry.counter("frames").inc();
+                    registry.gauge("in_flight").inc();
+                    registry.gauge("in_flight").dec();
+                    registry.histogram("rtt").record(i % 100);
+                }
+            }));
+        }
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+
+        assertEquals(40_000, registry.get("frames"));
+        assertEquals(0, registry.get("in_flight"));
+        assertEquals(40_000, registry.findHistogram("rtt").getCount());
+        assertSame(registry.counter("frames"), registry.counter("frames"));
+    }
+
+    @Test
+    public void jsonListsEveryKindSorted() {
+        registry.counter("b_count").add(3);
+        registry.counter("a_count").inc();
+        registry.gauge("queue", () -> 7);
+        registry.gauge("in_flight").set(2);
+        LatencyHistogram external = new LatencyHistogram("capture_to_encode");
+        external.record(4);
+        registry.register(external);
+        registry.register(new LatencyHistogram("capture_to_encode")); // first one stays
+
+        String json = registry.toJson();
+        assertTrue(json, json.startsWith("{\"counters\":{\"a_count\":1,\"b_count\":3},\"gauges\":{\"in_flight\":2,\"queue\":7},"
+                + "\"histograms\":{\"capture_to_encode\":{\"count\":1,"));
+        assertEquals(7, registry.get("queue"));
+        assertEquals(0, registry.get("missing"));
+    }
+
+    @Test
+    public void windowedPercentilesUseOnlyNewSamples() {
+        long[] counts = new long[LatencyHistogram.bucketCount()];
+        assertEquals(-1, LatencyHistogram.percentileMs(counts, 50));
+        LatencyHistogram h = new LatencyHistogram("rtt");
+        for (int i = 0; i < 90; i++) h.record(15);
+        for (int i = 0; i < 10; i++) h.record(400);
+        h.copyCounts(counts);
+        assertEquals(20, LatencyHistogram.percentileMs(counts, 50));
+        assertEquals(500, LatencyHistogram.percentileMs(counts, 95));
+    }
+
+    private PerformanceHud hud() {
+        return new PerformanceHud(registry, () -> now, 500);
+    }
+
+    @Test
+    public void hudShowsTheLastIntervalOnly() {
+        MetricsRegistry.Counter frames = registry.counter(PerformanceHud.FRAMES_UPLOADED);
+        LatencyHistogram rtt = registry.histogram(PerformanceHud.UPLOAD_RTT);
+        registry.gauge(PerformanceHud.UPLOADS_IN_FLIGHT).set(2);
+        PerformanceHud hud = hud();
+
+        // a slow start, then a fast network
+        frames.add(50);
+        for (int i = 0; i < 50; i++) rtt.record(900);
+        hud.reset();
+        now += 1000;
+        frames.add(10);
+        for (int i = 0; i < 10; i++) rtt.record(40);
+
+        assertEquals("10.0 fps  2 in flight\nenc -\nrtt p50 50 p95 50 ms\nsrv -\ncue -", hud.render());
+        now += 2000;
+        assertEquals(" 0.0 fps  2 in flight\nenc -\nrtt -\nsrv -\ncue -", hud.render());
+    }
+
+    @Test
+    public void hudRefreshIsRateLimited() {
+        PerformanceHud hud = hud();
+        assertNotNull(hud.render());
+        now += 499;
+        assertNull(hud.render());
+        now += 1;
+        assertNotNull(hud.render());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MotionGateTest {
+
+    private static final int W = 640;
+    private static final int H = 480;
+    private static final int STRIDE = W + 32; // padded rows, like most camera HALs
+
+    /** Luma-only frame: a diagonal texture shifted right by {@code offset}, plus +/- {@code noise}. */
+    private static YuvFrame frame(int offset, int noise, Random random) {
+        ByteBuffer y = ByteBuffer.allocateDirect(STRIDE * H);
+        for (int r = 0; r < H; r++) {
+            for (int c = 0; c < W; c++) {
+                int value = (((c - offset) >> 5) + (r >> 5)) % 2 == 0 ? 60 : 190;
+                if (noise > 0) value += random.nextInt(2 * noise + 1) - noise;
+                y.put(r * STRIDE + c, (byte) value);
+            }
+            for (int c = W; c < STRIDE; c++) y.put(r * STRIDE + c, (byte) 255); // garbage padding
+        }
+        ByteBuffer uv = ByteBuffer.allocateDirect(1);
+        return new YuvFrame(W, H, y, uv, uv, STRIDE, 1, 1);
+    }
+
+    private static MotionGate gate() {
+        return new MotionGate(16, 12, 3.0, 1000);
+    }
+
+    @Test
+    public void firstFrameIsAdmittedAndIdenticalFramesAreSkipped() {
+        MotionGate gate = gate();
+        YuvFrame still = frame(0, 0, null);
+
+        assertTrue(gate.admit(still, 0));
+        assertFalse(gate.admit(still, 100));
+        assertFalse(gate.admit(still, 200));
+        assertEquals(0.0, gate.getLastScore(), 0);
+        assertEquals(2, gate.getSkipped());
+        assertEquals(2.0 / 3, gate.getSkipRate(), 1e-9);
+    }
+
+    @Test
+    public void sensorNoiseIsNotMotionButPanningIs() {
+        MotionGate gate = gate();
+        Random random = new Random(1);
+        gate.admit(frame(0, 0, random), 0);
+
+        assertFalse(gate.admit(frame(0, 6, random), 10));
+        assertTrue(gate.admit(frame(16, 0, random), 20));
+        assertTrue(gate.getLastScore() >= 3.0);
+    }
+
+    @Test
+    public void slowDriftAccumulatesAgainstLastAdmittedFrame() {
+        MotionGate gate = gate();
+        gate.admit(frame(0, 0, null), 0);
+
+        int admitted = 0;
+        for (int shift = 1; shift <= 32; shift++) {
+            if (gate.admit(frame(shift, 0, null), shift)) admitted++;
+        }
+        assertTrue("drift of 32 px should trigger at least one upload", admitted >= 1);
+        assertEquals(0, gate.getKeyframes());
+    }
+
+    @Test
+    public void keyframeForcedAfterInterval() {
+        MotionGate gate = gate();
+        YuvFrame still = frame(0, 0, null);
+        gate.admit(still, 0);
+
+        assertFalse(gate.admit(still, 999));
+        assertTrue(gate.admit(still, 1000));
+        assertFalse(gate.admit(still, 1500));
+        assertEquals(1, gate.getKeyframes());
+    }
+
+    @Test
+    public void resetAdmitsNextFrame() {
+        MotionGate gate = gate();
+        YuvFrame still = frame(0, 0, null);
+        gate.admit(still, 0);
+        gate.reset();
+        assertTrue(gate.admit(still, 10));
+        assertEquals(-1, gate.getLastScore(), 0);
+    }
+
+    // ---- a recorded-style sequence: still with noise, then walking ----
+
+    @Test
+    public void stillThenPanningSequenceIsGated() {
+        Random random = new Random(7);
+        int n = 60;
+        MotionGate gate = gate();
+        int stillAdmitted = 0;
+        int panAdmitted = 0;
+        for (int i = 0; i < n; i++) {
+            if (gate.admit(frame(0, 4, random), i * 33L)) stillAdmitted++; // 30 fps
+        }
+        for (int i = 0; i < n; i++) {
+            if (gate.admit(frame(8 * i, 4, random), (n + i) * 33L)) panAdmitted++;
+        }
+
+        // 2 s of still frames at 30 fps: the first frame and one keyframe per second
+        assertTrue("still admitted " + stillAdmitted, stillAdmitted <= 3);
+        assertTrue("panning admitted " + panAdmitted, panAdmitted >= n - 2);
+        assertEquals(2 * n, gate.getEvaluated());
+    }
+}
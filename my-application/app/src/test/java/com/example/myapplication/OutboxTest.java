@@ -0,0 +1,258 @@
+package com.example.myapplication;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class OutboxTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private long now = 1_000_000;
+    private final Clock clock = () -> now;
+
+    private Outbox open(File dir, long maxBytes, long segmentBytes) throws IOException {
+        return new Outbox(dir, maxBytes, segmentBytes, 60_000, clock);
+    }
+
+    private static byte[] bytes(String s) { return s.getBytes(StandardCharsets.UTF_8); }
+
+    private static List<String> texts(Outbox outbox) throws IOException {
+        List<String> out = new ArrayList<>();
+        for (Outbox.Item item : outbox.peek(100)) out.add(item.kind + ":" + new String(item.payload, StandardCharsets.UTF_8));
+        return out;
+    }
+
+    private static File[] segments(File dir) {
+        return dir.listFiles((d, name) -> name.endsWith(".seg"));
+    }
+
+    @Test
+    public void itemsSurviveReopen() throws Exception {
+        File dir = tmp.newFolder();
+        try (Outbox outbox = open(dir, 1 << 20, 1 << 20)) {
+            outbox.append(1, bytes("left"));
+            outbox.append(2, bytes("clip"));
+            outbox.append(1, bytes("right"));
+        }
+        try (Outbox outbox = open(dir, 1 << 20, 1 << 20)) {
+            assertEquals(3, outbox.size());
+            assertEquals(List.of("1:left", "2:clip", "1:right"), texts(outbox));
+            assertEquals(0, outbox.getCorrupt());
+        }
+    }
+
+    @Test
+    public void removedItemsStayRemovedAfterReopen() throws Exception {
+        File dir = tmp.newFolder();
+        try (Outbox outbox = open(dir, 1 << 20, 1 << 20)) {
+            outbox.append(1, bytes("a"));
+            outbox.append(1, bytes("b"));
+            outbox.append(1, bytes("c"));
+            outbox.remove(2);
+        }
+        try (Outbox outbox = open(dir, 1 << 20, 1 << 20)) {
+            assertEquals(List.of("1:c"), texts(outbox));
+            outbox.append(1, bytes("d"));
+        }
+        try (Outbox outbox = open(dir, 1 << 20, 1 << 20)) {
+            assertEquals(List.of("1:c", "1:d"), texts(outbox));
+        }
+    }
+
+    @Test
+    public void tornWriteAtTheEndIsCutOff() throws Exception {
+        File dir = tmp.newFolder();
+        try (Outbox outbox = open(dir, 1 << 20, 1 << 20)) {
+            outbox.append(1, bytes("kept"));
+            outbox.append(1, bytes("torn"));
+        }
+        // crash halfway through the second record
+        File segment = segments(dir)[0];
+        try (RandomAccessFile f = new RandomAccessFile(segment, "rw")) {
+            f.setLength(f.length() - 2);
+        }
+
+        try (Outbox outbox = open(dir, 1 << 20, 1 << 20)) {
+            assertEquals(List.of("1:kept"), texts(outbox));
+            assertEquals(1, outbox.getCorrupt());
+            outbox.append(1, bytes("next"));
+        }
+        try (Outbox outbox = open(dir, 1 << 20, 1 << 20)) {
+            assertEquals(List.of("1:kept", "1:next"), texts(outbox));
+            assertEquals(0, outbox.getCorrupt());
+        }
+    }
+
+    @Test
+    public void corruptPayloadFailsCrc() throws Exception {
+        File dir = tmp.newFolder();
+        try (Outbox outbox = open(dir, 1 << 20, 1 << 20)) {
+            outbox.append(1, bytes("good"));
+            outbox.append(1, bytes("flip"));
+        }
+        File segment = segments(dir)[0];
+        try (RandomAccessFile f = new RandomAccessFile(segment, "rw")) {
+            f.seek(f.length() - 1);
+            f.write('X');
+        }
+        try (Outbox outbox = open(dir, 1 << 20, 1 << 20)) {
+            assertEquals(List.of("1:good"), texts(outbox));
+            assertEquals(1, outbox.getCorrupt());
+        }
+    }
+
+    @Test
+    public void sizeCapEvictsOldestFirst() throws Exception {
+        File dir = tmp.newFolder();
+        long record = Outbox.HEADER_SIZE + 10;
+        try (Outbox outbox = open(dir, 3 * record, 1 << 20)) {
+            for (int i = 0; i < 5; i++) outbox.append(1, bytes("item-" + i + "____"));
+            assertEquals(3, outbox.size());
+            assertEquals(2, outbox.getEvicted());
+            assertEquals(3 * record, outbox.getBytes());
+            try {
+                outbox.append(1, new byte[(int) (3 * record)]);
+                fail("larger than the whole queue");
+            } catch (IOException expected) {
+                // nothing evicted for an item that can never fit
+            }
+            assertEquals(3, outbox.size());
+        }
+        try (Outbox outbox = open(dir, 3 * record, 1 << 20)) {
+            assertEquals(List.of("1:item-2____", "1:item-3____", "1:item-4____"), texts(outbox));
+        }
+    }
+
+    @Test
+    public void itemsOlderThanTtlAreDropped() throws Exception {
+        File dir = tmp.newFolder();
+        try (Outbox outbox = open(dir, 1 << 20, 1 << 20)) {
+            outbox.append(1, bytes("old"));
+            now += 30_000;
+            outbox.append(1, bytes("new"));
+        }
+        now += 40_000; // "old" is 70 s old, past the 60 s TTL
+        try (Outbox outbox = open(dir, 1 << 20, 1 << 20)) {
+            assertEquals(List.of("1:new"), texts(outbox));
+            assertEquals(1, outbox.getExpired());
+        }
+        try (Outbox outbox = open(dir, 1 << 20, 1 << 20)) {
+            assertEquals(1, outbox.size());
+        }
+    }
+
+    @Test
+    public void consumedSegmentsAreDeleted() throws Exception {
+        File dir = tmp.newFolder();
+        try (Outbox outbox = open(dir, 1 << 20, 2 * (Outbox.HEADER_SIZE + 4))) {
+            for (int i = 0; i < 6; i++) outbox.append(1, bytes("i-" + i + "_"));
+            assertEquals(3, segments(dir).length);
+
+            outbox.remove(5);
+            assertEquals(1, segments(dir).length);
+            assertEquals(List.of("1:i-5_"), texts(outbox));
+        }
+        try (Outbox outbox = open(dir, 1 << 20, 2 * (Outbox.HEADER_SIZE + 4))) {
+            assertEquals(List.of("1:i-5_"), texts(outbox));
+        }
+    }
+
+    @Test
+    public void senderBacksOffThenDeliversInOrder() throws Exception {
+        List<String> delivered = new ArrayList<>();
+        int[] failuresLeft = { 2 };
+        try (Outbox outbox = open(tmp.newFolder(), 1 << 20, 1 << 20)) {
+            for (int i = 0; i < 5; i++) outbox.append(1, bytes("m" + i));
+            OutboxSender sender = new OutboxSender(outbox, item -> {
+                if (failuresLeft[0] > 0 && delivered.size() == 3) {
+                    failuresLeft[0]--;
+                    throw new IOException("offline");
+                }
+                delivered.add(new String(item.payload, StandardCharsets.UTF_8));
+            }, 2, 100, 150);
+
+            assertEquals(100, sender.drainOnce());
+            assertEquals(List.of("m0", "m1", "m2"), delivered);
+            assertEquals(2, outbox.size()); // m2 went out of a half-delivered batch
+            assertEquals(150, sender.drainOnce()); // doubled, capped
+            assertEquals(-1, sender.drainOnce());
+            assertEquals(List.of("m0", "m1", "m2", "m3", "m4"), delivered);
+            assertEquals(0, outbox.size());
+            assertEquals(2, sender.getRetries());
+            sender.shutdown();
+        }
+    }
+
+    @Test
+    public void submitQueuesAndDrainsOnSenderThread() throws Exception {
+        File dir = tmp.newFolder();
+        CountDownLatch done = new CountDownLatch(2);
+        try (Outbox outbox = open(dir, 1 << 20, 1 << 20)) {
+            OutboxSender sender = new OutboxSender(outbox, item -> { }, 4, 100, 1000);
+            sender.setListener(new OutboxSender.Listener() {
+                @Override public void onDelivered(Outbox.Item item) { done.countDown(); }
+                @Override public void onRetryScheduled(int queued, long delayMs, IOException cause) { }
+                @Override public void onQueueFailed(int kind, IOException cause) { fail(cause.toString()); }
+            });
+            sender.submit(1, bytes("x"));
+            sender.submit(2, bytes("y"));
+            assertTrue(done.await(2, TimeUnit.SECONDS));
+            sender.shutdown();
+            // a batch leaves the outbox only after its last delivery, when the drain calls remove()
+            assertTrue(sender.awaitTermination(2, TimeUnit.SECONDS));
+        }
+        try (Outbox outbox = open(dir, 1 << 20, 1 << 20)) {
+            assertEquals(0, outbox.size());
+        }
+    }
+
+    @Test
+    public void kickDuringADrainLeavesOneRetryChain() throws Exception {
+        CountDownLatch inFirst = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch bothFailed = new CountDownLatch(2);
+        int[] attempts = { 0 };
+        try (Outbox outbox = open(tmp.newFolder(), 1 << 20, 1 << 20)) {
+            OutboxSender sender = new OutboxSender(outbox, item -> {
+                if (attempts[0]++ == 0) {
+                    inFirst.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                throw new IOException("offline");
+            }, 4, 10_000, 10_000);
+            sender.setListener(new OutboxSender.Listener() {
+                @Override public void onDelivered(Outbox.Item item) { }
+                @Override public void onRetryScheduled(int queued, long delayMs, IOException cause) { bothFailed.countDown(); }
+                @Override public void onQueueFailed(int kind, IOException cause) { fail(cause.toString()); }
+            });
+            sender.submit(1, bytes("x"));
+            assertTrue(inFirst.await(2, TimeUnit.SECONDS));
+            sender.kick(); // lands while the first drain is stuck in deliver()
+            release.countDown();
+            assertTrue(bothFailed.await(2, TimeUnit.SECONDS));
+
+            // shutdown() cancels the one retry it knows of; an orphaned second chain would hold
+            // the executor open until its 10 s backoff ran out
+            sender.shutdown();
+            assertTrue(sender.awaitTermination(2, TimeUnit.SECONDS));
+            assertEquals(2, attempts[0]);
+        }
+    }
+}
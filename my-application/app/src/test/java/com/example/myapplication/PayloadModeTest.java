@@ -0,0 +1,57 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PayloadModeTest {
+
+    @Test
+    public void presetsOnVga() {
+        PayloadMode lower = new PayloadMode(FrameFormat.LUMA, 2, PayloadMode.roi("lower"));
+        assertEquals(0, lower.cropX(640));
+        assertEquals(240, lower.cropY(480));
+        assertEquals(320, lower.outputWidth(640));
+        assertEquals(120, lower.outputHeight(480));
+
+        PayloadMode center = new PayloadMode(FrameFormat.JPEG, 4, PayloadMode.roi("CENTER"));
+        assertEquals(160, center.cropX(640));
+        assertEquals(120, center.cropY(480));
+        assertEquals(80, center.outputWidth(640));
+        assertEquals(60, center.outputHeight(480));
+    }
+
+    @Test
+    public void fullFrameIsIdentity() {
+        PayloadMode full = PayloadMode.full(FrameFormat.LUMA);
+        assertTrue(full.isFullFrame());
+        assertEquals(640, full.outputWidth(640));
+        assertEquals(480, full.outputHeight(480));
+        assertFalse(new PayloadMode(FrameFormat.LUMA, 2, PayloadMode.ROI_FULL).isFullFrame());
+    }
+
+    @Test
+    public void oddRegionsSnapToEvenOutputInsideTheFrame() {
+        PayloadMode mode = new PayloadMode(FrameFormat.JPEG, 4, 0.33f, 0.71f, 0.97f, 1f);
+        for (int[] size : new int[][] { { 640, 480 }, { 320, 240 }, { 100, 58 } }) {
+            int w = size[0], h = size[1];
+            int outW = mode.outputWidth(w), outH = mode.outputHeight(h);
+            assertEquals(0, outW % 2);
+            assertEquals(0, outH % 2);
+            assertTrue(outW > 0 && outH > 0);
+            assertEquals(0, mode.cropX(w) % 2);
+            assertTrue(mode.cropX(w) + outW * mode.scale <= w);
+            assertTrue(mode.cropY(h) + outH * mode.scale <= h);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsScale3() {
+        new PayloadMode(FrameFormat.LUMA, 3, PayloadMode.ROI_FULL);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyRegion() {
+        new PayloadMode(FrameFormat.LUMA, 1, 0.5f, 0f, 0.5f, 1f);
+    }
+}
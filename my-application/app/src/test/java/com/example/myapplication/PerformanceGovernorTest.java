@@ -0,0 +1,161 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PerformanceGovernorTest {
+
+    private static final List<PerformanceGovernor.Tier> TIERS = Arrays.asList(
+            new PerformanceGovernor.Tier("full", 100, 640, 480, FrameFormat.JPEG, true),
+            new PerformanceGovernor.Tier("warm", 200, 640, 480, FrameFormat.JPEG, true),
+            new PerformanceGovernor.Tier("hot", 500, 320, 240, FrameFormat.LUMA, true),
+            new PerformanceGovernor.Tier("critical", 1000, 320, 240, FrameFormat.LUMA, false)
+    );
+
+    /** Conditions set directly by the test. */
+    private static final class FakePower implements PowerStateProvider {
+        int thermal = THERMAL_NONE;
+        int battery = 80;
+        boolean charging = false;
+
+        @Override public int thermalStatus() { return thermal; }
+        @Override public int batteryPercent() { return battery; }
+        @Override public boolean isCharging() { return charging; }
+    }
+
+    private final FakePower power = new FakePower();
+    private long now = 0;
+    private final List<String> changes = new ArrayList<>();
+
+    private PerformanceGovernor governor() {
+        PerformanceGovernor g = new PerformanceGovernor(TIERS, power, () -> now, 20, 10, 30_000);
+        g.setListener((from, to, tier, reason) -> changes.add(from + "->" + to + " " + reason));
+        return g;
+    }
+
+    @Test
+    public void coolDeviceStaysOnTheBestTier() {
+        PerformanceGovernor g = governor();
+        power.thermal = PowerStateProvider.THERMAL_LIGHT;
+        assertEquals("full", g.evaluate().name);
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void heatStepsDownImmediatelyToTheMatchingTier() {
+        PerformanceGovernor g = governor();
+        power.thermal = PowerStateProvider.THERMAL_SEVERE;
+        assertEquals("hot", g.evaluate().name);
+        power.thermal = PowerStateProvider.THERMAL_EMERGENCY;
+        assertEquals("critical", g.evaluate().name);
+        assertFalse(g.getTier().detector);
+        assertEquals(Arrays.asList("0->2 thermal=severe battery=80%", "2->3 thermal=emergency battery=80%"), changes);
+    }
+
+    @Test
+    public void recoveryIsOneTierPerHoldPeriod() {
+        PerformanceGovernor g = governor();
+        power.thermal = PowerStateProvider.THERMAL_CRITICAL;
+        g.evaluate();
+        assertEquals(3, g.getTierIndex());
+
+        power.thermal = PowerStateProvider.THERMAL_NONE;
+        g.evaluate();
+        now += 29_000;
+        g.evaluate();
+        assertEquals("still cooling down", 3, g.getTierIndex());
+        now += 1_000;
+        g.evaluate();
+        assertEquals(2, g.getTierIndex());
+        now += 1_000;
+        g.evaluate();
+        assertEquals("next step waits a full period", 2, g.getTierIndex());
+        now += 30_000;
+        g.evaluate();
+        assertEquals(1, g.getTierIndex());
+    }
+
+    @Test
+    public void flickeringStatusRestartsTheHoldPeriod() {
+        PerformanceGovernor g = governor();
+        power.thermal = PowerStateProvider.THERMAL_MODERATE;
+        g.evaluate();
+        for (int i = 0; i < 10; i++) {
+            power.thermal = i % 2 == 0 ? PowerStateProvider.THERMAL_LIGHT : PowerStateProvider.THERMAL_MODERATE;
+            now += 20_000;
+            g.evaluate();
+        }
+        assertEquals(1, g.getTierIndex());
+        assertEquals(1, g.getChanges());
+    }
+
+    @Test
+    public void lowBatteryHoldsUntilPastTheMargin() {
+        PerformanceGovernor g = governor();
+        power.battery = 20;
+        assertEquals("warm", g.evaluate().name);
+        power.battery = 9;
+        assertEquals("hot", g.evaluate().name);
+
+        // back above the critical threshold, but inside its margin
+        power.battery = 14;
+        now += 60_000;
+        g.evaluate();
+        now += 60_000;
+        assertEquals("hot", g.evaluate().name);
+        power.battery = 16;
+        g.evaluate();
+        now += 30_000;
+        assertEquals("warm", g.evaluate().name);
+    }
+
+    @Test
+    public void chargingLiftsTheBatteryLimit() {
+        PerformanceGovernor g = governor();
+        power.battery = 5;
+        assertEquals(2, TIERS.indexOf(g.evaluate()));
+        power.charging = true;
+        g.evaluate();
+        now += 30_000;
+        g.evaluate();
+        now += 30_000;
+        assertEquals("full", g.evaluate().name);
+        // heat still counts while charging
+        power.thermal = PowerStateProvider.THERMAL_MODERATE;
+        assertEquals("warm", g.evaluate().name);
+    }
+
+    @Test
+    public void unknownBatteryIsIgnored() {
+        PerformanceGovernor g = governor();
+        power.battery = -1;
+        assertEquals("full", g.evaluate().name);
+    }
+
+    @Test
+    public void thermalMappingIsCappedAtTheLastTier() {
+        assertEquals(0, PerformanceGovernor.thermalTier(PowerStateProvider.THERMAL_NONE));
+        assertEquals(0, PerformanceGovernor.thermalTier(PowerStateProvider.THERMAL_LIGHT));
+        assertEquals(1, PerformanceGovernor.thermalTier(PowerStateProvider.THERMAL_MODERATE));
+        assertEquals(3, PerformanceGovernor.thermalTier(PowerStateProvider.THERMAL_SHUTDOWN));
+
+        PerformanceGovernor two = new PerformanceGovernor(TIERS.subList(0, 2), power, () -> now, 20, 10, 0);
+        power.thermal = PowerStateProvider.THERMAL_SHUTDOWN;
+        assertEquals("warm", two.evaluate().name);
+    }
+
+    @Test
+    public void lumaTiersForceLumaAndJpegTiersKeepTheRequestedMode() {
+        PayloadMode luma = new PayloadMode(FrameFormat.LUMA, 2, PayloadMode.ROI_LOWER);
+        PayloadMode jpeg = new PayloadMode(FrameFormat.JPEG, 2, PayloadMode.ROI_LOWER);
+        assertSame(luma, TIERS.get(1).limit(luma)); // a server's LUMA survives a full -> warm step
+        assertSame(jpeg, TIERS.get(1).limit(jpeg));
+        assertEquals(luma, TIERS.get(2).limit(jpeg)); // region and scale kept
+        assertSame(luma, TIERS.get(3).limit(luma));
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PipelineStageTest {
+
+    /** Stage whose worker parks on {@code gate} while handling the first item. */
+    private static PipelineStage<Integer> gatedStage(DropPolicy policy, List<Integer> handled,
+                                                     CountDownLatch started, CountDownLatch gate,
+                                                     CountDownLatch done) {
+        return new PipelineStage<>("test", 2, policy, item -> {
+            started.countDown();
+            gate.await();
+            handled.add(item);
+            done.countDown();
+        });
+    }
+
+    @Test
+    public void dropOldest_keepsFreshestItems() throws Exception {
+        List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        PipelineStage<Integer> stage = gatedStage(DropPolicy.DROP_OLDEST, handled, started, gate, done);
+
+        stage.offer(1);
+        assertTrue(started.await(2, TimeUnit.SECONDS)); // worker is now holding item 1
+        assertTrue(stage.offer(2));
+        assertTrue(stage.offer(3));
+        assertTrue(stage.offer(4));                      // evicts 2
+        assertEquals(2, stage.getStats().getDepth());
+
+        gate.countDown();
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 3, 4), handled);
+        assertEquals(1, stage.getStats().getDropped());
+        assertEquals(4, stage.getStats().getSubmitted());
+        stage.shutdown();
+    }
+
+    @Test
+    public void droppedItemsGoToDropCallback() throws Exception {
+        List<Integer> dropped = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        PipelineStage<Integer> stage = new PipelineStage<>("test", 1, DropPolicy.DROP_OLDEST, item -> {
+            started.countDown();
+            gate.await();
+        }, dropped::add);
+
+        stage.offer(1);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        stage.offer(2);
+        stage.offer(3); // evicts 2
+        stage.shutdown();  // discards 3
+        gate.countDown();
+
+        assertEquals(List.of(2, 3), dropped);
+    }
+
+    @Test
+    public void dropNewest_rejectsWhenFull() throws Exception {
+        List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        PipelineStage<Integer> stage = gatedStage(DropPolicy.DROP_NEWEST, handled, started, gate, done);
+
+        stage.offer(1);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        assertTrue(stage.offer(2));
+        assertTrue(stage.offer(3));
+        assertFalse(stage.offer(4));
+
+        gate.countDown();
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 3), handled);
+        assertEquals(1, stage.getStats().getDropped());
+        stage.shutdown();
+    }
+
+    @Test
+    public void block_waitsForRoom() throws Exception {
+        List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        PipelineStage<Integer> stage = gatedStage(DropPolicy.BLOCK, handled, started, gate, done);
+
+        stage.offer(1);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        stage.offer(2);
+        stage.offer(3);
+
+        Thread producer = new Thread(() -> stage.offer(4));
+        producer.start();
+        producer.join(100);
+        assertTrue("producer should block on a full queue", producer.isAlive());
+
+        gate.countDown();
+        producer.join(2000);
+        assertFalse(producer.isAlive());
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 3, 4), handled);
+        assertEquals(0, stage.getStats().getDropped());
+        stage.shutdown();
+    }
+
+    @Test
+    public void handlerFailureIsCountedAndStageKeepsRunning() throws Exception {
+        CountDownLatch done = new CountDownLatch(2);
+        PipelineStage<Integer> stage = new PipelineStage<>("test", 4, DropPolicy.BLOCK, item -> {
+            done.countDown();
+            if (item == 1) throw new IllegalStateException("boom");
+        });
+
+        stage.offer(1);
+        stage.offer(2);
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(1, stage.getStats().getFailed());
+        assertEquals(1, stage.getStats().getProcessed());
+        stage.shutdown();
+    }
+
+    @Test
+    public void framePipeline_runsCaptureEncodeUpload() throws Exception {
+        CountDownLatch uploaded = new CountDownLatch(1);
+        long[] seen = new long[2];
+        FrameEncoder encoder = new FrameEncoder(FrameFormat.LUMA, 50, false, null);
+        FramePipeline pipeline = new FramePipeline(encoder, frame -> {
+            seen[0] = frame.payloadLength();
+            seen[1] = frame.captureNanos;
+            uploaded.countDown();
+        }, 2, DropPolicy.DROP_OLDEST);
+
+        java.nio.ByteBuffer y = java.nio.ByteBuffer.allocate(16);
+        java.nio.ByteBuffer uv = java.nio.ByteBuffer.allocate(8);
+        assertTrue(pipeline.capture(new YuvFrame(4, 4, y, uv, uv, 4, 4, 2), 1234L));
+
+        assertTrue(uploaded.await(2, TimeUnit.SECONDS));
+        assertEquals(16, seen[0]);
+        assertEquals(1234L, seen[1]);
+        assertEquals(3, pipeline.getStats().size());
+        pipeline.shutdown();
+    }
+}
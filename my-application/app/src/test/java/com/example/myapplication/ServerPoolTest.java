@@ -0,0 +1,224 @@
+package com.example.myapplication;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class ServerPoolTest {
+
+    /** A server that answers everything with {@link #code} after {@link #delayMs}. */
+    private static final class FakeServer extends Dispatcher {
+        final MockWebServer web = new MockWebServer();
+        volatile int code = 200;
+        volatile long delayMs = 0;
+        volatile int frames = 0;
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            if ("/Server".equals(request.getPath())) frames++;
+            return new MockResponse().setResponseCode(code).setBody("ok")
+                    .setBodyDelay(delayMs, TimeUnit.MILLISECONDS);
+        }
+
+        String url() { return web.url("/").toString(); }
+    }
+
+    private final OkHttpClient client = new OkHttpClient.Builder()
+            .callTimeout(1, TimeUnit.SECONDS).build();
+    private final List<String> changes = new ArrayList<>();
+    private FakeServer a;
+    private FakeServer b;
+
+    @Before
+    public void setUp() throws Exception {
+        a = new FakeServer();
+        b = new FakeServer();
+        for (FakeServer s : Arrays.asList(a, b)) {
+            s.web.setDispatcher(s);
+            s.web.start();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        a.web.shutdown();
+        b.web.shutdown();
+    }
+
+    private ServerPool pool(ServerPool.Strategy strategy) {
+        ServerPool pool = new ServerPool(client, Arrays.asList(a.url(), b.url()), strategy, "/stt_audio");
+        pool.setListener((from, to) -> changes.add(from + " -> " + to));
+        return pool;
+    }
+
+    private static ServerPool.Endpoint endpoint(ServerPool pool, int i) {
+        return pool.getEndpoints().get(i);
+    }
+
+    @Test
+    public void probeMarksDownServerUnhealthyAndMovesPrimary() {
+        ServerPool pool = pool(ServerPool.Strategy.LEAST_OUTSTANDING);
+        a.code = 503;
+        pool.probeAll();
+
+        assertFalse(pool.isHealthy(endpoint(pool, 0)));
+        assertTrue(pool.isHealthy(endpoint(pool, 1)));
+        assertSame(endpoint(pool, 1), pool.primary());
+        assertEquals(List.of(endpoint(pool, 0) + " -> " + endpoint(pool, 1)), changes);
+
+        // a is back, but the primary stays where it is until b goes down
+        a.code = 200;
+        pool.probeAll();
+        assertTrue(pool.isHealthy(endpoint(pool, 0)));
+        assertSame(endpoint(pool, 1), pool.primary());
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    public void leastOutstandingSpreadsConcurrentRequests() {
+        ServerPool pool = pool(ServerPool.Strategy.LEAST_OUTSTANDING);
+        ServerPool.Lease first = pool.acquire(null);
+        ServerPool.Lease second = pool.acquire(null);
+        assertNotSame(first.endpoint, second.endpoint);
+
+        first.close(true);
+        ServerPool.Lease third = pool.acquire(null);
+        assertSame(first.endpoint, third.endpoint);
+        assertEquals(1, pool.getOutstanding(first.endpoint));
+    }
+
+    @Test
+    public void lowestLatencyPrefersFasterServer() {
+        ServerPool pool = pool(ServerPool.Strategy.LOWEST_LATENCY);
+        a.delayMs = 150;
+        pool.probeAll();
+
+        assertTrue(pool.getLatencyEwmaMs(endpoint(pool, 0)) > pool.getLatencyEwmaMs(endpoint(pool, 1)));
+        for (int i = 0; i < 3; i++) {
+            ServerPool.Lease lease = pool.acquire(null);
+            assertSame(endpoint(pool, 1), lease.endpoint);
+            lease.close(true);
+        }
+    }
+
+    @Test
+    public void requestFailuresEjectAndProbeRestores() {
+        ServerPool pool = pool(ServerPool.Strategy.LEAST_OUTSTANDING);
+        ServerPool.Endpoint first = endpoint(pool, 0);
+        for (int i = 0; i < ServerPool.FAILURES_TO_EJECT; i++) pool.leaseOn(first).close(false);
+
+        assertFalse(pool.isHealthy(first));
+        assertSame(endpoint(pool, 1), pool.primary());
+        ServerPool.Lease lease = pool.acquire(null);
+        assertSame(endpoint(pool, 1), lease.endpoint);
+        lease.close(true);
+
+        pool.probeAll();
+        assertTrue(pool.isHealthy(first));
+    }
+
+    @Test
+    public void allDownStillHandsOutAnEndpoint() {
+        ServerPool pool = pool(ServerPool.Strategy.LEAST_OUTSTANDING);
+        a.code = 503;
+        b.code = 503;
+        pool.probeAll();
+
+        assertFalse(pool.anyHealthy());
+        assertNotNull(pool.acquire(null));
+        // moved once while b still looked fine, then stays put: nowhere better to go
+        assertEquals(1, changes.size());
+        assertSame(endpoint(pool, 1), pool.primary());
+    }
+
+    @Test
+    public void httpTransportRetriesFrameOnOtherServer() throws Exception {
+        ServerPool pool = pool(ServerPool.Strategy.LEAST_OUTSTANDING);
+        HttpFrameTransport transport = new HttpFrameTransport(client, pool, "/Server", "s1");
+        PooledFrame frame = new FrameBufferPool(1).acquire(4, 4, FrameFormat.LUMA);
+        frame.setPayload(new byte[16], 16);
+
+        a.code = 500;
+        transport.send(frame);
+        transport.send(frame);
+        // each frame fails on a, lands on b; the second failure in a row ejects a
+        assertEquals(2, a.frames);
+        assertEquals(2, b.frames);
+        assertFalse(pool.isHealthy(endpoint(pool, 0)));
+
+        b.code = 500;
+        try {
+            transport.send(frame);
+            fail("both servers failing");
+        } catch (FrameRejectedException e) {
+            fail("a 500 is not backpressure");
+        } catch (IOException expected) {
+            assertEquals("HTTP 500", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void warmUpLeavesAnOpenConnectionPerServer() {
+        ServerPool pool = pool(ServerPool.Strategy.LEAST_OUTSTANDING);
+        assertTrue(pool.warmUp().isEmpty());
+        assertEquals(2, client.connectionPool().idleConnectionCount());
+        assertTrue(pool.getLatencyEwmaMs(endpoint(pool, 0)) >= 0);
+    }
+
+    @Test
+    public void httpTransportDoesNotRetryBackpressure() throws Exception {
+        ServerPool pool = pool(ServerPool.Strategy.LEAST_OUTSTANDING);
+        HttpFrameTransport transport = new HttpFrameTransport(client, pool, "/Server", "s1");
+        PooledFrame frame = new FrameBufferPool(1).acquire(4, 4, FrameFormat.LUMA);
+        frame.setPayload(new byte[16], 16);
+
+        a.code = 429;
+        b.code = 429;
+        try {
+            transport.send(frame);
+            fail("expected rejection");
+        } catch (FrameRejectedException expected) {
+            // the server is up, just busy
+        }
+        assertEquals(1, a.frames + b.frames);
+        assertTrue(pool.isHealthy(endpoint(pool, 0)) && pool.isHealthy(endpoint(pool, 1)));
+    }
+
+    @Test
+    public void httpTransportDoesNotRetryOrEjectOnClientError() throws Exception {
+        ServerPool pool = pool(ServerPool.Strategy.LEAST_OUTSTANDING);
+        HttpFrameTransport transport = new HttpFrameTransport(client, pool, "/Server", "s1");
+        PooledFrame frame = new FrameBufferPool(1).acquire(4, 4, FrameFormat.LUMA);
+        frame.setPayload(new byte[16], 16);
+
+        a.code = 400;
+        b.code = 400;
+        for (int i = 0; i < 3; i++) {
+            try {
+                transport.send(frame);
+                fail("expected a client error");
+            } catch (FrameRejectedException e) {
+                fail("a 400 is not backpressure");
+            } catch (IOException expected) {
+                assertEquals("HTTP 400", expected.getMessage());
+            }
+        }
+        // one request per frame, and a bad request says nothing about the server's health
+        assertEquals(3, a.frames + b.frames);
+        assertTrue(pool.isHealthy(endpoint(pool, 0)) && pool.isHealthy(endpoint(pool, 1)));
+    }
+}
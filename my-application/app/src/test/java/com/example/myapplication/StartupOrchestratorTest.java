@@ -0,0 +1,185 @@
+package com.example.myapplication;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StartupOrchestratorTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(3, r -> new Thread(r, "startup"));
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<>());
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private Runnable log(String name) {
+        return () -> ran.add(name);
+    }
+
+    /** The same graph MainActivity builds, with logging bodies. */
+    private StartupOrchestrator appGraph(Executor main, Executor background) {
+        return new StartupOrchestrator(Clock.MONOTONIC)
+                .task("session", background, log("session"))
+                .task("network", background, log("network"))
+                .task("governor", background, log("governor"))
+                .task("audio", background, log("audio"))
+                .task("outbox", background, log("outbox"), "session")
+                .task("debug", background, log("debug"), "governor")
+                .task("camera", main, log("camera"), "session", "governor")
+                .task("mic", main, log("mic"), "camera")
+                .task("socket", main, log("socket"), "session");
+    }
+
+    private static void assertBefore(List<String> order, String first, String then) {
+        assertTrue(first + " before " + then + " in " + order, order.indexOf(first) < order.indexOf(then));
+    }
+
+    @Test
+    public void orderRespectsEveryDependency() {
+        List<String> order = appGraph(DIRECT, DIRECT).order();
+        assertEquals(9, order.size());
+        assertBefore(order, "session", "outbox");
+        assertBefore(order, "session", "camera");
+        assertBefore(order, "governor", "camera");
+        assertBefore(order, "governor", "debug");
+        assertBefore(order, "camera", "mic");
+        assertBefore(order, "session", "socket");
+        // ties keep insertion order
+        assertEquals(Arrays.asList("session", "network", "governor", "audio"), order.subList(0, 4));
+    }
+
+    @Test
+    public void runsEachTaskOnceAfterItsDependencies() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        StartupOrchestrator startup = appGraph(pool, pool);
+        startup.setListener(s -> done.countDown());
+        startup.start();
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+
+        assertEquals(9, ran.size());
+        assertEquals(9, ran.stream().distinct().count());
+        assertBefore(ran, "session", "outbox");
+        assertBefore(ran, "governor", "camera");
+        assertBefore(ran, "camera", "mic");
+        assertTrue(startup.isFinished());
+        assertEquals(StartupOrchestrator.State.DONE, startup.getState("socket"));
+    }
+
+    @Test
+    public void independentTasksOverlap() throws Exception {
+        // each task waits for the other to start, which only works if they run concurrently
+        CountDownLatch both = new CountDownLatch(2);
+        Runnable meet = () -> {
+            both.countDown();
+            try {
+                if (!both.await(2, TimeUnit.SECONDS)) throw new IllegalStateException("ran serially");
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        CountDownLatch done = new CountDownLatch(1);
+        StartupOrchestrator startup = new StartupOrchestrator(Clock.MONOTONIC)
+                .task("network", pool, meet)
+                .task("audio", pool, meet);
+        startup.setListener(s -> done.countDown());
+        startup.start();
+        assertTrue(done.await(3, TimeUnit.SECONDS));
+        assertEquals(StartupOrchestrator.State.DONE, startup.getState("network"));
+        assertEquals(StartupOrchestrator.State.DONE, startup.getState("audio"));
+    }
+
+    @Test
+    public void failureSkipsOnlyItsDependents() {
+        StartupOrchestrator startup = new StartupOrchestrator(Clock.MONOTONIC)
+                .task("session", DIRECT, () -> { throw new IllegalStateException("no prefs"); })
+                .task("governor", DIRECT, log("governor"))
+                .task("socket", DIRECT, log("socket"), "session")
+                .task("outbox", DIRECT, log("outbox"), "socket")
+                .task("camera", DIRECT, log("camera"), "governor");
+        startup.start();
+
+        assertEquals(Arrays.asList("governor", "camera"), ran);
+        assertEquals(StartupOrchestrator.State.FAILED, startup.getState("session"));
+        assertEquals(StartupOrchestrator.State.SKIPPED, startup.getState("socket"));
+        assertEquals(StartupOrchestrator.State.SKIPPED, startup.getState("outbox"));
+        assertTrue(startup.isFinished());
+        assertTrue(startup.toJson(), startup.toJson().contains("\"error\":\"java.lang.IllegalStateException: no prefs\""));
+    }
+
+    @Test
+    public void cycleAndUnknownDependencyAreRejectedBeforeAnythingRuns() {
+        StartupOrchestrator cycle = new StartupOrchestrator(Clock.MONOTONIC)
+                .task("a", DIRECT, log("a"), "c")
+                .task("b", DIRECT, log("b"), "a")
+                .task("c", DIRECT, log("c"), "b")
+                .task("d", DIRECT, log("d"));
+        try {
+            cycle.start();
+            fail("expected a cycle");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("cycle"));
+        }
+
+        StartupOrchestrator unknown = new StartupOrchestrator(Clock.MONOTONIC)
+                .task("socket", DIRECT, log("socket"), "sesion");
+        try {
+            unknown.start();
+            fail("expected an unknown dependency");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("sesion"));
+        }
+        assertTrue(ran.isEmpty());
+    }
+
+    @Test
+    public void cancelSkipsTasksNotYetDispatched() {
+        List<Runnable> mainQueue = new ArrayList<>();
+        StartupOrchestrator startup = new StartupOrchestrator(Clock.MONOTONIC)
+                .task("session", DIRECT, log("session"))
+                .task("camera", mainQueue::add, log("camera"), "session")
+                .task("mic", DIRECT, log("mic"), "camera");
+        startup.start();
+        assertEquals(1, mainQueue.size());
+
+        startup.cancel();
+        assertFalse(startup.isFinished());
+        mainQueue.get(0).run(); // already queued: still runs
+        assertEquals(Arrays.asList("session", "camera"), ran);
+        assertEquals(StartupOrchestrator.State.SKIPPED, startup.getState("mic"));
+        assertTrue(startup.isFinished());
+    }
+
+    @Test
+    public void traceRecordsTimingsAndMilestones() {
+        long[] now = { 1000 };
+        StartupOrchestrator startup = new StartupOrchestrator(() -> now[0])
+                .task("session", DIRECT, () -> now[0] += 5)
+                .task("audio", DIRECT, () -> now[0] += 40, "session");
+        now[0] += 2;
+        startup.start();
+        startup.milestone("first_cue");
+        now[0] += 100;
+        startup.milestone("first_cue");
+
+        assertEquals(47, startup.getTotalMs());
+        assertEquals("{\"total_ms\":47,\"milestones\":{\"first_cue\":47},\"tasks\":["
+                + "{\"name\":\"session\",\"deps\":[],\"state\":\"done\",\"thread\":\"main\",\"queued_ms\":2,\"start_ms\":2,\"end_ms\":7},"
+                + "{\"name\":\"audio\",\"deps\":[\"session\"],\"state\":\"done\",\"thread\":\"main\",\"queued_ms\":7,\"start_ms\":7,\"end_ms\":47}]}",
+                startup.toJson().replace(Thread.currentThread().getName(), "main"));
+    }
+}
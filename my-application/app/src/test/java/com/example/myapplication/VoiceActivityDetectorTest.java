@@ -0,0 +1,171 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/** Fixtures in src/test/resources/vad come from make_fixtures.py there. */
+public class VoiceActivityDetectorTest {
+
+    private static final int RATE = 16000;
+
+    private static VoiceActivityDetector vad() {
+        return new VoiceActivityDetector(RATE, 20, 10, -50, 1000);
+    }
+
+    private static VoiceClip clip(int trailingSilenceMs, int noSpeechTimeoutMs) {
+        return new VoiceClip(vad(), 200, trailingSilenceMs, noSpeechTimeoutMs, 30_000);
+    }
+
+    private static byte[] fixture(String name) throws IOException {
+        try (InputStream in = VoiceActivityDetectorTest.class.getResourceAsStream("/vad/" + name)) {
+            assertNotNull(name, in);
+            WavFile wav = WavFile.read(in);
+            assertEquals(RATE, wav.sampleRate);
+            return wav.pcm;
+        }
+    }
+
+    /** Feeds {@code pcm} in microphone-sized reads; returns the byte offset at which the clip ended, or -1. */
+    private static int feed(VoiceClip clip, byte[] pcm) {
+        for (int off = 0; off < pcm.length; off += 2048) {
+            if (clip.write(pcm, off, Math.min(2048, pcm.length - off))) return off;
+        }
+        return -1;
+    }
+
+    private static long ms(int bytes) { return bytes * 1000L / (2 * RATE); }
+
+    /** Start of the trimmed audio inside the raw clip, in ms. */
+    private static long trimStartMs(byte[] raw, byte[] trimmed) {
+        for (int off = 0; off + trimmed.length <= raw.length; off += 2) {
+            if (raw[off] == trimmed[0] && Arrays.equals(Arrays.copyOfRange(raw, off, off + trimmed.length), trimmed)) {
+                return ms(off);
+            }
+        }
+        throw new AssertionError("trimmed audio is not a slice of the recording");
+    }
+
+    @Test
+    public void levelOfFullScaleAndSilence() {
+        byte[] pcm = new byte[640];
+        assertEquals(-100, VoiceActivityDetector.levelDb(pcm, 0, pcm.length), 0);
+        for (int i = 0; i < pcm.length; i += 2) {
+            pcm[i] = (byte) 0xFF;
+            pcm[i + 1] = (byte) ((i / 2) % 2 == 0 ? 0x7F : 0x80); // +32767 / -32513
+        }
+        assertEquals(0, VoiceActivityDetector.levelDb(pcm, 0, pcm.length), 0.1);
+    }
+
+    @Test
+    public void trimsRoomNoiseAroundTheCommand() throws Exception {
+        byte[] raw = fixture("speech_padded.wav");  // 0.8 s room, 1.2 s speech (last word ends ~1.08 s in), 0.8 s room
+        VoiceClip clip = clip(1500, 5000);
+        assertEquals(-1, feed(clip, raw));
+        assertFalse("0.8 s of trailing room is under the 1.5 s window", clip.isComplete());
+        assertTrue(clip.hasSpeech());
+
+        byte[] trimmed = clip.trimmed();
+        long start = trimStartMs(raw, trimmed);
+        long end = start + ms(trimmed.length);
+        assertEquals(2800, clip.getRawMs());
+        assertEquals("starts 200 ms before speech", 600, start, 100);
+        assertEquals("ends 200 ms after the last word", 2080, end, 120);
+        assertEquals(trimmed.length, clip.getTrimmedBytes());
+    }
+
+    @Test
+    public void stopsByItselfAfterTrailingSilence() throws Exception {
+        byte[] speech = fixture("speech_padded.wav");
+        byte[] room = Arrays.copyOfRange(speech, speech.length - 2 * RATE * 6 / 10, speech.length); // 0.6 s
+        VoiceClip clip = clip(1500, 5000);
+        assertEquals(-1, feed(clip, speech));
+        int endedAt = -1;
+        for (int i = 0; i < 5 && endedAt < 0; i++) endedAt = feed(clip, room);
+        assertTrue(clip.isComplete());
+        // last word ~1.88 s into the recording, plus the 1.5 s window
+        assertEquals(3380, clip.getRawMs(), 150);
+        int bytes = clip.getRawBytes();
+        assertTrue(clip.write(room, 0, 100));
+        assertEquals("later audio is ignored", bytes, clip.getRawBytes());
+    }
+
+    @Test
+    public void clickInAnEmptyRoomIsNotSpeech() throws Exception {
+        VoiceClip clip = clip(1500, 1000);
+        int endedAt = feed(clip, fixture("noise_only.wav"));
+        assertFalse(clip.hasSpeech());
+        assertNull(clip.trimmed());
+        assertEquals(0, clip.getTrimmedBytes());
+        assertEquals("no-speech timeout", 1000, ms(endedAt), 70);
+    }
+
+    @Test
+    public void speechRightAtTheStartIsKept() throws Exception {
+        byte[] raw = fixture("speech_at_start.wav");
+        VoiceClip clip = clip(1500, 5000);
+        feed(clip, raw);
+        assertTrue(clip.hasSpeech());
+        assertEquals(0, trimStartMs(raw, clip.trimmed()), 120);
+    }
+
+    @Test
+    public void wavRoundTrips() throws Exception {
+        byte[] pcm = { 1, 2, 3, 4, 5, 6 };
+        byte[] wav = WavFile.encode(pcm, 16000);
+        assertEquals(WavFile.HEADER_SIZE + pcm.length, wav.length);
+        WavFile read = WavFile.read(new ByteArrayInputStream(wav));
+        assertEquals(16000, read.sampleRate);
+        assertArrayEquals(pcm, read.pcm);
+    }
+
+    /** Plays a byte array like a microphone, then ends. */
+    private static VoiceStreamer.PcmSource source(byte[] pcm) {
+        return new VoiceStreamer.PcmSource() {
+            int pos = 0;
+
+            @Override public int read(byte[] buf, int off, int len) {
+                if (pos >= pcm.length) return -1;
+                int n = Math.min(len, pcm.length - pos);
+                System.arraycopy(pcm, pos, buf, off, n);
+                pos += n;
+                return n;
+            }
+
+            @Override public void close() { }
+        };
+    }
+
+    @Test
+    public void recorderSendsTrimmedWavAndCountsTheSaving() throws Exception {
+        List<byte[]> sent = new ArrayList<>();
+        Semaphore delivered = new Semaphore(0);
+        VoiceClipRecorder recorder = new VoiceClipRecorder(RATE, () -> clip(1500, 5000), (wav, clip, autoStopped) -> {
+            sent.add(wav);
+            delivered.release();
+        });
+
+        byte[] speech = fixture("speech_padded.wav");
+        assertTrue(recorder.start(source(speech)));
+        assertTrue(delivered.tryAcquire(2, TimeUnit.SECONDS));
+        assertTrue(recorder.start(source(fixture("noise_only.wav"))));
+        assertTrue(delivered.tryAcquire(2, TimeUnit.SECONDS));
+
+        assertEquals(2, recorder.getClips());
+        assertEquals(1, recorder.getDropped());
+        assertNull(sent.get(1));
+        WavFile wav = WavFile.read(new ByteArrayInputStream(sent.get(0)));
+        assertEquals(recorder.getTrimmedBytes(), wav.pcm.length);
+        assertTrue("trimmed " + recorder, wav.pcm.length < speech.length * 6 / 10);
+        assertEquals(recorder.getRawBytes() - wav.pcm.length, recorder.getBytesSaved());
+    }
+}
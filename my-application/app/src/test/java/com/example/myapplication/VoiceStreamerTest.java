@@ -0,0 +1,154 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class VoiceStreamerTest {
+
+    /** Serves {@code total} bytes of a counting pattern in small reads, then ends (or blocks). */
+    private static final class FakeMic implements VoiceStreamer.PcmSource {
+        final int total;
+        final boolean endOfInput;
+        int position = 0;
+        volatile boolean closed = false;
+
+        FakeMic(int total, boolean endOfInput) {
+            this.total = total;
+            this.endOfInput = endOfInput;
+        }
+
+        @Override public int read(byte[] buf, int off, int len) {
+            if (position >= total) {
+                if (endOfInput) return -1;
+                try { Thread.sleep(5); } catch (InterruptedException ignored) { }
+                return 0;
+            }
+            int n = Math.min(Math.min(len, 320), total - position);
+            for (int i = 0; i < n; i++) buf[off + i] = (byte) (position + i);
+            position += n;
+            return n;
+        }
+
+        @Override public void close() { closed = true; }
+    }
+
+    private static final class RecordingSink implements VoiceStreamer.Sink {
+        final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        final ByteArrayOutputStream audio = new ByteArrayOutputStream();
+        final CountDownLatch ended = new CountDownLatch(1);
+
+        @Override public void onStart(int streamId, int sampleRate) {
+            events.add("start " + streamId + " " + sampleRate);
+        }
+
+        @Override public synchronized void onChunk(int streamId, int seq, byte[] pcm, int len) {
+            events.add("chunk " + seq + " " + len);
+            audio.write(pcm, 0, len);
+        }
+
+        @Override public void onEnd(int streamId, int chunks) {
+            events.add("end " + chunks);
+            ended.countDown();
+        }
+    }
+
+    @Test
+    public void ring_readsWholeChunksAndWrapsAround() throws Exception {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        byte[] out = new byte[4];
+
+        ring.write(new byte[] { 1, 2, 3, 4, 5, 6 }, 0, 6);
+        assertEquals(4, ring.read(out, 0, 4, 0));
+        assertArrayEquals(new byte[] { 1, 2, 3, 4 }, out);
+
+        ring.write(new byte[] { 7, 8, 9, 10 }, 0, 4); // wraps
+        assertEquals(0, ring.read(new byte[8], 0, 8, 10)); // only 6 buffered: times out
+        assertEquals(4, ring.read(out, 0, 4, 0));
+        assertArrayEquals(new byte[] { 5, 6, 7, 8 }, out);
+    }
+
+    @Test
+    public void ring_overwritesOldestWhenReaderFallsBehind() throws Exception {
+        PcmRingBuffer ring = new PcmRingBuffer(4);
+        ring.write(new byte[] { 1, 2, 3 }, 0, 3);
+        ring.write(new byte[] { 4, 5, 6 }, 0, 3);
+        assertEquals(2, ring.getOverrunBytes());
+
+        byte[] out = new byte[4];
+        assertEquals(4, ring.read(out, 0, 4, 0));
+        assertArrayEquals(new byte[] { 3, 4, 5, 6 }, out);
+    }
+
+    @Test
+    public void ring_drainsPartialChunkAfterClose() throws Exception {
+        PcmRingBuffer ring = new PcmRingBuffer(16);
+        ring.write(new byte[] { 1, 2, 3 }, 0, 3);
+        ring.close();
+        ring.write(new byte[] { 4 }, 0, 1); // ignored
+
+        byte[] out = new byte[8];
+        assertEquals(3, ring.read(out, 0, 8, 1000));
+        assertEquals(-1, ring.read(out, 0, 8, 1000));
+    }
+
+    @Test
+    public void streamsFixedChunksAndFlushesTailOnEndOfInput() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        VoiceStreamer streamer = new VoiceStreamer(sink, 16000, 1000, 64_000);
+        FakeMic mic = new FakeMic(2500, true);
+
+        assertEquals(1, streamer.start(mic));
+        assertTrue(sink.ended.await(2, TimeUnit.SECONDS));
+
+        assertEquals(List.of("start 1 16000", "chunk 0 1000", "chunk 1 1000", "chunk 2 500", "end 3"), sink.events);
+        byte[] audio = sink.audio.toByteArray();
+        assertEquals(2500, audio.length);
+        for (int i = 0; i < audio.length; i++) assertEquals((byte) i, audio[i]);
+        assertTrue(mic.closed);
+        assertEquals(3, streamer.getChunksSent());
+    }
+
+    @Test
+    public void stopEndsUtteranceAndNextStartGetsNewId() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        VoiceStreamer streamer = new VoiceStreamer(sink, 16000, 1000, 64_000);
+
+        assertEquals(1, streamer.start(new FakeMic(3000, false)));
+        assertEquals(-1, streamer.start(new FakeMic(10, true)));
+        while (streamer.getChunksSent() < 3) Thread.sleep(5);
+        streamer.stopAndJoin(2000);
+
+        assertTrue(sink.ended.await(0, TimeUnit.SECONDS));
+        assertEquals("end 3", sink.events.get(sink.events.size() - 1));
+        assertFalse(streamer.isRunning());
+        assertEquals(2, streamer.start(new FakeMic(10, true)));
+        streamer.stopAndJoin(2000);
+    }
+
+    @Test
+    public void sinkFailureStopsCapture() throws Exception {
+        FakeMic mic = new FakeMic(100_000, false);
+        VoiceStreamer streamer = new VoiceStreamer(new VoiceStreamer.Sink() {
+            @Override public void onStart(int streamId, int sampleRate) { }
+            @Override public void onChunk(int streamId, int seq, byte[] pcm, int len) throws IOException {
+                throw new IOException("socket not connected");
+            }
+            @Override public void onEnd(int streamId, int chunks) { fail("no end after a failed chunk"); }
+        }, 16000, 1000, 64_000);
+
+        streamer.start(mic);
+        for (int i = 0; i < 200 && !mic.closed; i++) Thread.sleep(10);
+        assertTrue(mic.closed);
+        assertEquals(1, streamer.getSendErrors());
+        assertFalse(streamer.isRunning());
+    }
+}
@@ -0,0 +1,44 @@
+# make_fixtures.py — regenerate the synthetic VAD fixtures used by VoiceActivityDetectorTest
+#
+#   python make_fixtures.py
+#
+# 16 kHz 16-bit mono. "Speech" is a voiced buzz (120-180 Hz fundamental with falling harmonics)
+# gated into syllables with short pauses between words; the room is white noise around -55 dBFS.
+import math, random, struct, wave
+
+RATE = 16000
+rng = random.Random(7)
+
+def noise(seconds, rms=55):
+    return [rng.gauss(0, rms) for _ in range(int(seconds * RATE))]
+
+def speech(seconds, rms=3000):
+    out = []
+    n = int(seconds * RATE)
+    phase = 0.0
+    for i in range(n):
+        t = i / RATE
+        f0 = 150 + 30 * math.sin(2 * math.pi * 0.7 * t)
+        phase += 2 * math.pi * f0 / RATE
+        voiced = sum(math.sin(k * phase) / k for k in range(1, 12))
+        syllable = max(0.0, math.sin(2 * math.pi * 4.0 * t)) ** 0.5   # ~4 syllables/s
+        word_gap = 0.0 if (t % 0.6) > 0.48 else 1.0                      # 120 ms pause per word
+        out.append(rms * 0.6 * voiced * syllable * word_gap + rng.gauss(0, 55))
+    return out
+
+def click(ms=6, amp=12000):
+    return [amp * (1 if i % 2 else -1) * math.exp(-i / 20) for i in range(int(ms * RATE / 1000))]
+
+def write(name, samples):
+    with wave.open(name, "wb") as w:
+        w.setnchannels(1)
+        w.setsampwidth(2)
+        w.setframerate(RATE)
+        w.writeframes(b"".join(struct.pack("<h", max(-32768, min(32767, int(s)))) for s in samples))
+
+# 0.8 s room, 1.2 s speech, 0.8 s room
+write("speech_padded.wav", noise(0.8) + speech(1.2) + noise(0.8))
+# a door click in 1.5 s of room noise, nothing said
+write("noise_only.wav", noise(0.7) + click() + noise(0.8))
+# the user starts talking almost as soon as recording starts
+write("speech_at_start.wav", noise(0.05) + speech(1.2) + noise(0.25))
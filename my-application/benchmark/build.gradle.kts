@@ -0,0 +1,66 @@
+// JMH microbenchmarks for the frame, network, instruction and voice hot paths, run on the JVM:
+//   ./gradlew :benchmark:jmh
+// Results: benchmark/build/results/jmh/results.json (compare two runs with compare_results.py)
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+sourceSets {
+    main {
+        java {
+            // The app's Android-free classes, compiled as they ship, so the numbers are for the real code
+            srcDir("../app/src/main/java")
+            include(
+                "com/example/myapplication/Clock.java",
+                "com/example/myapplication/FrameBatch.java",
+                "com/example/myapplication/FrameBufferPool.java",
+                "com/example/myapplication/FrameEncoder.java",
+                "com/example/myapplication/FrameFormat.java",
+                "com/example/myapplication/FrameHeader.java",
+                "com/example/myapplication/FrameRecorder.java",
+                "com/example/myapplication/FrameRejectedException.java",
+                "com/example/myapplication/FrameReplayer.java",
+                "com/example/myapplication/FrameTracer.java",
+                "com/example/myapplication/FrameTransport.java",
+                "com/example/myapplication/HttpFrameTransport.java",
+                "com/example/myapplication/Instruction.java",
+                "com/example/myapplication/InstructionScheduler.java",
+                "com/example/myapplication/InstructionSource.java",
+                "com/example/myapplication/JpegCompressor.java",
+                "com/example/myapplication/LatencyHistogram.java",
+                "com/example/myapplication/LocalInstructionEngine.java",
+                "com/example/myapplication/MotionGate.java",
+                "com/example/myapplication/PayloadMode.java",
+                "com/example/myapplication/PcmRingBuffer.java",
+                "com/example/myapplication/PooledFrame.java",
+                "com/example/myapplication/ServerPool.java",
+                "com/example/myapplication/VoiceActivityDetector.java",
+                "com/example/myapplication/YuvFrame.java",
+            )
+        }
+    }
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    implementation("com.squareup.okhttp3:okhttp:4.7.2")
+    jmhImplementation("com.squareup.okhttp3:mockwebserver:4.7.2") // stub server for ReplayUploadBenchmark
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
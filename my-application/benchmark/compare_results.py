@@ -0,0 +1,50 @@
+# compare_results.py — flag JMH regressions between two runs of ./gradlew :benchmark:jmh
+#
+#   cp benchmark/build/results/jmh/results.json baseline.json   # on the known-good build
+#   ./gradlew :benchmark:jmh
+#   python benchmark/compare_results.py baseline.json benchmark/build/results/jmh/results.json --threshold 10
+#
+# Exits 1 if any benchmark got slower, or sent more bytes per frame, by more than the threshold
+# (percent). Bytes per frame come from the bytes/frames counters (FrameBytesCounters).
+
+import argparse, json, sys
+
+def load(path):
+    with open(path) as f:
+        runs = json.load(f)
+    out = {}
+    for run in runs:
+        params = ",".join(f"{k}={v}" for k, v in sorted((run.get("params") or {}).items()))
+        name = run["benchmark"].rsplit(".", 2)[-2:]  # Class.method
+        key = ".".join(name) + (f"[{params}]" if params else "")
+        metric = run["primaryMetric"]
+        out[key] = (run["mode"], metric["score"], metric["scoreUnit"])
+        counters = {k.lstrip("\u00b7"): v["score"] for k, v in (run.get("secondaryMetrics") or {}).items()}
+        if counters.get("frames"):
+            out[key + ":bytes"] = ("bytes", counters["bytes"] / counters["frames"], "B/frame")
+    return out
+
+if __name__ == "__main__":
+    ap = argparse.ArgumentParser()
+    ap.add_argument("baseline")
+    ap.add_argument("current")
+    ap.add_argument("--threshold", type=float, default=10.0, help="allowed slowdown in percent")
+    args = ap.parse_args()
+
+    base, cur = load(args.baseline), load(args.current)
+    regressions = 0
+    for key in sorted(cur):
+        mode, score, unit = cur[key]
+        if key not in base:
+            print(f"  new    {key:70s} {score:12.3f} {unit}")
+            continue
+        old = base[key][1]
+        # throughput: higher is better; avgt/sample/ss and bytes per frame: lower is better
+        change = (old - score) / old * 100 if mode == "thrpt" else (score - old) / old * 100
+        flag = "WORSE" if change > args.threshold else "ok"
+        regressions += flag == "WORSE"
+        print(f"  {flag:6s} {key:70s} {old:12.3f} -> {score:12.3f} {unit} ({change:+.1f}%)")
+
+    if regressions:
+        print(f"{regressions} result(s) worse by more than {args.threshold}%")
+        sys.exit(1)
@@ -0,0 +1,67 @@
+package com.example.myapplication;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of producing one upload payload: JPEG through {@link FrameEncoder} (what ships), the
+ * lossless PNG the app used to send, and raw LUMA. Codecs are ImageIO, see {@link ImageIoCodecs}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EncodeBenchmark {
+
+    @Param({ "640x480", "320x240" })
+    public String resolution;
+
+    @Param({ "50" })
+    public int quality;
+
+    private YuvFrame frame;
+    private FrameEncoder jpeg;
+    private FrameEncoder luma;
+    private BufferedImage rgb;
+    private final ByteArrayOutputStream png = new ByteArrayOutputStream(1 << 20);
+
+    @Setup
+    public void setUp() {
+        int[] size = SyntheticFrames.size(resolution);
+        frame = SyntheticFrames.frame(size[0], size[1], true);
+        jpeg = new FrameEncoder(FrameFormat.JPEG, quality, true, new ImageIoCodecs.Jpeg());
+        luma = new FrameEncoder(FrameFormat.LUMA, quality, true, null);
+
+        byte[] nv21 = new byte[FrameFormat.JPEG.planeBytes(size[0], size[1])];
+        FrameEncoder.toNv21(frame, nv21, true);
+        rgb = new BufferedImage(size[0], size[1], BufferedImage.TYPE_INT_RGB);
+        ImageIoCodecs.nv21ToRgb(nv21, size[0], size[1], rgb);
+    }
+
+    @Benchmark
+    public byte[] jpeg() {
+        return jpeg.encode(frame);
+    }
+
+    /** PNG of the already-decoded image: a lower bound for the old JPEG -> Bitmap -> PNG path. */
+    @Benchmark
+    public int png() {
+        png.reset();
+        ImageIoCodecs.png(rgb, png);
+        return png.size();
+    }
+
+    @Benchmark
+    public byte[] luma() {
+        return luma.encode(frame);
+    }
+}
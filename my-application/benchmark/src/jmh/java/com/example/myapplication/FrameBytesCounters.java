@@ -0,0 +1,21 @@
+package com.example.myapplication;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Bytes and frames a benchmark produced, as JMH secondary metrics, so they land in results.json
+ * next to the times. {@code compare_results.py} divides one by the other for bytes per frame;
+ * the ratio is the same however JMH aggregates the two over iterations.
+ *
+ * JMH only reports these in Throughput and AverageTime modes.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class FrameBytesCounters {
+
+    // public fields only: JMH reports every public field and method of this class as a counter
+    public long bytes;
+    public long frames;
+}
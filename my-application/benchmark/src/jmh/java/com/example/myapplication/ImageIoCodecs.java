@@ -0,0 +1,83 @@
+package com.example.myapplication;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * JVM stand-ins for the platform codecs: {@code YuvImage} JPEG and {@code Bitmap} PNG.
+ * Absolute times differ from the device, but the JPEG/PNG/LUMA ratio is what we track.
+ */
+final class ImageIoCodecs {
+
+    private ImageIoCodecs() { }
+
+    /** {@link JpegCompressor} backed by ImageIO, NV21 converted to RGB first like YuvImage does. */
+    static final class Jpeg implements JpegCompressor {
+        private final ImageWriter writer;
+        private BufferedImage image;
+
+        Jpeg() {
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+            writer = writers.next();
+        }
+
+        @Override
+        public void compress(byte[] nv21, int width, int height, int quality, OutputStream out) {
+            if (image == null || image.getWidth() != width || image.getHeight() != height) {
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            }
+            nv21ToRgb(nv21, width, height, image);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality / 100f);
+            try (ImageOutputStream ios = new MemoryCacheImageOutputStream(out)) {
+                writer.setOutput(ios);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    static void png(BufferedImage image, OutputStream out) {
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** BT.601 full-range NV21 to RGB, the conversion YuvImage and BitmapFactory perform. */
+    static void nv21ToRgb(byte[] nv21, int width, int height, BufferedImage dst) {
+        int frameSize = width * height;
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            int uvRow = frameSize + (y >> 1) * width;
+            for (int x = 0; x < width; x++) {
+                int lum = nv21[y * width + x] & 0xFF;
+                int vu = uvRow + (x & ~1);
+                int v = (nv21[vu] & 0xFF) - 128;
+                int u = (nv21[vu + 1] & 0xFF) - 128;
+                int r = clamp(lum + (int) (1.402f * v));
+                int g = clamp(lum - (int) (0.344f * u + 0.714f * v));
+                int b = clamp(lum + (int) (1.772f * u));
+                row[x] = (r << 16) | (g << 8) | b;
+            }
+            dst.setRGB(0, y, width, 1, row, 0, width);
+        }
+    }
+
+    private static int clamp(int c) {
+        return c < 0 ? 0 : Math.min(c, 255);
+    }
+}
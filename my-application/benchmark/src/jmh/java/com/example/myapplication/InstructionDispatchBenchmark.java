@@ -0,0 +1,66 @@
+package com.example.myapplication;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency from an {@code instruction} event arriving to its cue being handed to the player:
+ * code lookup, frame trace match, age lookup, scheduler submit + pump. Everything the socket
+ * handler does except the org.json parse, which only exists on Android.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InstructionDispatchBenchmark {
+
+    private static final String[] CODES = { "1", "2", "5", "0", "3", "4" };
+
+    /** Always free, so every pump reaches play() like an idle SoundPool would. */
+    private static final InstructionScheduler.CuePlayer PLAYER = new InstructionScheduler.CuePlayer() {
+        @Override public Instruction current() { return null; }
+        @Override public boolean play(Instruction instruction) { return true; }
+    };
+
+    private FrameTracer tracer;
+    private InstructionScheduler scheduler;
+    private int next = 0;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        tracer = new FrameTracer();
+        FrameBufferPool pool = new FrameBufferPool(1);
+        long now = System.nanoTime();
+        for (int seq = 0; seq < 256; seq++) {
+            try (PooledFrame frame = pool.acquire(4, 4, FrameFormat.LUMA)) {
+                frame.seq = seq;
+                frame.startNanos = now;
+                frame.encodedNanos = now;
+                tracer.onUploaded(frame, now);
+            }
+        }
+        // no repeat suppression and no expiry: measure the path that ends in play()
+        scheduler = new InstructionScheduler(Clock.MONOTONIC, PLAYER, Long.MAX_VALUE / 4, 0);
+    }
+
+    @Benchmark
+    public Instruction dispatch() {
+        int i = next++;
+        long receivedNanos = System.nanoTime();
+        Instruction instruction = Instruction.fromCode(CODES[i % CODES.length]);
+        long frameId = i & 255;
+        tracer.onInstruction(frameId, receivedNanos);
+
+        long frameStartNanos = tracer.capturedAtNanos(frameId);
+        long frameAtMs = (frameStartNanos > 0 ? frameStartNanos : receivedNanos) / 1_000_000;
+        scheduler.submit(instruction, frameAtMs);
+        return scheduler.pump();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.myapplication;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame cost of the on-device {@link LocalInstructionEngine}, which runs on the capture
+ * thread and must stay inside its budget (LOCAL_BUDGET_MS in MainActivity, 4 ms on the glasses).
+ *
+ * Frames come from a recording made on the glasses ({@code -p recording=<file.yuvrec>}), or a
+ * synthetic walk past obstacles at 640x480. They are loaded into memory once, so only the
+ * engine is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LocalInstructionBenchmark {
+
+    @Param({ "" })
+    public String recording;
+
+    private final List<YuvFrame> frames = new ArrayList<>();
+    private LocalInstructionEngine engine;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (recording.isEmpty()) {
+            for (int i = 0; i < 30; i++) frames.add(SyntheticFrames.floorScene(640, 480, i));
+        } else {
+            try (FrameReplayer replayer = new FrameReplayer(new File(recording))) {
+                while (replayer.next()) frames.add(copy(replayer.frame())); // the replayer reuses its buffers
+            }
+        }
+        engine = new LocalInstructionEngine(true, 0.4, 24, 0.08, 0.35, 4);
+    }
+
+    private static YuvFrame copy(YuvFrame f) {
+        return new YuvFrame(f.width, f.height, clone(f.y), clone(f.u), clone(f.v),
+                f.yRowStride, f.uvRowStride, f.uvPixelStride);
+    }
+
+    private static ByteBuffer clone(ByteBuffer b) {
+        ByteBuffer c = ByteBuffer.allocateDirect(b.capacity());
+        c.put(b.duplicate().clear());
+        return c.clear();
+    }
+
+    @Benchmark
+    public Instruction classify() {
+        YuvFrame frame = frames.get(next);
+        next = (next + 1) % frames.size();
+        return engine.process(frame, 0);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.myapplication;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame cost of the {@link MotionGate} on the capture thread, over 2 s of a still view with
+ * sensor noise followed by 2 s of panning at 640x480, 30 fps. A full-frame JPEG encode is
+ * several ms; the gate has to stay far below that to be worth running.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MotionGateBenchmark {
+
+    private static final int W = 640;
+    private static final int H = 480;
+    private static final int STRIDE = W + 32;
+    private static final int FRAMES = 60;
+
+    private final YuvFrame[] sequence = new YuvFrame[2 * FRAMES];
+    private MotionGate gate;
+    private int next = 0;
+    private long nowMs = 0;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        for (int i = 0; i < FRAMES; i++) sequence[i] = frame(0, random);
+        for (int i = 0; i < FRAMES; i++) sequence[FRAMES + i] = frame(8 * i, random);
+        gate = new MotionGate(16, 12, 3.0, 1000);
+    }
+
+    /** Luma-only frame: a diagonal texture shifted right by {@code offset}, plus +/- 4 of noise. */
+    private static YuvFrame frame(int offset, Random random) {
+        ByteBuffer y = ByteBuffer.allocateDirect(STRIDE * H);
+        for (int r = 0; r < H; r++) {
+            for (int c = 0; c < W; c++) {
+                int value = (((c - offset) >> 5) + (r >> 5)) % 2 == 0 ? 60 : 190;
+                y.put(r * STRIDE + c, (byte) (value + random.nextInt(9) - 4));
+            }
+        }
+        ByteBuffer uv = ByteBuffer.allocateDirect(1);
+        return new YuvFrame(W, H, y, uv, uv, STRIDE, 1, 1);
+    }
+
+    @Benchmark
+    public boolean admit() {
+        YuvFrame frame = sequence[next];
+        next = (next + 1) % sequence.length;
+        nowMs += 33;
+        return gate.admit(frame, nowMs);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.myapplication;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode time per {@link PayloadMode}, with bytes per frame for each mode as the {@code bytes}
+ * and {@code frames} counters in the results. Mode strings are format/scale/region.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PayloadModeBenchmark {
+
+    @Param({ "JPEG/1/full", "LUMA/1/full", "LUMA/2/full", "LUMA/4/full",
+             "LUMA/1/center", "LUMA/2/lower", "JPEG/2/lower" })
+    public String mode;
+
+    @Param({ "640x480" })
+    public String resolution;
+
+    private YuvFrame frame;
+    private FrameEncoder encoder;
+
+    @Setup
+    public void setUp() {
+        String[] parts = mode.split("/");
+        PayloadMode payloadMode = new PayloadMode(FrameFormat.valueOf(parts[0]), Integer.parseInt(parts[1]),
+                PayloadMode.roi(parts[2]));
+        int[] size = SyntheticFrames.size(resolution);
+        frame = SyntheticFrames.frame(size[0], size[1], true);
+        encoder = new FrameEncoder(payloadMode, 50, true, new ImageIoCodecs.Jpeg());
+    }
+
+    @Benchmark
+    public byte[] encode(FrameBytesCounters counters) {
+        byte[] payload = encoder.encode(frame);
+        counters.bytes += payload.length;
+        counters.frames++;
+        return payload;
+    }
+}
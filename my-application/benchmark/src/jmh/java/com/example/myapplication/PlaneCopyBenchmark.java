@@ -0,0 +1,66 @@
+package com.example.myapplication;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-frame copy out of the camera image: Y plane only (LUMA uploads), and Y plus the VU
+ * interleave into NV21 (JPEG uploads), with and without the 180° rotation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlaneCopyBenchmark {
+
+    @Param({ "640x480", "320x240" })
+    public String resolution;
+
+    /** NV21: interleaved VU buffer (bulk copy path); I420: separate planes (per-pixel path). */
+    @Param({ "NV21", "I420" })
+    public String layout;
+
+    private YuvFrame frame;
+    private FrameEncoder lumaEncoder;
+    private FrameEncoder jpegEncoder;
+    private byte[] luma;
+    private byte[] nv21;
+
+    @Setup
+    public void setUp() {
+        int[] size = SyntheticFrames.size(resolution);
+        frame = SyntheticFrames.frame(size[0], size[1], layout.equals("NV21"));
+        lumaEncoder = new FrameEncoder(FrameFormat.LUMA, 50, true, null);
+        jpegEncoder = new FrameEncoder(FrameFormat.JPEG, 50, true, null);
+        luma = new byte[FrameFormat.LUMA.planeBytes(size[0], size[1])];
+        nv21 = new byte[FrameFormat.JPEG.planeBytes(size[0], size[1])];
+    }
+
+    /** What the capture stage does for LUMA uploads. */
+    @Benchmark
+    public byte[] lumaRotated() {
+        lumaEncoder.copyPlanes(frame, luma);
+        return luma;
+    }
+
+    /** What the capture stage does for JPEG uploads; the chroma layout is detected once per encoder. */
+    @Benchmark
+    public byte[] nv21Rotated() {
+        jpegEncoder.copyPlanes(frame, nv21);
+        return nv21;
+    }
+
+    /** One-shot pack without rotation, layout detection included (the pre-pipeline path). */
+    @Benchmark
+    public byte[] nv21UprightOneShot() {
+        FrameEncoder.toNv21(frame, nv21, false);
+        return nv21;
+    }
+}
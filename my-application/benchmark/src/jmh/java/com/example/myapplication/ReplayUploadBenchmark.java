@@ -0,0 +1,123 @@
+package com.example.myapplication;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * A replayed session through the capture-to-upload path: plane copy, encode and the HTTP
+ * upload to a local stub server, one frame per operation. The sampled times give latency
+ * percentiles and the average time frames/s; the request bytes the stub received go into the
+ * {@link FrameBytesCounters}, reported with the average time. The stub's loopback round trip is
+ * part of every sample, so compare runs with each other rather than with the glasses.
+ *
+ * Frames come from a recording made on the glasses ({@code -p recording=<file.yuvrec>}), or a
+ * synthetic 640x480 walk. They are loaded into memory once, so file reads are not measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.SampleTime, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReplayUploadBenchmark {
+
+    @Param({ "" })
+    public String recording;
+
+    @Param({ "LUMA", "JPEG" })
+    public String format;
+
+    private final List<YuvFrame> frames = new ArrayList<>();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private MockWebServer server;
+    private HttpFrameTransport transport;
+    private FrameEncoder encoder;
+    private FrameBufferPool pool;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (recording.isEmpty()) {
+            for (int i = 0; i < 30; i++) frames.add(SyntheticFrames.floorScene(640, 480, i));
+        } else {
+            try (FrameReplayer replayer = new FrameReplayer(new File(recording))) {
+                while (replayer.next()) frames.add(copy(replayer.frame())); // the replayer reuses its buffers
+            }
+        }
+
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override public MockResponse dispatch(RecordedRequest request) {
+                bytesReceived.addAndGet(request.getBodySize());
+                return new MockResponse().setBody("ok");
+            }
+        });
+        server.start();
+        OkHttpClient client = new OkHttpClient();
+        ServerPool servers = new ServerPool(client, Collections.singletonList(server.url("/").toString()),
+                ServerPool.Strategy.LEAST_OUTSTANDING, "/stt_audio");
+        transport = new HttpFrameTransport(client, servers, "/Server", "bench");
+        encoder = new FrameEncoder(FrameFormat.valueOf(format), 50, true, new ImageIoCodecs.Jpeg());
+        pool = new FrameBufferPool(1);
+    }
+
+    /** Copies the planes, keeping V and U as views of one buffer when the recording had them so. */
+    private static YuvFrame copy(YuvFrame f) {
+        ByteBuffer u;
+        ByteBuffer v;
+        if (f.u.hasArray() && f.v.hasArray() && f.u.array() == f.v.array()) {
+            byte[] vu = f.v.array().clone();
+            v = ByteBuffer.wrap(vu, f.v.arrayOffset(), f.v.capacity()).slice();
+            u = ByteBuffer.wrap(vu, f.u.arrayOffset(), f.u.capacity()).slice();
+        } else {
+            u = clone(f.u);
+            v = clone(f.v);
+        }
+        return new YuvFrame(f.width, f.height, clone(f.y), u, v, f.yRowStride, f.uvRowStride, f.uvPixelStride);
+    }
+
+    private static ByteBuffer clone(ByteBuffer b) {
+        ByteBuffer c = ByteBuffer.allocateDirect(b.capacity());
+        c.put(b.duplicate().clear());
+        return c.clear();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Benchmark
+    public int upload(FrameBytesCounters counters) throws IOException {
+        YuvFrame frame = frames.get(next);
+        next = (next + 1) % frames.size();
+        try (PooledFrame pooled = pool.acquire(frame.width, frame.height, encoder.getFormat())) {
+            encoder.copyPlanes(frame, pooled.planes);
+            encoder.compress(pooled);
+            long received = bytesReceived.get();
+            transport.send(pooled); // returns after the stub has answered, so its count is in
+            counters.bytes += bytesReceived.get() - received;
+            counters.frames++;
+            return pooled.payloadLength();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.myapplication;
+
+import java.nio.ByteBuffer;
+
+/** Camera-shaped test frames, so every benchmark measures the same input. */
+final class SyntheticFrames {
+
+    private SyntheticFrames() { }
+
+    /**
+     * @param interleaved true for one NV21 buffer behind U/V (pixel stride 2, most Camera2 HALs),
+     *                    false for separate I420 planes (pixel stride 1)
+     */
+    static YuvFrame frame(int width, int height, boolean interleaved) {
+        ByteBuffer y = ByteBuffer.allocateDirect(width * height);
+        for (int i = 0; i < width * height; i++) y.put(i, (byte) ((i % width) ^ (i / width)));
+        if (interleaved) {
+            ByteBuffer vu = ByteBuffer.allocateDirect(width * height / 2);
+            for (int i = 0; i < width * height / 2; i++) vu.put(i, (byte) (96 + (i & 63)));
+            ByteBuffer v = vu.duplicate();
+            vu.position(1);
+            ByteBuffer u = vu.slice();
+            return new YuvFrame(width, height, y, u, v, width, width, 2);
+        }
+        ByteBuffer u = ByteBuffer.allocateDirect(width * height / 4);
+        ByteBuffer v = ByteBuffer.allocateDirect(width * height / 4);
+        for (int i = 0; i < width * height / 4; i++) {
+            u.put(i, (byte) (96 + (i & 63)));
+            v.put(i, (byte) (160 - (i & 63)));
+        }
+        return new YuvFrame(width, height, y, u, v, width, width / 2, 1);
+    }
+
+    /**
+     * Upside-down (as the Blade sensor delivers it) view of a smooth floor with checkered
+     * obstacles in the lower 40%; which of the five columns are blocked varies with {@code i}.
+     */
+    static YuvFrame floorScene(int width, int height, int i) {
+        int blocked = (i * 7) % 32;
+        ByteBuffer y = ByteBuffer.allocateDirect(width * height);
+        for (int row = 0; row < height; row++) {
+            for (int x = 0; x < width; x++) {
+                int value = 60 + row * 100 / height;
+                if (row >= height * 6 / 10 && (blocked & (1 << (x * 5 / width))) != 0) {
+                    value = ((x / 8 + row / 8) & 1) == 0 ? 40 : 200;
+                }
+                y.put((height - 1 - row) * width + (width - 1 - x), (byte) value);
+            }
+        }
+        ByteBuffer uv = ByteBuffer.allocateDirect(width * height / 2);
+        return new YuvFrame(width, height, y, uv, uv, width, width, 2);
+    }
+
+    /** Parses {@code "640x480"}. */
+    static int[] size(String resolution) {
+        String[] parts = resolution.split("x");
+        return new int[] { Integer.parseInt(parts[0]), Integer.parseInt(parts[1]) };
+    }
+}
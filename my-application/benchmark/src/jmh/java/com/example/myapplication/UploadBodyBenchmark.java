@@ -0,0 +1,55 @@
+package com.example.myapplication;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okio.Buffer;
+
+/**
+ * Building and serialising one frame's request: the multipart form HTTP uploads send versus the
+ * binary header + payload message sent over the socket. Written to an in-memory sink, so this is
+ * the CPU cost only, no network.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UploadBodyBenchmark {
+
+    /** ~q50 640x480 JPEG, and a raw 640x480 luma plane. */
+    @Param({ "30000", "307200" })
+    public int payloadBytes;
+
+    private PooledFrame frame;
+    private final Buffer sink = new Buffer();
+
+    @Setup
+    public void setUp() {
+        frame = new FrameBufferPool(1).acquire(640, 480, FrameFormat.LUMA);
+        frame.seq = 42;
+        frame.captureNanos = 123_456_789L;
+        byte[] payload = new byte[payloadBytes];
+        for (int i = 0; i < payload.length; i++) payload[i] = (byte) i;
+        frame.setPayload(payload, payload.length);
+    }
+
+    @Benchmark
+    public long multipart() throws IOException {
+        sink.clear();
+        HttpFrameTransport.body(frame, "bench-session").writeTo(sink);
+        return sink.size();
+    }
+
+    @Benchmark
+    public int socketMessage() {
+        return FrameHeader.message(frame).length;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.myapplication;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The voice path's per-chunk work on the JVM: microphone reads through the {@link PcmRingBuffer}
+ * into {@link VoiceStreamer}-sized chunks, and the {@link VoiceActivityDetector} decision a clip
+ * makes every 20 ms. Cue playback itself is SoundPool and only exists on Android.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VoiceAudioBenchmark {
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final int BYTES_PER_MS = SAMPLE_RATE / 1000 * 2;
+    private static final int VAD_FRAME_MS = 20;
+
+    /** Audio per chunk; 250 ms is what MainActivity streams, 20 ms the VAD frame. */
+    @Param({ "20", "250" })
+    public int chunkMs;
+
+    private byte[] audio;       // 1 s of speech-like s16le PCM, read in a loop
+    private int audioOffset = 0;
+    private byte[] micRead;
+    private byte[] chunk;
+    private PcmRingBuffer ring;
+    private VoiceActivityDetector vad;
+    private int vadOffset = 0;
+
+    @Setup
+    public void setUp() {
+        audio = speechLike(1000);
+        int chunkBytes = chunkMs * BYTES_PER_MS;
+        micRead = new byte[Math.min(chunkBytes, 4096)]; // the capture thread's read size
+        chunk = new byte[chunkBytes];
+        ring = new PcmRingBuffer(10_000 * BYTES_PER_MS);
+        vad = new VoiceActivityDetector(SAMPLE_RATE, VAD_FRAME_MS, 10, -50, 1000);
+    }
+
+    /** Alternating 200 ms bursts of a 180 Hz voice-band tone and quiet room noise. */
+    private static byte[] speechLike(int ms) {
+        Random random = new Random(1);
+        int samples = ms * SAMPLE_RATE / 1000;
+        byte[] pcm = new byte[samples * 2];
+        for (int i = 0; i < samples; i++) {
+            boolean loud = (i / (SAMPLE_RATE / 5)) % 2 == 0;
+            double s = random.nextGaussian() * 60;
+            if (loud) s += 8000 * Math.sin(2 * Math.PI * 180 * i / SAMPLE_RATE);
+            short v = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(s)));
+            pcm[2 * i] = (byte) v;
+            pcm[2 * i + 1] = (byte) (v >> 8);
+        }
+        return pcm;
+    }
+
+    /** Capture-thread writes until a chunk is due, then the sender's read of it. */
+    @Benchmark
+    public byte[] ringChunk() throws InterruptedException {
+        while (ring.available() < chunk.length) {
+            if (audioOffset + micRead.length > audio.length) audioOffset = 0;
+            System.arraycopy(audio, audioOffset, micRead, 0, micRead.length);
+            audioOffset += micRead.length;
+            ring.write(micRead, 0, micRead.length);
+        }
+        ring.read(chunk, 0, chunk.length, 0);
+        return chunk;
+    }
+
+    /** One 20 ms speech/silence decision, noise floor tracking included. */
+    @Benchmark
+    public boolean vadFrame() {
+        int frameBytes = vad.getFrameBytes();
+        if (vadOffset + frameBytes > audio.length) vadOffset = 0;
+        boolean speech = vad.isSpeech(audio, vadOffset);
+        vadOffset += frameBytes;
+        return speech;
+    }
+}